@@ -0,0 +1,29 @@
+package com.umesh.atm.chain;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Runs a run of consecutive blocking {@link Handler} steps on a dedicated scheduler,
+ * so they can take part in a reactive chain without blocking event-loop threads.
+ * The whole run is offloaded once and its steps run back to back on the same worker,
+ * rather than hopping threads between each step.
+ * 
+ * @param <T> the type of request being processed
+ */
+public class BlockingHandlerAdapter<T> extends ReactiveHandler<T> {
+    
+    private final HandlerPipeline<T> delegate;
+    private final Scheduler scheduler;
+    
+    public BlockingHandlerAdapter(HandlerPipeline<T> delegate, Scheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+    
+    @Override
+    protected Mono<HandlerResult> doHandle(T request) {
+        return Mono.fromCallable(() -> delegate.handle(request))
+                .subscribeOn(scheduler);
+    }
+}
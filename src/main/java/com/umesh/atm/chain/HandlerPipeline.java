@@ -0,0 +1,41 @@
+package com.umesh.atm.chain;
+
+import java.util.List;
+
+/**
+ * Immutable sequence of handlers run in order, with the same result semantics as linking them via
+ * {@link Handler#setNext}. Handlers are not linked, so one handler instance can sit in many
+ * pipelines and concurrent requests never rewire shared handlers.
+ *
+ * @param <T> the type of request being processed
+ */
+public final class HandlerPipeline<T> {
+    
+    private final List<Handler<T>> handlers;
+    
+    @SafeVarargs
+    public HandlerPipeline(Handler<T>... handlers) {
+        this.handlers = List.of(handlers);
+    }
+    
+    /**
+     * Runs the handlers until one stops the pipeline.
+     * 
+     * @param request the request to process
+     * @return the first failure that let processing continue, otherwise the last result
+     */
+    public HandlerResult handle(T request) {
+        HandlerResult result = HandlerResult.success();
+        HandlerResult firstFailure = null;
+        for (Handler<T> handler : handlers) {
+            result = handler.doHandle(request);
+            if (!result.isSuccess() && firstFailure == null) {
+                firstFailure = result;
+            }
+            if (!result.isShouldContinue()) {
+                break;
+            }
+        }
+        return firstFailure != null ? firstFailure : result;
+    }
+}
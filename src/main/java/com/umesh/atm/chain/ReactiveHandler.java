@@ -0,0 +1,50 @@
+package com.umesh.atm.chain;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link Handler} for the reactive stack.
+ * Same chaining and result-merging semantics, but each step completes asynchronously.
+ * 
+ * @param <T> the type of request being processed
+ */
+public abstract class ReactiveHandler<T> {
+    
+    private ReactiveHandler<T> nextHandler;
+    
+    /**
+     * Sets the next handler in the chain.
+     * 
+     * @param nextHandler the next handler to process the request
+     * @return the next handler for method chaining
+     */
+    public ReactiveHandler<T> setNext(ReactiveHandler<T> nextHandler) {
+        this.nextHandler = nextHandler;
+        return nextHandler;
+    }
+    
+    /**
+     * Handles the request and, if allowed, continues with the next handler.
+     * 
+     * @param request the request to process
+     * @return the result of processing
+     */
+    public Mono<HandlerResult> handle(T request) {
+        return doHandle(request).flatMap(result -> {
+            if (result.isShouldContinue() && nextHandler != null) {
+                // Merge results if needed
+                return nextHandler.handle(request)
+                        .map(nextResult -> result.isSuccess() ? nextResult : result);
+            }
+            return Mono.just(result);
+        });
+    }
+    
+    /**
+     * Template method for specific handler implementation.
+     * 
+     * @param request the request to process
+     * @return the result of processing
+     */
+    protected abstract Mono<HandlerResult> doHandle(T request);
+}
@@ -0,0 +1,80 @@
+package com.umesh.atm.chain.auth;
+
+import com.umesh.atm.chain.BlockingHandlerAdapter;
+import com.umesh.atm.chain.HandlerPipeline;
+import com.umesh.atm.chain.HandlerResult;
+import com.umesh.atm.chain.ReactiveHandler;
+import com.umesh.atm.chain.auth.handlers.CardSecurityHandler;
+import com.umesh.atm.chain.auth.handlers.PinSecurityHandler;
+import com.umesh.atm.chain.auth.handlers.RateLimitingHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive authentication chain coordinator.
+ * Runs the same security handlers as {@link AuthenticationChain} without holding a request thread.
+ * Chains are wired once at startup, so concurrent requests never rewire shared handlers.
+ */
+@Service
+@Slf4j
+public class ReactiveAuthenticationChain {
+    
+    private final ReactiveHandler<AuthenticationRequest> authenticationChain;
+    private final ReactiveHandler<AuthenticationRequest> quickAuthChain;
+    
+    public ReactiveAuthenticationChain(CardSecurityHandler cardSecurityHandler,
+                                       RateLimitingHandler rateLimitingHandler,
+                                       PinSecurityHandler pinSecurityHandler) {
+        Scheduler scheduler = Schedulers.boundedElastic();
+        
+        // Order: Card Security -> Rate Limiting -> PIN Security, all blocking, so offloaded as one step
+        this.authenticationChain = new BlockingHandlerAdapter<>(new HandlerPipeline<>(
+                cardSecurityHandler, rateLimitingHandler, pinSecurityHandler), scheduler);
+        
+        // Simplified chain: Card Security -> Rate Limiting (no PIN)
+        this.quickAuthChain = new BlockingHandlerAdapter<>(new HandlerPipeline<>(
+                cardSecurityHandler, rateLimitingHandler), scheduler);
+    }
+    
+    /**
+     * Processes an authentication request through the security validation chain.
+     * 
+     * @param request the authentication request to process
+     * @return the result of chain processing
+     */
+    public Mono<HandlerResult> authenticate(AuthenticationRequest request) {
+        log.info("Starting reactive authentication chain for card: {}", request.getCardToken());
+        
+        return authenticationChain.handle(request)
+                .doOnNext(result -> logResult("Authentication", request, result))
+                .onErrorResume(e -> {
+                    log.error("Error in reactive authentication chain for card: {}", request.getCardToken(), e);
+                    return Mono.just(HandlerResult.failure("Authentication chain error", "AUTH_CHAIN_ERROR"));
+                });
+    }
+    
+    /**
+     * Processes a quick authentication check (without PIN).
+     */
+    public Mono<HandlerResult> quickAuthenticate(AuthenticationRequest request) {
+        log.info("Starting reactive quick authentication chain for card: {}", request.getCardToken());
+        
+        return quickAuthChain.handle(request)
+                .doOnNext(result -> logResult("Quick authentication", request, result))
+                .onErrorResume(e -> {
+                    log.error("Error in reactive quick authentication chain for card: {}", request.getCardToken(), e);
+                    return Mono.just(HandlerResult.failure("Quick authentication error", "QUICK_AUTH_ERROR"));
+                });
+    }
+    
+    private void logResult(String chainName, AuthenticationRequest request, HandlerResult result) {
+        if (result.isSuccess()) {
+            log.info("{} chain completed successfully for card: {}", chainName, request.getCardToken());
+        } else {
+            log.warn("{} chain failed for card: {}. Error: {}", chainName, request.getCardToken(), result.getMessage());
+        }
+    }
+}
@@ -4,7 +4,9 @@ import com.umesh.atm.chain.Handler;
 import com.umesh.atm.chain.HandlerResult;
 import com.umesh.atm.chain.auth.AuthenticationRequest;
 import com.umesh.atm.entity.Card;
-import com.umesh.atm.service.CardService;
+import com.umesh.atm.security.CardSecurityState;
+import com.umesh.atm.security.NegativeCardCache;
+import com.umesh.atm.service.AuthenticationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -12,39 +14,53 @@ import org.springframework.stereotype.Component;
 /**
  * Handler for card-level security validation in authentication chain.
  * Performs card status checks and security validations.
+ * Loads the combined card security state once and shares it with later handlers.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class CardSecurityHandler extends Handler<AuthenticationRequest> {
     
-    private final CardService cardService;
+    private final AuthenticationService authenticationService;
+    private final NegativeCardCache negativeCardCache;
     
     @Override
     protected HandlerResult doHandle(AuthenticationRequest request) {
         log.debug("Validating card security for card: {}", request.getCardToken());
         
         try {
-            // Get card details
-            Card card = cardService.getCardByToken(request.getCardToken());
-            if (card == null) {
+            // Unknown and blocked cards are answered without a database round trip
+            NegativeCardCache.Rejection rejection = negativeCardCache.lookup(request.getCardToken());
+            if (rejection != null) {
+                log.debug("Card rejected from negative cache during security check: {} ({})",
+                        request.getCardToken(), rejection.errorCode());
+                return HandlerResult.failure(rejection.message(), rejection.errorCode());
+            }
+            
+            // Load card status, expiry and attempt tracking in one lookup
+            CardSecurityState state = authenticationService.getCardSecurityState(request.getCardToken());
+            if (!state.isCardFound()) {
                 log.warn("Card not found during security check: {}", request.getCardToken());
+                negativeCardCache.recordNotFound(request.getCardToken());
                 return HandlerResult.failure("Card not found", "CARD_NOT_FOUND");
             }
             
             // Validate card is active and not blocked
-            if (!cardService.isCardActive(card)) {
+            if (!state.isActive()) {
                 log.warn("Card is not active during security check: {}", request.getCardToken());
+                negativeCardCache.recordInactive(request.getCardToken());
                 return HandlerResult.failure("Card is blocked or inactive", "CARD_INACTIVE");
             }
             
             // Check card expiry
-            if (cardService.isCardExpired(card)) {
+            if (state.isExpired()) {
                 log.warn("Card is expired during security check: {}", request.getCardToken());
                 return HandlerResult.failure("Card has expired", "CARD_EXPIRED");
             }
             
             // Store card information in security context
+            Card card = state.getCard();
+            request.setSecurityContextValue("cardSecurityState", state);
             request.setSecurityContextValue("card", card);
             request.setSecurityContextValue("cardBrand", card.getBrand());
             request.setSecurityContextValue("cardIin", card.getIin());
@@ -3,6 +3,7 @@ package com.umesh.atm.chain.auth.handlers;
 import com.umesh.atm.chain.Handler;
 import com.umesh.atm.chain.HandlerResult;
 import com.umesh.atm.chain.auth.AuthenticationRequest;
+import com.umesh.atm.security.CardSecurityState;
 import com.umesh.atm.service.AuthenticationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Component;
 /**
  * Handler for rate limiting authentication attempts.
  * Prevents brute force attacks by limiting authentication attempts.
+ * Works off the card security state loaded by CardSecurityHandler.
  */
 @Component
 @RequiredArgsConstructor
@@ -24,15 +26,21 @@ public class RateLimitingHandler extends Handler<AuthenticationRequest> {
         log.debug("Checking rate limiting for card: {}", request.getCardToken());
         
         try {
-            // Check current failed attempt count
-            int failedAttempts = authenticationService.getFailedAttempts(request.getCardToken());
-            int maxAttempts = authenticationService.getMaxFailedAttempts();
+            // Reuse the state loaded earlier in the chain; load it only if this handler runs first
+            CardSecurityState state = request.getSecurityContextValue("cardSecurityState", CardSecurityState.class);
+            if (state == null) {
+                state = authenticationService.getCardSecurityState(request.getCardToken());
+                request.setSecurityContextValue("cardSecurityState", state);
+            }
+            
+            int failedAttempts = state.getFailedAttempts();
+            int maxAttempts = state.getMaxFailedAttempts();
             
             log.debug("Current failed attempts: {} / {} for card: {}", 
                     failedAttempts, maxAttempts, request.getCardToken());
             
             // Check if card should be blocked due to too many attempts
-            if (authenticationService.shouldBlockCard(request.getCardToken())) {
+            if (authenticationService.shouldBlockCard(state)) {
                 log.warn("Card should be blocked due to rate limiting: {}", request.getCardToken());
                 return HandlerResult.failure(
                     String.format("Too many failed attempts. Card will be blocked after %d attempts.", maxAttempts),
@@ -43,7 +51,7 @@ public class RateLimitingHandler extends Handler<AuthenticationRequest> {
             // Store attempt information in security context
             request.setSecurityContextValue("failedAttempts", failedAttempts);
             request.setSecurityContextValue("maxAttempts", maxAttempts);
-            request.setSecurityContextValue("remainingAttempts", maxAttempts - failedAttempts);
+            request.setSecurityContextValue("remainingAttempts", state.getRemainingAttempts());
             
             log.debug("Rate limiting check passed for card: {}", request.getCardToken());
             return HandlerResult.success("Rate limiting check passed", null);
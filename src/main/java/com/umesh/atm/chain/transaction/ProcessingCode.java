@@ -0,0 +1,24 @@
+package com.umesh.atm.chain.transaction;
+
+import com.umesh.atm.enums.AccountType;
+import com.umesh.atm.enums.TransactionOperation;
+
+/**
+ * ISO 8583 processing code (DE 3) decoded once at ingress: transaction type, then the from and to
+ * account types. The short two-digit form ("01") means the default accounts.
+ */
+public record ProcessingCode(TransactionOperation operation, AccountType fromAccount, AccountType toAccount) {
+
+    public static final ProcessingCode UNKNOWN =
+            new ProcessingCode(TransactionOperation.UNKNOWN, AccountType.DEFAULT, AccountType.DEFAULT);
+
+    public static ProcessingCode parse(String processingCode) {
+        TransactionOperation operation = TransactionOperation.fromProcessingCode(processingCode);
+        if (operation == TransactionOperation.UNKNOWN) {
+            return UNKNOWN;
+        }
+        return new ProcessingCode(operation,
+                AccountType.fromProcessingCode(processingCode, 2),
+                AccountType.fromProcessingCode(processingCode, 4));
+    }
+}
@@ -0,0 +1,82 @@
+package com.umesh.atm.chain.transaction;
+
+import com.umesh.atm.chain.BlockingHandlerAdapter;
+import com.umesh.atm.chain.HandlerPipeline;
+import com.umesh.atm.chain.HandlerResult;
+import com.umesh.atm.chain.ReactiveHandler;
+import com.umesh.atm.chain.transaction.handlers.*;
+import com.umesh.atm.corebanking.CoreBankingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive transaction processing chain coordinator.
+ * Runs the same validation handlers as {@link TransactionProcessingChain} without holding a request thread.
+ * Chains are wired once at startup, so concurrent requests never rewire shared handlers.
+ */
+@Service
+@Slf4j
+public class ReactiveTransactionProcessingChain {
+    
+    private final ReactiveHandler<TransactionRequest> transactionChain;
+    private final ReactiveHandler<TransactionRequest> balanceInquiryChain;
+    
+    public ReactiveTransactionProcessingChain(SessionValidationHandler sessionValidationHandler,
+                                              CardValidationHandler cardValidationHandler,
+                                              PinValidationHandler pinValidationHandler,
+                                              TransactionLimitHandler transactionLimitHandler,
+                                              CashAvailabilityHandler cashAvailabilityHandler) {
+        Scheduler scheduler = Schedulers.boundedElastic();
+        
+        // Session -> Card -> PIN -> Limits -> Cash Availability, all blocking, so offloaded as one step
+        this.transactionChain = new BlockingHandlerAdapter<>(new HandlerPipeline<>(
+                sessionValidationHandler, cardValidationHandler, pinValidationHandler,
+                transactionLimitHandler, cashAvailabilityHandler), scheduler);
+        
+        // Balance inquiry: Session -> Card -> Limits (no PIN or cash check)
+        this.balanceInquiryChain = new BlockingHandlerAdapter<>(new HandlerPipeline<>(
+                sessionValidationHandler, cardValidationHandler, transactionLimitHandler), scheduler);
+    }
+    
+    /**
+     * Processes a transaction request through the validation chain.
+     * 
+     * @param request the transaction request to process
+     * @return the result of chain processing
+     */
+    public Mono<HandlerResult> processTransaction(TransactionRequest request) {
+        log.info("Starting reactive transaction processing chain for card: {}", request.getCardToken());
+        
+        return transactionChain.handle(request)
+                .doOnNext(result -> logResult("Transaction validation", request, result))
+                .onErrorResume(e -> !(e instanceof CoreBankingException), e -> {
+                    log.error("Error in reactive transaction processing chain for card: {}", request.getCardToken(), e);
+                    return Mono.just(HandlerResult.failure("Transaction processing chain error", "CHAIN_ERROR"));
+                });
+    }
+    
+    /**
+     * Processes a balance inquiry through the simplified chain.
+     */
+    public Mono<HandlerResult> processBalanceInquiry(TransactionRequest request) {
+        log.info("Starting reactive balance inquiry processing chain for card: {}", request.getCardToken());
+        
+        return balanceInquiryChain.handle(request)
+                .doOnNext(result -> logResult("Balance inquiry validation", request, result))
+                .onErrorResume(e -> !(e instanceof CoreBankingException), e -> {
+                    log.error("Error in reactive balance inquiry processing chain for card: {}", request.getCardToken(), e);
+                    return Mono.just(HandlerResult.failure("Balance inquiry processing error", "BALANCE_INQUIRY_ERROR"));
+                });
+    }
+    
+    private void logResult(String chainName, TransactionRequest request, HandlerResult result) {
+        if (result.isSuccess()) {
+            log.info("{} chain completed successfully for card: {}", chainName, request.getCardToken());
+        } else {
+            log.warn("{} chain failed for card: {}. Error: {}", chainName, request.getCardToken(), result.getMessage());
+        }
+    }
+}
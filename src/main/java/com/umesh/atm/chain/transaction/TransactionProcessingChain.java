@@ -1,54 +1,98 @@
 package com.umesh.atm.chain.transaction;
 
-import com.umesh.atm.chain.Handler;
+import com.umesh.atm.chain.HandlerPipeline;
 import com.umesh.atm.chain.HandlerResult;
 import com.umesh.atm.chain.transaction.handlers.*;
-import lombok.RequiredArgsConstructor;
+import com.umesh.atm.corebanking.CoreBankingException;
+import com.umesh.atm.enums.TransactionOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * Transaction processing chain coordinator.
- * Sets up and executes the chain of responsibility for transaction validation and processing.
+ * Selects the validation pipeline for a request's operation from a dispatch table built once at
+ * startup; supporting a new operation means adding a table entry.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class TransactionProcessingChain {
     
-    private final SessionValidationHandler sessionValidationHandler;
-    private final CardValidationHandler cardValidationHandler;
-    private final PinValidationHandler pinValidationHandler;
-    private final TransactionLimitHandler transactionLimitHandler;
-    private final CashAvailabilityHandler cashAvailabilityHandler;
+    private final Map<TransactionOperation, HandlerPipeline<TransactionRequest>> pipelines =
+            new EnumMap<>(TransactionOperation.class);
+    // Terminals without a login step (ISO 8583) carry the PIN block on every request, so every operation checks it
+    private final Map<TransactionOperation, HandlerPipeline<TransactionRequest>> pinVerifiedPipelines =
+            new EnumMap<>(TransactionOperation.class);
+    
+    public TransactionProcessingChain(SessionValidationHandler sessionValidationHandler,
+                                      CardValidationHandler cardValidationHandler,
+                                      PinValidationHandler pinValidationHandler,
+                                      TransactionLimitHandler transactionLimitHandler,
+                                      CashAvailabilityHandler cashAvailabilityHandler) {
+        // The order of handlers is important for proper validation flow
+        pipelines.put(TransactionOperation.WITHDRAWAL, new HandlerPipeline<>(
+                sessionValidationHandler, cardValidationHandler, pinValidationHandler,
+                transactionLimitHandler, cashAvailabilityHandler));
+        pipelines.put(TransactionOperation.DEPOSIT, new HandlerPipeline<>(
+                sessionValidationHandler, cardValidationHandler, pinValidationHandler,
+                transactionLimitHandler));
+        // Balance inquiry: Session -> Card -> Limits (no PIN or cash check)
+        pipelines.put(TransactionOperation.BALANCE_INQUIRY, new HandlerPipeline<>(
+                sessionValidationHandler, cardValidationHandler, transactionLimitHandler));
+
+        pinVerifiedPipelines.put(TransactionOperation.WITHDRAWAL, pipelines.get(TransactionOperation.WITHDRAWAL));
+        pinVerifiedPipelines.put(TransactionOperation.DEPOSIT, pipelines.get(TransactionOperation.DEPOSIT));
+        pinVerifiedPipelines.put(TransactionOperation.BALANCE_INQUIRY, new HandlerPipeline<>(
+                sessionValidationHandler, cardValidationHandler, pinValidationHandler, transactionLimitHandler));
+    }
     
     /**
-     * Processes a transaction request through the validation chain.
+     * Processes a transaction request through the pipeline for its operation.
      * 
      * @param request the transaction request to process
      * @return the result of chain processing
      */
     public HandlerResult processTransaction(TransactionRequest request) {
-        log.info("Starting transaction processing chain for card: {} at ATM: {}", 
+        return process(pipelines, request);
+    }
+    
+    /**
+     * Processes a request from a terminal that authenticates each request by PIN rather than a session
+     * login: every operation, balance inquiry included, validates the request's PIN.
+     */
+    public HandlerResult processPinVerifiedTransaction(TransactionRequest request) {
+        return process(pinVerifiedPipelines, request);
+    }
+    
+    private HandlerResult process(Map<TransactionOperation, HandlerPipeline<TransactionRequest>> table,
+                                  TransactionRequest request) {
+        log.info("Starting {} processing chain for card: {} at ATM: {}", request.getOperation(),
                 request.getCardToken(), request.getAtmMachine().getAtmCode());
         
+        HandlerPipeline<TransactionRequest> pipeline = table.get(request.getOperation());
+        if (pipeline == null) {
+            log.warn("No processing chain for processing code {} (card: {})",
+                    request.getProcessingCode(), request.getCardToken());
+            return HandlerResult.failure("Transaction type not supported", "OPERATION_NOT_SUPPORTED");
+        }
+        
         try {
-            // Build the chain of responsibility
-            Handler<TransactionRequest> chain = buildChain();
-            
-            // Execute the chain
-            HandlerResult result = chain.handle(request);
+            HandlerResult result = pipeline.handle(request);
             
             if (result.isSuccess()) {
-                log.info("Transaction validation chain completed successfully for card: {}", 
-                        request.getCardToken());
+                log.info("{} validation chain completed successfully for card: {}", 
+                        request.getOperation(), request.getCardToken());
             } else {
-                log.warn("Transaction validation chain failed for card: {}. Error: {}", 
-                        request.getCardToken(), result.getMessage());
+                log.warn("{} validation chain failed for card: {}. Error: {}", 
+                        request.getOperation(), request.getCardToken(), result.getMessage());
             }
             
             return result;
             
+        } catch (CoreBankingException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error in transaction processing chain for card: {}", request.getCardToken(), e);
             return HandlerResult.failure("Transaction processing chain error", "CHAIN_ERROR");
@@ -56,31 +100,13 @@ public class TransactionProcessingChain {
     }
     
     /**
-     * Builds the transaction processing chain.
-     * The order of handlers is important for proper validation flow.
-     */
-    private Handler<TransactionRequest> buildChain() {
-        // Set up the chain: Session -> Card -> PIN -> Limits -> Cash Availability
-        sessionValidationHandler
-                .setNext(cardValidationHandler)
-                .setNext(pinValidationHandler)
-                .setNext(transactionLimitHandler)
-                .setNext(cashAvailabilityHandler);
-        
-        return sessionValidationHandler;
-    }
-    
-    /**
-     * Builds a simplified chain for balance inquiry (skips cash availability).
+     * Runs the balance inquiry pipeline (skips PIN and cash availability).
      */
     public HandlerResult processBalanceInquiry(TransactionRequest request) {
         log.info("Starting balance inquiry processing chain for card: {}", request.getCardToken());
         
         try {
-            // Build simplified chain for balance inquiry
-            Handler<TransactionRequest> chain = buildBalanceInquiryChain();
-            
-            HandlerResult result = chain.handle(request);
+            HandlerResult result = pipelines.get(TransactionOperation.BALANCE_INQUIRY).handle(request);
             
             if (result.isSuccess()) {
                 log.info("Balance inquiry validation completed successfully for card: {}", 
@@ -92,18 +118,11 @@ public class TransactionProcessingChain {
             
             return result;
             
+        } catch (CoreBankingException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error in balance inquiry processing chain for card: {}", request.getCardToken(), e);
             return HandlerResult.failure("Balance inquiry processing error", "BALANCE_INQUIRY_ERROR");
         }
     }
-    
-    private Handler<TransactionRequest> buildBalanceInquiryChain() {
-        // Simplified chain for balance inquiry: Session -> Card -> Limits (no PIN or cash check)
-        sessionValidationHandler
-                .setNext(cardValidationHandler)
-                .setNext(transactionLimitHandler);
-        
-        return sessionValidationHandler;
-    }
 }
@@ -1,6 +1,7 @@
 package com.umesh.atm.chain.transaction;
 
 import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.enums.TransactionOperation;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -26,6 +27,10 @@ public class TransactionRequest {
     private final String currency;
     private final String pin;
     
+    // Decoded from processingCode by the builder
+    @Builder.Default
+    private final ProcessingCode parsedProcessingCode = ProcessingCode.UNKNOWN;
+    
     // Additional context data that handlers can use and modify
     @Builder.Default
     private final Map<String, Object> context = new HashMap<>();
@@ -49,24 +54,42 @@ public class TransactionRequest {
         context.put(key, value);
     }
     
+    /**
+     * Gets the transaction type decoded from the processing code.
+     */
+    public TransactionOperation getOperation() {
+        return parsedProcessingCode.operation();
+    }
+    
     /**
      * Checks if this is a withdrawal transaction.
      */
     public boolean isWithdrawal() {
-        return "01".equals(processingCode) || "010000".equals(processingCode);
+        return getOperation() == TransactionOperation.WITHDRAWAL;
     }
     
     /**
      * Checks if this is a balance inquiry transaction.
      */
     public boolean isBalanceInquiry() {
-        return "31".equals(processingCode) || "310000".equals(processingCode);
+        return getOperation() == TransactionOperation.BALANCE_INQUIRY;
     }
     
     /**
      * Checks if this is a deposit transaction.
      */
     public boolean isDeposit() {
-        return "21".equals(processingCode) || "210000".equals(processingCode);
+        return getOperation() == TransactionOperation.DEPOSIT;
+    }
+    
+    public static class TransactionRequestBuilder {
+        
+        /**
+         * Sets the processing code and decodes it once, so handlers never compare strings.
+         */
+        public TransactionRequestBuilder processingCode(String processingCode) {
+            this.processingCode = processingCode;
+            return parsedProcessingCode(ProcessingCode.parse(processingCode));
+        }
     }
 }
@@ -4,6 +4,7 @@ import com.umesh.atm.chain.Handler;
 import com.umesh.atm.chain.HandlerResult;
 import com.umesh.atm.chain.transaction.TransactionRequest;
 import com.umesh.atm.entity.Card;
+import com.umesh.atm.security.NegativeCardCache;
 import com.umesh.atm.service.CardService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,22 +20,32 @@ import org.springframework.stereotype.Component;
 public class CardValidationHandler extends Handler<TransactionRequest> {
     
     private final CardService cardService;
+    private final NegativeCardCache negativeCardCache;
     
     @Override
     protected HandlerResult doHandle(TransactionRequest request) {
         log.debug("Validating card: {}", request.getCardToken());
         
         try {
+            // Unknown and blocked cards are answered without a database round trip
+            NegativeCardCache.Rejection rejection = negativeCardCache.lookup(request.getCardToken());
+            if (rejection != null) {
+                log.debug("Card rejected from negative cache: {} ({})", request.getCardToken(), rejection.errorCode());
+                return HandlerResult.failure(rejection.message(), rejection.errorCode());
+            }
+            
             // Get card details
             Card card = cardService.getCardByToken(request.getCardToken());
             if (card == null) {
                 log.warn("Card not found: {}", request.getCardToken());
+                negativeCardCache.recordNotFound(request.getCardToken());
                 return HandlerResult.failure("Card not found", "CARD_NOT_FOUND");
             }
             
             // Check if card is active
             if (!cardService.isCardActive(card)) {
                 log.warn("Card is not active: {}", request.getCardToken());
+                negativeCardCache.recordInactive(request.getCardToken());
                 return HandlerResult.failure("Card is blocked or inactive", "CARD_INACTIVE");
             }
             
@@ -41,6 +41,7 @@ public class PinValidationHandler extends Handler<TransactionRequest> {
             // Check if card should be blocked due to too many failed attempts
             if (authenticationService.shouldBlockCard(request.getCardToken())) {
                 log.warn("Card should be blocked due to too many failed attempts: {}", request.getCardToken());
+                // Persists the block only; session termination and audit follow asynchronously
                 cardService.blockCard(request.getCardToken());
                 return HandlerResult.failure("Card blocked due to multiple failed attempts", "CARD_BLOCKED");
             }
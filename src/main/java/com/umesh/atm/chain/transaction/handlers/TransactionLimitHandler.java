@@ -3,6 +3,8 @@ package com.umesh.atm.chain.transaction.handlers;
 import com.umesh.atm.chain.Handler;
 import com.umesh.atm.chain.HandlerResult;
 import com.umesh.atm.chain.transaction.TransactionRequest;
+import com.umesh.atm.corebanking.AccountSnapshot;
+import com.umesh.atm.corebanking.CoreBankingException;
 import com.umesh.atm.service.BalanceService;
 import com.umesh.atm.service.TransactionService;
 import lombok.RequiredArgsConstructor;
@@ -34,22 +36,28 @@ public class TransactionLimitHandler extends Handler<TransactionRequest> {
                 return HandlerResult.failure("Daily transaction limit exceeded", "DAILY_TXN_LIMIT_EXCEEDED");
             }
             
-            // For withdrawal transactions, check additional limits
-            if (request.isWithdrawal()) {
-                return validateWithdrawalLimits(request);
-            }
-            
-            // For balance inquiry, no amount limits to check
-            if (request.isBalanceInquiry()) {
-                if (!balanceService.isBalanceInquiryAllowed(request.getCardToken())) {
-                    log.warn("Balance inquiry not allowed for card: {}", request.getCardToken());
-                    return HandlerResult.failure("Balance inquiry not allowed", "BALANCE_INQUIRY_NOT_ALLOWED");
+            switch (request.getOperation()) {
+                // For withdrawal transactions, check additional limits
+                case WITHDRAWAL -> {
+                    return validateWithdrawalLimits(request);
+                }
+                // For balance inquiry, no amount limits to check
+                case BALANCE_INQUIRY -> {
+                    if (!accountOf(request).inquiryAllowed()) {
+                        log.warn("Balance inquiry not allowed for card: {}", request.getCardToken());
+                        return HandlerResult.failure("Balance inquiry not allowed", "BALANCE_INQUIRY_NOT_ALLOWED");
+                    }
+                }
+                default -> {
                 }
             }
             
             log.debug("Transaction limits validation successful for card: {}", request.getCardToken());
             return HandlerResult.success("Transaction limits validated", null);
             
+        } catch (CoreBankingException e) {
+            // Not a limit failure: callers answer it as core banking being unavailable
+            throw e;
         } catch (Exception e) {
             log.error("Error during transaction limits validation for card: {}", request.getCardToken(), e);
             return HandlerResult.failure("Transaction limits validation error", "LIMITS_ERROR");
@@ -71,7 +79,7 @@ public class TransactionLimitHandler extends Handler<TransactionRequest> {
         }
         
         // Check if account has sufficient balance
-        if (!balanceService.hasSufficientBalance(cardToken, amount)) {
+        if (amount.compareTo(accountOf(request).availableBalance()) > 0) {
             log.warn("Insufficient balance for withdrawal amount {} for card: {}", amount, cardToken);
             return HandlerResult.failure("Insufficient account balance", "INSUFFICIENT_BALANCE");
         }
@@ -82,4 +90,14 @@ public class TransactionLimitHandler extends Handler<TransactionRequest> {
         
         return HandlerResult.success("Withdrawal limits validated", null);
     }
+    
+    /**
+     * Fetches the account snapshot once and keeps it in the request context, so the caller answering
+     * the request (e.g. with the balance) doesn't go back to core banking.
+     */
+    private AccountSnapshot accountOf(TransactionRequest request) {
+        AccountSnapshot account = balanceService.getAccountSnapshot(request.getCardToken());
+        request.setContextValue("accountSnapshot", account);
+        return account;
+    }
 }
@@ -0,0 +1,71 @@
+package com.umesh.atm.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.umesh.atm.corebanking.CoreBankingClient;
+import com.umesh.atm.corebanking.HedgingCoreBankingClient;
+import com.umesh.atm.corebanking.HttpCoreBankingClient;
+import com.umesh.atm.corebanking.SimulatedCoreBankingClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Selects the core banking client (atm.core-banking.mode: simulator or http) and wraps it with hedging.
+ */
+@Configuration
+public class CoreBankingClientConfig {
+
+    @Value("${atm.core-banking.mode:simulator}")
+    private String mode;
+
+    @Value("${atm.core-banking.base-url:http://localhost:8090}")
+    private String baseUrl;
+
+    @Value("${atm.core-banking.connect-timeout-ms:1000}")
+    private long connectTimeoutMs;
+
+    @Value("${atm.core-banking.io-threads:4}")
+    private int ioThreads;
+
+    @Value("${atm.core-banking.simulator.median-latency-ms:20}")
+    private long simulatorMedianMs;
+
+    @Value("${atm.core-banking.simulator.p99-latency-ms:250}")
+    private long simulatorP99Ms;
+
+    @Value("${atm.core-banking.simulator.failure-rate:0.001}")
+    private double simulatorFailureRate;
+
+    @Value("${atm.core-banking.hedging.enabled:true}")
+    private boolean hedgingEnabled;
+
+    @Value("${atm.core-banking.hedging.percentile:0.95}")
+    private double hedgingPercentile;
+
+    @Value("${atm.core-banking.hedging.initial-delay-ms:50}")
+    private long hedgingInitialDelayMs;
+
+    @Value("${atm.core-banking.hedging.min-delay-ms:5}")
+    private long hedgingMinDelayMs;
+
+    @Value("${atm.core-banking.hedging.max-ratio:0.1}")
+    private double hedgingMaxRatio;
+
+    @Value("${atm.currency:INR}")
+    private String currency;
+
+    @Bean
+    public CoreBankingClient coreBankingClient(ObjectMapper objectMapper) {
+        CoreBankingClient client = "http".equalsIgnoreCase(mode)
+                ? new HttpCoreBankingClient(baseUrl, Duration.ofMillis(connectTimeoutMs), ioThreads, objectMapper)
+                : new SimulatedCoreBankingClient(Duration.ofMillis(simulatorMedianMs), Duration.ofMillis(simulatorP99Ms),
+                        simulatorFailureRate, currency);
+        if (!hedgingEnabled) {
+            return client;
+        }
+        return new HedgingCoreBankingClient(client, hedgingPercentile, Duration.ofMillis(hedgingInitialDelayMs),
+                Duration.ofMillis(hedgingMinDelayMs), hedgingMaxRatio);
+    }
+}
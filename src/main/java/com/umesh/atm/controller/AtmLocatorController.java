@@ -0,0 +1,83 @@
+package com.umesh.atm.controller;
+
+import com.umesh.atm.enums.AtmStatus;
+import com.umesh.atm.geo.AtmFilter;
+import com.umesh.atm.geo.AtmLocator;
+import com.umesh.atm.geo.NearbyAtm;
+import com.umesh.atm.service.CashService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ATM locator: the nearest ATMs to a point, optionally only those that can dispense an amount now.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/atm/locations")
+@RequiredArgsConstructor
+public class AtmLocatorController {
+
+    private final AtmLocator atmLocator;
+    private final CashService cashService;
+
+    @Value("${atm.geo-index.max-results:50}")
+    private int maxResults;
+
+    @Value("${atm.geo-index.max-radius-km:100}")
+    private double maxRadiusKm;
+
+    private static final String ANY_STATUS = "ANY";
+
+    /**
+     * Lists ATMs nearest first. Status is ACTIVE (the default) or ANY; capability flags left out match any ATM.
+     */
+    @GetMapping("/nearest")
+    public ResponseEntity<Map<String, Object>> getNearest(@RequestParam double latitude,
+                                                          @RequestParam double longitude,
+                                                          @RequestParam(defaultValue = "5") int limit,
+                                                          @RequestParam(defaultValue = "10") double radiusKm,
+                                                          @RequestParam(defaultValue = "ACTIVE") String status,
+                                                          @RequestParam(required = false) Boolean withdrawal,
+                                                          @RequestParam(required = false) Boolean deposit,
+                                                          @RequestParam(required = false) Boolean cardless,
+                                                          @RequestParam(required = false) BigDecimal amount) {
+        Map<String, Object> response = new HashMap<>();
+        if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180 || limit < 1 || limit > maxResults
+                || radiusKm <= 0 || radiusKm > maxRadiusKm) {
+            response.put("success", false);
+            response.put("message", "Invalid search: limit 1-" + maxResults + ", radius up to " + maxRadiusKm + " km");
+            response.put("errorCode", "INVALID_LOCATION_QUERY");
+            return ResponseEntity.badRequest().body(response);
+        }
+        boolean activeOnly = AtmStatus.ACTIVE.name().equalsIgnoreCase(status);
+        if (!activeOnly && !ANY_STATUS.equalsIgnoreCase(status)) {
+            response.put("success", false);
+            response.put("message", "Invalid status: ACTIVE or ANY");
+            response.put("errorCode", "INVALID_LOCATION_QUERY");
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (amount != null && !cashService.isValidWithdrawalAmount(amount)) {
+            response.put("success", false);
+            response.put("message", "Invalid withdrawal amount");
+            response.put("errorCode", "INVALID_WITHDRAWAL_AMOUNT");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        Long amountMinor = amount == null ? null : amount.movePointRight(2).longValueExact();
+        List<NearbyAtm> atms = atmLocator.nearest(latitude, longitude, limit, radiusKm,
+                new AtmFilter(activeOnly, withdrawal, deposit, cardless, amountMinor));
+
+        response.put("success", true);
+        response.put("count", atms.size());
+        response.put("atms", atms);
+        return ResponseEntity.ok(response);
+    }
+}
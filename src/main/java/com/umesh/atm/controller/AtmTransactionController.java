@@ -5,26 +5,54 @@ import com.umesh.atm.chain.auth.AuthenticationChain;
 import com.umesh.atm.chain.auth.AuthenticationRequest;
 import com.umesh.atm.chain.transaction.TransactionProcessingChain;
 import com.umesh.atm.chain.transaction.TransactionRequest;
+import com.umesh.atm.controller.response.AccountsSummaryResponse;
+import com.umesh.atm.controller.response.AtmResponse;
+import com.umesh.atm.controller.response.AuthenticationResponse;
+import com.umesh.atm.controller.response.BalanceResponse;
+import com.umesh.atm.controller.response.ErrorResponse;
+import com.umesh.atm.controller.response.HistoryResponse;
+import com.umesh.atm.controller.response.LogoutResponse;
+import com.umesh.atm.controller.response.WithdrawalResponse;
+import com.umesh.atm.corebanking.AccountSnapshot;
+import com.umesh.atm.corebanking.CoreBankingException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.history.TransactionHistoryPage;
+import com.umesh.atm.history.TransactionHistoryReader;
+import com.umesh.atm.idempotency.IdempotencyConflictException;
+import com.umesh.atm.idempotency.RequestCoalescer;
 import com.umesh.atm.service.AtmSessionService;
 import com.umesh.atm.service.BalanceService;
 import com.umesh.atm.service.CashService;
+import com.umesh.atm.service.TransactionService;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
-import java.util.HashMap;
+import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST controller demonstrating the use of Chain of Responsibility pattern
  * in ATM transaction processing.
+ * Servlet stack; the "reactive" profile replaces it with AtmReactiveRouter.
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/atm")
 @RequiredArgsConstructor
 @Slf4j
@@ -35,12 +63,18 @@ public class AtmTransactionController {
     private final AtmSessionService sessionService;
     private final BalanceService balanceService;
     private final CashService cashService;
+    private final TransactionService transactionService;
+    private final RequestCoalescer requestCoalescer;
+    private final TransactionHistoryReader historyReader;
+    private final ObjectMapper objectMapper;
+    
+    private static final String NDJSON = "application/x-ndjson";
     
     /**
      * Authenticates user with PIN using authentication chain.
      */
     @PostMapping("/authenticate")
-    public ResponseEntity<Map<String, Object>> authenticate(@RequestBody AuthenticationRequestDto request) {
+    public ResponseEntity<AtmResponse> authenticate(@RequestBody AuthenticationRequestDto request) {
         log.info("Authentication request for card token: {}", request.getCardToken());
         
         try {
@@ -60,43 +94,54 @@ public class AtmTransactionController {
             // Process through authentication chain
             HandlerResult result = authenticationChain.authenticate(authRequest);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", result.isSuccess());
-            response.put("message", result.getMessage());
-            
             if (!result.isSuccess()) {
-                response.put("errorCode", result.getErrorCode());
-                return ResponseEntity.badRequest().body(response);
+                return ResponseEntity.badRequest().body(ErrorResponse.of(result));
             }
             
             // Create session after successful authentication
             String sessionId = sessionService.createSession(atmMachine, request.getCardToken());
             
-            response.put("authenticated", true);
-            response.put("sessionId", sessionId);
-            response.put("sessionTimeoutSeconds", sessionService.getSessionTimeoutSeconds());
-            response.put("message", "Authentication successful. Session created.");
-            
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new AuthenticationResponse(sessionId, sessionService.getSessionTimeoutSeconds()));
             
         } catch (Exception e) {
             log.error("Error during authentication", e);
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", "Authentication service error");
-            errorResponse.put("errorCode", "AUTH_SERVICE_ERROR");
-            return ResponseEntity.internalServerError().body(errorResponse);
+            return ResponseEntity.internalServerError().body(ErrorResponse.AUTH_SERVICE_ERROR);
         }
     }
     
     /**
      * Processes cash withdrawal using transaction processing chain.
+     * Retries carrying the same clientRequestId are coalesced onto one execution, so cash is dispensed once.
      */
     @PostMapping("/withdraw")
-    public ResponseEntity<Map<String, Object>> withdraw(@RequestBody WithdrawalRequestDto request) {
+    public ResponseEntity<AtmResponse> withdraw(@RequestBody WithdrawalRequestDto request) {
         log.info("Withdrawal request for amount: {} from card: {}", 
                 request.getAmount(), request.getCardToken());
         
+        if (request.getClientRequestId() == null) {
+            return processWithdrawal(request);
+        }
+        
+        try {
+            return requestCoalescer.execute(
+                    request.getSessionId() + ":" + request.getClientRequestId(),
+                    request.fingerprint(),
+                    () -> CompletableFuture.completedFuture(processWithdrawal(request)),
+                    response -> !response.getStatusCode().is5xxServerError()).join();
+            
+        } catch (IdempotencyConflictException e) {
+            log.warn("Withdrawal request id reused with different payload: {}", request.getClientRequestId());
+            return ResponseEntity.status(409).body(ErrorResponse.DUPLICATE_REQUEST_MISMATCH);
+        } catch (RejectedExecutionException e) {
+            log.warn("Rejecting withdrawal, idempotency registry full");
+            return ResponseEntity.status(503).body(ErrorResponse.TOO_MANY_IN_FLIGHT_REQUESTS);
+        } catch (CompletionException e) {
+            log.error("Error during coalesced withdrawal processing", e.getCause());
+            return ResponseEntity.internalServerError().body(ErrorResponse.WITHDRAWAL_SERVICE_ERROR);
+        }
+    }
+    
+    private ResponseEntity<AtmResponse> processWithdrawal(WithdrawalRequestDto request) {
         try {
             // Get ATM machine from session
             AtmMachine atmMachine = sessionService.getAtmMachineFromSession(request.getSessionId());
@@ -115,32 +160,29 @@ public class AtmTransactionController {
             // Process through transaction chain
             HandlerResult result = transactionProcessingChain.processTransaction(txnRequest);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", result.isSuccess());
-            response.put("message", result.getMessage());
-            
             if (!result.isSuccess()) {
-                response.put("errorCode", result.getErrorCode());
-                return ResponseEntity.badRequest().body(response);
+                return ResponseEntity.badRequest().body(ErrorResponse.of(result));
             }
             
-            // If validation passed, process the actual withdrawal
-            boolean withdrawalSuccess = cashService.withdrawCash(atmMachine, request.getCardToken(), request.getAmount());
-            
-            response.put("withdrawalProcessed", withdrawalSuccess);
-            response.put("amount", request.getAmount());
-            response.put("denominationDistribution", 
-                    txnRequest.getContextValue("denominationDistribution", Map.class));
+            // If validation passed, record the transaction and process the actual withdrawal
+            Transaction transaction = transactionService.createTransaction(
+                    atmMachine, request.getCardToken(), txnRequest.getProcessingCode(), request.getAmount());
+            // Report the notes actually debited from the cassettes, not the chain's earlier plan
+            Map<Integer, Integer> dispensedNotes =
+                    cashService.dispenseCash(atmMachine, request.getCardToken(), request.getAmount());
+            boolean withdrawalSuccess = dispensedNotes != null;
+            transactionService.logTransactionCompletion(
+                    transaction.getId(), withdrawalSuccess, withdrawalSuccess ? "00" : "05");
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new WithdrawalResponse(result.getMessage(), withdrawalSuccess,
+                    request.getAmount(), dispensedNotes));
             
+        } catch (CoreBankingException e) {
+            log.warn("Core banking unavailable for withdrawal: {}", e.getMessage());
+            return ResponseEntity.status(503).body(ErrorResponse.CORE_BANKING_UNAVAILABLE);
         } catch (Exception e) {
             log.error("Error during withdrawal processing", e);
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", "Withdrawal service error");
-            errorResponse.put("errorCode", "WITHDRAWAL_SERVICE_ERROR");
-            return ResponseEntity.internalServerError().body(errorResponse);
+            return ResponseEntity.internalServerError().body(ErrorResponse.WITHDRAWAL_SERVICE_ERROR);
         }
     }
     
@@ -148,7 +190,7 @@ public class AtmTransactionController {
      * Processes balance inquiry using simplified transaction chain.
      */
     @PostMapping("/balance")
-    public ResponseEntity<Map<String, Object>> getBalance(@RequestBody BalanceInquiryRequestDto request) {
+    public ResponseEntity<AtmResponse> getBalance(@RequestBody BalanceInquiryRequestDto request) {
         log.info("Balance inquiry request from card: {}", request.getCardToken());
         
         try {
@@ -168,60 +210,141 @@ public class AtmTransactionController {
             // Process through balance inquiry chain (simplified)
             HandlerResult result = transactionProcessingChain.processBalanceInquiry(txnRequest);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", result.isSuccess());
-            response.put("message", result.getMessage());
-            
             if (!result.isSuccess()) {
-                response.put("errorCode", result.getErrorCode());
-                return ResponseEntity.badRequest().body(response);
+                return ResponseEntity.badRequest().body(ErrorResponse.of(result));
             }
             
-            // If validation passed, get the actual balance
-            BigDecimal currentBalance = balanceService.getCurrentBalance(request.getCardToken());
-            BigDecimal availableBalance = balanceService.getAvailableBalance(request.getCardToken());
+            // Fetched once by the limits step
+            AccountSnapshot account = txnRequest.getContextValue("accountSnapshot", AccountSnapshot.class);
             BigDecimal dailyLimit = balanceService.getRemainingDailyLimit(request.getCardToken());
             
-            response.put("currentBalance", currentBalance);
-            response.put("availableBalance", availableBalance);
-            response.put("remainingDailyLimit", dailyLimit);
-            response.put("accountType", balanceService.getAccountType(request.getCardToken()));
-            
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new BalanceResponse(result.getMessage(), account.ledgerBalance(),
+                    account.availableBalance(), dailyLimit, account.accountType()));
             
+        } catch (CoreBankingException e) {
+            log.warn("Core banking unavailable for balance inquiry: {}", e.getMessage());
+            return ResponseEntity.status(503).body(ErrorResponse.CORE_BANKING_UNAVAILABLE);
         } catch (Exception e) {
             log.error("Error during balance inquiry", e);
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", "Balance inquiry service error");
-            errorResponse.put("errorCode", "BALANCE_SERVICE_ERROR");
-            return ResponseEntity.internalServerError().body(errorResponse);
+            return ResponseEntity.internalServerError().body(ErrorResponse.BALANCE_SERVICE_ERROR);
+        }
+    }
+    
+    /**
+     * Returns the balances of all accounts linked to the session card and its latest transactions,
+     * validating the inquiry once and fetching the accounts from core banking in parallel.
+     */
+    @PostMapping("/accounts/summary")
+    public ResponseEntity<AtmResponse> getAccountsSummary(@RequestBody AccountsSummaryRequestDto request) {
+        try {
+            String cardToken = sessionService.getCardTokenFromSession(request.getSessionId());
+            if (cardToken == null) {
+                return ResponseEntity.status(401).body(ErrorResponse.INVALID_SESSION);
+            }
+            log.info("Accounts summary request from card: {}", cardToken);
+            
+            TransactionRequest txnRequest = TransactionRequest.builder()
+                    .sessionId(request.getSessionId())
+                    .cardToken(cardToken)
+                    .atmMachine(sessionService.getAtmMachineFromSession(request.getSessionId()))
+                    .processingCode("310000") // Balance inquiry processing code
+                    .amount(BigDecimal.ZERO)
+                    .currency("INR")
+                    .build();
+            
+            HandlerResult result = transactionProcessingChain.processBalanceInquiry(txnRequest);
+            if (!result.isSuccess()) {
+                return ResponseEntity.badRequest().body(ErrorResponse.of(result));
+            }
+            
+            Map<String, AccountSnapshot> accounts = balanceService.getLinkedAccountSnapshots(cardToken);
+            if (accounts == null) {
+                return ResponseEntity.status(503).body(ErrorResponse.CORE_BANKING_UNAVAILABLE);
+            }
+            TransactionHistoryPage statement = historyReader.readPage(cardToken, null, request.getStatementSize());
+            
+            return ResponseEntity.ok(new AccountsSummaryResponse(accounts,
+                    balanceService.getRemainingDailyLimit(cardToken), statement.items()));
+            
+        } catch (CoreBankingException e) {
+            log.warn("Core banking unavailable for accounts summary: {}", e.getMessage());
+            return ResponseEntity.status(503).body(ErrorResponse.CORE_BANKING_UNAVAILABLE);
+        } catch (Exception e) {
+            log.error("Error during accounts summary", e);
+            return ResponseEntity.internalServerError().body(ErrorResponse.BALANCE_SERVICE_ERROR);
+        }
+    }
+    
+    /**
+     * Returns one page of the session card's transaction history, newest first.
+     * Pass the returned nextCursor to fetch the following (older) page.
+     */
+    @GetMapping("/transactions/history")
+    public ResponseEntity<AtmResponse> getTransactionHistory(@RequestParam String sessionId,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "10") int limit) {
+        try {
+            String cardToken = sessionService.getCardTokenFromSession(sessionId);
+            if (cardToken == null) {
+                return ResponseEntity.status(401).body(ErrorResponse.INVALID_SESSION);
+            }
+            
+            TransactionHistoryPage page = historyReader.readPage(cardToken, cursor, limit);
+            return ResponseEntity.ok(new HistoryResponse(page));
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage(), "INVALID_CURSOR"));
+        } catch (Exception e) {
+            log.error("Error during transaction history retrieval", e);
+            return ResponseEntity.internalServerError().body(ErrorResponse.HISTORY_SERVICE_ERROR);
         }
     }
     
+    /**
+     * Exports the session card's history as newline-delimited JSON, streamed straight from the database.
+     */
+    @GetMapping(value = "/transactions/history/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportTransactionHistory(
+            @RequestParam String sessionId,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to) {
+        String cardToken = sessionService.getCardTokenFromSession(sessionId);
+        if (cardToken == null) {
+            return ResponseEntity.status(401).build();
+        }
+        
+        Instant start = from != null ? from : Instant.EPOCH;
+        Instant end = to != null ? to : Instant.now();
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            historyReader.stream(cardToken, start, end, entry -> {
+                try {
+                    generator.writeObject(entry);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+    
     /**
      * Terminates user session (logout).
      */
     @PostMapping("/logout")
-    public ResponseEntity<Map<String, Object>> logout(@RequestBody LogoutRequestDto request) {
+    public ResponseEntity<AtmResponse> logout(@RequestBody LogoutRequestDto request) {
         log.info("Logout request for session: {}", request.getSessionId());
         
         try {
             boolean terminated = sessionService.terminateSession(request.getSessionId());
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", terminated);
-            response.put("message", terminated ? "Session terminated successfully" : "Session not found or already terminated");
-            
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(LogoutResponse.of(terminated));
             
         } catch (Exception e) {
             log.error("Error during logout", e);
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", "Logout service error");
-            errorResponse.put("errorCode", "LOGOUT_SERVICE_ERROR");
-            return ResponseEntity.internalServerError().body(errorResponse);
+            return ResponseEntity.internalServerError().body(ErrorResponse.LOGOUT_SERVICE_ERROR);
         }
     }
     
@@ -243,6 +366,15 @@ public class AtmTransactionController {
         private String sessionId;
         private BigDecimal amount;
         private String pin;
+        // Terminal-generated id, identical on retries of the same withdrawal
+        private String clientRequestId;
+        
+        /**
+         * Payload digest used to detect a request id reused for a different withdrawal.
+         */
+        public String fingerprint() {
+            return cardToken + "|" + (amount != null ? amount.stripTrailingZeros().toPlainString() : "");
+        }
     }
 
     @Getter
@@ -252,6 +384,14 @@ public class AtmTransactionController {
         private String sessionId;
     }
 
+    @Getter
+    @Setter
+    public static class AccountsSummaryRequestDto {
+        private String sessionId;
+        // Number of transactions in the mini statement
+        private int statementSize = 5;
+    }
+
     @Getter
     @Setter
     public static class LogoutRequestDto {
@@ -0,0 +1,57 @@
+package com.umesh.atm.controller;
+
+import com.umesh.atm.forecast.CashForecastEngine;
+import com.umesh.atm.forecast.DepletionForecast;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operations endpoints for cash depletion forecasts, used to plan refill routes.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/admin/cash-forecasts")
+@RequiredArgsConstructor
+public class CashForecastController {
+
+    private final CashForecastEngine cashForecastEngine;
+
+    /**
+     * Lists forecasts, soonest depletion first.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getForecasts(@RequestParam(required = false) Integer withinHours) {
+        List<DepletionForecast> forecasts = cashForecastEngine.getForecasts(withinHours);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("count", forecasts.size());
+        response.put("forecasts", forecasts);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Returns the forecast for one ATM.
+     */
+    @GetMapping("/{atmCode}")
+    public ResponseEntity<Map<String, Object>> getForecast(@PathVariable String atmCode) {
+        DepletionForecast forecast = cashForecastEngine.getForecast(atmCode);
+
+        Map<String, Object> response = new HashMap<>();
+        if (forecast == null) {
+            response.put("success", false);
+            response.put("message", "No forecast for ATM");
+            response.put("errorCode", "FORECAST_NOT_FOUND");
+            return ResponseEntity.status(404).body(response);
+        }
+        response.put("success", true);
+        response.put("forecast", forecast);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,151 @@
+package com.umesh.atm.controller;
+
+import com.umesh.atm.chain.HandlerResult;
+import com.umesh.atm.chain.transaction.TransactionRequest;
+import com.umesh.atm.controller.response.AtmResponse;
+import com.umesh.atm.controller.response.DepositResponse;
+import com.umesh.atm.controller.response.ErrorResponse;
+import com.umesh.atm.deposit.DepositBatchResult;
+import com.umesh.atm.deposit.DepositPipeline;
+import com.umesh.atm.deposit.DepositReceipt;
+import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.service.AtmSessionService;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Cash deposit endpoints: start, stream note batches from the acceptor, then confirm or cancel.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/atm/deposits")
+@RequiredArgsConstructor
+@Slf4j
+public class DepositController {
+
+    private final DepositPipeline depositPipeline;
+    private final AtmSessionService sessionService;
+
+    /**
+     * Starts a deposit after the deposit chain (session, card, PIN, limits).
+     */
+    @PostMapping
+    public ResponseEntity<AtmResponse> startDeposit(@RequestBody DepositStartRequestDto request) {
+        log.info("Deposit request from card: {}", request.getCardToken());
+
+        try {
+            AtmMachine atmMachine = sessionService.getAtmMachineFromSession(request.getSessionId());
+            if (atmMachine == null) {
+                return ResponseEntity.status(401).body(ErrorResponse.INVALID_SESSION);
+            }
+
+            TransactionRequest txnRequest = TransactionRequest.builder()
+                    .sessionId(request.getSessionId())
+                    .cardToken(request.getCardToken())
+                    .atmMachine(atmMachine)
+                    .processingCode(DepositPipeline.DEPOSIT_PROCESSING_CODE)
+                    .amount(BigDecimal.ZERO)
+                    .currency("INR")
+                    .pin(request.getPin())
+                    .build();
+
+            HandlerResult result = depositPipeline.open(txnRequest);
+            if (!result.isSuccess()) {
+                return ResponseEntity.badRequest().body(ErrorResponse.of(result));
+            }
+            return ResponseEntity.ok(new DepositResponse(result.getMessage(), (String) result.getData(),
+                    BigDecimal.ZERO.setScale(2), 0, null, null, null, null));
+
+        } catch (Exception e) {
+            log.error("Error starting deposit", e);
+            return ResponseEntity.internalServerError().body(ErrorResponse.DEPOSIT_SERVICE_ERROR);
+        }
+    }
+
+    /**
+     * Adds one batch of counted notes (face value → count) to the deposit.
+     */
+    @PostMapping("/{depositId}/notes")
+    public ResponseEntity<AtmResponse> addNotes(@PathVariable String depositId,
+                                                @RequestBody DepositNotesRequestDto request) {
+        try {
+            DepositBatchResult batch = depositPipeline.acceptBatch(depositId, request.getSessionId(),
+                    request.getNotes() != null ? request.getNotes() : Map.of());
+            if (batch == null) {
+                return ResponseEntity.status(404).body(ErrorResponse.DEPOSIT_NOT_FOUND);
+            }
+            return ResponseEntity.ok(new DepositResponse(
+                    batch.rejectionReason() == null ? "Notes accepted" : "Some notes rejected",
+                    depositId, batch.runningTotal(), batch.noteCount(),
+                    batch.acceptedNotes(), batch.rejectedNotes(), batch.rejectionReason(), null));
+
+        } catch (Exception e) {
+            log.error("Error adding notes to deposit {}", depositId, e);
+            return ResponseEntity.internalServerError().body(ErrorResponse.DEPOSIT_SERVICE_ERROR);
+        }
+    }
+
+    /**
+     * Commits the deposit once the customer confirms the total.
+     */
+    @PostMapping("/{depositId}/confirm")
+    public ResponseEntity<AtmResponse> confirmDeposit(@PathVariable String depositId,
+                                                      @RequestBody DepositSessionRequestDto request) {
+        try {
+            HandlerResult result = depositPipeline.confirm(depositId, request.getSessionId());
+            if (!result.isSuccess()) {
+                int status = "DEPOSIT_NOT_FOUND".equals(result.getErrorCode()) ? 404 : 400;
+                return ResponseEntity.status(status).body(ErrorResponse.of(result));
+            }
+            DepositReceipt receipt = (DepositReceipt) result.getData();
+            return ResponseEntity.ok(new DepositResponse(result.getMessage(), depositId,
+                    receipt.amount(), receipt.noteCount(), null, null, null, receipt.rrn()));
+
+        } catch (Exception e) {
+            log.error("Error confirming deposit {}", depositId, e);
+            return ResponseEntity.internalServerError().body(ErrorResponse.DEPOSIT_SERVICE_ERROR);
+        }
+    }
+
+    /**
+     * Cancels the deposit; the acceptor returns the notes.
+     */
+    @PostMapping("/{depositId}/cancel")
+    public ResponseEntity<AtmResponse> cancelDeposit(@PathVariable String depositId,
+                                                     @RequestBody DepositSessionRequestDto request) {
+        if (!depositPipeline.cancel(depositId, request.getSessionId())) {
+            return ResponseEntity.status(404).body(ErrorResponse.DEPOSIT_NOT_FOUND);
+        }
+        return ResponseEntity.ok(new DepositResponse("Deposit cancelled", depositId, null, 0, null, null, null, null));
+    }
+
+    @Getter
+    @Setter
+    public static class DepositStartRequestDto {
+        private String cardToken;
+        private String sessionId;
+        private String pin;
+    }
+
+    @Getter
+    @Setter
+    public static class DepositNotesRequestDto {
+        private String sessionId;
+        // Face value (e.g. 500) -> notes counted in this batch
+        private Map<Integer, Integer> notes;
+    }
+
+    @Getter
+    @Setter
+    public static class DepositSessionRequestDto {
+        private String sessionId;
+    }
+}
@@ -0,0 +1,60 @@
+package com.umesh.atm.controller;
+
+import com.umesh.atm.fleet.FleetGrouping;
+import com.umesh.atm.fleet.FleetInventoryIndex;
+import com.umesh.atm.fleet.InventoryRollup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operations endpoints for cash loaded across the fleet, served from the in-memory index.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/admin/fleet-inventory")
+@RequiredArgsConstructor
+public class FleetInventoryController {
+
+    private final FleetInventoryIndex fleetInventoryIndex;
+
+    /**
+     * Rolls up loaded cash by MACHINE, CITY or BRANCH (IFSC code), with the fleet total.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getRollup(@RequestParam(defaultValue = "CITY") FleetGrouping groupBy) {
+        List<InventoryRollup> rollups = fleetInventoryIndex.rollup(groupBy);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("groupBy", groupBy);
+        response.put("total", fleetInventoryIndex.fleetTotal());
+        response.put("count", rollups.size());
+        response.put("rollups", rollups);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Returns the cash loaded in one ATM.
+     */
+    @GetMapping("/{atmCode}")
+    public ResponseEntity<Map<String, Object>> getMachine(@PathVariable String atmCode) {
+        InventoryRollup machine = fleetInventoryIndex.machine(atmCode);
+
+        Map<String, Object> response = new HashMap<>();
+        if (machine == null) {
+            response.put("success", false);
+            response.put("message", "ATM not in fleet inventory");
+            response.put("errorCode", "ATM_NOT_FOUND");
+            return ResponseEntity.status(404).body(response);
+        }
+        response.put("success", true);
+        response.put("inventory", machine);
+        return ResponseEntity.ok(response);
+    }
+}
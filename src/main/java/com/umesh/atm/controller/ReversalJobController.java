@@ -0,0 +1,97 @@
+package com.umesh.atm.controller;
+
+import com.umesh.atm.entity.ReversalJob;
+import com.umesh.atm.enums.TxnStatus;
+import com.umesh.atm.reversal.BulkReversalJob;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Operations endpoints for bulk reversals after an outage.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/admin/reversal-jobs")
+@RequiredArgsConstructor
+@Slf4j
+public class ReversalJobController {
+
+    private final BulkReversalJob bulkReversalJob;
+
+    /**
+     * Starts reversing every transaction in the given statuses and time window.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> startJob(@RequestBody ReversalJobRequestDto request) {
+        log.info("Bulk reversal requested: statuses={}, window=[{}, {}), reason={}",
+                request.getStatuses(), request.getFrom(), request.getTo(), request.getReason());
+
+        try {
+            String jobId = bulkReversalJob.start(request.getStatuses(), request.getFrom(), request.getTo(),
+                    request.getReason() != null ? request.getReason() : "BULK_REVERSAL");
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("jobId", jobId);
+            return ResponseEntity.accepted().body(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(errorBody(e.getMessage(), "INVALID_REVERSAL_REQUEST"));
+        } catch (Exception e) {
+            log.error("Error starting bulk reversal", e);
+            return ResponseEntity.internalServerError().body(errorBody(
+                    "Reversal service error", "REVERSAL_SERVICE_ERROR"));
+        }
+    }
+
+    /**
+     * Returns a bulk reversal job's state and progress.
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        ReversalJob job = bulkReversalJob.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(404).body(errorBody("Reversal job not found", "JOB_NOT_FOUND"));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobId", job.getId());
+        response.put("status", job.getStatus());
+        response.put("statuses", job.getStatuses());
+        response.put("from", job.getWindowFrom());
+        response.put("to", job.getWindowTo());
+        response.put("reversedCount", bulkReversalJob.getReversedCount(jobId));
+        response.put("startedAt", job.getStartedAt());
+        response.put("finishedAt", job.getFinishedAt());
+        response.put("lastError", job.getLastError());
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> errorBody(String message, String errorCode) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("message", message);
+        errorResponse.put("errorCode", errorCode);
+        return errorResponse;
+    }
+
+    @Getter
+    @Setter
+    public static class ReversalJobRequestDto {
+        private Set<TxnStatus> statuses;
+        private Instant from;
+        private Instant to;
+        private String reason;
+    }
+}
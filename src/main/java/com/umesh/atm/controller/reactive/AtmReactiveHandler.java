@@ -0,0 +1,291 @@
+package com.umesh.atm.controller.reactive;
+
+import com.umesh.atm.chain.HandlerResult;
+import com.umesh.atm.chain.auth.AuthenticationRequest;
+import com.umesh.atm.chain.auth.ReactiveAuthenticationChain;
+import com.umesh.atm.chain.transaction.ReactiveTransactionProcessingChain;
+import com.umesh.atm.chain.transaction.TransactionRequest;
+import com.umesh.atm.corebanking.AccountSnapshot;
+import com.umesh.atm.corebanking.CoreBankingException;
+import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.controller.AtmTransactionController.AuthenticationRequestDto;
+import com.umesh.atm.controller.AtmTransactionController.BalanceInquiryRequestDto;
+import com.umesh.atm.controller.AtmTransactionController.LogoutRequestDto;
+import com.umesh.atm.controller.AtmTransactionController.WithdrawalRequestDto;
+import com.umesh.atm.idempotency.IdempotencyConflictException;
+import com.umesh.atm.idempotency.RequestCoalescer;
+import com.umesh.atm.service.AtmSessionService;
+import com.umesh.atm.service.BalanceService;
+import com.umesh.atm.service.CashService;
+import com.umesh.atm.service.TransactionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Request handlers for the reactive ATM API.
+ * Mirrors AtmTransactionController; blocking service calls are moved off the event loop.
+ */
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class AtmReactiveHandler {
+
+    private final ReactiveAuthenticationChain authenticationChain;
+    private final ReactiveTransactionProcessingChain transactionProcessingChain;
+    private final AtmSessionService sessionService;
+    private final BalanceService balanceService;
+    private final CashService cashService;
+    private final TransactionService transactionService;
+    private final RequestCoalescer requestCoalescer;
+
+    /**
+     * Authenticates user with PIN using the reactive authentication chain.
+     */
+    public Mono<ServerResponse> authenticate(ServerRequest serverRequest) {
+        return serverRequest.bodyToMono(AuthenticationRequestDto.class)
+                .flatMap(request -> {
+                    log.info("Authentication request for card token: {}", request.getCardToken());
+                    
+                    return blocking(() -> sessionService.getAtmMachineFromSession(request.getSessionId()))
+                            .map(Optional::of)
+                            .defaultIfEmpty(Optional.empty())
+                            .flatMap(atmMachine -> {
+                                AuthenticationRequest authRequest = AuthenticationRequest.builder()
+                                        .cardToken(request.getCardToken())
+                                        .pin(request.getPin())
+                                        .atmMachine(atmMachine.orElse(null))
+                                        .sessionId(request.getSessionId())
+                                        .clientIp(request.getClientIp())
+                                        .userAgent(request.getUserAgent())
+                                        .build();
+                                
+                                return authenticationChain.authenticate(authRequest)
+                                        .flatMap(result -> {
+                                            Map<String, Object> response = baseResponse(result);
+                                            if (!result.isSuccess()) {
+                                                return ServerResponse.badRequest().bodyValue(response);
+                                            }
+                                            
+                                            // Create session after successful authentication
+                                            return blocking(() -> sessionService.createSession(
+                                                    atmMachine.orElse(null), request.getCardToken()))
+                                                    .flatMap(sessionId -> {
+                                                        response.put("authenticated", true);
+                                                        response.put("sessionId", sessionId);
+                                                        response.put("sessionTimeoutSeconds", sessionService.getSessionTimeoutSeconds());
+                                                        response.put("message", "Authentication successful. Session created.");
+                                                        return ServerResponse.ok().bodyValue(response);
+                                                    });
+                                        });
+                            });
+                })
+                .onErrorResume(e -> errorResponse(e, "Error during authentication",
+                        "Authentication service error", "AUTH_SERVICE_ERROR"));
+    }
+
+    /**
+     * Processes cash withdrawal using the reactive transaction processing chain.
+     * Retries carrying the same clientRequestId are coalesced onto one execution.
+     */
+    public Mono<ServerResponse> withdraw(ServerRequest serverRequest) {
+        return serverRequest.bodyToMono(WithdrawalRequestDto.class)
+                .flatMap(request -> {
+                    log.info("Withdrawal request for amount: {} from card: {}", 
+                            request.getAmount(), request.getCardToken());
+                    
+                    if (request.getClientRequestId() == null) {
+                        return processWithdrawal(request);
+                    }
+                    
+                    return Mono.fromFuture(() -> requestCoalescer.execute(
+                            request.getSessionId() + ":" + request.getClientRequestId(),
+                            request.fingerprint(),
+                            () -> processWithdrawal(request).toFuture(),
+                            response -> !response.getStatusCode().is5xxServerError()));
+                })
+                .flatMap(response -> ServerResponse.status(response.getStatusCode()).bodyValue(response.getBody()))
+                .onErrorResume(IdempotencyConflictException.class, e -> ServerResponse.status(409).bodyValue(
+                        errorBody("Request id already used for a different withdrawal", "DUPLICATE_REQUEST_MISMATCH")))
+                .onErrorResume(RejectedExecutionException.class, e -> ServerResponse.status(503).bodyValue(
+                        errorBody("Too many withdrawals in progress, retry later", "TOO_MANY_IN_FLIGHT_REQUESTS")))
+                .onErrorResume(e -> errorResponse(e, "Error during withdrawal processing",
+                        "Withdrawal service error", "WITHDRAWAL_SERVICE_ERROR"));
+    }
+
+    private Mono<ResponseEntity<Map<String, Object>>> processWithdrawal(WithdrawalRequestDto request) {
+        return blocking(() -> sessionService.getAtmMachineFromSession(request.getSessionId()))
+                .flatMap(atmMachine -> {
+                    TransactionRequest txnRequest = TransactionRequest.builder()
+                            .sessionId(request.getSessionId())
+                            .cardToken(request.getCardToken())
+                            .atmMachine(atmMachine)
+                            .processingCode("010000") // Withdrawal processing code
+                            .amount(request.getAmount())
+                            .currency("INR")
+                            .pin(request.getPin())
+                            .build();
+                    
+                    return transactionProcessingChain.processTransaction(txnRequest)
+                            .flatMap(result -> {
+                                Map<String, Object> response = baseResponse(result);
+                                if (!result.isSuccess()) {
+                                    return Mono.just(ResponseEntity.badRequest().body(response));
+                                }
+                                
+                                // If validation passed, record the transaction and process the actual withdrawal
+                                return blocking(() -> withdraw(atmMachine, txnRequest))
+                                        .map(dispensedNotes -> {
+                                            response.put("withdrawalProcessed", dispensedNotes.isPresent());
+                                            response.put("amount", request.getAmount());
+                                            response.put("denominationDistribution", dispensedNotes.orElse(null));
+                                            return ResponseEntity.ok(response);
+                                        });
+                            });
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.badRequest()
+                        .body(errorBody("Session expired or invalid", "SESSION_INVALID"))))
+                .onErrorResume(CoreBankingException.class, e -> Mono.just(ResponseEntity.status(503)
+                        .body(errorBody("Core banking unavailable", "CORE_BANKING_UNAVAILABLE"))))
+                .onErrorResume(e -> {
+                    log.error("Error during withdrawal processing", e);
+                    return Mono.just(ResponseEntity.internalServerError()
+                            .body(errorBody("Withdrawal service error", "WITHDRAWAL_SERVICE_ERROR")));
+                });
+    }
+
+    /**
+     * Records and dispenses a withdrawal.
+     *
+     * @return the notes actually debited from the cassettes, or empty if nothing was dispensed
+     */
+    private Optional<Map<Integer, Integer>> withdraw(AtmMachine atmMachine, TransactionRequest txnRequest) {
+        Transaction transaction = transactionService.createTransaction(atmMachine, txnRequest.getCardToken(),
+                txnRequest.getProcessingCode(), txnRequest.getAmount());
+        Map<Integer, Integer> notes =
+                cashService.dispenseCash(atmMachine, txnRequest.getCardToken(), txnRequest.getAmount());
+        boolean dispensed = notes != null;
+        transactionService.logTransactionCompletion(transaction.getId(), dispensed, dispensed ? "00" : "05");
+        return Optional.ofNullable(notes);
+    }
+
+    /**
+     * Processes balance inquiry using the simplified reactive chain.
+     */
+    public Mono<ServerResponse> balance(ServerRequest serverRequest) {
+        return serverRequest.bodyToMono(BalanceInquiryRequestDto.class)
+                .flatMap(request -> {
+                    log.info("Balance inquiry request from card: {}", request.getCardToken());
+                    
+                    return blocking(() -> sessionService.getAtmMachineFromSession(request.getSessionId()))
+                            .flatMap(atmMachine -> {
+                                TransactionRequest txnRequest = TransactionRequest.builder()
+                                        .sessionId(request.getSessionId())
+                                        .cardToken(request.getCardToken())
+                                        .atmMachine(atmMachine)
+                                        .processingCode("310000") // Balance inquiry processing code
+                                        .amount(BigDecimal.ZERO)
+                                        .currency("INR")
+                                        .build();
+                                
+                                return transactionProcessingChain.processBalanceInquiry(txnRequest)
+                                        .flatMap(result -> {
+                                            Map<String, Object> response = baseResponse(result);
+                                            if (!result.isSuccess()) {
+                                                return ServerResponse.badRequest().bodyValue(response);
+                                            }
+                                            
+                                            // Fetched once by the limits step
+                                            return blocking(() -> {
+                                                String cardToken = request.getCardToken();
+                                                AccountSnapshot account = txnRequest.getContextValue(
+                                                        "accountSnapshot", AccountSnapshot.class);
+                                                response.put("currentBalance", account.ledgerBalance());
+                                                response.put("availableBalance", account.availableBalance());
+                                                response.put("remainingDailyLimit", balanceService.getRemainingDailyLimit(cardToken));
+                                                response.put("accountType", account.accountType());
+                                                return response;
+                                            })
+                                                    .flatMap(body -> ServerResponse.ok().bodyValue(body));
+                                        });
+                            })
+                            .switchIfEmpty(Mono.defer(() -> sessionNotFound()));
+                })
+                .onErrorResume(CoreBankingException.class, e -> coreBankingUnavailable())
+                .onErrorResume(e -> errorResponse(e, "Error during balance inquiry",
+                        "Balance inquiry service error", "BALANCE_SERVICE_ERROR"));
+    }
+
+    /**
+     * Terminates user session (logout).
+     */
+    public Mono<ServerResponse> logout(ServerRequest serverRequest) {
+        return serverRequest.bodyToMono(LogoutRequestDto.class)
+                .flatMap(request -> {
+                    log.info("Logout request for session: {}", request.getSessionId());
+                    
+                    return blocking(() -> sessionService.terminateSession(request.getSessionId()))
+                            .flatMap(terminated -> {
+                                Map<String, Object> response = new HashMap<>();
+                                response.put("success", terminated);
+                                response.put("message", terminated ? "Session terminated successfully" : "Session not found or already terminated");
+                                return ServerResponse.ok().bodyValue(response);
+                            });
+                })
+                .onErrorResume(e -> errorResponse(e, "Error during logout",
+                        "Logout service error", "LOGOUT_SERVICE_ERROR"));
+    }
+
+    /**
+     * Runs a blocking service call on the bounded elastic scheduler.
+     */
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static Map<String, Object> baseResponse(HandlerResult result) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", result.isSuccess());
+        response.put("message", result.getMessage());
+        if (!result.isSuccess()) {
+            response.put("errorCode", result.getErrorCode());
+        }
+        return response;
+    }
+
+    private static Mono<ServerResponse> sessionNotFound() {
+        return ServerResponse.badRequest().bodyValue(errorBody("Session expired or invalid", "SESSION_INVALID"));
+    }
+
+    private static Mono<ServerResponse> coreBankingUnavailable() {
+        return ServerResponse.status(503).bodyValue(errorBody("Core banking unavailable", "CORE_BANKING_UNAVAILABLE"));
+    }
+
+    private static Mono<ServerResponse> errorResponse(Throwable e, String logMessage, String message, String errorCode) {
+        log.error(logMessage, e);
+        return ServerResponse.status(500).bodyValue(errorBody(message, errorCode));
+    }
+
+    private static Map<String, Object> errorBody(String message, String errorCode) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("message", message);
+        errorResponse.put("errorCode", errorCode);
+        return errorResponse;
+    }
+}
@@ -0,0 +1,31 @@
+package com.umesh.atm.controller.reactive;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Functional routes for the reactive ATM API.
+ * Same paths and payloads as AtmTransactionController; active only with the "reactive" profile.
+ */
+@Configuration
+@Profile("reactive")
+public class AtmReactiveRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> atmRoutes(AtmReactiveHandler handler) {
+        return route()
+                .path("/api/atm", builder -> builder
+                        .POST("/authenticate", accept(MediaType.APPLICATION_JSON), handler::authenticate)
+                        .POST("/withdraw", accept(MediaType.APPLICATION_JSON), handler::withdraw)
+                        .POST("/balance", accept(MediaType.APPLICATION_JSON), handler::balance)
+                        .POST("/logout", accept(MediaType.APPLICATION_JSON), handler::logout))
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.umesh.atm.controller.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.umesh.atm.corebanking.AccountSnapshot;
+import com.umesh.atm.history.TransactionHistoryEntry;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static com.umesh.atm.controller.response.JsonFields.*;
+
+/**
+ * Balances of every account linked to the card plus a mini statement of the card's latest transactions.
+ * Accounts that core banking did not return in time are listed with "available": false.
+ */
+public record AccountsSummaryResponse(Map<String, AccountSnapshot> accounts, BigDecimal remainingDailyLimit,
+                                      List<TransactionHistoryEntry> recentTransactions) implements AtmResponse {
+
+    private static final SerializableString ACCOUNTS = new SerializedString("accounts");
+    private static final SerializableString ACCOUNT_ID = new SerializedString("accountId");
+    private static final SerializableString AVAILABLE = new SerializedString("available");
+    private static final SerializableString CURRENT_BALANCE = new SerializedString("currentBalance");
+    private static final SerializableString AVAILABLE_BALANCE = new SerializedString("availableBalance");
+    private static final SerializableString CURRENCY = new SerializedString("currency");
+    private static final SerializableString ACCOUNT_TYPE = new SerializedString("accountType");
+    private static final SerializableString REMAINING_DAILY_LIMIT = new SerializedString("remainingDailyLimit");
+    private static final SerializableString RECENT_TRANSACTIONS = new SerializedString("recentTransactions");
+
+    @Override
+    public void writeFields(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeFieldName(SUCCESS);
+        generator.writeBoolean(true);
+        generator.writeFieldName(ACCOUNTS);
+        generator.writeStartArray();
+        for (Map.Entry<String, AccountSnapshot> account : accounts.entrySet()) {
+            AccountSnapshot snapshot = account.getValue();
+            generator.writeStartObject();
+            writeString(generator, ACCOUNT_ID, account.getKey());
+            generator.writeFieldName(AVAILABLE);
+            generator.writeBoolean(snapshot != null);
+            if (snapshot != null) {
+                writeNumber(generator, CURRENT_BALANCE, snapshot.ledgerBalance());
+                writeNumber(generator, AVAILABLE_BALANCE, snapshot.availableBalance());
+                writeString(generator, CURRENCY, snapshot.currency());
+                writeString(generator, ACCOUNT_TYPE, snapshot.accountType());
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        writeNumber(generator, REMAINING_DAILY_LIMIT, remainingDailyLimit);
+        generator.writeFieldName(RECENT_TRANSACTIONS);
+        serializers.defaultSerializeValue(recentTransactions, generator);
+    }
+}
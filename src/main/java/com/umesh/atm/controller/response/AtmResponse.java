@@ -0,0 +1,33 @@
+package com.umesh.atm.controller.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * Typed ATM API response. Each response writes its own JSON fields straight to the generator, so Jackson
+ * neither introspects it nor goes through an intermediate map.
+ */
+public interface AtmResponse extends JsonSerializable {
+
+    /**
+     * Writes the fields of the response object.
+     */
+    void writeFields(JsonGenerator generator, SerializerProvider serializers) throws IOException;
+
+    @Override
+    default void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeStartObject(this);
+        writeFields(generator, serializers);
+        generator.writeEndObject();
+    }
+
+    @Override
+    default void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer)
+            throws IOException {
+        serialize(generator, serializers);
+    }
+}
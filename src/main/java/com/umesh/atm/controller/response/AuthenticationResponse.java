@@ -0,0 +1,33 @@
+package com.umesh.atm.controller.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+import static com.umesh.atm.controller.response.JsonFields.*;
+
+/**
+ * Successful authentication with the session created for it.
+ */
+public record AuthenticationResponse(String sessionId, int sessionTimeoutSeconds) implements AtmResponse {
+
+    private static final SerializableString AUTHENTICATED = new SerializedString("authenticated");
+    private static final SerializableString SESSION_ID = new SerializedString("sessionId");
+    private static final SerializableString SESSION_TIMEOUT_SECONDS = new SerializedString("sessionTimeoutSeconds");
+    private static final String MESSAGE_TEXT = "Authentication successful. Session created.";
+
+    @Override
+    public void writeFields(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeFieldName(SUCCESS);
+        generator.writeBoolean(true);
+        writeString(generator, MESSAGE, MESSAGE_TEXT);
+        generator.writeFieldName(AUTHENTICATED);
+        generator.writeBoolean(true);
+        writeString(generator, SESSION_ID, sessionId);
+        generator.writeFieldName(SESSION_TIMEOUT_SECONDS);
+        generator.writeNumber(sessionTimeoutSeconds);
+    }
+}
@@ -0,0 +1,34 @@
+package com.umesh.atm.controller.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import static com.umesh.atm.controller.response.JsonFields.*;
+
+/**
+ * Balance inquiry result.
+ */
+public record BalanceResponse(String message, BigDecimal currentBalance, BigDecimal availableBalance,
+                              BigDecimal remainingDailyLimit, String accountType) implements AtmResponse {
+
+    private static final SerializableString CURRENT_BALANCE = new SerializedString("currentBalance");
+    private static final SerializableString AVAILABLE_BALANCE = new SerializedString("availableBalance");
+    private static final SerializableString REMAINING_DAILY_LIMIT = new SerializedString("remainingDailyLimit");
+    private static final SerializableString ACCOUNT_TYPE = new SerializedString("accountType");
+
+    @Override
+    public void writeFields(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeFieldName(SUCCESS);
+        generator.writeBoolean(true);
+        writeString(generator, MESSAGE, message);
+        writeNumber(generator, CURRENT_BALANCE, currentBalance);
+        writeNumber(generator, AVAILABLE_BALANCE, availableBalance);
+        writeNumber(generator, REMAINING_DAILY_LIMIT, remainingDailyLimit);
+        writeString(generator, ACCOUNT_TYPE, accountType);
+    }
+}
@@ -0,0 +1,57 @@
+package com.umesh.atm.controller.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static com.umesh.atm.controller.response.JsonFields.*;
+
+/**
+ * State of a deposit after a step: the notes accepted and rejected by the last batch (face value → count),
+ * the running total, and the RRN once committed.
+ */
+public record DepositResponse(String message, String depositId, BigDecimal runningTotal, int noteCount,
+                              Map<Integer, Integer> acceptedNotes, Map<Integer, Integer> rejectedNotes,
+                              String rejectionReason, String rrn) implements AtmResponse {
+
+    private static final SerializableString DEPOSIT_ID = new SerializedString("depositId");
+    private static final SerializableString RUNNING_TOTAL = new SerializedString("runningTotal");
+    private static final SerializableString NOTE_COUNT = new SerializedString("noteCount");
+    private static final SerializableString ACCEPTED_NOTES = new SerializedString("acceptedNotes");
+    private static final SerializableString REJECTED_NOTES = new SerializedString("rejectedNotes");
+    private static final SerializableString REJECTION_REASON = new SerializedString("rejectionReason");
+    private static final SerializableString RRN = new SerializedString("rrn");
+
+    @Override
+    public void writeFields(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeFieldName(SUCCESS);
+        generator.writeBoolean(true);
+        writeString(generator, MESSAGE, message);
+        writeString(generator, DEPOSIT_ID, depositId);
+        writeNumber(generator, RUNNING_TOTAL, runningTotal);
+        generator.writeFieldName(NOTE_COUNT);
+        generator.writeNumber(noteCount);
+        writeNotes(generator, ACCEPTED_NOTES, acceptedNotes);
+        writeNotes(generator, REJECTED_NOTES, rejectedNotes);
+        writeString(generator, REJECTION_REASON, rejectionReason);
+        writeString(generator, RRN, rrn);
+    }
+
+    private static void writeNotes(JsonGenerator generator, SerializableString name, Map<Integer, Integer> notes)
+            throws IOException {
+        generator.writeFieldName(name);
+        generator.writeStartObject();
+        if (notes != null) {
+            for (Map.Entry<Integer, Integer> entry : notes.entrySet()) {
+                generator.writeFieldName(String.valueOf(entry.getKey()));
+                generator.writeNumber(entry.getValue());
+            }
+        }
+        generator.writeEndObject();
+    }
+}
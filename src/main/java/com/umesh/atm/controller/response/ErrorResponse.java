@@ -0,0 +1,53 @@
+package com.umesh.atm.controller.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.umesh.atm.chain.HandlerResult;
+
+import java.io.IOException;
+
+import static com.umesh.atm.controller.response.JsonFields.*;
+
+/**
+ * Failed request: {"success": false, "message": ..., "errorCode": ...}.
+ */
+public record ErrorResponse(String message, String errorCode) implements AtmResponse {
+
+    public static final ErrorResponse AUTH_SERVICE_ERROR =
+            new ErrorResponse("Authentication service error", "AUTH_SERVICE_ERROR");
+    public static final ErrorResponse WITHDRAWAL_SERVICE_ERROR =
+            new ErrorResponse("Withdrawal service error", "WITHDRAWAL_SERVICE_ERROR");
+    public static final ErrorResponse BALANCE_SERVICE_ERROR =
+            new ErrorResponse("Balance inquiry service error", "BALANCE_SERVICE_ERROR");
+    public static final ErrorResponse HISTORY_SERVICE_ERROR =
+            new ErrorResponse("Transaction history service error", "HISTORY_SERVICE_ERROR");
+    public static final ErrorResponse LOGOUT_SERVICE_ERROR =
+            new ErrorResponse("Logout service error", "LOGOUT_SERVICE_ERROR");
+    public static final ErrorResponse DEPOSIT_SERVICE_ERROR =
+            new ErrorResponse("Deposit service error", "DEPOSIT_SERVICE_ERROR");
+    public static final ErrorResponse DEPOSIT_NOT_FOUND =
+            new ErrorResponse("Deposit not found", "DEPOSIT_NOT_FOUND");
+    public static final ErrorResponse INVALID_SESSION =
+            new ErrorResponse("Invalid or expired session", "INVALID_SESSION");
+    public static final ErrorResponse CORE_BANKING_UNAVAILABLE =
+            new ErrorResponse("Core banking unavailable", "CORE_BANKING_UNAVAILABLE");
+    public static final ErrorResponse DUPLICATE_REQUEST_MISMATCH =
+            new ErrorResponse("Request id already used for a different withdrawal", "DUPLICATE_REQUEST_MISMATCH");
+    public static final ErrorResponse TOO_MANY_IN_FLIGHT_REQUESTS =
+            new ErrorResponse("Too many withdrawals in progress, retry later", "TOO_MANY_IN_FLIGHT_REQUESTS");
+
+    /**
+     * Response for a request rejected by a handler chain.
+     */
+    public static ErrorResponse of(HandlerResult result) {
+        return new ErrorResponse(result.getMessage(), result.getErrorCode());
+    }
+
+    @Override
+    public void writeFields(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeFieldName(SUCCESS);
+        generator.writeBoolean(false);
+        writeString(generator, MESSAGE, message);
+        writeString(generator, ERROR_CODE, errorCode);
+    }
+}
@@ -0,0 +1,29 @@
+package com.umesh.atm.controller.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.umesh.atm.history.TransactionHistoryPage;
+
+import java.io.IOException;
+
+import static com.umesh.atm.controller.response.JsonFields.*;
+
+/**
+ * One page of transaction history.
+ */
+public record HistoryResponse(TransactionHistoryPage page) implements AtmResponse {
+
+    private static final SerializableString TRANSACTIONS = new SerializedString("transactions");
+    private static final SerializableString NEXT_CURSOR = new SerializedString("nextCursor");
+
+    @Override
+    public void writeFields(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeFieldName(SUCCESS);
+        generator.writeBoolean(true);
+        generator.writeFieldName(TRANSACTIONS);
+        serializers.defaultSerializeValue(page.items(), generator);
+        writeString(generator, NEXT_CURSOR, page.nextCursor());
+    }
+}
@@ -0,0 +1,39 @@
+package com.umesh.atm.controller.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Pre-encoded field names of the ATM API responses and null-safe write helpers.
+ */
+final class JsonFields {
+
+    static final SerializableString SUCCESS = new SerializedString("success");
+    static final SerializableString MESSAGE = new SerializedString("message");
+    static final SerializableString ERROR_CODE = new SerializedString("errorCode");
+
+    private JsonFields() {
+    }
+
+    static void writeString(JsonGenerator generator, SerializableString name, String value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value);
+        }
+    }
+
+    static void writeNumber(JsonGenerator generator, SerializableString name, BigDecimal value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.umesh.atm.controller.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+import static com.umesh.atm.controller.response.JsonFields.*;
+
+/**
+ * Logout result; both outcomes are shared constants.
+ */
+public record LogoutResponse(boolean terminated, String message) implements AtmResponse {
+
+    public static final LogoutResponse TERMINATED =
+            new LogoutResponse(true, "Session terminated successfully");
+    public static final LogoutResponse NOT_FOUND =
+            new LogoutResponse(false, "Session not found or already terminated");
+
+    public static LogoutResponse of(boolean terminated) {
+        return terminated ? TERMINATED : NOT_FOUND;
+    }
+
+    @Override
+    public void writeFields(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeFieldName(SUCCESS);
+        generator.writeBoolean(terminated);
+        writeString(generator, MESSAGE, message);
+    }
+}
@@ -0,0 +1,44 @@
+package com.umesh.atm.controller.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static com.umesh.atm.controller.response.JsonFields.*;
+
+/**
+ * Withdrawal that passed the transaction chain, with the notes to dispense (denomination → count).
+ */
+public record WithdrawalResponse(String message, boolean withdrawalProcessed, BigDecimal amount,
+                                 Map<Integer, Integer> denominationDistribution) implements AtmResponse {
+
+    private static final SerializableString WITHDRAWAL_PROCESSED = new SerializedString("withdrawalProcessed");
+    private static final SerializableString AMOUNT = new SerializedString("amount");
+    private static final SerializableString DENOMINATION_DISTRIBUTION = new SerializedString("denominationDistribution");
+
+    @Override
+    public void writeFields(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeFieldName(SUCCESS);
+        generator.writeBoolean(true);
+        writeString(generator, MESSAGE, message);
+        generator.writeFieldName(WITHDRAWAL_PROCESSED);
+        generator.writeBoolean(withdrawalProcessed);
+        writeNumber(generator, AMOUNT, amount);
+        generator.writeFieldName(DENOMINATION_DISTRIBUTION);
+        if (denominationDistribution == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        for (Map.Entry<Integer, Integer> notes : denominationDistribution.entrySet()) {
+            generator.writeFieldName(String.valueOf(notes.getKey()));
+            generator.writeNumber(notes.getValue());
+        }
+        generator.writeEndObject();
+    }
+}
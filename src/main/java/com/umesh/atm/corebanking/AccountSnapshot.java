@@ -0,0 +1,18 @@
+package com.umesh.atm.corebanking;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Account state returned by core banking in a single call, so a balance inquiry costs one round trip.
+ *
+ * @param ledgerBalance current (ledger) balance
+ * @param availableBalance spendable balance after holds, pending debits and overdraft
+ * @param currency ISO 4217 alphabetic currency code
+ * @param accountType e.g. SAVINGS, CURRENT, CREDIT
+ * @param inquiryAllowed whether balance inquiries are permitted on the account
+ * @param asOf when core banking produced the snapshot
+ */
+public record AccountSnapshot(BigDecimal ledgerBalance, BigDecimal availableBalance, String currency,
+                              String accountType, boolean inquiryAllowed, Instant asOf) {
+}
@@ -0,0 +1,192 @@
+package com.umesh.atm.corebanking;
+
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.TransactionOperation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Short-lived per-card cache of core banking account snapshots.
+ * <p>
+ * A balance inquiry fetches the snapshot once; a withdrawal that follows within atm.core-banking.cache.ttl-ms
+ * is checked against the cached snapshot instead of calling core banking again. Withdrawals approved on this
+ * node since the snapshot was requested are applied as local holds, so the cached available balance never
+ * runs ahead of what this node has already paid out. Withdrawals approved on other nodes are only seen on
+ * the next fetch, which bounds the staleness to the TTL.
+ */
+@Component
+@Slf4j
+public class AccountSnapshotCache {
+
+    @Value("${atm.core-banking.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${atm.core-banking.cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    private final Map<String, CardAccount> accounts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor();
+
+    private long ttlNanos;
+
+    @PostConstruct
+    public void start() {
+        ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        if (enabled) {
+            sweeper.scheduleWithFixedDelay(this::sweep, ttlMs, ttlMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Returns the card's account snapshot with local holds applied, fetching it when missing or expired.
+     * Concurrent callers for the same card share one fetch.
+     *
+     * @param cardToken the tokenized card identifier
+     * @param loader fetches the snapshot from core banking
+     * @return the snapshot
+     * @throws CoreBankingException if the snapshot had to be fetched and core banking failed
+     */
+    public AccountSnapshot get(String cardToken, Function<String, AccountSnapshot> loader) {
+        if (!enabled) {
+            return loader.apply(cardToken);
+        }
+
+        // Registered atomically with the lookup, so the sweeper can't drop the entry while its load is pending
+        CardAccount account = accounts.compute(cardToken, (token, existing) -> {
+            CardAccount entry = existing == null ? new CardAccount() : existing;
+            entry.callers.incrementAndGet();
+            return entry;
+        });
+        try {
+            Cached cached = account.cached;
+            if (cached == null || isExpired(cached)) {
+                synchronized (account) {
+                    cached = account.cached;
+                    if (cached == null || isExpired(cached)) {
+                        long requestedAt = System.nanoTime();
+                        AccountSnapshot snapshot = loader.apply(cardToken);
+                        cached = new Cached(snapshot, requestedAt);
+                        account.cached = cached;
+                        // Holds from before the request are part of the fresh snapshot
+                        account.holds.removeIf(hold -> hold.recordedAt() - requestedAt < 0);
+                    }
+                }
+            }
+            return withHolds(cached, account);
+        } finally {
+            account.callers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Applies a withdrawal approved on this node as a hold on the cached available balance.
+     */
+    public void recordApproved(Transaction transaction) {
+        addHold(transaction, transaction.getAmountMinor());
+    }
+
+    /**
+     * Releases the hold of a reversed withdrawal.
+     */
+    public void recordReversed(Transaction transaction) {
+        addHold(transaction, -transaction.getAmountMinor());
+    }
+
+    /**
+     * Drops a card's cached snapshot, e.g. after core banking declined for insufficient funds.
+     */
+    public void invalidate(String cardToken) {
+        CardAccount account = accounts.get(cardToken);
+        if (account != null) {
+            account.cached = null;
+        }
+    }
+
+    private void addHold(Transaction transaction, Long amountMinor) {
+        if (!enabled || !isWithdrawal(transaction) || amountMinor == null) {
+            return;
+        }
+        // Cards without an entry have nothing cached; their next snapshot comes from core banking
+        CardAccount account = accounts.get(transaction.getCardToken());
+        if (account != null) {
+            account.holds.add(new Hold(System.nanoTime(), amountMinor));
+        }
+    }
+
+    private AccountSnapshot withHolds(Cached cached, CardAccount account) {
+        long holdMinor = 0;
+        for (Hold hold : account.holds) {
+            if (hold.recordedAt() - cached.requestedAt() >= 0) {
+                holdMinor += hold.amountMinor();
+            }
+        }
+        AccountSnapshot snapshot = cached.snapshot();
+        if (holdMinor == 0) {
+            return snapshot;
+        }
+        return new AccountSnapshot(snapshot.ledgerBalance(),
+                snapshot.availableBalance().subtract(BigDecimal.valueOf(holdMinor, 2)),
+                snapshot.currency(), snapshot.accountType(), snapshot.inquiryAllowed(), snapshot.asOf());
+    }
+
+    private boolean isExpired(Cached cached) {
+        return System.nanoTime() - cached.requestedAt() >= ttlNanos;
+    }
+
+    private void sweep() {
+        try {
+            int before = accounts.size();
+            for (String cardToken : accounts.keySet()) {
+                accounts.computeIfPresent(cardToken, (token, account) -> isSweepable(account) ? null : account);
+            }
+            log.debug("Account snapshot cache swept: {} -> {} cards", before, accounts.size());
+        } catch (Exception e) {
+            log.error("Error sweeping account snapshot cache", e);
+        }
+    }
+
+    private boolean isSweepable(CardAccount account) {
+        if (account.callers.get() > 0) {
+            return false;
+        }
+        Cached cached = account.cached;
+        return cached == null || isExpired(cached);
+    }
+
+    private static boolean isWithdrawal(Transaction transaction) {
+        return transaction.getCardToken() != null
+                && TransactionOperation.fromProcessingCode(transaction.getProcessingCode()) == TransactionOperation.WITHDRAWAL;
+    }
+
+    private static final class CardAccount {
+        private volatile Cached cached;
+        private final Queue<Hold> holds = new ConcurrentLinkedQueue<>();
+        // Threads inside get(), possibly with a load in flight
+        private final AtomicInteger callers = new AtomicInteger();
+    }
+
+    private record Cached(AccountSnapshot snapshot, long requestedAt) {
+    }
+
+    private record Hold(long recordedAt, long amountMinor) {
+    }
+}
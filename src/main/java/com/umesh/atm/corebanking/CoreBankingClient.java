@@ -0,0 +1,40 @@
+package com.umesh.atm.corebanking;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Client for the core banking system. Implementations must never block the caller and must complete
+ * the returned future exceptionally, rather than hang, once the deadline has passed.
+ */
+public interface CoreBankingClient {
+
+    /**
+     * Fetches the account behind a card.
+     *
+     * @param cardToken the tokenized card identifier
+     * @param deadline time budget for the whole call, retries and hedges included
+     * @return the account snapshot; fails with {@link CoreBankingException} on errors and timeouts
+     */
+    CompletableFuture<AccountSnapshot> fetchAccount(String cardToken, Duration deadline);
+
+    /**
+     * Lists the accounts linked to a card, primary account first.
+     *
+     * @param cardToken the tokenized card identifier
+     * @param deadline time budget for the call
+     * @return the account ids; fails with {@link CoreBankingException} on errors and timeouts
+     */
+    CompletableFuture<List<String>> listAccounts(String cardToken, Duration deadline);
+
+    /**
+     * Fetches one of the accounts linked to a card.
+     *
+     * @param cardToken the tokenized card identifier
+     * @param accountId an id returned by {@link #listAccounts}
+     * @param deadline time budget for the call
+     * @return the account snapshot; fails with {@link CoreBankingException} on errors and timeouts
+     */
+    CompletableFuture<AccountSnapshot> fetchAccount(String cardToken, String accountId, Duration deadline);
+}
@@ -0,0 +1,15 @@
+package com.umesh.atm.corebanking;
+
+/**
+ * Thrown when core banking cannot be reached, rejects a call or misses its deadline.
+ */
+public class CoreBankingException extends RuntimeException {
+
+    public CoreBankingException(String message) {
+        super(message);
+    }
+
+    public CoreBankingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,146 @@
+package com.umesh.atm.corebanking;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Hedges core banking calls: if a call has not answered within the backend's recent p95 latency, a second
+ * identical call is sent and whichever answers first wins. This cuts the tail that slow backend replicas,
+ * GC pauses or lost packets add to balance inquiries, at the cost of about 5% extra backend calls.
+ * <p>
+ * Hedges are capped by a budget (atm.core-banking.hedging.max-ratio of calls), so a backend that is
+ * slow across the board does not receive double the load. Account reads are idempotent, which is what
+ * makes sending them twice safe.
+ */
+@Slf4j
+public class HedgingCoreBankingClient implements CoreBankingClient, AutoCloseable {
+
+    private static final int SAMPLES = 1024;            // recent successful latencies kept
+    private static final int RECOMPUTE_EVERY = 256;     // samples between hedge delay updates
+    private static final long BUDGET_UNIT = 1000;       // one hedge, in budget units
+    private static final long MAX_BUDGET = 100 * BUDGET_UNIT;
+
+    private final CoreBankingClient delegate;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long budgetPerCall;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+    private final AtomicLong sampleCount = new AtomicLong();
+    private final AtomicBoolean recomputing = new AtomicBoolean();
+    private final AtomicLong hedgeBudget = new AtomicLong(MAX_BUDGET);
+    private volatile long hedgeDelayNanos;
+
+    public HedgingCoreBankingClient(CoreBankingClient delegate, double percentile, Duration initialDelay,
+                                    Duration minDelay, double maxHedgeRatio) {
+        this.delegate = delegate;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.budgetPerCall = Math.round(maxHedgeRatio * BUDGET_UNIT);
+        this.hedgeDelayNanos = Math.max(minDelayNanos, initialDelay.toNanos());
+    }
+
+    @Override
+    public CompletableFuture<AccountSnapshot> fetchAccount(String cardToken, Duration deadline) {
+        return hedged(remaining -> delegate.fetchAccount(cardToken, remaining), deadline);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> listAccounts(String cardToken, Duration deadline) {
+        return hedged(remaining -> delegate.listAccounts(cardToken, remaining), deadline);
+    }
+
+    @Override
+    public CompletableFuture<AccountSnapshot> fetchAccount(String cardToken, String accountId, Duration deadline) {
+        return hedged(remaining -> delegate.fetchAccount(cardToken, accountId, remaining), deadline);
+    }
+
+    private <T> CompletableFuture<T> hedged(Function<Duration, CompletableFuture<T>> call, Duration deadline) {
+        long started = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        hedgeBudget.updateAndGet(budget -> Math.min(MAX_BUDGET, budget + budgetPerCall));
+
+        attempt(call, deadline, result, outstanding);
+
+        long delay = hedgeDelayNanos;
+        if (delay < deadline.toNanos()) {
+            ScheduledFuture<?> hedge = timer.schedule(() -> {
+                if (!result.isDone() && takeHedge()) {
+                    outstanding.incrementAndGet();
+                    Duration remaining = deadline.minusNanos(System.nanoTime() - started);
+                    log.debug("Hedging core banking call after {} ms", TimeUnit.NANOSECONDS.toMillis(delay));
+                    attempt(call, remaining, result, outstanding);
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+            result.whenComplete((value, error) -> hedge.cancel(false));
+        }
+        return result;
+    }
+
+    /**
+     * Current delay after which a call is hedged.
+     */
+    public Duration getHedgeDelay() {
+        return Duration.ofNanos(hedgeDelayNanos);
+    }
+
+    @Override
+    public void close() throws Exception {
+        timer.shutdownNow();
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private <T> void attempt(Function<Duration, CompletableFuture<T>> call, Duration deadline,
+                             CompletableFuture<T> result, AtomicInteger outstanding) {
+        long started = System.nanoTime();
+        call.apply(deadline).whenComplete((value, error) -> {
+            if (error == null) {
+                record(System.nanoTime() - started);
+                result.complete(value);
+            } else if (outstanding.decrementAndGet() == 0) {
+                // Fail only once no attempt is left in flight
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        });
+    }
+
+    private boolean takeHedge() {
+        return hedgeBudget.getAndUpdate(budget -> budget >= BUDGET_UNIT ? budget - BUDGET_UNIT : budget) >= BUDGET_UNIT;
+    }
+
+    private void record(long latencyNanos) {
+        long count = sampleCount.getAndIncrement();
+        samples.set((int) (count % SAMPLES), latencyNanos);
+        if (count >= SAMPLES && count % RECOMPUTE_EVERY == 0 && recomputing.compareAndSet(false, true)) {
+            try {
+                long[] sorted = new long[SAMPLES];
+                for (int i = 0; i < SAMPLES; i++) {
+                    sorted[i] = samples.get(i);
+                }
+                Arrays.sort(sorted);
+                hedgeDelayNanos = Math.max(minDelayNanos, sorted[(int) Math.min(SAMPLES - 1, percentile * SAMPLES)]);
+            } finally {
+                recomputing.set(false);
+            }
+        }
+    }
+}
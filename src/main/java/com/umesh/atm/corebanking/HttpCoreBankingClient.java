@@ -0,0 +1,108 @@
+package com.umesh.atm.corebanking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Core banking client over HTTP. One shared {@link HttpClient} keeps persistent connections to the backend
+ * (multiplexed streams over HTTP/2, a keep-alive pool over HTTP/1.1), so calls do not pay for a TCP and TLS
+ * handshake. Every request carries its own deadline.
+ */
+@Slf4j
+public class HttpCoreBankingClient implements CoreBankingClient, AutoCloseable {
+
+    private final URI baseUri;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService ioExecutor;
+    private final HttpClient httpClient;
+
+    public HttpCoreBankingClient(String baseUrl, Duration connectTimeout, int ioThreads, ObjectMapper objectMapper) {
+        this.baseUri = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+        this.objectMapper = objectMapper;
+        this.ioExecutor = Executors.newFixedThreadPool(Math.max(1, ioThreads));
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .executor(ioExecutor)
+                .build();
+        log.info("Core banking HTTP client targeting {}", baseUri);
+    }
+
+    @Override
+    public CompletableFuture<AccountSnapshot> fetchAccount(String cardToken, Duration deadline) {
+        return get("v1/accounts/by-card/" + encode(cardToken), deadline, AccountSnapshot.class);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> listAccounts(String cardToken, Duration deadline) {
+        return get("v1/cards/" + encode(cardToken) + "/accounts", deadline, String[].class)
+                .thenApply(List::of);
+    }
+
+    @Override
+    public CompletableFuture<AccountSnapshot> fetchAccount(String cardToken, String accountId, Duration deadline) {
+        return get("v1/cards/" + encode(cardToken) + "/accounts/" + encode(accountId), deadline, AccountSnapshot.class);
+    }
+
+    private <T> CompletableFuture<T> get(String path, Duration deadline, Class<T> type) {
+        // HttpRequest rejects a zero or negative timeout; a spent deadline fails like a missed one
+        if (deadline.isZero() || deadline.isNegative()) {
+            return CompletableFuture.failedFuture(new CoreBankingException("Core banking deadline exceeded"));
+        }
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(deadline)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> read(response, type))
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(translate(e)));
+    }
+
+    @Override
+    public void close() {
+        ioExecutor.shutdownNow();
+    }
+
+    private <T> T read(HttpResponse<byte[]> response, Class<T> type) {
+        if (response.statusCode() != 200) {
+            throw new CoreBankingException("Core banking returned HTTP " + response.statusCode());
+        }
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new CoreBankingException("Malformed core banking response", e);
+        }
+    }
+
+    private static String encode(String pathSegment) {
+        return URLEncoder.encode(pathSegment, StandardCharsets.UTF_8);
+    }
+
+    private static CoreBankingException translate(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CoreBankingException coreBankingException) {
+            return coreBankingException;
+        }
+        if (cause instanceof HttpTimeoutException) {
+            return new CoreBankingException("Core banking deadline exceeded", cause);
+        }
+        return new CoreBankingException("Core banking call failed", cause);
+    }
+}
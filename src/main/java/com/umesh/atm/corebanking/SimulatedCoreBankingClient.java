@@ -0,0 +1,121 @@
+package com.umesh.atm.corebanking;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Local stand-in for core banking, for development and load tests.
+ * Latency follows a log-normal distribution given by its median and p99, which reproduces the long tail of
+ * a real backend; a configurable fraction of calls fails. Balances are derived from the card token, so the
+ * same card always sees the same accounts (one to three per card). Responses are completed from a timer
+ * thread, never by sleeping.
+ */
+@Slf4j
+public class SimulatedCoreBankingClient implements CoreBankingClient, AutoCloseable {
+
+    private static final double Z_99 = 2.326; // standard normal quantile of p99
+
+    private final double mu;
+    private final double sigma;
+    private final double failureRate;
+    private final String currency;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    public SimulatedCoreBankingClient(Duration medianLatency, Duration p99Latency, double failureRate, String currency) {
+        double median = Math.max(1, medianLatency.toNanos());
+        this.mu = Math.log(median);
+        this.sigma = Math.max(0, Math.log(Math.max(median, p99Latency.toNanos()) / median) / Z_99);
+        this.failureRate = failureRate;
+        this.currency = currency;
+        log.info("Simulated core banking: median {} ms, p99 {} ms, failure rate {}",
+                medianLatency.toMillis(), p99Latency.toMillis(), failureRate);
+    }
+
+    @Override
+    public CompletableFuture<AccountSnapshot> fetchAccount(String cardToken, Duration deadline) {
+        return respond(() -> snapshotOf(cardToken, 0), deadline);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> listAccounts(String cardToken, Duration deadline) {
+        return respond(() -> {
+            int accounts = 1 + (int) (seedOf(cardToken) % 3);
+            List<String> accountIds = new ArrayList<>(accounts);
+            for (int i = 0; i < accounts; i++) {
+                accountIds.add(accountIdOf(cardToken, i));
+            }
+            return accountIds;
+        }, deadline);
+    }
+
+    @Override
+    public CompletableFuture<AccountSnapshot> fetchAccount(String cardToken, String accountId, Duration deadline) {
+        return respond(() -> {
+            for (int i = 0; i < 3; i++) {
+                if (accountIdOf(cardToken, i).equals(accountId)) {
+                    return snapshotOf(cardToken, i);
+                }
+            }
+            throw new CoreBankingException("Account " + accountId + " is not linked to the card");
+        }, deadline);
+    }
+
+    private <T> CompletableFuture<T> respond(Supplier<T> body, Duration deadline) {
+        CompletableFuture<T> response = new CompletableFuture<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long latencyNanos = (long) Math.exp(mu + sigma * random.nextGaussian());
+        boolean fails = random.nextDouble() < failureRate;
+
+        if (latencyNanos > deadline.toNanos()) {
+            timer.schedule(() -> response.completeExceptionally(
+                    new CoreBankingException("Core banking deadline of " + deadline.toMillis() + " ms exceeded")),
+                    deadline.toNanos(), TimeUnit.NANOSECONDS);
+        } else {
+            timer.schedule(() -> {
+                if (fails) {
+                    response.completeExceptionally(new CoreBankingException("Simulated core banking failure"));
+                    return;
+                }
+                try {
+                    response.complete(body.get());
+                } catch (RuntimeException e) {
+                    response.completeExceptionally(e);
+                }
+            }, latencyNanos, TimeUnit.NANOSECONDS);
+        }
+        return response;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    private AccountSnapshot snapshotOf(String cardToken, int account) {
+        long seed = (seedOf(cardToken) * 31 + account) & 0x7fffffffL;
+        BigDecimal ledger = BigDecimal.valueOf(seed % 10_000_000L, 2);
+        BigDecimal holds = BigDecimal.valueOf(seed % 100_000L, 2);
+        BigDecimal available = ledger.subtract(holds).max(BigDecimal.ZERO);
+        String accountType = account == 0 ? (seed % 5 == 0 ? "CURRENT" : "SAVINGS") : (account == 1 ? "CURRENT" : "CREDIT");
+        return new AccountSnapshot(ledger, available, currency, accountType, true, Instant.now());
+    }
+
+    private static String accountIdOf(String cardToken, int account) {
+        return String.format("SIM%010d%02d", seedOf(cardToken) % 10_000_000_000L, account);
+    }
+
+    private static long seedOf(String cardToken) {
+        return cardToken == null ? 0 : cardToken.hashCode() & 0x7fffffffL;
+    }
+}
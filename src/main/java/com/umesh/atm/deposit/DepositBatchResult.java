@@ -0,0 +1,24 @@
+package com.umesh.atm.deposit;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Outcome of one batch of notes from the acceptor. Rejected notes are returned to the customer.
+ *
+ * @param acceptedNotes face value → notes accepted from this batch
+ * @param rejectedNotes face value → notes rejected from this batch
+ * @param rejectionReason why notes were rejected (first reason in the batch), or null
+ * @param runningTotal total accepted so far in the deposit
+ * @param noteCount notes accepted so far in the deposit
+ */
+public record DepositBatchResult(Map<Integer, Integer> acceptedNotes, Map<Integer, Integer> rejectedNotes,
+                                 String rejectionReason, BigDecimal runningTotal, int noteCount) {
+
+    public static final String DENOMINATION_NOT_ACCEPTED = "DENOMINATION_NOT_ACCEPTED";
+    public static final String CASSETTE_FULL = "CASSETTE_FULL";
+    public static final String DEPOSIT_NOTE_LIMIT = "DEPOSIT_NOTE_LIMIT";
+    public static final String DEPOSIT_AMOUNT_LIMIT = "DEPOSIT_AMOUNT_LIMIT";
+    // The deposit is being confirmed; the batch counts towards nothing
+    public static final String DEPOSIT_CLOSED = "DEPOSIT_CLOSED";
+}
@@ -0,0 +1,224 @@
+package com.umesh.atm.deposit;
+
+import com.umesh.atm.chain.HandlerResult;
+import com.umesh.atm.chain.transaction.TransactionProcessingChain;
+import com.umesh.atm.chain.transaction.TransactionRequest;
+import com.umesh.atm.entity.AtmCashInventory;
+import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.repository.AtmCashInventoryRepository;
+import com.umesh.atm.service.CashService;
+import com.umesh.atm.service.TransactionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cash deposits, processed as the acceptor counts notes rather than all at once at the end.
+ * <ol>
+ *   <li>{@link #open}: the request passes the deposit chain and the ATM's accepted denominations and
+ *       free cassette space are loaded once.</li>
+ *   <li>{@link #acceptBatch}: each batch of counted notes is validated against the deposit so far and
+ *       added to the running total; notes that don't fit are rejected back to the customer.</li>
+ *   <li>{@link #confirm}: the customer confirms, the deposit is closed to further batches, and the total is
+ *       recorded as an approved transaction and committed to inventory in one database transaction. If that
+ *       fails the deposit stays open. {@link #cancel} (or going idle) returns the escrowed notes instead.</li>
+ * </ol>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DepositPipeline {
+
+    public static final String DEPOSIT_PROCESSING_CODE = "210000";
+
+    @Value("${atm.deposit.max-notes:200}")
+    private int maxNotes;
+
+    @Value("${atm.cash.max-deposit-amount:200000}")
+    private BigDecimal maxDepositAmount;
+
+    @Value("${atm.deposit.idle-timeout-seconds:120}")
+    private long idleTimeoutSeconds;
+
+    private final TransactionProcessingChain transactionProcessingChain;
+    private final AtmCashInventoryRepository cashInventoryRepository;
+    private final CashService cashService;
+    private final TransactionService transactionService;
+
+    private final Map<String, DepositSession> deposits = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    public void start() {
+        sweeper.scheduleWithFixedDelay(this::expireIdle, idleTimeoutSeconds, idleTimeoutSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Starts a deposit after the request passes the deposit chain.
+     *
+     * @return success with the deposit id as data, or the chain's failure
+     */
+    public HandlerResult open(TransactionRequest request) {
+        AtmMachine atmMachine = request.getAtmMachine();
+        if (!atmMachine.isSupportsDeposit()) {
+            return HandlerResult.failure("ATM does not accept deposits", "DEPOSIT_NOT_SUPPORTED");
+        }
+
+        HandlerResult result = transactionProcessingChain.processTransaction(request);
+        if (!result.isSuccess()) {
+            return result;
+        }
+
+        try {
+            List<AtmCashInventory> inventory = cashInventoryRepository.findByMachineId(atmMachine.getId());
+            Set<Integer> acceptedDenominations = new HashSet<>();
+            long loadedNotes = 0;
+            for (AtmCashInventory cassette : inventory) {
+                if (cassette.isEnabled()) {
+                    acceptedDenominations.add(cassette.getDenomination());
+                }
+                loadedNotes += cassette.getNoteCount();
+            }
+            long freeNoteSlots = atmMachine.getCashCapacity() == null
+                    ? Long.MAX_VALUE
+                    : Math.max(0, atmMachine.getCashCapacity() - loadedNotes);
+
+            String depositId = UUID.randomUUID().toString();
+            deposits.put(depositId, new DepositSession(depositId, request.getSessionId(), request.getCardToken(),
+                    atmMachine, acceptedDenominations, freeNoteSlots, maxNotes,
+                    maxDepositAmount.movePointRight(2).longValue()));
+            log.info("Deposit {} opened for card: {} at ATM: {} ({} free note slots)",
+                    depositId, request.getCardToken(), atmMachine.getAtmCode(), freeNoteSlots);
+            return HandlerResult.success("Deposit started", depositId);
+
+        } catch (Exception e) {
+            log.error("Error opening deposit for card: {}", request.getCardToken(), e);
+            return HandlerResult.failure("Deposit service error", "DEPOSIT_ERROR");
+        }
+    }
+
+    /**
+     * Validates and accumulates one batch of counted notes.
+     *
+     * @param notes face value → note count from the acceptor
+     * @return the batch outcome, or null if the deposit is unknown or belongs to another session
+     */
+    public DepositBatchResult acceptBatch(String depositId, String sessionId, Map<Integer, Integer> notes) {
+        DepositSession deposit = find(depositId, sessionId);
+        if (deposit == null) {
+            return null;
+        }
+        DepositBatchResult result = deposit.accept(notes);
+        if (result.rejectionReason() != null) {
+            log.info("Deposit {} rejected notes {} ({})", depositId, result.rejectedNotes(), result.rejectionReason());
+        }
+        return result;
+    }
+
+    /**
+     * Commits a deposit: records the transaction and adds the accepted notes to inventory.
+     *
+     * @return success with a {@link DepositReceipt} as data, or failure
+     */
+    public HandlerResult confirm(String depositId, String sessionId) {
+        DepositSession deposit = find(depositId, sessionId);
+        // Closing under the session's lock fixes the notes to commit and turns away later batches;
+        // a repeated confirm finds the deposit closed and is a no-op rather than a second credit
+        DepositSession.Snapshot snapshot = deposit != null ? deposit.close() : null;
+        if (snapshot == null) {
+            return HandlerResult.failure("Deposit not found", "DEPOSIT_NOT_FOUND");
+        }
+
+        boolean committed = false;
+        try {
+            if (snapshot.noteCount() == 0) {
+                return HandlerResult.failure("No notes deposited", "DEPOSIT_EMPTY");
+            }
+            if (!cashService.depositCash(deposit.atmMachine, deposit.cardToken, snapshot.total())) {
+                return HandlerResult.failure("Deposit not accepted", "DEPOSIT_NOT_ACCEPTED");
+            }
+
+            // The credit and the notes in the cassettes commit together or not at all
+            Transaction transaction = transactionService.createApprovedTransaction(
+                    deposit.atmMachine, deposit.cardToken, DEPOSIT_PROCESSING_CODE, snapshot.total(),
+                    () -> cashService.updateCashInventory(deposit.atmMachine, snapshot.inventoryChanges()));
+            if (transaction == null) {
+                return HandlerResult.failure("Deposit could not be committed to inventory", "DEPOSIT_ERROR");
+            }
+            committed = true;
+            deposit.committed();
+            deposits.remove(depositId, deposit);
+            log.info("Deposit {} committed: {} in {} notes (transaction {})",
+                    depositId, snapshot.total(), snapshot.noteCount(), transaction.getId());
+            return HandlerResult.success("Deposit successful",
+                    new DepositReceipt(transaction.getId(), transaction.getRrn(), snapshot.total(), snapshot.noteCount()));
+
+        } catch (Exception e) {
+            log.error("Error committing deposit {}", depositId, e);
+            return HandlerResult.failure("Deposit service error", "DEPOSIT_ERROR");
+        } finally {
+            if (!committed) {
+                // Nothing was credited: the customer can retry, add notes or cancel to get them back
+                deposit.reopen();
+            }
+        }
+    }
+
+    /**
+     * Cancels a deposit; the acceptor returns the escrowed notes.
+     *
+     * @return true if the deposit was open (not being confirmed or already committed)
+     */
+    public boolean cancel(String depositId, String sessionId) {
+        DepositSession deposit = find(depositId, sessionId);
+        if (deposit == null || !deposit.cancel()) {
+            return false;
+        }
+        deposits.remove(depositId, deposit);
+        log.info("Deposit {} cancelled, returning {} notes", depositId, deposit.noteCount());
+        return true;
+    }
+
+    private DepositSession find(String depositId, String sessionId) {
+        DepositSession deposit = depositId != null ? deposits.get(depositId) : null;
+        if (deposit == null || !deposit.sessionId.equals(sessionId)) {
+            return null;
+        }
+        return deposit;
+    }
+
+    private void expireIdle() {
+        try {
+            long cutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+            deposits.values().removeIf(deposit -> {
+                if (deposit.lastActivityMillis() >= cutoff || !deposit.cancel()) {
+                    return false;
+                }
+                log.warn("Deposit {} idle, cancelled with {} notes to return", deposit.depositId, deposit.noteCount());
+                return true;
+            });
+        } catch (Exception e) {
+            log.error("Error expiring idle deposits", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.umesh.atm.deposit;
+
+import java.math.BigDecimal;
+
+/**
+ * A committed deposit.
+ *
+ * @param transactionId the deposit transaction
+ * @param rrn its retrieval reference number
+ * @param amount the amount credited
+ * @param noteCount notes added to inventory
+ */
+public record DepositReceipt(Long transactionId, String rrn, BigDecimal amount, int noteCount) {
+}
@@ -0,0 +1,192 @@
+package com.umesh.atm.deposit;
+
+import com.umesh.atm.entity.AtmMachine;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Running state of one deposit: the notes accepted so far and the limits they are checked against.
+ * Only aggregates are kept, so a deposit of hundreds of notes costs one entry per denomination.
+ * Batches of one deposit arrive from one acceptor, but calls are synchronized to be safe.
+ * <p>
+ * Confirming {@link #close() closes} the deposit: the notes are snapshotted and later batches are rejected
+ * while the commit runs. A failed commit {@link #reopen() reopens} it; only an open deposit can be cancelled.
+ */
+final class DepositSession {
+
+    final String depositId;
+    final String sessionId;
+    final String cardToken;
+    final AtmMachine atmMachine;
+
+    // Denominations in minor units, as in AtmCashInventory
+    private final Set<Integer> acceptedDenominations;
+    private final long freeNoteSlots;
+    private final int maxNotes;
+    private final long maxAmountMinor;
+
+    private final Map<Integer, Integer> notesByDenomination = new TreeMap<>();
+    private long totalMinor;
+    private int noteCount;
+    private State state = State.OPEN;
+    private volatile long lastActivityMillis = System.currentTimeMillis();
+
+    DepositSession(String depositId, String sessionId, String cardToken, AtmMachine atmMachine,
+                   Set<Integer> acceptedDenominations, long freeNoteSlots, int maxNotes, long maxAmountMinor) {
+        this.depositId = depositId;
+        this.sessionId = sessionId;
+        this.cardToken = cardToken;
+        this.atmMachine = atmMachine;
+        this.acceptedDenominations = acceptedDenominations;
+        this.freeNoteSlots = freeNoteSlots;
+        this.maxNotes = maxNotes;
+        this.maxAmountMinor = maxAmountMinor;
+    }
+
+    /**
+     * Validates a batch against the deposit so far and accumulates the notes that fit.
+     *
+     * @param notes face value (major units) → note count reported by the acceptor
+     */
+    synchronized DepositBatchResult accept(Map<Integer, Integer> notes) {
+        lastActivityMillis = System.currentTimeMillis();
+        Map<Integer, Integer> accepted = new LinkedHashMap<>();
+        Map<Integer, Integer> rejected = new LinkedHashMap<>();
+        String reason = null;
+
+        if (state != State.OPEN) {
+            notes.forEach((faceValue, count) -> {
+                if (count != null && count > 0) {
+                    rejected.put(faceValue, count);
+                }
+            });
+            return new DepositBatchResult(accepted, rejected,
+                    rejected.isEmpty() ? null : DepositBatchResult.DEPOSIT_CLOSED, total(), noteCount);
+        }
+
+        for (Map.Entry<Integer, Integer> entry : new TreeMap<>(notes).entrySet()) {
+            int faceValue = entry.getKey();
+            int count = entry.getValue() == null ? 0 : entry.getValue();
+            if (count <= 0) {
+                continue;
+            }
+            int denomination = faceValue * 100;
+
+            int fits = count;
+            String limitedBy = null;
+            if (!acceptedDenominations.contains(denomination)) {
+                fits = 0;
+                limitedBy = DepositBatchResult.DENOMINATION_NOT_ACCEPTED;
+            } else {
+                // Each limit trims what still fits; the tightest one is reported
+                if (fits > freeNoteSlots - noteCount) {
+                    fits = (int) Math.max(0, freeNoteSlots - noteCount);
+                    limitedBy = DepositBatchResult.CASSETTE_FULL;
+                }
+                if (fits > maxNotes - noteCount) {
+                    fits = Math.max(0, maxNotes - noteCount);
+                    limitedBy = DepositBatchResult.DEPOSIT_NOTE_LIMIT;
+                }
+                if (fits > (maxAmountMinor - totalMinor) / denomination) {
+                    fits = (int) Math.max(0, (maxAmountMinor - totalMinor) / denomination);
+                    limitedBy = DepositBatchResult.DEPOSIT_AMOUNT_LIMIT;
+                }
+            }
+
+            if (fits > 0) {
+                accepted.put(faceValue, fits);
+                notesByDenomination.merge(denomination, fits, Integer::sum);
+                noteCount += fits;
+                totalMinor += (long) fits * denomination;
+            }
+            if (fits < count) {
+                rejected.put(faceValue, count - fits);
+                if (reason == null) {
+                    reason = limitedBy;
+                }
+            }
+        }
+        return new DepositBatchResult(accepted, rejected, reason, total(), noteCount);
+    }
+
+    synchronized BigDecimal total() {
+        return BigDecimal.valueOf(totalMinor, 2);
+    }
+
+    synchronized int noteCount() {
+        return noteCount;
+    }
+
+    /**
+     * Accepted notes as inventory changes (denomination in minor units → count).
+     */
+    synchronized Map<Integer, Integer> inventoryChanges() {
+        return Collections.unmodifiableMap(new TreeMap<>(notesByDenomination));
+    }
+
+    /**
+     * Closes an open deposit for confirmation and snapshots what it holds.
+     *
+     * @return the notes to commit, or null if the deposit is not open (already confirming or closed)
+     */
+    synchronized Snapshot close() {
+        if (state != State.OPEN) {
+            return null;
+        }
+        state = State.CONFIRMING;
+        return new Snapshot(total(), noteCount, inventoryChanges());
+    }
+
+    /**
+     * Reopens a deposit whose confirmation did not commit, so it can take notes, be confirmed or be cancelled.
+     */
+    synchronized void reopen() {
+        if (state == State.CONFIRMING) {
+            state = State.OPEN;
+            lastActivityMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Marks a confirmed deposit as committed.
+     */
+    synchronized void committed() {
+        state = State.CLOSED;
+    }
+
+    /**
+     * Cancels an open deposit. A deposit being confirmed cannot be cancelled.
+     *
+     * @return true if the deposit was open
+     */
+    synchronized boolean cancel() {
+        if (state != State.OPEN) {
+            return false;
+        }
+        state = State.CLOSED;
+        return true;
+    }
+
+    long lastActivityMillis() {
+        return lastActivityMillis;
+    }
+
+    /**
+     * What a closed deposit commits, taken atomically with closing it.
+     *
+     * @param total the amount to credit
+     * @param noteCount notes accepted
+     * @param inventoryChanges denomination in minor units → count
+     */
+    record Snapshot(BigDecimal total, int noteCount, Map<Integer, Integer> inventoryChanges) {
+    }
+
+    private enum State {
+        OPEN, CONFIRMING, CLOSED
+    }
+}
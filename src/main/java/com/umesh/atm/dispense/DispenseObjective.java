@@ -0,0 +1,56 @@
+package com.umesh.atm.dispense;
+
+/**
+ * What the dispense planner optimizes when several note combinations make up the same amount.
+ * Each objective scores a candidate plan; the lowest cost wins, fewer notes breaking ties.
+ */
+public enum DispenseObjective {
+
+    // Fewest notes: fastest dispense, least wear on the note feeders
+    MIN_NOTES {
+        @Override
+        double cost(long[] counts, int[] plan) {
+            return 0;
+        }
+    },
+
+    // Avoid denominations that are running low, so small amounts stay dispensable for longer
+    PRESERVE_SCARCE {
+        @Override
+        double cost(long[] counts, int[] plan) {
+            double cost = 0;
+            for (int i = 0; i < plan.length; i++) {
+                if (plan[i] > 0) {
+                    cost += (double) plan[i] / Math.max(1, counts[i] - plan[i]);
+                }
+            }
+            return cost;
+        }
+    },
+
+    // Drain every cassette at a similar rate, so the ATM runs dry as late as possible
+    EQUALIZE_DEPLETION {
+        @Override
+        double cost(long[] counts, int[] plan) {
+            long max = 0;
+            for (long count : counts) {
+                max = Math.max(max, count);
+            }
+            double cost = 0;
+            for (int i = 0; i < plan.length; i++) {
+                // Penalize leaving a cassette far below the fullest one
+                double shortfall = (double) (max - (counts[i] - plan[i])) / Math.max(1, max);
+                cost += shortfall * shortfall;
+            }
+            return cost;
+        }
+    };
+
+    /**
+     * Scores a plan against the counts it would be dispensed from.
+     *
+     * @param counts notes loaded per denomination, largest denomination first
+     * @param plan notes to dispense per denomination, same order
+     */
+    abstract double cost(long[] counts, int[] plan);
+}
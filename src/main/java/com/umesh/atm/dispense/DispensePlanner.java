@@ -0,0 +1,304 @@
+package com.umesh.atm.dispense;
+
+import com.umesh.atm.entity.AtmCashInventory;
+import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.repository.AtmCashInventoryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses which notes to dispense for a withdrawal, using live cassette counts and a configurable
+ * {@link DispenseObjective}.
+ * <p>
+ * Each ATM has a precomputed table with the optimal plan for every common amount (each withdrawal
+ * multiple between the minimum and maximum). A lookup is an array index and a feasibility check
+ * against the live counts. The table is rebuilt in the background only when a cassette's count
+ * crosses a threshold (a power of two), since between thresholds the best plan rarely changes. Uncommon
+ * amounts, and table plans the live counts can no longer cover, are planned on the spot.
+ * <p>
+ * Counts are kept current from this node's committed inventory changes. Cassettes are reloaded from the
+ * database after {@code cache-ttl-seconds}, which picks up refills and changes made by other nodes; the
+ * table survives a reload unless a count moved to another band, and is then rebuilt in the background.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DispensePlanner {
+
+    @Value("${atm.dispense.objective:EQUALIZE_DEPLETION}")
+    private DispenseObjective objective;
+
+    @Value("${atm.dispense.max-notes:40}")
+    private int maxNotes;
+
+    @Value("${atm.dispense.cache-ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    @Value("${atm.cash.min-withdrawal-amount:100}")
+    private BigDecimal minWithdrawalAmount;
+
+    @Value("${atm.cash.max-withdrawal-amount:20000}")
+    private BigDecimal maxWithdrawalAmount;
+
+    @Value("${atm.cash.withdrawal-multiple:100}")
+    private BigDecimal withdrawalMultiple;
+
+    private final AtmCashInventoryRepository cashInventoryRepository;
+
+    private final Map<Long, MachineCassettes> machines = new ConcurrentHashMap<>();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor();
+
+    private long cacheTtlNanos;
+    private long tableMinMinor;
+    private long tableStepMinor;
+    private int tableSize;
+
+    @PostConstruct
+    public void start() {
+        cacheTtlNanos = TimeUnit.SECONDS.toNanos(cacheTtlSeconds);
+        tableMinMinor = minWithdrawalAmount.movePointRight(2).longValueExact();
+        tableStepMinor = withdrawalMultiple.movePointRight(2).longValueExact();
+        long maxMinor = maxWithdrawalAmount.movePointRight(2).longValueExact();
+        tableSize = (int) ((maxMinor - tableMinMinor) / tableStepMinor) + 1;
+        log.info("Dispense planner using {} with {} precomputed amounts per ATM", objective, tableSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Plans the notes for an amount.
+     *
+     * @return denomination (minor units) → notes, largest first, or null if the amount cannot be dispensed
+     */
+    public Map<Integer, Integer> plan(AtmMachine atmMachine, BigDecimal amount) {
+        MachineCassettes machine = cassettesOf(atmMachine);
+        long amountMinor = amount.movePointRight(2).longValueExact();
+        long[] counts = machine.counts();
+
+        PlanTable table = machine.table;
+        int[] plan = table != null ? table.lookup(amountMinor) : null;
+        if (plan == null || !isFeasible(plan, counts)) {
+            plan = search(machine.denominations, counts, amountMinor);
+        }
+        return plan == null ? null : toDistribution(machine.denominations, plan);
+    }
+
+    /**
+     * Returns the total cash loaded in an ATM's enabled cassettes.
+     */
+    public BigDecimal totalCash(AtmMachine atmMachine) {
+        MachineCassettes machine = cassettesOf(atmMachine);
+        long[] counts = machine.counts();
+        long totalMinor = 0;
+        for (int i = 0; i < counts.length; i++) {
+            totalMinor += counts[i] * machine.denominations[i];
+        }
+        return BigDecimal.valueOf(totalMinor, 2);
+    }
+
+    /**
+     * Applies committed inventory changes to the live counts, rebuilding the ATM's table if a cassette
+     * crossed a threshold.
+     *
+     * @param changes denomination (minor units) → note delta
+     */
+    public void onInventoryChanged(AtmMachine atmMachine, Map<Integer, Integer> changes) {
+        MachineCassettes machine = machines.get(atmMachine.getId());
+        if (machine == null) {
+            return;
+        }
+        for (Map.Entry<Integer, Integer> change : changes.entrySet()) {
+            if (!machine.add(change.getKey(), change.getValue())) {
+                // A denomination we don't track (e.g. newly enabled); reload from the database on next use
+                machines.remove(atmMachine.getId(), machine);
+                return;
+            }
+        }
+        if (machine.needsRebuild() && machine.startRebuild()) {
+            rebuilder.execute(() -> rebuild(machine));
+        }
+    }
+
+    /**
+     * Drops an ATM's cached cassettes, e.g. after a refill or a cassette being enabled or disabled.
+     */
+    public void invalidate(AtmMachine atmMachine) {
+        machines.remove(atmMachine.getId());
+    }
+
+    private MachineCassettes cassettesOf(AtmMachine atmMachine) {
+        MachineCassettes cached = machines.get(atmMachine.getId());
+        if (cached == null) {
+            return machines.computeIfAbsent(atmMachine.getId(), id -> {
+                MachineCassettes machine = load(id);
+                machine.table = buildTable(machine);
+                return machine;
+            });
+        }
+        // One caller reloads an expired entry; the others keep using it until the reload is in
+        if (System.nanoTime() - cached.loadedAtNanos < cacheTtlNanos || !cached.startReload()) {
+            return cached;
+        }
+        try {
+            return reload(atmMachine.getId(), cached);
+        } finally {
+            cached.finishReload();
+        }
+    }
+
+    /**
+     * Replaces expired counts with fresh ones from the database. The table is kept while the counts stay
+     * in the same bands; otherwise it is rebuilt in the background and amounts are searched on the spot
+     * until it is ready.
+     */
+    private MachineCassettes reload(Long machineId, MachineCassettes expired) {
+        MachineCassettes fresh = load(machineId);
+        PlanTable table = expired.table;
+        if (table != null && Arrays.equals(fresh.denominations, expired.denominations)
+                && Arrays.equals(table.bands(), MachineCassettes.bands(fresh.counts()))) {
+            fresh.table = table;
+        }
+        if (!machines.replace(machineId, expired, fresh)) {
+            // Invalidated meanwhile; the next use loads again
+            return fresh;
+        }
+        if (fresh.table == null && fresh.startRebuild()) {
+            rebuilder.execute(() -> rebuild(fresh));
+        }
+        return fresh;
+    }
+
+    private MachineCassettes load(Long machineId) {
+        List<AtmCashInventory> cassettes = cashInventoryRepository.findByMachineId(machineId).stream()
+                .filter(AtmCashInventory::isEnabled)
+                .sorted(Comparator.comparing(AtmCashInventory::getDenomination).reversed())
+                .toList();
+        int[] denominations = cassettes.stream().mapToInt(AtmCashInventory::getDenomination).toArray();
+        long[] counts = cassettes.stream().mapToLong(AtmCashInventory::getNoteCount).toArray();
+        return new MachineCassettes(denominations, counts);
+    }
+
+    private void rebuild(MachineCassettes machine) {
+        try {
+            long started = System.nanoTime();
+            machine.table = buildTable(machine);
+            log.debug("Dispense table rebuilt in {} µs", (System.nanoTime() - started) / 1000);
+        } catch (Exception e) {
+            log.error("Error rebuilding dispense table", e);
+        } finally {
+            machine.finishRebuild();
+        }
+    }
+
+    private PlanTable buildTable(MachineCassettes machine) {
+        long[] counts = machine.counts();
+        int[][] plans = new int[tableSize][];
+        for (int i = 0; i < tableSize; i++) {
+            plans[i] = search(machine.denominations, counts, tableMinMinor + i * tableStepMinor);
+        }
+        return new PlanTable(plans, MachineCassettes.bands(counts), tableMinMinor, tableStepMinor);
+    }
+
+    /**
+     * Exhaustive search over note combinations, largest denomination first. ATMs have a handful of
+     * cassettes and a dispense is capped at {@code max-notes}, so this stays small.
+     */
+    private int[] search(int[] denominations, long[] counts, long amountMinor) {
+        if (amountMinor <= 0 || denominations.length == 0) {
+            return null;
+        }
+        Search search = new Search(denominations, counts);
+        search.run(0, amountMinor, 0);
+        return search.best;
+    }
+
+    private static boolean isFeasible(int[] plan, long[] counts) {
+        for (int i = 0; i < plan.length; i++) {
+            if (plan[i] > counts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<Integer, Integer> toDistribution(int[] denominations, int[] plan) {
+        Map<Integer, Integer> distribution = new LinkedHashMap<>();
+        for (int i = 0; i < plan.length; i++) {
+            if (plan[i] > 0) {
+                distribution.put(denominations[i], plan[i]);
+            }
+        }
+        return distribution;
+    }
+
+    private final class Search {
+        private final int[] denominations;
+        private final long[] counts;
+        private final long[] suffixGcd;
+        private final int[] plan;
+        private int[] best;
+        private double bestCost;
+        private int bestNotes;
+
+        Search(int[] denominations, long[] counts) {
+            this.denominations = denominations;
+            this.counts = counts;
+            this.plan = new int[denominations.length];
+            this.suffixGcd = new long[denominations.length];
+            long gcd = 0;
+            for (int i = denominations.length - 1; i >= 0; i--) {
+                gcd = gcd(gcd, denominations[i]);
+                suffixGcd[i] = gcd;
+            }
+        }
+
+        void run(int index, long remaining, int notes) {
+            if (remaining == 0) {
+                evaluate(notes);
+                return;
+            }
+            // The remaining cassettes can only make multiples of their gcd
+            if (index == denominations.length || remaining % suffixGcd[index] != 0) {
+                return;
+            }
+            long denomination = denominations[index];
+            long maxUse = Math.min(counts[index], Math.min(remaining / denomination, maxNotes - notes));
+            for (long use = maxUse; use >= 0; use--) {
+                plan[index] = (int) use;
+                run(index + 1, remaining - use * denomination, notes + (int) use);
+            }
+            plan[index] = 0;
+        }
+
+        private void evaluate(int notes) {
+            double cost = objective.cost(counts, plan);
+            if (best == null || cost < bestCost || (cost == bestCost && notes < bestNotes)) {
+                best = plan.clone();
+                bestCost = cost;
+                bestNotes = notes;
+            }
+        }
+
+        private static long gcd(long a, long b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
+}
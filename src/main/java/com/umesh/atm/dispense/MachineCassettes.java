@@ -0,0 +1,83 @@
+package com.umesh.atm.dispense;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Live note counts of one ATM's enabled cassettes (largest denomination first) and its plan table.
+ */
+final class MachineCassettes {
+
+    final int[] denominations;
+    final long loadedAtNanos = System.nanoTime();
+    private final AtomicLongArray counts;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    // Replaced wholesale on rebuild
+    volatile PlanTable table;
+
+    MachineCassettes(int[] denominations, long[] counts) {
+        this.denominations = denominations;
+        this.counts = new AtomicLongArray(counts);
+    }
+
+    long[] counts() {
+        long[] snapshot = new long[denominations.length];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Adds a delta to one denomination.
+     *
+     * @return false if the denomination is not one of this ATM's enabled cassettes
+     */
+    boolean add(int denomination, int delta) {
+        for (int i = 0; i < denominations.length; i++) {
+            if (denominations[i] == denomination) {
+                counts.addAndGet(i, delta);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True once any cassette has crossed a threshold since the table was built.
+     */
+    boolean needsRebuild() {
+        PlanTable current = table;
+        return current == null || !Arrays.equals(current.bands(), bands(counts()));
+    }
+
+    boolean startRebuild() {
+        return rebuilding.compareAndSet(false, true);
+    }
+
+    void finishRebuild() {
+        rebuilding.set(false);
+    }
+
+    boolean startReload() {
+        return reloading.compareAndSet(false, true);
+    }
+
+    void finishReload() {
+        reloading.set(false);
+    }
+
+    /**
+     * Threshold band of each count: its bit length, so a band boundary is crossed at every power of two.
+     */
+    static int[] bands(long[] counts) {
+        int[] bands = new int[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            bands[i] = 64 - Long.numberOfLeadingZeros(Math.max(0, counts[i]));
+        }
+        return bands;
+    }
+}
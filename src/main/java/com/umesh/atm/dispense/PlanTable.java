@@ -0,0 +1,19 @@
+package com.umesh.atm.dispense;
+
+/**
+ * Precomputed plans for the common amounts ({@code minMinor + i * stepMinor}) of one ATM, and the
+ * count threshold bands they were computed at. A null plan means the amount was not dispensable.
+ */
+record PlanTable(int[][] plans, int[] bands, long minMinor, long stepMinor) {
+
+    /**
+     * Returns the precomputed plan for an amount, or null if the amount is not a table entry.
+     */
+    int[] lookup(long amountMinor) {
+        long offset = amountMinor - minMinor;
+        if (offset < 0 || offset % stepMinor != 0 || offset / stepMinor >= plans.length) {
+            return null;
+        }
+        return plans[(int) (offset / stepMinor)];
+    }
+}
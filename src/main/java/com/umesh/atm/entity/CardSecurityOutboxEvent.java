@@ -0,0 +1,79 @@
+package com.umesh.atm.entity;
+
+import com.umesh.atm.enums.CardSecurityEventType;
+import com.umesh.atm.enums.CardStatus;
+import com.umesh.atm.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+import org.infra.commons.entity.BaseEntity;
+
+import java.time.Instant;
+
+/**
+ * Entity representing a card security event awaiting downstream propagation.
+ * Written in the same database transaction as the card status change (transactional outbox),
+ * so session termination, cache invalidation and audit survive a crash.
+ */
+@Entity
+@Table(
+        name = "card_security_outbox",
+        indexes = {
+                @Index(name = "idx_outbox_status", columnList = "status, id"),
+                @Index(name = "idx_outbox_card", columnList = "card_token")
+        }
+)
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardSecurityOutboxEvent extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    Long id;
+
+    /** Card the event applies to; events for the same card are processed in id order */
+    @Column(name = "card_token", nullable = false, length = 64)
+    String cardToken;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32)
+    CardSecurityEventType eventType;
+
+    /** Card status after the change */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "card_status", nullable = false, length = 20)
+    CardStatus cardStatus;
+
+    @Column(name = "reason", length = 100)
+    String reason;
+
+    /** When the status change was committed */
+    @Column(name = "occurred_at", nullable = false)
+    Instant occurredAt;
+
+    /** Delivery state */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    Integer attempts = 0;
+
+    /** Earliest time of the next delivery attempt (backoff after failures) */
+    @Column(name = "next_attempt_at", nullable = false)
+    Instant nextAttemptAt;
+
+    @Column(name = "processed_at")
+    Instant processedAt;
+
+    @Column(name = "last_error", length = 255)
+    String lastError;
+}
@@ -0,0 +1,50 @@
+package com.umesh.atm.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+import org.infra.commons.entity.BaseEntity;
+
+/**
+ * Entity representing a bulk reversal job's progress on one terminal.
+ * Advanced in the same database transaction as each reversed chunk, so a resumed job
+ * never reverses a transaction twice.
+ */
+@Entity
+@Table(
+        name = "atm_reversal_checkpoint",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reversal_job_terminal", columnNames = {"job_id", "terminal_id"})
+)
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReversalCheckpoint extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    Long id;
+
+    @Column(name = "job_id", nullable = false, length = 36)
+    String jobId;
+
+    @Column(name = "terminal_id", nullable = false, length = 16)
+    String terminalId;
+
+    /** Highest transaction id already processed on this terminal */
+    @Column(name = "last_transaction_id", nullable = false)
+    @Builder.Default
+    Long lastTransactionId = 0L;
+
+    @Column(name = "reversed_count", nullable = false)
+    @Builder.Default
+    Integer reversedCount = 0;
+
+    @Column(name = "completed", nullable = false)
+    @Builder.Default
+    Boolean completed = false;
+}
@@ -0,0 +1,59 @@
+package com.umesh.atm.entity;
+
+import com.umesh.atm.enums.ReversalJobStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+import org.infra.commons.entity.BaseEntity;
+
+import java.time.Instant;
+
+/**
+ * Entity representing a bulk reversal run, e.g. after a switch or dispenser outage.
+ * Selects transactions by status and time window; progress is tracked per terminal in
+ * {@link ReversalCheckpoint} so the job can be resumed after a crash.
+ */
+@Entity
+@Table(name = "atm_reversal_job")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReversalJob extends BaseEntity {
+
+    @Id
+    @Column(name = "id", length = 36)
+    String id;
+
+    /** Comma-separated transaction statuses to reverse, e.g. PENDING,TIMEOUT */
+    @Column(name = "statuses", nullable = false, length = 100)
+    String statuses;
+
+    /** Inclusive start of the local_txn_datetime window */
+    @Column(name = "window_from", nullable = false)
+    Instant windowFrom;
+
+    /** Exclusive end of the local_txn_datetime window */
+    @Column(name = "window_to", nullable = false)
+    Instant windowTo;
+
+    @Column(name = "reason", nullable = false, length = 100)
+    String reason;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    ReversalJobStatus status = ReversalJobStatus.RUNNING;
+
+    @Column(name = "started_at", nullable = false)
+    Instant startedAt;
+
+    @Column(name = "finished_at")
+    Instant finishedAt;
+
+    @Column(name = "last_error", length = 255)
+    String lastError;
+}
@@ -0,0 +1,32 @@
+package com.umesh.atm.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+import org.infra.commons.entity.BaseEntity;
+
+/**
+ * High-water mark of a named identifier sequence (hi/lo allocation).
+ * Nodes reserve whole blocks by advancing next_value under a row lock and hand
+ * out the numbers inside the block from memory.
+ */
+@Entity
+@Table(name = "atm_sequence_block")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SequenceBlock extends BaseEntity {
+
+    /** Sequence name, e.g. RRN or STAN:20261019 */
+    @Id
+    @Column(name = "name", length = 64)
+    String name;
+
+    /** First value not yet reserved by any node */
+    @Column(name = "next_value", nullable = false)
+    Long nextValue;
+}
@@ -20,8 +20,9 @@ import java.time.Instant;
         name = "atm_transaction",
         indexes = {
                 @Index(name = "idx_txn_rrn", columnList = "rrn"),
-                @Index(name = "idx_txn_terminal", columnList = "terminal_id"),
-                @Index(name = "idx_txn_time", columnList = "local_txn_datetime")
+                @Index(name = "idx_txn_terminal", columnList = "terminal_id, id"),
+                @Index(name = "idx_txn_time", columnList = "local_txn_datetime"),
+                @Index(name = "idx_txn_card_time", columnList = "card_token, local_txn_datetime DESC, id DESC")
         }
 )
 @Getter
@@ -32,8 +33,8 @@ import java.time.Instant;
 @AllArgsConstructor
 public class Transaction extends BaseEntity {
 
+    // Assigned from the pooled "TXN" block sequence (not IDENTITY) so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     Long id;
 
     // Core ISO 8583 identifiers (request/response correlation)
@@ -59,6 +60,10 @@ public class Transaction extends BaseEntity {
     @Column(name = "network_id", length = 3)
     String networkId; // DE 24 (NII), optional but useful. [1]
 
+    // Card the transaction was made with (vault token, never PAN)
+    @Column(name = "card_token", nullable = false, length = 64)
+    String cardToken;
+
     // Amount and currency (minor units for safety)
     @Column(name = "amount_minor", nullable = false)
     Long amountMinor; // DE 4 - transaction amount in minor units. [1]
@@ -75,4 +80,10 @@ public class Transaction extends BaseEntity {
     @Column(name = "status", nullable = false, length = 20)
     @Builder.Default
     TxnStatus status = TxnStatus.PENDING; // APPROVED/DECLINED set post-response.
+
+    @Column(name = "completed_at")
+    Instant completedAt; // When the final status was recorded.
+
+    @Column(name = "original_transaction_id")
+    Long originalTransactionId; // Set on reversal records (MTI 0420): the transaction being reversed.
 }
@@ -0,0 +1,30 @@
+package com.umesh.atm.enums;
+
+/**
+ * Account type subfield of the ISO 8583 processing code (DE 3 digits 3-4 and 5-6).
+ */
+public enum AccountType {
+    DEFAULT,    // 00: unspecified, the card's primary account
+    SAVINGS,    // 10
+    CHECKING,   // 20
+    CREDIT,     // 30
+    UNKNOWN;    // any other value
+
+    /**
+     * Decodes the two-digit account type at {@code offset} of a processing code.
+     *
+     * @return the account type, DEFAULT if the code is too short to carry one
+     */
+    public static AccountType fromProcessingCode(String processingCode, int offset) {
+        if (processingCode == null || processingCode.length() < offset + 2) {
+            return DEFAULT;
+        }
+        return switch (processingCode.substring(offset, offset + 2)) {
+            case "00" -> DEFAULT;
+            case "10" -> SAVINGS;
+            case "20" -> CHECKING;
+            case "30" -> CREDIT;
+            default -> UNKNOWN;
+        };
+    }
+}
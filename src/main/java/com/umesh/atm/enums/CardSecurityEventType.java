@@ -0,0 +1,6 @@
+package com.umesh.atm.enums;
+
+public enum CardSecurityEventType {
+    CARD_BLOCKED,           // card blocked after security violation (e.g., PIN attempts)
+    CARD_STATUS_CHANGED     // any other status transition
+}
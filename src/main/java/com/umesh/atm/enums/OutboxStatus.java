@@ -0,0 +1,7 @@
+package com.umesh.atm.enums;
+
+public enum OutboxStatus {
+    PENDING,    // waiting for (re)delivery
+    PROCESSED,  // all downstream effects applied
+    FAILED      // retries exhausted, needs manual attention
+}
@@ -0,0 +1,7 @@
+package com.umesh.atm.enums;
+
+public enum ReversalJobStatus {
+    RUNNING,    // in progress, resumed from its checkpoints after a restart
+    COMPLETED,  // every terminal processed
+    FAILED      // stopped on an error, can be resumed
+}
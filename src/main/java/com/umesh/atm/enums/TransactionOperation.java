@@ -0,0 +1,51 @@
+package com.umesh.atm.enums;
+
+/**
+ * Transaction type from the first two digits of the ISO 8583 processing code (DE 3).
+ */
+public enum TransactionOperation {
+    WITHDRAWAL("01"),       // cash withdrawal
+    DEPOSIT("21"),          // cash deposit
+    BALANCE_INQUIRY("31"),  // balance inquiry
+    MINI_STATEMENT("38"),   // mini statement
+    TRANSFER("40"),         // transfer between the card's accounts
+    UNKNOWN(null);          // missing or unsupported transaction type
+
+    private static final TransactionOperation[] BY_TYPE = new TransactionOperation[100];
+
+    static {
+        for (TransactionOperation operation : values()) {
+            if (operation.typeCode != null) {
+                BY_TYPE[Integer.parseInt(operation.typeCode)] = operation;
+            }
+        }
+    }
+
+    private final String typeCode;
+
+    TransactionOperation(String typeCode) {
+        this.typeCode = typeCode;
+    }
+
+    public String getTypeCode() {
+        return typeCode;
+    }
+
+    /**
+     * Looks up the operation of a processing code ("01" or "010000") without allocating.
+     *
+     * @return the operation, or UNKNOWN if the transaction type is missing or unsupported
+     */
+    public static TransactionOperation fromProcessingCode(String processingCode) {
+        if (processingCode == null || processingCode.length() < 2) {
+            return UNKNOWN;
+        }
+        int tens = processingCode.charAt(0) - '0';
+        int units = processingCode.charAt(1) - '0';
+        if (tens < 0 || tens > 9 || units < 0 || units > 9) {
+            return UNKNOWN;
+        }
+        TransactionOperation operation = BY_TYPE[tens * 10 + units];
+        return operation != null ? operation : UNKNOWN;
+    }
+}
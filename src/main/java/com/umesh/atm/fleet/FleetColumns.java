@@ -0,0 +1,120 @@
+package com.umesh.atm.fleet;
+
+import com.umesh.atm.repository.AtmCashInventoryRepository.FleetCassette;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Column store behind {@link FleetInventoryIndex}: one row per ATM, with cities and branches
+ * dictionary-encoded as ints and one note-count column per denomination. The row layout is fixed once
+ * built; only the note counts change, in place.
+ */
+final class FleetColumns {
+
+    static final FleetColumns EMPTY = build(List.of());
+
+    final int[] denominations;                  // minor units, largest first
+    final Map<Integer, Integer> denominationIndex;
+    final long[] machineIds;
+    final String[] atmCodes;
+    final int[] cityIds;
+    final int[] branchIds;
+    final String[] cities;
+    final String[] branches;
+    final AtomicLongArray[] notes;              // [denomination index] -> row -> notes loaded
+    final Map<Long, Integer> rowByMachine;
+    final Map<String, Integer> rowByAtmCode;
+
+    private FleetColumns(int[] denominations, long[] machineIds, String[] atmCodes, int[] cityIds, int[] branchIds,
+                         String[] cities, String[] branches, AtomicLongArray[] notes) {
+        this.denominations = denominations;
+        this.machineIds = machineIds;
+        this.atmCodes = atmCodes;
+        this.cityIds = cityIds;
+        this.branchIds = branchIds;
+        this.cities = cities;
+        this.branches = branches;
+        this.notes = notes;
+        this.denominationIndex = new HashMap<>(denominations.length * 2);
+        for (int d = 0; d < denominations.length; d++) {
+            denominationIndex.put(denominations[d], d);
+        }
+        this.rowByMachine = new HashMap<>(machineIds.length * 2);
+        this.rowByAtmCode = new HashMap<>(machineIds.length * 2);
+        for (int row = 0; row < machineIds.length; row++) {
+            rowByMachine.put(machineIds[row], row);
+            rowByAtmCode.put(atmCodes[row], row);
+        }
+    }
+
+    int rows() {
+        return machineIds.length;
+    }
+
+    /**
+     * Builds the columns from cassette rows, which must be ordered by machine.
+     */
+    static FleetColumns build(List<FleetCassette> cassettes) {
+        TreeSet<Integer> denominationSet = new TreeSet<>(Collections.reverseOrder());
+        List<Long> machines = new ArrayList<>();
+        for (FleetCassette cassette : cassettes) {
+            if (cassette.getDenomination() != null) {
+                denominationSet.add(cassette.getDenomination());
+            }
+            if (machines.isEmpty() || !machines.get(machines.size() - 1).equals(cassette.getMachineId())) {
+                machines.add(cassette.getMachineId());
+            }
+        }
+        int[] denominations = denominationSet.stream().mapToInt(Integer::intValue).toArray();
+        Map<Integer, Integer> denominationIndex = new HashMap<>();
+        for (int d = 0; d < denominations.length; d++) {
+            denominationIndex.put(denominations[d], d);
+        }
+
+        int rows = machines.size();
+        long[] machineIds = new long[rows];
+        String[] atmCodes = new String[rows];
+        int[] cityIds = new int[rows];
+        int[] branchIds = new int[rows];
+        long[][] counts = new long[denominations.length][rows];
+        Map<String, Integer> cityDictionary = new HashMap<>();
+        Map<String, Integer> branchDictionary = new HashMap<>();
+
+        int row = -1;
+        for (FleetCassette cassette : cassettes) {
+            if (row < 0 || machineIds[row] != cassette.getMachineId()) {
+                row++;
+                machineIds[row] = cassette.getMachineId();
+                atmCodes[row] = cassette.getAtmCode();
+                cityIds[row] = encode(cityDictionary, cassette.getCity());
+                branchIds[row] = encode(branchDictionary, cassette.getIfscCode());
+            }
+            if (cassette.getDenomination() != null && cassette.getNoteCount() != null) {
+                counts[denominationIndex.get(cassette.getDenomination())][row] += cassette.getNoteCount();
+            }
+        }
+
+        AtomicLongArray[] notes = new AtomicLongArray[denominations.length];
+        for (int d = 0; d < denominations.length; d++) {
+            notes[d] = new AtomicLongArray(counts[d]);
+        }
+        return new FleetColumns(denominations, machineIds, atmCodes, cityIds, branchIds,
+                decode(cityDictionary), decode(branchDictionary), notes);
+    }
+
+    private static int encode(Map<String, Integer> dictionary, String value) {
+        return dictionary.computeIfAbsent(value == null ? "" : value, ignored -> dictionary.size());
+    }
+
+    private static String[] decode(Map<String, Integer> dictionary) {
+        String[] values = new String[dictionary.size()];
+        dictionary.forEach((value, id) -> values[id] = value);
+        return values;
+    }
+}
@@ -0,0 +1,10 @@
+package com.umesh.atm.fleet;
+
+/**
+ * How {@link FleetInventoryIndex} rolls up cassette counts.
+ */
+public enum FleetGrouping {
+    MACHINE,    // one row per ATM, keyed by ATM code
+    CITY,       // keyed by the ATM location's city
+    BRANCH      // keyed by IFSC code
+}
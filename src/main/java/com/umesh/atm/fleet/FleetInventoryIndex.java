@@ -0,0 +1,317 @@
+package com.umesh.atm.fleet;
+
+import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.repository.AtmCashInventoryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory cash inventory for the whole fleet, for dashboards that need totals per ATM, city or
+ * IFSC branch without a query per machine.
+ * <p>
+ * The fleet is loaded into {@link FleetColumns} with one query at startup and every
+ * {@code resync-minutes}, and kept current in between from committed inventory changes. A change for an
+ * ATM or denomination the index doesn't know yet triggers an early reload. Roll-ups scan the columns,
+ * split into chunks across a fork/join pool once the fleet is large enough to be worth it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FleetInventoryIndex {
+
+    private static final int PARALLEL_THRESHOLD = 8192;
+    private static final int CHUNK_ROWS = 4096;
+
+    @Value("${atm.fleet-index.resync-minutes:60}")
+    private long resyncMinutes;
+
+    @Value("${atm.fleet-index.parallelism:0}")
+    private int parallelism;
+
+    @Value("${atm.dispense.max-notes:40}")
+    private int maxNotes;
+
+    private final AtmCashInventoryRepository cashInventoryRepository;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicBoolean reloadRequested = new AtomicBoolean();
+    // Changes committed while a reload is running, applied to the new columns once it is in place
+    private final List<Change> pendingDuringReload = new ArrayList<>();
+
+    private ForkJoinPool forkJoinPool;
+    private boolean reloading;
+    private volatile FleetColumns columns = FleetColumns.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        forkJoinPool = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::reload, 0, resyncMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        if (forkJoinPool != ForkJoinPool.commonPool()) {
+            forkJoinPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Applies committed inventory changes to the index.
+     *
+     * @param changes denomination (minor units) → note delta
+     */
+    public void onInventoryChanged(AtmMachine atmMachine, Map<Integer, Integer> changes) {
+        Change change = new Change(atmMachine.getId(), changes);
+        synchronized (pendingDuringReload) {
+            if (reloading) {
+                pendingDuringReload.add(change);
+                return;
+            }
+        }
+        apply(columns, change);
+    }
+
+    /**
+     * Rolls up loaded cash by ATM, city or branch, ordered by key.
+     */
+    public List<InventoryRollup> rollup(FleetGrouping grouping) {
+        FleetColumns fleet = columns;
+        if (grouping == FleetGrouping.MACHINE) {
+            List<InventoryRollup> rollups = new ArrayList<>(fleet.rows());
+            for (int row = 0; row < fleet.rows(); row++) {
+                rollups.add(machineRollup(fleet, row));
+            }
+            rollups.sort(Comparator.comparing(InventoryRollup::key));
+            return rollups;
+        }
+
+        int[] groupIds = grouping == FleetGrouping.CITY ? fleet.cityIds : fleet.branchIds;
+        String[] keys = grouping == FleetGrouping.CITY ? fleet.cities : fleet.branches;
+        long[] totals = aggregate(fleet, groupIds, keys.length);
+        int width = fleet.denominations.length + 1;
+        List<InventoryRollup> rollups = new ArrayList<>(keys.length);
+        for (int group = 0; group < keys.length; group++) {
+            rollups.add(toRollup(fleet, keys[group], totals, group * width));
+        }
+        rollups.sort(Comparator.comparing(InventoryRollup::key));
+        return rollups;
+    }
+
+    /**
+     * Returns the cash loaded across the whole fleet.
+     */
+    public InventoryRollup fleetTotal() {
+        FleetColumns fleet = columns;
+        return toRollup(fleet, "FLEET", aggregate(fleet, null, 1), 0);
+    }
+
+    /**
+     * Returns the cash loaded in one ATM, or null if the index doesn't have it.
+     */
+    public InventoryRollup machine(String atmCode) {
+        FleetColumns fleet = columns;
+        Integer row = fleet.rowByAtmCode.get(atmCode);
+        return row == null ? null : machineRollup(fleet, row);
+    }
+
+    /**
+     * Returns whether an ATM's loaded notes can make up an amount in at most {@code max-notes} notes.
+     * Answered from the index alone, e.g. to filter ATM search results by cash.
+     */
+    public boolean canDispense(long machineId, long amountMinor) {
+        FleetColumns fleet = columns;
+        Integer row = fleet.rowByMachine.get(machineId);
+        if (row == null || amountMinor <= 0) {
+            return false;
+        }
+        long[] counts = new long[fleet.denominations.length];
+        for (int d = 0; d < counts.length; d++) {
+            counts[d] = fleet.notes[d].get(row);
+        }
+        return canMake(fleet.denominations, counts, 0, amountMinor, maxNotes);
+    }
+
+    private void apply(FleetColumns fleet, Change change) {
+        Integer row = fleet.rowByMachine.get(change.machineId());
+        if (row == null) {
+            requestReload();
+            return;
+        }
+        for (Map.Entry<Integer, Integer> delta : change.deltas().entrySet()) {
+            Integer d = fleet.denominationIndex.get(delta.getKey());
+            if (d == null) {
+                requestReload();
+                continue;
+            }
+            fleet.notes[d].addAndGet(row, delta.getValue());
+        }
+    }
+
+    private void requestReload() {
+        if (reloadRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::reload);
+        }
+    }
+
+    private void reload() {
+        reloadRequested.set(false);
+        long started = System.nanoTime();
+        synchronized (pendingDuringReload) {
+            reloading = true;
+        }
+        try {
+            columns = FleetColumns.build(cashInventoryRepository.findFleetCassettes());
+            log.info("Fleet inventory index loaded {} ATMs in {} ms", columns.rows(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (Exception e) {
+            log.error("Error loading fleet inventory index", e);
+        } finally {
+            // A change committed just before the load but reported after it started is counted twice
+            // until the next resync; that window is the gap between commit and the change event.
+            synchronized (pendingDuringReload) {
+                for (Change change : pendingDuringReload) {
+                    apply(columns, change);
+                }
+                pendingDuringReload.clear();
+                reloading = false;
+            }
+        }
+    }
+
+    /**
+     * Sums note counts per group.
+     *
+     * @param groupIds group of each row, or null to put every row in group 0
+     * @return per group: notes of each denomination, then the number of ATMs
+     */
+    private long[] aggregate(FleetColumns fleet, int[] groupIds, int groups) {
+        if (fleet.rows() < PARALLEL_THRESHOLD) {
+            long[] totals = new long[groups * (fleet.denominations.length + 1)];
+            accumulate(fleet, groupIds, 0, fleet.rows(), totals);
+            return totals;
+        }
+        return forkJoinPool.invoke(new RollupTask(fleet, groupIds, groups, 0, fleet.rows()));
+    }
+
+    private static boolean canMake(int[] denominations, long[] counts, int index, long remaining, long notesLeft) {
+        if (remaining == 0) {
+            return true;
+        }
+        // Denominations are largest first, so the notes left can't make more than this
+        if (index == denominations.length || remaining > notesLeft * denominations[index]) {
+            return false;
+        }
+        long denomination = denominations[index];
+        for (long use = Math.min(counts[index], Math.min(remaining / denomination, notesLeft)); use >= 0; use--) {
+            if (canMake(denominations, counts, index + 1, remaining - use * denomination, notesLeft - use)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void accumulate(FleetColumns fleet, int[] groupIds, int from, int to, long[] totals) {
+        int denominations = fleet.denominations.length;
+        int width = denominations + 1;
+        // Column by column, so each pass reads one contiguous array
+        for (int d = 0; d < denominations; d++) {
+            AtomicLongArray column = fleet.notes[d];
+            for (int row = from; row < to; row++) {
+                int group = groupIds == null ? 0 : groupIds[row];
+                totals[group * width + d] += column.get(row);
+            }
+        }
+        for (int row = from; row < to; row++) {
+            int group = groupIds == null ? 0 : groupIds[row];
+            totals[group * width + denominations]++;
+        }
+    }
+
+    private static InventoryRollup machineRollup(FleetColumns fleet, int row) {
+        long[] totals = new long[fleet.denominations.length + 1];
+        for (int d = 0; d < fleet.denominations.length; d++) {
+            totals[d] = fleet.notes[d].get(row);
+        }
+        totals[fleet.denominations.length] = 1;
+        return toRollup(fleet, fleet.atmCodes[row], totals, 0);
+    }
+
+    private static InventoryRollup toRollup(FleetColumns fleet, String key, long[] totals, int offset) {
+        Map<Integer, Long> notes = new LinkedHashMap<>();
+        long cashMinor = 0;
+        for (int d = 0; d < fleet.denominations.length; d++) {
+            long count = totals[offset + d];
+            if (count != 0) {
+                notes.put(fleet.denominations[d], count);
+                cashMinor += count * fleet.denominations[d];
+            }
+        }
+        int machines = (int) totals[offset + fleet.denominations.length];
+        return new InventoryRollup(key, machines, BigDecimal.valueOf(cashMinor, 2), notes);
+    }
+
+    private record Change(long machineId, Map<Integer, Integer> deltas) {
+    }
+
+    /**
+     * Aggregates a range of rows into its own totals, merged on the way back up.
+     */
+    private static final class RollupTask extends RecursiveTask<long[]> {
+        private final FleetColumns fleet;
+        private final int[] groupIds;
+        private final int groups;
+        private final int from;
+        private final int to;
+
+        RollupTask(FleetColumns fleet, int[] groupIds, int groups, int from, int to) {
+            this.fleet = fleet;
+            this.groupIds = groupIds;
+            this.groups = groups;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= CHUNK_ROWS) {
+                long[] totals = new long[groups * (fleet.denominations.length + 1)];
+                accumulate(fleet, groupIds, from, to, totals);
+                return totals;
+            }
+            int mid = (from + to) >>> 1;
+            RollupTask left = new RollupTask(fleet, groupIds, groups, from, mid);
+            left.fork();
+            long[] totals = new RollupTask(fleet, groupIds, groups, mid, to).compute();
+            long[] leftTotals = left.join();
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += leftTotals[i];
+            }
+            return totals;
+        }
+    }
+}
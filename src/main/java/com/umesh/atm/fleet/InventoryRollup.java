@@ -0,0 +1,13 @@
+package com.umesh.atm.fleet;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Cash loaded across a group of ATMs.
+ *
+ * @param key   ATM code, city or IFSC code, depending on the grouping
+ * @param notes denomination (minor units) → notes loaded, largest first
+ */
+public record InventoryRollup(String key, int machines, BigDecimal cash, Map<Integer, Long> notes) {
+}
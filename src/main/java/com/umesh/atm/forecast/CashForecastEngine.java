@@ -0,0 +1,341 @@
+package com.umesh.atm.forecast;
+
+import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.repository.AtmCashInventoryRepository;
+import com.umesh.atm.repository.AtmCashInventoryRepository.CassetteLevel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forecasts when each ATM runs out of cash.
+ * <p>
+ * Demand is kept per ATM as an {@link HourOfWeekSeries}. At startup it is seeded by streaming the
+ * last {@code history-days} of approved withdrawals from atm_transaction, then kept current from
+ * committed dispenses, which also teach it the denomination mix. Every {@code refresh-minutes} the
+ * fleet's cassette levels are loaded in one query and each ATM's demand is projected forward hour
+ * by hour, with ATMs split across a fork/join pool. Refills need no special handling: the next
+ * refresh starts from the refilled counts.
+ */
+@Component
+@Slf4j
+public class CashForecastEngine {
+
+    private static final int FORK_THRESHOLD = 64;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+
+    @Value("${atm.forecast.enabled:true}")
+    private boolean enabled;
+
+    @Value("${atm.forecast.history-days:28}")
+    private int historyDays;
+
+    @Value("${atm.forecast.smoothing:0.3}")
+    private double smoothing;
+
+    @Value("${atm.forecast.horizon-hours:336}")
+    private int horizonHours;
+
+    @Value("${atm.forecast.refresh-minutes:15}")
+    private long refreshMinutes;
+
+    @Value("${atm.forecast.parallelism:0}")
+    private int parallelism;
+
+    @Value("${atm.business-day.zone:UTC}")
+    private String zoneId;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtmCashInventoryRepository cashInventoryRepository;
+
+    private final Map<String, HourOfWeekSeries> demand = new ConcurrentHashMap<>();
+    // Dispenses seen while history is still being replayed, applied after it in order
+    private final Queue<Runnable> pendingDuringReplay = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private ForkJoinPool forkJoinPool;
+    private ZoneId zone;
+    private volatile boolean replayed;
+    private volatile Map<String, DepletionForecast> forecasts = Map.of();
+
+    public CashForecastEngine(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              AtmCashInventoryRepository cashInventoryRepository) {
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(10000);
+        this.transactionTemplate = transactionTemplate;
+        this.cashInventoryRepository = cashInventoryRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        zone = ZoneId.of(zoneId);
+        forkJoinPool = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Cash forecasting disabled");
+            return;
+        }
+        scheduler.execute(this::replayHistory);
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, refreshMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        if (forkJoinPool != ForkJoinPool.commonPool()) {
+            forkJoinPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Records notes taken out of (negative) or put into (positive) an ATM's cassettes.
+     * Only dispenses count as demand.
+     *
+     * @param changes denomination (minor units) → note delta
+     */
+    public void recordInventoryChange(AtmMachine atmMachine, Map<Integer, Integer> changes) {
+        if (!enabled) {
+            return;
+        }
+        Map<Integer, Integer> dispensed = new HashMap<>();
+        long amountMinor = 0;
+        for (Map.Entry<Integer, Integer> change : changes.entrySet()) {
+            if (change.getValue() < 0) {
+                dispensed.put(change.getKey(), -change.getValue());
+                amountMinor -= (long) change.getKey() * change.getValue();
+            }
+        }
+        if (dispensed.isEmpty()) {
+            return;
+        }
+
+        long hour = localHour(Instant.now());
+        long amount = amountMinor;
+        Runnable record = () -> {
+            HourOfWeekSeries series = seriesOf(atmMachine.getAtmCode());
+            series.record(hour, amount);
+            series.recordNotes(dispensed);
+        };
+        if (replayed) {
+            record.run();
+        } else {
+            pendingDuringReplay.offer(record);
+        }
+    }
+
+    /**
+     * Returns the latest forecast of every ATM, soonest depletion first.
+     *
+     * @param withinHours only ATMs forecast to deplete within this many hours, or null for all
+     */
+    public List<DepletionForecast> getForecasts(Integer withinHours) {
+        Instant cutoff = withinHours == null ? null : Instant.now().plus(Duration.ofHours(withinHours));
+        return forecasts.values().stream()
+                .filter(forecast -> cutoff == null
+                        || (forecast.depletesAt() != null && forecast.depletesAt().isBefore(cutoff)))
+                .sorted(Comparator.comparing(DepletionForecast::depletesAt,
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+    }
+
+    /**
+     * Returns the latest forecast for one ATM, or null if it has none yet.
+     */
+    public DepletionForecast getForecast(String atmCode) {
+        return forecasts.get(atmCode);
+    }
+
+    private void replayHistory() {
+        long started = System.nanoTime();
+        try {
+            Instant until = Instant.now();
+            Timestamp since = Timestamp.from(until.minus(Duration.ofDays(historyDays)));
+            long[] replayedRows = new long[1];
+            transactionTemplate.executeWithoutResult(status -> streamingJdbcTemplate.query(
+                    "SELECT terminal_id, local_txn_datetime, amount_minor FROM atm_transaction " +
+                            "WHERE status = 'APPROVED' AND processing_code LIKE '01%' " +
+                            "AND local_txn_datetime >= ? AND local_txn_datetime < ? ORDER BY local_txn_datetime",
+                    rs -> {
+                        seriesOf(rs.getString(1)).record(localHour(rs.getTimestamp(2).toInstant()), rs.getLong(3));
+                        replayedRows[0]++;
+                    },
+                    since, Timestamp.from(until)));
+            log.info("Cash forecasting replayed {} withdrawals for {} ATMs in {} ms", replayedRows[0], demand.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (Exception e) {
+            log.error("Error replaying withdrawal history for cash forecasting", e);
+        } finally {
+            replayed = true;
+            Runnable pending;
+            while ((pending = pendingDuringReplay.poll()) != null) {
+                pending.run();
+            }
+        }
+    }
+
+    private void refresh() {
+        long started = System.nanoTime();
+        try {
+            Map<String, List<CassetteLevel>> fleet = new HashMap<>();
+            for (CassetteLevel level : cashInventoryRepository.findEnabledCassetteLevels()) {
+                fleet.computeIfAbsent(level.getAtmCode(), code -> new ArrayList<>()).add(level);
+            }
+
+            List<Map.Entry<String, List<CassetteLevel>>> machines = new ArrayList<>(fleet.entrySet());
+            DepletionForecast[] results = new DepletionForecast[machines.size()];
+            Instant now = Instant.now();
+            forkJoinPool.invoke(new ForecastTask(machines, results, 0, machines.size(), now));
+
+            Map<String, DepletionForecast> refreshed = new HashMap<>(results.length * 2);
+            for (DepletionForecast forecast : results) {
+                refreshed.put(forecast.atmCode(), forecast);
+            }
+            forecasts = refreshed;
+            log.info("Cash depletion forecast refreshed for {} ATMs in {} ms", results.length,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (Exception e) {
+            log.error("Error refreshing cash depletion forecasts", e);
+        }
+    }
+
+    /**
+     * Projects one ATM: walks the hourly demand forward, drawing each hour's withdrawals from the
+     * cassettes in the learned denomination mix.
+     */
+    private DepletionForecast forecast(String atmCode, List<CassetteLevel> cassettes, Instant now) {
+        int count = cassettes.size();
+        int[] denominations = new int[count];
+        double[] remaining = new double[count];
+        double totalCash = 0;
+        for (int i = 0; i < count; i++) {
+            denominations[i] = cassettes.get(i).getDenomination();
+            remaining[i] = (double) denominations[i] * cassettes.get(i).getNoteCount();
+            totalCash += remaining[i];
+        }
+
+        HourOfWeekSeries series = demand.get(atmCode);
+        long hour = localHour(now);
+        double[] projection = series != null ? series.project(hour, horizonHours) : new double[horizonHours];
+        double[] shares = shares(series, denominations, remaining, totalCash);
+
+        Instant hourStart = now.truncatedTo(ChronoUnit.HOURS);
+        Map<Integer, Instant> cassetteDepletesAt = new LinkedHashMap<>();
+        Instant depletesAt = null;
+        double cumulative = 0;
+        double next24h = 0;
+        for (int h = 0; h < projection.length; h++) {
+            if (h < 24) {
+                next24h += projection[h];
+            }
+            Instant endOfHour = hourStart.plus(h + 1L, ChronoUnit.HOURS);
+            for (int i = 0; i < count; i++) {
+                if (remaining[i] > 0) {
+                    remaining[i] -= projection[h] * shares[i];
+                    if (remaining[i] <= 0) {
+                        cassetteDepletesAt.put(denominations[i], endOfHour);
+                    }
+                }
+            }
+            cumulative += projection[h];
+            if (depletesAt == null && cumulative >= totalCash) {
+                depletesAt = endOfHour;
+            }
+        }
+
+        return new DepletionForecast(atmCode, BigDecimal.valueOf(Math.round(totalCash), 2),
+                BigDecimal.valueOf(Math.round(next24h), 2), depletesAt, cassetteDepletesAt, now);
+    }
+
+    /**
+     * Share of demand paid from each cassette: the learned mix if there is one, otherwise
+     * proportional to the cash in each cassette.
+     */
+    private static double[] shares(HourOfWeekSeries series, int[] denominations, double[] cash, double totalCash) {
+        double[] shares = new double[denominations.length];
+        Map<Integer, Double> learned = series != null ? series.denominationShares() : Map.of();
+        double sum = 0;
+        for (int i = 0; i < denominations.length; i++) {
+            shares[i] = learned.getOrDefault(denominations[i], 0.0);
+            sum += shares[i];
+        }
+        for (int i = 0; i < denominations.length; i++) {
+            if (sum > 0) {
+                shares[i] /= sum;
+            } else {
+                shares[i] = totalCash > 0 ? cash[i] / totalCash : 0;
+            }
+        }
+        return shares;
+    }
+
+    private HourOfWeekSeries seriesOf(String atmCode) {
+        return demand.computeIfAbsent(atmCode, code -> new HourOfWeekSeries(smoothing));
+    }
+
+    private long localHour(Instant instant) {
+        long localMillis = instant.toEpochMilli() + zone.getRules().getOffset(instant).getTotalSeconds() * 1000L;
+        return Math.floorDiv(localMillis, MILLIS_PER_HOUR);
+    }
+
+    private final class ForecastTask extends RecursiveAction {
+        private final List<Map.Entry<String, List<CassetteLevel>>> machines;
+        private final DepletionForecast[] results;
+        private final int from;
+        private final int to;
+        private final Instant now;
+
+        ForecastTask(List<Map.Entry<String, List<CassetteLevel>>> machines, DepletionForecast[] results,
+                     int from, int to, Instant now) {
+            this.machines = machines;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.now = now;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FORK_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    Map.Entry<String, List<CassetteLevel>> machine = machines.get(i);
+                    results[i] = forecast(machine.getKey(), machine.getValue(), now);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ForecastTask(machines, results, from, mid, now),
+                    new ForecastTask(machines, results, mid, to, now));
+        }
+    }
+}
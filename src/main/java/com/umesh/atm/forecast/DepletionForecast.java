@@ -0,0 +1,19 @@
+package com.umesh.atm.forecast;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Projected cash depletion of one ATM.
+ *
+ * @param atmCode the ATM
+ * @param cashRemaining cash currently loaded in enabled cassettes
+ * @param expectedWithdrawalsNext24h forecast withdrawals over the next 24 hours
+ * @param depletesAt when forecast withdrawals exceed the loaded cash, or null if not within the horizon
+ * @param cassetteDepletesAt denomination (minor units) → when that cassette runs empty (absent if not within the horizon)
+ * @param computedAt when the forecast was made
+ */
+public record DepletionForecast(String atmCode, BigDecimal cashRemaining, BigDecimal expectedWithdrawalsNext24h,
+                                Instant depletesAt, Map<Integer, Instant> cassetteDepletesAt, Instant computedAt) {
+}
@@ -0,0 +1,120 @@
+package com.umesh.atm.forecast;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Incremental withdrawal demand of one ATM: an exponentially smoothed amount for each of the 168
+ * hours of the week, plus a smoothed share of notes per denomination.
+ * <p>
+ * Withdrawals accumulate into the current hour; when the hour rolls over its total is folded into
+ * that hour-of-week slot as {@code slot = alpha * total + (1 - alpha) * slot}. Hours with no
+ * withdrawals fold in zero. Memory is constant per ATM however much history is replayed.
+ */
+final class HourOfWeekSeries {
+
+    static final int HOURS_PER_WEEK = 168;
+
+    // Epoch hour 0 is a Thursday; shift so slot 0 is Monday 00:00
+    private static final int EPOCH_SLOT_SHIFT = 72;
+
+    private final double alpha;
+    private final double[] slots = new double[HOURS_PER_WEEK];
+    private final boolean[] seeded = new boolean[HOURS_PER_WEEK];
+    // Denomination (minor units) -> smoothed share of dispensed value
+    private final Map<Integer, Double> denominationShares = new HashMap<>();
+
+    private long currentHour = -1;
+    private long currentHourMinor;
+
+    HourOfWeekSeries(double alpha) {
+        this.alpha = alpha;
+    }
+
+    /**
+     * Adds a withdrawal at a local epoch hour (hours since the epoch in the ATM's zone).
+     * Out-of-order withdrawals from an hour already folded are counted in the current hour.
+     */
+    synchronized void record(long localHour, long amountMinor) {
+        advanceTo(localHour);
+        currentHourMinor += amountMinor;
+    }
+
+    /**
+     * Learns which denominations withdrawals are paid out in.
+     *
+     * @param notes denomination (minor units) → notes dispensed
+     */
+    synchronized void recordNotes(Map<Integer, Integer> notes) {
+        long total = 0;
+        for (Map.Entry<Integer, Integer> entry : notes.entrySet()) {
+            total += (long) entry.getKey() * entry.getValue();
+        }
+        if (total <= 0) {
+            return;
+        }
+        for (Map.Entry<Integer, Integer> entry : notes.entrySet()) {
+            double share = (double) entry.getKey() * entry.getValue() / total;
+            denominationShares.merge(entry.getKey(), share, (old, current) -> alpha * current + (1 - alpha) * old);
+        }
+        // Denominations absent from this dispense decay towards zero
+        denominationShares.replaceAll((denomination, share) ->
+                notes.containsKey(denomination) ? share : (1 - alpha) * share);
+    }
+
+    /**
+     * Folds every completed hour up to {@code localHour}.
+     */
+    synchronized void advanceTo(long localHour) {
+        if (currentHour < 0) {
+            currentHour = localHour;
+            return;
+        }
+        if (localHour <= currentHour) {
+            return;
+        }
+        fold(currentHour, currentHourMinor);
+        // Only the last week of empty hours can still affect a slot
+        for (long hour = Math.max(currentHour + 1, localHour - HOURS_PER_WEEK); hour < localHour; hour++) {
+            fold(hour, 0);
+        }
+        currentHour = localHour;
+        currentHourMinor = 0;
+    }
+
+    /**
+     * Returns the expected withdrawals (minor units) for each of the next {@code hours} hours,
+     * starting with the current one.
+     */
+    synchronized double[] project(long localHour, int hours) {
+        advanceTo(localHour);
+        double[] projection = new double[hours];
+        for (int i = 0; i < hours; i++) {
+            projection[i] = slots[slot(localHour + i)];
+        }
+        // The current hour has partly happened already
+        projection[0] = Math.max(0, projection[0] - currentHourMinor);
+        return projection;
+    }
+
+    /**
+     * Returns the smoothed share of dispensed value per denomination, or an empty map if not yet learned.
+     */
+    synchronized Map<Integer, Double> denominationShares() {
+        return new HashMap<>(denominationShares);
+    }
+
+    private void fold(long hour, long totalMinor) {
+        int slot = slot(hour);
+        if (!seeded[slot]) {
+            slots[slot] = totalMinor;
+            seeded[slot] = true;
+        } else {
+            slots[slot] = alpha * totalMinor + (1 - alpha) * slots[slot];
+        }
+    }
+
+    private static int slot(long localHour) {
+        return (int) Math.floorMod(localHour + EPOCH_SLOT_SHIFT, (long) HOURS_PER_WEEK);
+    }
+}
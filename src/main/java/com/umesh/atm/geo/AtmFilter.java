@@ -0,0 +1,36 @@
+package com.umesh.atm.geo;
+
+/**
+ * Which ATMs an {@link AtmLocator} search returns. A null capability matches any ATM.
+ *
+ * @param activeOnly  only ATMs whose machine and location are both ACTIVE; otherwise any status
+ * @param withdrawal  whether the ATM must (true) or must not (false) support withdrawals
+ * @param deposit     whether the ATM must (true) or must not (false) accept deposits
+ * @param cardless    whether the ATM must (true) or must not (false) support cardless withdrawals
+ * @param amountMinor an amount the ATM must be able to dispense right now, in minor units; implies withdrawal
+ */
+public record AtmFilter(boolean activeOnly, Boolean withdrawal, Boolean deposit, Boolean cardless, Long amountMinor) {
+
+    // Bits of GeoGrid.flags
+    static final int ACTIVE = 1;
+    static final int WITHDRAWAL = 1 << 1;
+    static final int DEPOSIT = 1 << 2;
+    static final int CARDLESS = 1 << 3;
+
+    /**
+     * Flags that must match {@link #value()}.
+     */
+    int mask() {
+        return (activeOnly ? ACTIVE : 0)
+                | (withdrawal != null || amountMinor != null ? WITHDRAWAL : 0)
+                | (deposit != null ? DEPOSIT : 0)
+                | (cardless != null ? CARDLESS : 0);
+    }
+
+    int value() {
+        return (activeOnly ? ACTIVE : 0)
+                | (Boolean.TRUE.equals(withdrawal) || amountMinor != null ? WITHDRAWAL : 0)
+                | (Boolean.TRUE.equals(deposit) ? DEPOSIT : 0)
+                | (Boolean.TRUE.equals(cardless) ? CARDLESS : 0);
+    }
+}
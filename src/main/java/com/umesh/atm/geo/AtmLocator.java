@@ -0,0 +1,159 @@
+package com.umesh.atm.geo;
+
+import com.umesh.atm.fleet.FleetInventoryIndex;
+import com.umesh.atm.repository.AtmMachineRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the ATMs nearest to a point, without going to the database.
+ * <p>
+ * Coordinates, status and capabilities of every ATM are loaded into a {@link GeoGrid} as primitive
+ * doubles and bit flags, reloaded every {@code reload-minutes}. A search scans rings of cells outward
+ * from the point and stops once the ring is further away than the N-th best match. Cash is checked
+ * last, and only for ATMs that would make the result, against the live {@link FleetInventoryIndex}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AtmLocator {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    @Value("${atm.geo-index.cell-degrees:0.05}")
+    private double cellDegrees;
+
+    @Value("${atm.geo-index.reload-minutes:5}")
+    private long reloadMinutes;
+
+    private final AtmMachineRepository atmMachineRepository;
+    private final FleetInventoryIndex fleetInventoryIndex;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private volatile GeoGrid grid;
+
+    @PostConstruct
+    public void init() {
+        grid = GeoGrid.build(List.of(), cellDegrees);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::reload, 0, reloadMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Returns up to {@code limit} ATMs within {@code radiusKm} matching the filter, nearest first.
+     */
+    public List<NearbyAtm> nearest(double latitude, double longitude, int limit, double radiusKm, AtmFilter filter) {
+        GeoGrid geo = grid;
+        int mask = filter.mask();
+        int value = filter.value();
+        int[] bestRows = new int[limit];
+        double[] bestDistances = new double[limit];
+        int found = 0;
+
+        // Narrowest cell anywhere within the radius, so a ring's distance is a lower bound for all its ATMs
+        double farthestLatitude = Math.min(89, Math.abs(latitude) + radiusKm / GeoGrid.KM_PER_DEGREE);
+        double cellKm = geo.cellDegrees * GeoGrid.KM_PER_DEGREE * Math.cos(Math.toRadians(farthestLatitude));
+        int centerLat = geo.latCell(latitude);
+        int centerLon = geo.lonCell(longitude);
+
+        for (int ring = 0; ; ring++) {
+            double ringKm = Math.max(0, ring - 1) * cellKm;
+            if (ringKm > radiusKm || (found == limit && bestDistances[limit - 1] <= ringKm)) {
+                break;
+            }
+            for (int dLat = -ring; dLat <= ring; dLat++) {
+                // Whole rows at the ring's top and bottom, only the two ends in between
+                int step = Math.abs(dLat) == ring ? 1 : 2 * ring;
+                for (int dLon = -ring; dLon <= ring; dLon += step) {
+                    int cell = geo.findCell(centerLat + dLat, centerLon + dLon);
+                    if (cell < 0) {
+                        continue;
+                    }
+                    for (int row = geo.cellStart[cell]; row < geo.cellStart[cell + 1]; row++) {
+                        if ((geo.flags[row] & mask) != value) {
+                            continue;
+                        }
+                        double distance = distanceKm(latitude, longitude, geo.latitudes[row], geo.longitudes[row]);
+                        if (distance > radiusKm || (found == limit && distance >= bestDistances[limit - 1])) {
+                            continue;
+                        }
+                        if (filter.amountMinor() != null
+                                && !fleetInventoryIndex.canDispense(geo.machineIds[row], filter.amountMinor())) {
+                            continue;
+                        }
+                        found = insert(bestRows, bestDistances, found, row, distance);
+                    }
+                }
+            }
+        }
+
+        List<NearbyAtm> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            int row = bestRows[i];
+            result.add(new NearbyAtm(geo.atmCodes[row], geo.cities[row], geo.pinCodes[row],
+                    geo.latitudes[row], geo.longitudes[row], Math.round(bestDistances[i] * 1000) / 1000.0,
+                    (geo.flags[row] & AtmFilter.DEPOSIT) != 0, (geo.flags[row] & AtmFilter.CARDLESS) != 0));
+        }
+        return result;
+    }
+
+    private void reload() {
+        long started = System.nanoTime();
+        try {
+            grid = GeoGrid.build(atmMachineRepository.findGeoPoints(), cellDegrees);
+            log.info("ATM locator loaded {} ATMs in {} ms", grid.rows(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (Exception e) {
+            log.error("Error loading ATM locations", e);
+        }
+    }
+
+    /**
+     * Inserts a match into the distance-ordered arrays, dropping the farthest when they are full.
+     *
+     * @return the new number of matches
+     */
+    private static int insert(int[] rows, double[] distances, int found, int row, double distance) {
+        int i = Math.min(found, rows.length - 1);
+        while (i > 0 && distances[i - 1] > distance) {
+            rows[i] = rows[i - 1];
+            distances[i] = distances[i - 1];
+            i--;
+        }
+        rows[i] = row;
+        distances[i] = distance;
+        return Math.min(found + 1, rows.length);
+    }
+
+    /**
+     * Great-circle distance by the haversine formula.
+     */
+    private static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+}
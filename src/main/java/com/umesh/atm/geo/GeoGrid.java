@@ -0,0 +1,120 @@
+package com.umesh.atm.geo;
+
+import com.umesh.atm.enums.AtmStatus;
+import com.umesh.atm.repository.AtmMachineRepository.GeoPoint;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable grid index behind {@link AtmLocator}. ATMs are bucketed into cells of {@code cellDegrees}
+ * latitude by longitude and stored in cell order, so each cell is a contiguous range of the row
+ * columns. A cell is found by binary search over the sorted keys of the non-empty cells.
+ * <p>
+ * Longitudes don't wrap at ±180°, which no national network straddles.
+ */
+final class GeoGrid {
+
+    static final double KM_PER_DEGREE = 111.195;
+
+    final double cellDegrees;
+    final int lonCells;
+    final long[] cellKeys;      // sorted keys of non-empty cells
+    final int[] cellStart;      // first row of each cell in cellKeys; one extra entry marks the end
+    final double[] latitudes;
+    final double[] longitudes;
+    final long[] machineIds;
+    final String[] atmCodes;
+    final String[] cities;
+    final String[] pinCodes;
+    final byte[] flags;         // AtmFilter bits
+
+    private GeoGrid(double cellDegrees, int rows, int cells) {
+        this.cellDegrees = cellDegrees;
+        this.lonCells = (int) Math.ceil(360 / cellDegrees);
+        this.cellKeys = new long[cells];
+        this.cellStart = new int[cells + 1];
+        this.latitudes = new double[rows];
+        this.longitudes = new double[rows];
+        this.machineIds = new long[rows];
+        this.atmCodes = new String[rows];
+        this.cities = new String[rows];
+        this.pinCodes = new String[rows];
+        this.flags = new byte[rows];
+    }
+
+    int rows() {
+        return machineIds.length;
+    }
+
+    int latCell(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    int lonCell(double longitude) {
+        return Math.min(lonCells - 1, (int) Math.floor((longitude + 180) / cellDegrees));
+    }
+
+    /**
+     * Returns the position of a cell in {@link #cellKeys}, or -1 if it has no ATMs.
+     */
+    int findCell(int latCell, int lonCell) {
+        if (lonCell < 0 || lonCell >= lonCells || latCell < 0) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(cellKeys, (long) latCell * lonCells + lonCell);
+        return index >= 0 ? index : -1;
+    }
+
+    static GeoGrid build(List<GeoPoint> points, double cellDegrees) {
+        int lonCells = (int) Math.ceil(360 / cellDegrees);
+        long[] keys = new long[points.size()];
+        Integer[] order = new Integer[points.size()];
+        for (int i = 0; i < keys.length; i++) {
+            GeoPoint point = points.get(i);
+            int latCell = (int) Math.floor((point.getLatitude().doubleValue() + 90) / cellDegrees);
+            int lonCell = Math.min(lonCells - 1,
+                    (int) Math.floor((point.getLongitude().doubleValue() + 180) / cellDegrees));
+            keys[i] = (long) latCell * lonCells + lonCell;
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> keys[i]));
+
+        int cells = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (i == 0 || keys[order[i]] != keys[order[i - 1]]) {
+                cells++;
+            }
+        }
+
+        GeoGrid grid = new GeoGrid(cellDegrees, points.size(), cells);
+        int cell = -1;
+        for (int row = 0; row < order.length; row++) {
+            GeoPoint point = points.get(order[row]);
+            long key = keys[order[row]];
+            if (cell < 0 || grid.cellKeys[cell] != key) {
+                cell++;
+                grid.cellKeys[cell] = key;
+                grid.cellStart[cell] = row;
+            }
+            grid.latitudes[row] = point.getLatitude().doubleValue();
+            grid.longitudes[row] = point.getLongitude().doubleValue();
+            grid.machineIds[row] = point.getMachineId();
+            grid.atmCodes[row] = point.getAtmCode();
+            grid.cities[row] = point.getCity();
+            grid.pinCodes[row] = point.getPinCode();
+            grid.flags[row] = flagsOf(point);
+        }
+        grid.cellStart[cells] = order.length;
+        return grid;
+    }
+
+    private static byte flagsOf(GeoPoint point) {
+        boolean active = point.getMachineStatus() == AtmStatus.ACTIVE && point.getLocationStatus() == AtmStatus.ACTIVE;
+        return (byte) ((active ? AtmFilter.ACTIVE : 0)
+                | (point.isMachineWithdrawal() && point.isLocationWithdrawal() ? AtmFilter.WITHDRAWAL : 0)
+                | (point.isMachineDeposit() && point.isLocationDeposit() ? AtmFilter.DEPOSIT : 0)
+                | (point.isMachineCardless() && point.isLocationCardless() ? AtmFilter.CARDLESS : 0));
+    }
+}
@@ -0,0 +1,8 @@
+package com.umesh.atm.geo;
+
+/**
+ * An ATM found by {@link AtmLocator}, with its great-circle distance from the search point.
+ */
+public record NearbyAtm(String atmCode, String city, String pinCode, double latitude, double longitude,
+                        double distanceKm, boolean supportsDeposit, boolean supportsCardless) {
+}
@@ -0,0 +1,39 @@
+package com.umesh.atm.history;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keyset position in a card's history: the (local_txn_datetime, id) of the last row returned.
+ * Encoded as an opaque URL-safe string so clients cannot depend on its shape.
+ */
+record HistoryCursor(Instant localTxnDateTime, long id) {
+
+    static HistoryCursor of(TransactionHistoryEntry entry) {
+        return new HistoryCursor(entry.localTxnDateTime(), entry.id());
+    }
+
+    String encode() {
+        String raw = localTxnDateTime.getEpochSecond() + "." + localTxnDateTime.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decodes a cursor.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    static HistoryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int dot = raw.indexOf('.');
+            int colon = raw.indexOf(':');
+            Instant time = Instant.ofEpochSecond(
+                    Long.parseLong(raw.substring(0, dot)), Long.parseLong(raw.substring(dot + 1, colon)));
+            return new HistoryCursor(time, Long.parseLong(raw.substring(colon + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid history cursor", e);
+        }
+    }
+}
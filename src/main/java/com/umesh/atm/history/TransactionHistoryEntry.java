@@ -0,0 +1,19 @@
+package com.umesh.atm.history;
+
+import java.time.Instant;
+
+/**
+ * One line of a card's transaction history, read straight from JDBC (no entity is materialized).
+ */
+public record TransactionHistoryEntry(
+        long id,
+        Instant localTxnDateTime,
+        String processingCode,
+        String rrn,
+        String stan,
+        String terminalId,
+        long amountMinor,
+        String currency,
+        String status,
+        String responseCode) {
+}
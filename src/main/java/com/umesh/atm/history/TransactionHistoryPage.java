@@ -0,0 +1,12 @@
+package com.umesh.atm.history;
+
+import java.util.List;
+
+/**
+ * A page of transaction history, newest first.
+ *
+ * @param items the transactions on this page
+ * @param nextCursor opaque cursor for the next (older) page, or null on the last page
+ */
+public record TransactionHistoryPage(List<TransactionHistoryEntry> items, String nextCursor) {
+}
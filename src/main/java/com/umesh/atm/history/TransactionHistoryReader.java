@@ -0,0 +1,179 @@
+package com.umesh.atm.history;
+
+import com.umesh.atm.partition.ColumnarTransactionArchive;
+import com.umesh.atm.partition.PartitionSource;
+import com.umesh.atm.partition.TransactionPartitionManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads a card's committed transaction history over the (card_token, local_txn_datetime DESC, id DESC)
+ * index. Pages use keyset pagination, so every page costs one index range scan regardless of how much
+ * history the card has; exports stream rows from a JDBC cursor to the caller one at a time.
+ * Reads are routed through {@link TransactionPartitionManager}: recent pages touch only the hot table,
+ * older ones continue into month tables and the columnar archive.
+ */
+@Component
+@Slf4j
+public class TransactionHistoryReader {
+
+    private static final String COLUMNS =
+            "SELECT id, local_txn_datetime, processing_code, rrn, stan, terminal_id, amount_minor, currency, status, response_code " +
+            "FROM %s WHERE card_token = ? AND local_txn_datetime >= ? ";
+
+    private static final String PAGE_SQL = COLUMNS +
+            "AND (local_txn_datetime < ? OR (local_txn_datetime = ? AND id < ?)) " +
+            "ORDER BY local_txn_datetime DESC, id DESC LIMIT ?";
+
+    private static final String EXPORT_SQL = COLUMNS +
+            "AND local_txn_datetime < ? " +
+            "ORDER BY local_txn_datetime DESC, id DESC";
+
+    // Keyset position before the newest possible row
+    private static final HistoryCursor HEAD = new HistoryCursor(Instant.parse("9999-12-31T00:00:00Z"), Long.MAX_VALUE);
+
+    private static final RowMapper<TransactionHistoryEntry> ROW_MAPPER = (rs, rowNum) -> new TransactionHistoryEntry(
+            rs.getLong(1),
+            rs.getTimestamp(2).toInstant(),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            rs.getLong(7),
+            rs.getString(8),
+            rs.getString(9),
+            rs.getString(10));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionPartitionManager partitionManager;
+    private final ColumnarTransactionArchive archive;
+
+    @Value("${atm.history.max-page-size:100}")
+    private int maxPageSize;
+
+    public TransactionHistoryReader(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                    PlatformTransactionManager transactionManager,
+                                    TransactionPartitionManager partitionManager, ColumnarTransactionArchive archive,
+                                    @Value("${atm.history.export-fetch-size:500}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionManager = partitionManager;
+        this.archive = archive;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(exportFetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Reads one page of history, newest first.
+     *
+     * @param cardToken the tokenized card identifier
+     * @param cursor cursor from the previous page, or null for the most recent transactions
+     * @param limit page size (capped at atm.history.max-page-size)
+     * @return the page and the cursor of the next one
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public TransactionHistoryPage readPage(String cardToken, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+
+        HistoryCursor after = cursor == null || cursor.isBlank() ? HEAD : HistoryCursor.decode(cursor);
+
+        // Walk the storage tiers newest first until the page (plus one row, to detect a next page) is full
+        List<TransactionHistoryEntry> rows = new ArrayList<>(pageSize + 1);
+        Instant upper = after.localTxnDateTime().plusNanos(1);
+        for (PartitionSource source : partitionManager.sourcesNewestFirst(Instant.EPOCH, upper)) {
+            int needed = pageSize + 1 - rows.size();
+            if (needed <= 0) {
+                break;
+            }
+            if (source.isArchived()) {
+                scanArchive(source, cardToken, source.start(), min(source.end(), upper), entry -> {
+                    if (rows.size() < pageSize + 1 && isBefore(entry, after)) {
+                        rows.add(entry);
+                    }
+                });
+            } else {
+                Timestamp time = Timestamp.from(after.localTxnDateTime());
+                rows.addAll(jdbcTemplate.query(String.format(PAGE_SQL, source.table()), ROW_MAPPER,
+                        cardToken, Timestamp.from(source.start()), time, time, after.id(), needed));
+            }
+        }
+
+        if (rows.size() <= pageSize) {
+            return new TransactionHistoryPage(rows, null);
+        }
+        List<TransactionHistoryEntry> page = rows.subList(0, pageSize);
+        return new TransactionHistoryPage(page, HistoryCursor.of(page.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * Streams a card's history in a time window, newest first, without buffering it.
+     * Runs in a read-only transaction so drivers that need one (e.g. PostgreSQL) use a server-side cursor.
+     *
+     * @param cardToken the tokenized card identifier
+     * @param from inclusive lower bound
+     * @param to exclusive upper bound
+     * @param sink receives each row as it is read
+     * @return number of rows streamed
+     */
+    public long stream(String cardToken, Instant from, Instant to, Consumer<TransactionHistoryEntry> sink) {
+        long[] count = new long[1];
+        Consumer<TransactionHistoryEntry> counting = entry -> {
+            sink.accept(entry);
+            count[0]++;
+        };
+        for (PartitionSource source : partitionManager.sourcesNewestFirst(from, to)) {
+            Instant lower = max(from, source.start());
+            Instant upper = min(to, source.end());
+            if (source.isArchived()) {
+                scanArchive(source, cardToken, lower, upper, counting);
+            } else {
+                readOnlyTransaction.executeWithoutResult(status ->
+                        streamingJdbcTemplate.query(String.format(EXPORT_SQL, source.table()),
+                                rs -> counting.accept(ROW_MAPPER.mapRow(rs, (int) count[0])),
+                                cardToken, Timestamp.from(lower), Timestamp.from(upper)));
+            }
+        }
+
+        log.debug("Streamed {} history rows for card: {}", count[0], cardToken);
+        return count[0];
+    }
+
+    private void scanArchive(PartitionSource source, String cardToken, Instant from, Instant to,
+                             Consumer<TransactionHistoryEntry> sink) {
+        try {
+            archive.scan(source.archivedMonth(), cardToken, from, to, sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading archived transactions of " + source.archivedMonth(), e);
+        }
+    }
+
+    private static boolean isBefore(TransactionHistoryEntry entry, HistoryCursor cursor) {
+        int byTime = entry.localTxnDateTime().compareTo(cursor.localTxnDateTime());
+        return byTime < 0 || (byTime == 0 && entry.id() < cursor.id());
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static Instant max(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
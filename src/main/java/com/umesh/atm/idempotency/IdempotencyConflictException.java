@@ -0,0 +1,11 @@
+package com.umesh.atm.idempotency;
+
+/**
+ * Thrown when a request id is reused with a different payload.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
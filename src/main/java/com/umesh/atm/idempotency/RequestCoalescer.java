@@ -0,0 +1,142 @@
+package com.umesh.atm.idempotency;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency layer for retried terminal requests.
+ * Concurrent duplicates of a key share the single in-flight execution; duplicates arriving after
+ * completion replay the stored result until the TTL elapses. Only final outcomes are stored: a failure or
+ * a result the caller marks as retryable (e.g. a 5xx response) is dropped on completion, so a retry runs
+ * again. Memory is bounded by a maximum entry count.
+ */
+@Component
+@Slf4j
+public class RequestCoalescer {
+
+    @Value("${atm.idempotency.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${atm.idempotency.max-entries:50000}")
+    private int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Scheduled executor for expired entry cleanup
+    private final ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    public RequestCoalescer() {
+        cleanupExecutor.scheduleAtFixedRate(this::evictExpired, 30, 30, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        cleanupExecutor.shutdownNow();
+    }
+
+    /**
+     * Executes an action at most once per key within the TTL.
+     * 
+     * @param key idempotency key (e.g. session id + client request id)
+     * @param fingerprint payload digest; a duplicate with a different fingerprint is rejected
+     * @param action starts the real execution
+     * @param isFinal whether a result may be replayed to later duplicates; others are only shared in flight
+     * @return the shared result of the single execution
+     * @throws IdempotencyConflictException if the key was used with a different payload
+     * @throws RejectedExecutionException if the registry is full of live entries
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(String key, String fingerprint, Supplier<CompletableFuture<T>> action,
+                                         Predicate<? super T> isFinal) {
+        long now = System.currentTimeMillis();
+        Entry fresh = new Entry(fingerprint);
+        
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, fresh);
+            if (existing == null) {
+                break;
+            }
+            if (existing.isExpired(now, ttlSeconds)) {
+                if (entries.replace(key, existing, fresh)) {
+                    break;
+                }
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new IdempotencyConflictException("Request id reused with a different payload");
+            }
+            
+            log.info("Coalescing duplicate request: {} ({})", key, existing.future.isDone() ? "replay" : "in-flight");
+            return (CompletableFuture<T>) existing.future;
+        }
+        
+        if (entries.size() > maxEntries && !makeRoom()) {
+            entries.remove(key, fresh);
+            throw new RejectedExecutionException("Too many in-flight idempotent requests");
+        }
+        
+        try {
+            action.get().whenComplete((result, error) -> {
+                if (error != null) {
+                    // Let a retry run again after an unexpected failure
+                    entries.remove(key, fresh);
+                    fresh.future.completeExceptionally(error);
+                } else {
+                    if (isFinal.test(result)) {
+                        fresh.completedAt = System.currentTimeMillis();
+                    } else {
+                        entries.remove(key, fresh);
+                    }
+                    fresh.future.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            entries.remove(key, fresh);
+            fresh.future.completeExceptionally(e);
+        }
+        
+        return (CompletableFuture<T>) fresh.future;
+    }
+
+    /**
+     * Gets the number of tracked keys (useful for monitoring).
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private boolean makeRoom() {
+        evictExpired();
+        return entries.size() <= maxEntries;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now, ttlSeconds));
+    }
+
+    /**
+     * Tracked execution; the TTL runs from completion, in-flight entries never expire.
+     */
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private volatile long completedAt;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        boolean isExpired(long now, long ttlSeconds) {
+            long completed = completedAt;
+            return completed > 0 && now - completed > ttlSeconds * 1000;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.umesh.atm.idgen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-local view of a database sequence, handing out values from reserved blocks.
+ * The hot path is a single atomic increment; threads only coordinate when a block runs out,
+ * and the next block is normally prefetched in the background before that happens.
+ */
+@Slf4j
+public final class BlockSequence {
+
+    private static final int MAX_RESERVE_ATTEMPTS = 3;
+
+    private final String name;
+    private final int blockSize;
+    private final SequenceBlockAllocator allocator;
+    private final Executor prefetchExecutor;
+
+    private volatile Block current = new Block(0, 0);
+    private volatile CompletableFuture<Block> standby;
+
+    public BlockSequence(String name, int blockSize, SequenceBlockAllocator allocator, Executor prefetchExecutor) {
+        this.name = name;
+        this.blockSize = blockSize;
+        this.allocator = allocator;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    /**
+     * Gets the next value of the sequence. Values are unique across all nodes sharing the database.
+     */
+    public long next() {
+        while (true) {
+            Block block = current;
+            long value = block.cursor.getAndIncrement();
+            if (value < block.end) {
+                if (value == block.prefetchAt) {
+                    prefetch();
+                }
+                return value;
+            }
+            advance(block);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void prefetch() {
+        if (standby == null) {
+            synchronized (this) {
+                if (standby == null) {
+                    standby = CompletableFuture.supplyAsync(this::reserveBlock, prefetchExecutor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Swaps in the next block once the current one is exhausted. Only one thread swaps; the rest retry.
+     */
+    private synchronized void advance(Block exhausted) {
+        if (current != exhausted) {
+            return;
+        }
+        
+        CompletableFuture<Block> next = standby;
+        standby = null;
+        
+        Block block = null;
+        if (next != null) {
+            try {
+                block = next.join();
+            } catch (Exception e) {
+                log.warn("Prefetch of sequence {} failed, reserving synchronously", name, e);
+            }
+        }
+        current = block != null ? block : reserveBlock();
+    }
+
+    private Block reserveBlock() {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                long start = allocator.reserve(name, blockSize);
+                return new Block(start, start + blockSize);
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_RESERVE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Concurrent creation of sequence {}, retrying", name);
+            }
+        }
+    }
+
+    /**
+     * Reserved range [start, end) with its hand-out cursor.
+     */
+    private static final class Block {
+        private final AtomicLong cursor;
+        private final long end;
+        private final long prefetchAt;
+
+        Block(long start, long end) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+            // Fetch the next block when three quarters of this one are used
+            this.prefetchAt = end > start ? start + (end - start) * 3 / 4 : -1;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.umesh.atm.idgen;
+
+/**
+ * Formats non-negative numbers as fixed-width, zero-padded decimal strings
+ * using a per-thread preallocated buffer (no StringBuilder or String.format garbage).
+ */
+public final class DigitFormatter {
+
+    private static final int MAX_WIDTH = 19;
+
+    private static final ThreadLocal<char[]> BUFFERS = ThreadLocal.withInitial(() -> new char[MAX_WIDTH]);
+
+    private DigitFormatter() {
+    }
+
+    /**
+     * Formats the lowest {@code width} decimal digits of a value.
+     * 
+     * @param value non-negative value
+     * @param width number of digits (1-19)
+     * @return zero-padded string of exactly {@code width} characters
+     */
+    public static String format(long value, int width) {
+        if (value < 0 || width < 1 || width > MAX_WIDTH) {
+            throw new IllegalArgumentException("Cannot format " + value + " in " + width + " digits");
+        }
+        
+        char[] buffer = BUFFERS.get();
+        long remaining = value;
+        for (int i = width - 1; i >= 0; i--) {
+            buffer[i] = (char) ('0' + (remaining % 10));
+            remaining /= 10;
+        }
+        return new String(buffer, 0, width);
+    }
+}
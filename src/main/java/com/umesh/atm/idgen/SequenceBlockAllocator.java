@@ -0,0 +1,54 @@
+package com.umesh.atm.idgen;
+
+import com.umesh.atm.entity.SequenceBlock;
+import com.umesh.atm.repository.SequenceBlockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reserves contiguous blocks of a named sequence from the database (the "hi" half of hi/lo).
+ * Each reservation is one short transaction, independent of any caller transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SequenceBlockAllocator {
+
+    private final SequenceBlockRepository sequenceBlockRepository;
+
+    /**
+     * Reserves the next block of a sequence.
+     * 
+     * @param name the sequence name
+     * @param blockSize number of values to reserve
+     * @return first value of the reserved block; the block covers [start, start + blockSize)
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long reserve(String name, int blockSize) {
+        // Concurrent first reservations collide on the primary key; the caller retries
+        SequenceBlock row = sequenceBlockRepository.findForUpdate(name)
+                .orElseGet(() -> sequenceBlockRepository.saveAndFlush(
+                        SequenceBlock.builder().name(name).nextValue(1L).build()));
+        
+        long start = row.getNextValue();
+        row.setNextValue(start + blockSize);
+        
+        log.debug("Reserved block [{}, {}) of sequence {}", start, start + blockSize, name);
+        return start;
+    }
+
+    /**
+     * Drops rows of a sequence family older than the cutoff name.
+     * 
+     * @param prefix sequence name prefix, e.g. "STAN:"
+     * @param cutoffName names sorting before this one are removed
+     * @return number of rows removed
+     */
+    @Transactional
+    public int purge(String prefix, String cutoffName) {
+        return sequenceBlockRepository.deleteByPrefixBefore(prefix, cutoffName);
+    }
+}
@@ -0,0 +1,138 @@
+package com.umesh.atm.idgen;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Generates ISO 8583 reference numbers without serializing transactions.
+ * <ul>
+ *   <li>RRN (DE 37): 12 digits, unique across all nodes, drawn from one global block sequence.</li>
+ *   <li>Transaction ids: primary keys of atm_transaction, pre-allocated so inserts can be batched.</li>
+ *   <li>STAN (DE 11): 6 digits, unique per business day, drawn from a per-day block sequence
+ *       that is swapped in at the day boundary without pausing callers.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionIdentifierGenerator {
+
+    @Value("${atm.idgen.rrn-block-size:1000}")
+    private int rrnBlockSize;
+
+    @Value("${atm.idgen.txn-block-size:1000}")
+    private int txnBlockSize;
+
+    @Value("${atm.idgen.stan-block-size:500}")
+    private int stanBlockSize;
+
+    @Value("${atm.business-day.zone:UTC}")
+    private String businessDayZone;
+
+    private static final long RRN_MODULUS = 1_000_000_000_000L;
+    private static final long STAN_MODULUS = 1_000_000L;
+    private static final String STAN_PREFIX = "STAN:";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final SequenceBlockAllocator allocator;
+
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor();
+
+    private ZoneId zone;
+    private BlockSequence rrnSequence;
+    private BlockSequence transactionIdSequence;
+    private volatile DailySequence stanSequence;
+
+    @PostConstruct
+    public void init() {
+        zone = ZoneId.of(businessDayZone);
+        rrnSequence = new BlockSequence("RRN", rrnBlockSize, allocator, prefetchExecutor);
+        transactionIdSequence = new BlockSequence("TXN", txnBlockSize, allocator, prefetchExecutor);
+        stanSequence = dailySequenceFor(LocalDate.now(zone));
+    }
+
+    @PreDestroy
+    public void stop() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Generates the next retrieval reference number.
+     * 
+     * @return 12-digit RRN
+     */
+    public String nextRrn() {
+        return DigitFormatter.format(rrnSequence.next() % RRN_MODULUS, 12);
+    }
+
+    /**
+     * Allocates the primary key for a new transaction row.
+     * 
+     * @return unique transaction id
+     */
+    public long nextTransactionId() {
+        return transactionIdSequence.next();
+    }
+
+    /**
+     * Generates the next system trace audit number for the current business day.
+     * 
+     * @return 6-digit STAN (000001-999999)
+     */
+    public String nextStan() {
+        DailySequence daily = stanSequence;
+        long now = System.currentTimeMillis();
+        if (now >= daily.endMillis()) {
+            daily = rollOver(daily);
+        }
+        
+        // STAN 000000 is not used; wrap within 1..999999 if a day ever exhausts the range
+        long value = (daily.sequence().next() - 1) % (STAN_MODULUS - 1) + 1;
+        return DigitFormatter.format(value, 6);
+    }
+
+    /**
+     * Installs the next day's sequence. Only the first caller after midnight builds it.
+     */
+    private synchronized DailySequence rollOver(DailySequence expired) {
+        if (stanSequence != expired) {
+            return stanSequence;
+        }
+        
+        LocalDate today = LocalDate.now(zone);
+        DailySequence next = dailySequenceFor(today);
+        stanSequence = next;
+        log.info("STAN sequence rolled over to business day {}", today);
+        
+        // Previous days' rows are no longer needed
+        String cutoff = STAN_PREFIX + today.minusDays(1).format(DAY_FORMAT);
+        prefetchExecutor.execute(() -> {
+            try {
+                allocator.purge(STAN_PREFIX, cutoff);
+            } catch (Exception e) {
+                log.warn("Error purging old STAN sequences", e);
+            }
+        });
+        return next;
+    }
+
+    private DailySequence dailySequenceFor(LocalDate day) {
+        BlockSequence sequence = new BlockSequence(STAN_PREFIX + day.format(DAY_FORMAT),
+                stanBlockSize, allocator, prefetchExecutor);
+        long endMillis = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        return new DailySequence(sequence, endMillis);
+    }
+
+    private record DailySequence(BlockSequence sequence, long endMillis) {
+    }
+}
@@ -0,0 +1,248 @@
+package com.umesh.atm.index;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Off-heap RRN → transaction id index covering the recent window (48 hours by default).
+ * <p>
+ * Each 12-digit RRN is packed into a long and stored in an open-addressing table (linear probing)
+ * in direct memory, so millions of entries add no GC pressure. The window is kept with two
+ * generations of half a window each: lookups check the current then the previous generation, and
+ * every half window the previous one is cleared and reused. A miss is never authoritative; callers
+ * fall back to the idx_txn_rrn index.
+ */
+@Component
+@Slf4j
+public class RecentRrnIndex {
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final int SLOT_BYTES = 16; // key, transaction id
+    private static final int MAX_PROBES = 64;
+
+    @Value("${atm.rrn-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${atm.rrn-index.window-hours:48}")
+    private long windowHours;
+
+    @Value("${atm.rrn-index.expected-entries-per-generation:1000000}")
+    private int expectedEntries;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ScheduledExecutorService rotationExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    public RecentRrnIndex(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(10000);
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Recent RRN index disabled");
+            return;
+        }
+
+        // Keep the load factor at or below 0.5 so probe chains stay short
+        int slots = Integer.highestOneBit(Math.max(1024, expectedEntries) * 2 - 1) << 1;
+        current = new Generation(slots);
+        previous = new Generation(slots);
+        log.info("Recent RRN index allocated {} MiB off-heap", 2L * slots * SLOT_BYTES / (1024 * 1024));
+
+        Duration half = Duration.ofHours(windowHours).dividedBy(2);
+        rotationExecutor.execute(this::rebuild);
+        rotationExecutor.scheduleAtFixedRate(this::rotate, half.toMinutes(), half.toMinutes(), TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rotationExecutor.shutdownNow();
+    }
+
+    /**
+     * Records the RRN of a new transaction.
+     *
+     * @param rrn the retrieval reference number
+     * @param transactionId the transaction ID
+     */
+    public void put(String rrn, long transactionId) {
+        Generation generation = current;
+        long key = pack(rrn);
+        if (generation == null || key == 0) {
+            return;
+        }
+        if (!generation.put(key, transactionId)) {
+            log.debug("Recent RRN index generation full, not indexing RRN: {}", rrn);
+        }
+    }
+
+    /**
+     * Looks up the transaction id of a recent RRN.
+     *
+     * @param rrn the retrieval reference number
+     * @return the transaction id, or null if the RRN is not in the recent window (query the database)
+     */
+    public Long get(String rrn) {
+        Generation newer = current;
+        long key = pack(rrn);
+        if (newer == null || key == 0) {
+            return null;
+        }
+        long id = newer.get(key);
+        if (id == 0) {
+            id = previous.get(key);
+        }
+        return id == 0 ? null : id;
+    }
+
+    private synchronized void rotate() {
+        try {
+            Generation expired = previous;
+            expired.clear();
+            previous = current;
+            current = expired;
+            log.info("Recent RRN index rotated ({} entries in the previous generation)", previous.size());
+        } catch (Exception e) {
+            log.error("Error rotating recent RRN index", e);
+        }
+    }
+
+    private void rebuild() {
+        long started = System.nanoTime();
+        try {
+            // The older half of the window goes into the previous generation, as if it had rotated normally
+            Instant now = Instant.now();
+            Timestamp since = Timestamp.from(now.minus(Duration.ofHours(windowHours)));
+            Timestamp split = Timestamp.from(now.minus(Duration.ofHours(windowHours).dividedBy(2)));
+            long[] loaded = new long[1];
+            transactionTemplate.executeWithoutResult(status -> streamingJdbcTemplate.query(
+                    "SELECT rrn, id, local_txn_datetime FROM atm_transaction WHERE local_txn_datetime >= ?",
+                    rs -> {
+                        long key = pack(rs.getString(1));
+                        if (key != 0) {
+                            Generation generation = rs.getTimestamp(3).before(split) ? previous : current;
+                            generation.put(key, rs.getLong(2));
+                        }
+                        loaded[0]++;
+                    },
+                    since));
+            log.info("Recent RRN index loaded {} transactions in {} ms",
+                    loaded[0], TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (Exception e) {
+            log.error("Error loading recent RRN index", e);
+        }
+    }
+
+    /**
+     * Packs a 12-digit RRN into a non-zero long (0 marks an empty slot).
+     *
+     * @return the key, or 0 if the RRN is not 12 digits
+     */
+    static long pack(String rrn) {
+        if (rrn == null || rrn.length() != 12) {
+            return 0;
+        }
+        long value = 0;
+        for (int i = 0; i < rrn.length(); i++) {
+            char c = rrn.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value + 1;
+    }
+
+    /**
+     * One open-addressing table in direct memory. Inserts claim a slot by CAS on the key, then publish
+     * the id; a reader that sees the key before the id treats it as a miss.
+     */
+    private static final class Generation {
+        private final ByteBuffer table;
+        private final int mask;
+        private volatile int size; // approximate, for logging only
+
+        Generation(int slots) {
+            this.table = ByteBuffer.allocateDirect(slots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            this.mask = slots - 1;
+        }
+
+        boolean put(long key, long transactionId) {
+            int slot = spread(key) & mask;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int offset = slot * SLOT_BYTES;
+                long existing = (long) LONGS.getAcquire(table, offset);
+                if (existing == 0) {
+                    if (LONGS.compareAndSet(table, offset, 0L, key)) {
+                        LONGS.setRelease(table, offset + 8, transactionId);
+                        size++;
+                        return true;
+                    }
+                    existing = (long) LONGS.getAcquire(table, offset);
+                }
+                if (existing == key) {
+                    // The same RRN seen again (e.g. an acquirer retry); keep the newest transaction
+                    LONGS.setRelease(table, offset + 8, transactionId);
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        long get(long key) {
+            int slot = spread(key) & mask;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int offset = slot * SLOT_BYTES;
+                long existing = (long) LONGS.getAcquire(table, offset);
+                if (existing == key) {
+                    return (long) LONGS.getAcquire(table, offset + 8);
+                }
+                if (existing == 0) {
+                    return 0;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return 0;
+        }
+
+        void clear() {
+            for (int offset = 0; offset < table.capacity(); offset += 8) {
+                LONGS.setRelease(table, offset, 0L);
+            }
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private static int spread(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
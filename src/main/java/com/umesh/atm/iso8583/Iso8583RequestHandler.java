@@ -0,0 +1,342 @@
+package com.umesh.atm.iso8583;
+
+import com.umesh.atm.chain.HandlerResult;
+import com.umesh.atm.chain.transaction.TransactionProcessingChain;
+import com.umesh.atm.chain.transaction.TransactionRequest;
+import com.umesh.atm.corebanking.AccountSnapshot;
+import com.umesh.atm.corebanking.CoreBankingException;
+import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.TransactionOperation;
+import com.umesh.atm.enums.TxnStatus;
+import com.umesh.atm.repository.AtmMachineRepository;
+import com.umesh.atm.service.AtmSessionService;
+import com.umesh.atm.service.CashService;
+import com.umesh.atm.service.TransactionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps ISO 8583 requests from terminals onto the same chains and services as the REST API.
+ * <ul>
+ *   <li>0100/0200 with processing code 31: balance inquiry, balances returned in DE 54.</li>
+ *   <li>0100/0200 with processing code 01: withdrawal; 0100 only authorizes, 0200 also dispenses.</li>
+ *   <li>0400/0420: reversal of the transaction whose RRN is in DE 37; the terminal (DE 41), card (DE 2)
+ *   and amount (DE 4) must match the original.</li>
+ *   <li>0800: network management (echo test).</li>
+ * </ul>
+ * A terminal has no login step, so every financial request must carry a format 0 PIN block (DE 52)
+ * enciphered under the terminal PIN key ({@code pin-key}) and runs the PIN-verified chains; the handler
+ * keeps one session per terminal and card for them, dropped once idle for the session timeout.
+ * <p>
+ * The notes dispensed for each 0200 are kept for {@code reversal-window-minutes}, so a reversal in that
+ * window puts them back into the ATM's inventory. A later reversal leaves the cash to reconciliation.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class Iso8583RequestHandler {
+
+    // Fields copied from a request into its response. DE 37 is not among them: a dispensed withdrawal is
+    // answered with the RRN this switch stored for it, which is the one a later reversal must name.
+    private static final int[] ECHO_FIELDS = {2, 3, 4, 7, 11, 12, 13, 32, 41, 42, 49, 70, 90};
+
+    private static final String APPROVED = "00";
+    private static final String DO_NOT_HONOUR = "05";
+    private static final String INVALID_TRANSACTION = "12";
+    private static final String ORIGINAL_NOT_FOUND = "25";
+    private static final String INCORRECT_PIN = "55";
+    private static final String TERMINAL_NOT_PERMITTED = "58";
+    private static final String ISSUER_UNAVAILABLE = "91";
+    private static final String SYSTEM_MALFUNCTION = "96";
+
+    private final TransactionProcessingChain transactionProcessingChain;
+    private final AtmSessionService sessionService;
+    private final CashService cashService;
+    private final TransactionService transactionService;
+    private final AtmMachineRepository atmMachineRepository;
+
+    @Value("${atm.iso8583.reversal-window-minutes:30}")
+    private long reversalWindowMinutes;
+
+    // Hex triple DES key that terminals encipher DE 52 under; the listener does not start without it
+    @Value("${atm.iso8583.pin-key:}")
+    private String pinKeyHex;
+
+    private SecretKey pinKey;
+
+    private final Map<String, TerminalSession> terminalSessions = new ConcurrentHashMap<>();
+    private final Map<String, AtmMachine> terminals = new ConcurrentHashMap<>();
+    private final Map<Long, DispensedNotes> dispensedNotes = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    public void start() {
+        if (pinKeyHex != null && !pinKeyHex.isBlank()) {
+            pinKey = PinBlocks.tripleDesKey(pinKeyHex);
+        }
+        sweeper.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Checks if a terminal PIN key is configured, without which no PIN block can be verified.
+     */
+    public boolean isPinKeyConfigured() {
+        return pinKey != null;
+    }
+
+    /**
+     * Processes one request and builds its response. Never throws: failures become response codes.
+     */
+    public IsoMessageBuilder handle(IsoMessage request) {
+        IsoMessageBuilder response = IsoMessageBuilder.responseTo(request, ECHO_FIELDS);
+        try {
+            switch (request.mti()) {
+                case "0100", "0200" -> handleFinancial(request, response);
+                case "0400", "0420" -> handleReversal(request, response);
+                case "0800" -> response.set(39, APPROVED);
+                default -> response.set(39, INVALID_TRANSACTION);
+            }
+        } catch (IsoFormatException e) {
+            log.warn("Malformed {} from terminal {}: {}", request.mti(), request.getString(41), e.getMessage());
+            response.set(39, INVALID_TRANSACTION);
+        } catch (CoreBankingException e) {
+            log.warn("Core banking unavailable for {} from terminal {}: {}", request.mti(), request.getString(41), e.getMessage());
+            response.set(39, ISSUER_UNAVAILABLE);
+        } catch (Exception e) {
+            log.error("Error processing {} from terminal {}", request.mti(), request.getString(41), e);
+            response.set(39, SYSTEM_MALFUNCTION);
+        }
+        return response;
+    }
+
+    private void handleFinancial(IsoMessage request, IsoMessageBuilder response) {
+        AtmMachine atmMachine = findTerminal(request.getString(41));
+        String cardToken = request.getString(2);
+        String processingCode = request.getString(3);
+        if (atmMachine == null || cardToken == null || processingCode == null) {
+            response.set(39, atmMachine == null ? TERMINAL_NOT_PERMITTED : INVALID_TRANSACTION);
+            return;
+        }
+        if (!request.has(52)) {
+            log.warn("Rejecting {} without PIN block from terminal {}", processingCode, atmMachine.getAtmCode());
+            response.set(39, INCORRECT_PIN);
+            return;
+        }
+
+        TransactionRequest txnRequest = TransactionRequest.builder()
+                .sessionId(sessionFor(atmMachine, cardToken))
+                .cardToken(cardToken)
+                .atmMachine(atmMachine)
+                .processingCode(processingCode)
+                .amount(request.has(4) ? BigDecimal.valueOf(request.getNumber(4), 2) : BigDecimal.ZERO)
+                .currency(currencyOf(request))
+                .pin(PinBlocks.decodeFormat0(PinBlocks.decrypt(request.getBinary(52), pinKey), cardToken))
+                .build();
+
+        switch (txnRequest.getOperation()) {
+            case BALANCE_INQUIRY -> handleBalanceInquiry(txnRequest, response);
+            case WITHDRAWAL -> handleWithdrawal(request, txnRequest, response);
+            default -> response.set(39, INVALID_TRANSACTION);
+        }
+    }
+
+    private void handleBalanceInquiry(TransactionRequest txnRequest, IsoMessageBuilder response) {
+        HandlerResult result = transactionProcessingChain.processPinVerifiedTransaction(txnRequest);
+        if (!result.isSuccess()) {
+            response.set(39, responseCodeOf(result.getErrorCode()));
+            return;
+        }
+        // Fetched once by the limits step
+        AccountSnapshot account = txnRequest.getContextValue("accountSnapshot", AccountSnapshot.class);
+        response.set(54, additionalAmount("01", account.currency(), account.ledgerBalance())
+                + additionalAmount("02", account.currency(), account.availableBalance()));
+        response.set(39, APPROVED);
+    }
+
+    private void handleWithdrawal(IsoMessage request, TransactionRequest txnRequest, IsoMessageBuilder response) {
+        HandlerResult result = transactionProcessingChain.processPinVerifiedTransaction(txnRequest);
+        if (!result.isSuccess()) {
+            response.set(39, responseCodeOf(result.getErrorCode()));
+            return;
+        }
+        if ("0100".equals(request.mti())) {
+            // Authorization only; the terminal follows up with a 0200 to dispense
+            response.set(39, APPROVED);
+            return;
+        }
+        AtmMachine atmMachine = txnRequest.getAtmMachine();
+        String cardToken = txnRequest.getCardToken();
+        Transaction transaction = transactionService.createTransaction(
+                atmMachine, cardToken, txnRequest.getProcessingCode(), txnRequest.getAmount());
+        Map<Integer, Integer> notes = cashService.dispenseCash(atmMachine, cardToken, txnRequest.getAmount());
+        boolean dispensed = notes != null;
+        if (dispensed) {
+            dispensedNotes.put(transaction.getId(), new DispensedNotes(atmMachine, notes, System.nanoTime()));
+        }
+        String responseCode = dispensed ? APPROVED : DO_NOT_HONOUR;
+        transactionService.logTransactionCompletion(transaction.getId(), dispensed, responseCode);
+
+        response.set(37, transaction.getRrn());
+        if (dispensed) {
+            response.set(38, String.format("%06d", transaction.getId() % 1_000_000));
+        }
+        response.set(39, responseCode);
+    }
+
+    private void handleReversal(IsoMessage request, IsoMessageBuilder response) {
+        response.echo(request, 37);
+        String rrn = request.getString(37);
+        Transaction original = rrn != null ? transactionService.getTransactionByRrn(rrn) : null;
+        if (original == null) {
+            response.set(39, ORIGINAL_NOT_FOUND);
+            return;
+        }
+        if (!matchesOriginal(request, original)) {
+            log.warn("Rejecting {} for RRN {} from terminal {}: does not match original transaction {}",
+                    request.mti(), rrn, request.getString(41), original.getId());
+            response.set(39, ORIGINAL_NOT_FOUND);
+            return;
+        }
+        boolean cashDispensed = original.getStatus() == TxnStatus.APPROVED
+                && TransactionOperation.fromProcessingCode(original.getProcessingCode()) == TransactionOperation.WITHDRAWAL;
+        // A repeated reversal advice finds the original already reversed; acknowledge it again
+        Transaction reversal = transactionService.reverseTransaction(original.getId(), "TERMINAL_REVERSAL_" + request.mti());
+        if (reversal != null && cashDispensed) {
+            restoreCash(original);
+        }
+        response.set(39, APPROVED);
+    }
+
+    /**
+     * Checks that a reversal names the original's terminal, card and amount, so an RRN alone cannot reverse
+     * another terminal's transaction.
+     */
+    private static boolean matchesOriginal(IsoMessage request, Transaction original) {
+        return request.has(4)
+                && Objects.equals(request.getString(41), original.getTerminalId())
+                && Objects.equals(request.getString(2), original.getCardToken())
+                && Objects.equals(request.getNumber(4), original.getAmountMinor());
+    }
+
+    /**
+     * Puts the notes dispensed for a reversed withdrawal back into its ATM's inventory.
+     */
+    private void restoreCash(Transaction original) {
+        DispensedNotes dispensed = dispensedNotes.remove(original.getId());
+        if (dispensed == null) {
+            log.warn("Notes dispensed for reversed transaction {} are no longer known, left for reconciliation",
+                    original.getId());
+            return;
+        }
+        if (!cashService.updateCashInventory(dispensed.atmMachine(), dispensed.notes())) {
+            log.error("Could not restore notes {} for reversed transaction {} at ATM {}",
+                    dispensed.notes(), original.getId(), dispensed.atmMachine().getAtmCode());
+        }
+    }
+
+    private void sweep() {
+        try {
+            long now = System.nanoTime();
+            long sessionIdleNanos = TimeUnit.SECONDS.toNanos(sessionService.getSessionTimeoutSeconds());
+            long reversalWindowNanos = TimeUnit.MINUTES.toNanos(reversalWindowMinutes);
+            terminalSessions.values().removeIf(session -> now - session.lastUsedNanos() > sessionIdleNanos);
+            dispensedNotes.values().removeIf(dispensed -> now - dispensed.dispensedAtNanos() > reversalWindowNanos);
+        } catch (Exception e) {
+            log.error("Error sweeping terminal sessions", e);
+        }
+    }
+
+    private AtmMachine findTerminal(String terminalId) {
+        if (terminalId == null) {
+            return null;
+        }
+        AtmMachine cached = terminals.get(terminalId);
+        if (cached != null) {
+            return cached;
+        }
+        AtmMachine atmMachine = atmMachineRepository.findByAtmCode(terminalId).orElse(null);
+        if (atmMachine != null) {
+            terminals.put(terminalId, atmMachine);
+        }
+        return atmMachine;
+    }
+
+    private String sessionFor(AtmMachine atmMachine, String cardToken) {
+        String key = atmMachine.getAtmCode() + '|' + cardToken;
+        return terminalSessions.compute(key, (ignored, session) -> new TerminalSession(
+                session != null && sessionService.isSessionValid(session.sessionId())
+                        ? session.sessionId()
+                        : sessionService.createSession(atmMachine, cardToken),
+                System.nanoTime())).sessionId();
+    }
+
+    private static String currencyOf(IsoMessage request) {
+        if (!request.has(49)) {
+            return null;
+        }
+        int numericCode = (int) request.getNumber(49);
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            if (currency.getNumericCode() == numericCode) {
+                return currency.getCurrencyCode();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One DE 54 entry: account type, amount type, numeric currency, sign and 12-digit amount in minor units.
+     */
+    private static String additionalAmount(String amountType, String currencyCode, BigDecimal amount) {
+        int numericCurrency = currencyCode != null ? Currency.getInstance(currencyCode).getNumericCode() : 0;
+        long minor = amount.movePointRight(2).longValue();
+        return String.format("00%s%03d%s%012d", amountType, numericCurrency, minor < 0 ? "D" : "C", Math.abs(minor));
+    }
+
+    private static String responseCodeOf(String errorCode) {
+        if (errorCode == null) {
+            return DO_NOT_HONOUR;
+        }
+        return switch (errorCode) {
+            case "INSUFFICIENT_BALANCE" -> "51";
+            case "DAILY_WITHDRAWAL_LIMIT_EXCEEDED" -> "61";
+            case "DAILY_TXN_LIMIT_EXCEEDED", "RATE_LIMIT_EXCEEDED" -> "65";
+            case "PIN_INCORRECT", "PIN_INVALID_FORMAT" -> INCORRECT_PIN;
+            case "CARD_BLOCKED" -> "75";
+            case "CARD_EXPIRED" -> "54";
+            case "CARD_NOT_FOUND", "CARD_INACTIVE" -> "14";
+            case "INVALID_WITHDRAWAL_AMOUNT" -> "13";
+            case "OPERATION_NOT_SUPPORTED" -> INVALID_TRANSACTION;
+            case "INSUFFICIENT_CASH_IN_ATM" -> "91";
+            case "BALANCE_INQUIRY_NOT_ALLOWED" -> "57";
+            case "SESSION_INVALID", "SESSION_MISMATCH" -> DO_NOT_HONOUR;
+            default -> SYSTEM_MALFUNCTION;
+        };
+    }
+
+    private record TerminalSession(String sessionId, long lastUsedNanos) {
+    }
+
+    private record DispensedNotes(AtmMachine atmMachine, Map<Integer, Integer> notes, long dispensedAtNanos) {
+    }
+}
@@ -0,0 +1,425 @@
+package com.umesh.atm.iso8583;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP listener for terminals speaking binary ISO 8583, alongside the JSON REST API.
+ * <p>
+ * Each message is framed by a 2-byte big-endian length. One selector thread does all socket I/O:
+ * it cuts frames out of the read buffer, copies each into a pooled direct buffer and parses it in place.
+ * A worker runs the message through {@link Iso8583RequestHandler} and encodes the response into
+ * another pooled buffer. Responses are queued on the connection and written by the
+ * selector thread.
+ * <p>
+ * Requests on one connection are pipelined: up to {@code max-in-flight-per-connection} run concurrently and their
+ * responses go out as they complete, matched by the terminal on STAN (DE 11). Ordering is only kept
+ * where ISO semantics need it, per terminal (DE 41) so a concentrator's ATMs don't wait on each other:
+ * <ul>
+ *   <li>a reversal runs after its original (STAN from DE 90, else after everything in flight for the terminal);</li>
+ *   <li>a retransmission with the STAN of an in-flight request runs after that request.</li>
+ * </ul>
+ * Responses are kept for {@code response-cache-seconds} by terminal, STAN and MTI (ignoring the repeat
+ * bit), and a retransmission gets the stored response again instead of being processed a second time, so
+ * a repeated 0200 never dispenses twice.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class Iso8583Server {
+
+    private static final int LENGTH_PREFIX = 2;
+
+    @Value("${atm.iso8583.enabled:false}")
+    private boolean enabled;
+
+    @Value("${atm.iso8583.port:8583}")
+    private int port;
+
+    @Value("${atm.iso8583.worker-threads:32}")
+    private int workerThreads;
+
+    @Value("${atm.iso8583.max-frame-bytes:4096}")
+    private int maxFrameBytes;
+
+    @Value("${atm.iso8583.buffer-pool-size:1024}")
+    private int bufferPoolSize;
+
+    @Value("${atm.iso8583.max-in-flight-per-connection:64}")
+    private int maxInFlight;
+
+    @Value("${atm.iso8583.response-cache-seconds:300}")
+    private long responseCacheSeconds;
+
+    private final Iso8583RequestHandler requestHandler;
+
+    private final Queue<Connection> readyConnections = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    // Terminal id -> STAN -> completion of the in-flight request, for ordering reversals and retransmissions.
+    // Kept across connections, so a terminal that reconnects and retransmits still waits for the original.
+    private final Map<String, Map<String, CompletableFuture<Void>>> inFlightByTerminal = new ConcurrentHashMap<>();
+    // Terminal|STAN|MTI -> last response frame, for answering retransmissions
+    private final Map<String, RecentResponse> recentResponses = new ConcurrentHashMap<>();
+
+    private BufferPool frames;
+    private ExecutorService workers;
+    private ScheduledExecutorService responseSweeper;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            log.info("ISO 8583 listener disabled");
+            return;
+        }
+        if (!requestHandler.isPinKeyConfigured()) {
+            // PIN blocks arrive enciphered; without the key every financial request would fail PIN checks
+            throw new IllegalStateException("ISO 8583 listener enabled without atm.iso8583.pin-key");
+        }
+
+        frames = new BufferPool(LENGTH_PREFIX + maxFrameBytes, bufferPoolSize);
+        workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "iso8583-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        responseSweeper = Executors.newSingleThreadScheduledExecutor();
+        responseSweeper.scheduleWithFixedDelay(this::expireResponses, responseCacheSeconds, responseCacheSeconds,
+                TimeUnit.SECONDS);
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        selectorThread = new Thread(this::selectLoop, "iso8583-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        log.info("ISO 8583 listener started on port {}", port);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (selector == null) {
+            return;
+        }
+        try {
+            selector.close();
+            serverChannel.close();
+        } catch (IOException e) {
+            log.error("Error closing ISO 8583 listener", e);
+        }
+        workers.shutdown();
+        responseSweeper.shutdownNow();
+    }
+
+    /**
+     * Returns the number of open terminal connections.
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    private void selectLoop() {
+        try {
+            while (selector.isOpen()) {
+                selector.select();
+                Connection connection;
+                while ((connection = readyConnections.poll()) != null) {
+                    if (connection.key.isValid()) {
+                        connection.key.interestOps(connection.key.interestOps() | SelectionKey.OP_WRITE);
+                        connection.resumeIfPaused();
+                    }
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Connection conn = (Connection) key.attachment();
+                            if (key.isReadable()) {
+                                conn.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                conn.write();
+                            }
+                        }
+                    } catch (IOException e) {
+                        log.debug("ISO 8583 connection closed: {}", e.getMessage());
+                        if (key.attachment() instanceof Connection conn) {
+                            conn.close();
+                        }
+                    }
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // Shutting down
+        } catch (Exception e) {
+            log.error("ISO 8583 selector loop failed", e);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connectionCount.incrementAndGet();
+        log.info("Terminal connected from {}", channel.getRemoteAddress());
+    }
+
+    private void process(Connection connection, IsoMessage message, ByteBuffer request) {
+        ByteBuffer response = frames.acquire();
+        try {
+            String responseKey = responseKeyOf(message);
+            RecentResponse recent = responseKey != null ? recentResponses.get(responseKey) : null;
+            if (recent != null && recent.expiresAtMillis() > System.currentTimeMillis()) {
+                log.info("Answering retransmitted {} STAN {} from terminal {} with the earlier response",
+                        message.mti(), message.getString(11), message.getString(41));
+                response.put(recent.frame()).flip();
+                connection.send(response);
+                response = null;
+                return;
+            }
+
+            IsoMessageBuilder reply = requestHandler.handle(message);
+
+            response.position(LENGTH_PREFIX);
+            reply.encode(response);
+            response.putShort(0, (short) (response.position() - LENGTH_PREFIX));
+            response.flip();
+            if (responseKey != null) {
+                byte[] frame = new byte[response.remaining()];
+                response.get(response.position(), frame);
+                recentResponses.put(responseKey, new RecentResponse(frame,
+                        System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(responseCacheSeconds)));
+            }
+            connection.send(response);
+            response = null;
+        } catch (Exception e) {
+            log.error("Error processing ISO 8583 {} STAN {}", message.mti(), message.getString(11), e);
+        } finally {
+            // The response echoes fields straight out of the request frame, so release it only now
+            frames.release(request);
+            frames.release(response);
+            connection.completed();
+        }
+    }
+
+    /**
+     * Key for a request's response: terminal, STAN and MTI with the repeat bit cleared (0201 → 0200),
+     * or null when the request has no STAN to match on.
+     */
+    private static String responseKeyOf(IsoMessage message) {
+        String stan = message.getString(11);
+        if (stan == null) {
+            return null;
+        }
+        String mti = message.mti();
+        int function = (mti.charAt(3) - '0') & ~1;
+        return message.getString(41) + '|' + stan + '|' + mti.substring(0, 3) + function;
+    }
+
+    private void expireResponses() {
+        long now = System.currentTimeMillis();
+        recentResponses.values().removeIf(recent -> recent.expiresAtMillis() <= now);
+    }
+
+    private record RecentResponse(byte[] frame, long expiresAtMillis) {
+    }
+
+    /**
+     * One terminal connection. Reads and writes happen on the selector thread only; workers hand
+     * responses over through {@link #send} and {@link #completed}.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer readBuffer;
+        private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private SelectionKey key;
+        private boolean paused;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.readBuffer = frames.acquire();
+        }
+
+        void read() throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                close();
+                return;
+            }
+            dispatchFrames();
+        }
+
+        /**
+         * Dispatches every complete frame in the read buffer, pausing reads once the connection has
+         * {@code max-in-flight-per-connection} requests outstanding.
+         */
+        void dispatchFrames() {
+            readBuffer.flip();
+            while (readBuffer.remaining() >= LENGTH_PREFIX) {
+                if (inFlight.get() >= maxInFlight) {
+                    paused = true;
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                    break;
+                }
+                int length = Short.toUnsignedInt(readBuffer.getShort(readBuffer.position()));
+                if (length == 0 || length > maxFrameBytes) {
+                    log.warn("Closing connection after a {} byte frame (max {})", length, maxFrameBytes);
+                    close();
+                    return;
+                }
+                if (readBuffer.remaining() < LENGTH_PREFIX + length) {
+                    break;
+                }
+                ByteBuffer frame = frames.acquire();
+                frame.put(readBuffer.slice(readBuffer.position() + LENGTH_PREFIX, length)).flip();
+                readBuffer.position(readBuffer.position() + LENGTH_PREFIX + length);
+                dispatch(frame);
+            }
+            readBuffer.compact();
+        }
+
+        void resumeIfPaused() {
+            if (paused && inFlight.get() < maxInFlight) {
+                paused = false;
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                dispatchFrames();
+            }
+        }
+
+        /**
+         * Parses a frame on the selector thread, so ordering decisions follow arrival order, and
+         * schedules it on the workers once whatever it must follow has completed.
+         */
+        private void dispatch(ByteBuffer frame) {
+            IsoMessage message;
+            try {
+                message = IsoMessageParser.parse(frame);
+            } catch (IsoFormatException e) {
+                // Without a parsed MTI and STAN there is nothing the terminal could match a reply to
+                log.warn("Dropping malformed ISO 8583 frame: {}", e.getMessage());
+                frames.release(frame);
+                return;
+            }
+
+            String terminalId = message.has(41) ? message.getString(41) : "";
+            String stan = message.has(11) ? message.getString(11) : "";
+            Map<String, CompletableFuture<Void>> terminalInFlight =
+                    inFlightByTerminal.computeIfAbsent(terminalId, ignored -> new ConcurrentHashMap<>());
+
+            CompletableFuture<Void> predecessor = predecessorOf(message, stan, terminalInFlight);
+            inFlight.incrementAndGet();
+            CompletableFuture<Void> completion = (predecessor == null
+                    ? CompletableFuture.runAsync(() -> process(this, message, frame), workers)
+                    : predecessor.handle((ignored, error) -> null)
+                            .thenRunAsync(() -> process(this, message, frame), workers));
+            terminalInFlight.put(stan, completion);
+            completion.whenComplete((ignored, error) -> terminalInFlight.remove(stan, completion));
+        }
+
+        private CompletableFuture<Void> predecessorOf(IsoMessage message, String stan,
+                                                      Map<String, CompletableFuture<Void>> terminalInFlight) {
+            CompletableFuture<Void> sameStan = terminalInFlight.get(stan);
+            if (sameStan != null || !message.mti().startsWith("04")) {
+                return sameStan;
+            }
+            // DE 90 original data elements: original MTI (4), original STAN (6), ...
+            String originalData = message.getString(90);
+            if (originalData != null && originalData.length() >= 10) {
+                return terminalInFlight.get(originalData.substring(4, 10));
+            }
+            return terminalInFlight.isEmpty()
+                    ? null
+                    : CompletableFuture.allOf(terminalInFlight.values().toArray(CompletableFuture[]::new));
+        }
+
+        void send(ByteBuffer response) {
+            if (!key.isValid()) {
+                frames.release(response);
+                return;
+            }
+            outbound.offer(response);
+        }
+
+        /**
+         * Called by a worker once a request is finished, so the selector flushes its response and
+         * resumes reading if the connection was paused.
+         */
+        void completed() {
+            inFlight.decrementAndGet();
+            readyConnections.offer(this);
+            selector.wakeup();
+        }
+
+        void write() throws IOException {
+            ByteBuffer head;
+            while ((head = outbound.peek()) != null) {
+                channel.write(head);
+                if (head.hasRemaining()) {
+                    return;
+                }
+                frames.release(outbound.poll());
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            // A response queued between the last poll and the interest change is picked up via readyConnections
+        }
+
+        void close() {
+            if (!key.isValid()) {
+                return;
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Error closing terminal connection", e);
+            }
+            connectionCount.decrementAndGet();
+            frames.release(readBuffer);
+            ByteBuffer buffer;
+            while ((buffer = outbound.poll()) != null) {
+                frames.release(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.umesh.atm.iso8583;
+
+/**
+ * Wire format of one ISO 8583 data element (ASCII variant, binary bitmaps).
+ *
+ * @param kind how the length is determined
+ * @param length fixed length, or maximum length of a variable field (characters, or bytes for binary)
+ * @param numeric whether fixed values are zero-padded on the left rather than space-padded on the right
+ */
+record IsoFieldDefinition(Kind kind, int length, boolean numeric) {
+
+    enum Kind {
+        FIXED,   // exactly length characters
+        LLVAR,   // two ASCII digits of length, then the value
+        LLLVAR,  // three ASCII digits of length, then the value
+        BINARY   // exactly length raw bytes
+    }
+
+    private static final IsoFieldDefinition[] FIELDS = new IsoFieldDefinition[129];
+
+    static {
+        FIELDS[2] = llvar(64);       // primary account number; carries the card token (up to 64)
+        FIELDS[3] = n(6);            // processing code
+        FIELDS[4] = n(12);           // amount, transaction (minor units)
+        FIELDS[7] = n(10);           // transmission date and time MMDDhhmmss
+        FIELDS[11] = n(6);           // STAN
+        FIELDS[12] = n(6);           // local time hhmmss
+        FIELDS[13] = n(4);           // local date MMDD
+        FIELDS[14] = n(4);           // expiration date
+        FIELDS[15] = n(4);           // settlement date
+        FIELDS[18] = n(4);           // merchant type
+        FIELDS[22] = n(3);           // POS entry mode
+        FIELDS[23] = n(3);           // card sequence number
+        FIELDS[25] = n(2);           // POS condition code
+        FIELDS[26] = n(2);           // POS PIN capture code
+        FIELDS[28] = an(9);          // amount, transaction fee
+        FIELDS[32] = llvar(11);      // acquiring institution id
+        FIELDS[33] = llvar(11);      // forwarding institution id
+        FIELDS[35] = llvar(37);      // track 2 data
+        FIELDS[37] = an(12);         // RRN
+        FIELDS[38] = an(6);          // authorization id response
+        FIELDS[39] = an(2);          // response code
+        FIELDS[41] = an(8);          // card acceptor terminal id
+        FIELDS[42] = an(15);         // card acceptor id
+        FIELDS[43] = an(40);         // card acceptor name/location
+        FIELDS[44] = llvar(25);      // additional response data
+        FIELDS[48] = lllvar(999);    // additional data, private
+        FIELDS[49] = n(3);           // currency code (ISO 4217 numeric)
+        FIELDS[52] = binary(8);      // PIN block
+        FIELDS[53] = n(16);          // security related control information
+        FIELDS[54] = lllvar(120);    // additional amounts (balances)
+        FIELDS[55] = lllvar(255);    // ICC data
+        FIELDS[60] = lllvar(999);
+        FIELDS[61] = lllvar(999);
+        FIELDS[62] = lllvar(999);
+        FIELDS[63] = lllvar(999);
+        FIELDS[64] = binary(8);      // MAC
+        FIELDS[70] = n(3);           // network management code
+        FIELDS[90] = n(42);          // original data elements
+        FIELDS[95] = an(42);         // replacement amounts
+        FIELDS[100] = llvar(11);     // receiving institution id
+        FIELDS[102] = llvar(28);     // account id 1
+        FIELDS[103] = llvar(28);     // account id 2
+        FIELDS[128] = binary(8);     // MAC
+    }
+
+    /**
+     * Returns the definition of a field, or null if the field is not supported.
+     */
+    static IsoFieldDefinition of(int field) {
+        return field > 0 && field < FIELDS.length ? FIELDS[field] : null;
+    }
+
+    private static IsoFieldDefinition n(int length) {
+        return new IsoFieldDefinition(Kind.FIXED, length, true);
+    }
+
+    private static IsoFieldDefinition an(int length) {
+        return new IsoFieldDefinition(Kind.FIXED, length, false);
+    }
+
+    private static IsoFieldDefinition llvar(int maxLength) {
+        return new IsoFieldDefinition(Kind.LLVAR, maxLength, false);
+    }
+
+    private static IsoFieldDefinition lllvar(int maxLength) {
+        return new IsoFieldDefinition(Kind.LLLVAR, maxLength, false);
+    }
+
+    private static IsoFieldDefinition binary(int length) {
+        return new IsoFieldDefinition(Kind.BINARY, length, false);
+    }
+}
@@ -0,0 +1,11 @@
+package com.umesh.atm.iso8583;
+
+/**
+ * Thrown when a frame is not a well-formed ISO 8583 message of the supported field set.
+ */
+public class IsoFormatException extends RuntimeException {
+
+    public IsoFormatException(String message) {
+        super(message);
+    }
+}
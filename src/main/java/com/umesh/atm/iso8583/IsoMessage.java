@@ -0,0 +1,89 @@
+package com.umesh.atm.iso8583;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A parsed ISO 8583 message. Fields are not copied out of the frame: the parser only records where each
+ * present field starts and how long it is, and accessors decode straight from the frame buffer.
+ * The message is valid only while its frame buffer has not been released.
+ */
+public final class IsoMessage {
+
+    private final ByteBuffer frame;
+    private final String mti;
+    private final int[] offsets = new int[129]; // 0 = field absent (offset 0 is always the MTI)
+    private final int[] lengths = new int[129];
+
+    IsoMessage(ByteBuffer frame, String mti) {
+        this.frame = frame;
+        this.mti = mti;
+    }
+
+    /**
+     * Message type indicator, e.g. 0200.
+     */
+    public String mti() {
+        return mti;
+    }
+
+    public boolean has(int field) {
+        return offsets[field] > 0;
+    }
+
+    /**
+     * Returns an ASCII field with trailing spaces removed, or null if absent.
+     */
+    public String getString(int field) {
+        if (!has(field)) {
+            return null;
+        }
+        byte[] bytes = new byte[lengths[field]];
+        frame.get(offsets[field], bytes);
+        return new String(bytes, StandardCharsets.US_ASCII).stripTrailing();
+    }
+
+    /**
+     * Parses a numeric field in place, or returns -1 if absent.
+     *
+     * @throws IsoFormatException if the field contains a non-digit
+     */
+    public long getNumber(int field) {
+        if (!has(field)) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = offsets[field], end = i + lengths[field]; i < end; i++) {
+            int digit = frame.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IsoFormatException("Field " + field + " is not numeric");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Returns a read-only view of a binary field, or null if absent.
+     */
+    public ByteBuffer getBinary(int field) {
+        return has(field) ? frame.slice(offsets[field], lengths[field]).asReadOnlyBuffer() : null;
+    }
+
+    void setField(int field, int offset, int length) {
+        offsets[field] = offset;
+        lengths[field] = length;
+    }
+
+    ByteBuffer frame() {
+        return frame;
+    }
+
+    int offset(int field) {
+        return offsets[field];
+    }
+
+    int length(int field) {
+        return lengths[field];
+    }
+}
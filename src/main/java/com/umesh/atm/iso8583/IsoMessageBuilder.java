@@ -0,0 +1,148 @@
+package com.umesh.atm.iso8583;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Builds an ISO 8583 message (typically a response) and encodes it into a caller-supplied buffer.
+ * Fields echoed from a request are copied straight from the request frame at encode time.
+ */
+public final class IsoMessageBuilder {
+
+    private final String mti;
+    private final byte[][] values = new byte[129][];
+    private final IsoMessage[] echoed = new IsoMessage[129];
+
+    public IsoMessageBuilder(String mti) {
+        if (mti == null || mti.length() != 4) {
+            throw new IsoFormatException("Invalid MTI: " + mti);
+        }
+        this.mti = mti;
+    }
+
+    /**
+     * Builds the response to a request: MTI class + 10 (0200 → 0210) with the given fields echoed.
+     */
+    public static IsoMessageBuilder responseTo(IsoMessage request, int... echoFields) {
+        char[] mti = request.mti().toCharArray();
+        mti[2] = (char) (mti[2] + 1);
+        IsoMessageBuilder response = new IsoMessageBuilder(new String(mti));
+        for (int field : echoFields) {
+            response.echo(request, field);
+        }
+        return response;
+    }
+
+    /**
+     * Sets an ASCII field, padding fixed-length values (zeros on the left for numeric fields,
+     * spaces on the right otherwise).
+     */
+    public IsoMessageBuilder set(int field, String value) {
+        IsoFieldDefinition definition = definition(field);
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        if (definition.kind() == IsoFieldDefinition.Kind.FIXED && bytes.length != definition.length()) {
+            bytes = pad(bytes, definition);
+        }
+        if (bytes.length > definition.length()) {
+            throw new IsoFormatException("Field " + field + " longer than " + definition.length());
+        }
+        values[field] = bytes;
+        echoed[field] = null;
+        return this;
+    }
+
+    /**
+     * Copies a field from another message if present there.
+     */
+    public IsoMessageBuilder echo(IsoMessage source, int field) {
+        definition(field);
+        if (source.has(field)) {
+            echoed[field] = source;
+            values[field] = null;
+        }
+        return this;
+    }
+
+    public String mti() {
+        return mti;
+    }
+
+    /**
+     * Encodes the message at the buffer's position.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer is too small
+     */
+    public void encode(ByteBuffer out) {
+        out.put(mti.getBytes(StandardCharsets.US_ASCII));
+
+        long primary = 0;
+        long secondary = 0;
+        for (int field = 2; field <= 128; field++) {
+            if (values[field] != null || echoed[field] != null) {
+                if (field <= 64) {
+                    primary |= Long.MIN_VALUE >>> (field - 1);
+                } else {
+                    secondary |= Long.MIN_VALUE >>> (field - 65);
+                }
+            }
+        }
+        if (secondary != 0) {
+            primary |= Long.MIN_VALUE;
+        }
+        out.putLong(primary);
+        if (secondary != 0) {
+            out.putLong(secondary);
+        }
+
+        for (int field = 2; field <= 128; field++) {
+            if (values[field] != null) {
+                putLengthPrefix(out, field, values[field].length);
+                out.put(values[field]);
+            } else if (echoed[field] != null) {
+                IsoMessage source = echoed[field];
+                putLengthPrefix(out, field, source.length(field));
+                out.put(source.frame().slice(source.offset(field), source.length(field)));
+            }
+        }
+    }
+
+    private static void putLengthPrefix(ByteBuffer out, int field, int length) {
+        switch (IsoFieldDefinition.of(field).kind()) {
+            case LLVAR -> putDigits(out, length, 2);
+            case LLLVAR -> putDigits(out, length, 3);
+            default -> {
+            }
+        }
+    }
+
+    private static void putDigits(ByteBuffer out, int value, int digits) {
+        for (int divisor = digits == 3 ? 100 : 10; divisor > 0; divisor /= 10) {
+            out.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    private static IsoFieldDefinition definition(int field) {
+        IsoFieldDefinition definition = IsoFieldDefinition.of(field);
+        if (definition == null || field == 1) {
+            throw new IsoFormatException("Unsupported field " + field);
+        }
+        return definition;
+    }
+
+    private static byte[] pad(byte[] value, IsoFieldDefinition definition) {
+        if (value.length > definition.length()) {
+            throw new IsoFormatException("Value longer than " + definition.length());
+        }
+        byte[] padded = new byte[definition.length()];
+        int padding = definition.length() - value.length;
+        if (definition.numeric()) {
+            Arrays.fill(padded, 0, padding, (byte) '0');
+            System.arraycopy(value, 0, padded, padding, value.length);
+        } else {
+            System.arraycopy(value, 0, padded, 0, value.length);
+            Arrays.fill(padded, value.length, padded.length, (byte) ' ');
+        }
+        return padded;
+    }
+}
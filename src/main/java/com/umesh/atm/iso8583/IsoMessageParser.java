@@ -0,0 +1,100 @@
+package com.umesh.atm.iso8583;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bitmap-driven ISO 8583 parser: walks the set bits of the primary and secondary bitmaps and records
+ * each field's position in the frame without copying it.
+ */
+public final class IsoMessageParser {
+
+    private static final int MTI_LENGTH = 4;
+    private static final int BITMAP_LENGTH = 8;
+
+    private IsoMessageParser() {
+    }
+
+    /**
+     * Parses the frame between its position and limit.
+     *
+     * @throws IsoFormatException if the frame is malformed or contains an unsupported field
+     */
+    public static IsoMessage parse(ByteBuffer frame) {
+        int position = frame.position();
+        int limit = frame.limit();
+        if (limit - position < MTI_LENGTH + BITMAP_LENGTH) {
+            throw new IsoFormatException("Frame too short: " + (limit - position) + " bytes");
+        }
+
+        byte[] mti = new byte[MTI_LENGTH];
+        frame.get(position, mti);
+        IsoMessage message = new IsoMessage(frame, new String(mti, StandardCharsets.US_ASCII));
+        position += MTI_LENGTH;
+
+        long primary = frame.getLong(position);
+        position += BITMAP_LENGTH;
+        long secondary = 0;
+        if (primary < 0) {
+            // Bit 1 announces the secondary bitmap
+            if (limit - position < BITMAP_LENGTH) {
+                throw new IsoFormatException("Frame too short for the secondary bitmap");
+            }
+            secondary = frame.getLong(position);
+            position += BITMAP_LENGTH;
+        }
+
+        position = parseFields(frame, message, primary & Long.MAX_VALUE, 0, position, limit);
+        position = parseFields(frame, message, secondary, 64, position, limit);
+        if (position != limit) {
+            throw new IsoFormatException((limit - position) + " unexpected trailing bytes");
+        }
+        return message;
+    }
+
+    private static int parseFields(ByteBuffer frame, IsoMessage message, long bitmap, int firstField,
+                                   int position, int limit) {
+        long bits = bitmap;
+        while (bits != 0) {
+            int bit = Long.numberOfLeadingZeros(bits);
+            bits &= ~(Long.MIN_VALUE >>> bit);
+            int field = firstField + bit + 1;
+
+            IsoFieldDefinition definition = IsoFieldDefinition.of(field);
+            if (definition == null) {
+                throw new IsoFormatException("Unsupported field " + field);
+            }
+            int length = switch (definition.kind()) {
+                case FIXED, BINARY -> definition.length();
+                case LLVAR -> readLength(frame, position, 2, limit, field);
+                case LLLVAR -> readLength(frame, position, 3, limit, field);
+            };
+            position += switch (definition.kind()) {
+                case LLVAR -> 2;
+                case LLLVAR -> 3;
+                default -> 0;
+            };
+            if (length > definition.length() || position + length > limit) {
+                throw new IsoFormatException("Field " + field + " length " + length + " out of bounds");
+            }
+            message.setField(field, position, length);
+            position += length;
+        }
+        return position;
+    }
+
+    private static int readLength(ByteBuffer frame, int position, int digits, int limit, int field) {
+        if (position + digits > limit) {
+            throw new IsoFormatException("Field " + field + " length prefix truncated");
+        }
+        int length = 0;
+        for (int i = 0; i < digits; i++) {
+            int digit = frame.get(position + i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IsoFormatException("Field " + field + " has a malformed length prefix");
+            }
+            length = length * 10 + digit;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,103 @@
+package com.umesh.atm.iso8583;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+
+/**
+ * ISO 9564 format 0 PIN block decryption and decoding.
+ */
+final class PinBlocks {
+
+    private PinBlocks() {
+    }
+
+    /**
+     * Builds a triple DES PIN key from its hex form: 16, 32 or 48 digits for a single, double or
+     * triple length key.
+     *
+     * @throws IllegalArgumentException if the value is not such a key
+     */
+    static SecretKey tripleDesKey(String hex) {
+        byte[] key = HexFormat.of().parseHex(hex.strip());
+        if (key.length != 8 && key.length != 16 && key.length != 24) {
+            throw new IllegalArgumentException("PIN key must be 8, 16 or 24 bytes, got " + key.length);
+        }
+        // Shorter keys repeat K1 (and K2) to the 24 bytes DESede expects
+        byte[] expanded = new byte[24];
+        for (int i = 0; i < 24; i++) {
+            expanded[i] = key[i % key.length];
+        }
+        if (key.length == 16) {
+            System.arraycopy(key, 0, expanded, 16, 8);
+        }
+        return new SecretKeySpec(expanded, "DESede");
+    }
+
+    /**
+     * Deciphers a PIN block received under the terminal PIN key.
+     *
+     * @param block the 8-byte enciphered PIN block (DE 52)
+     * @param pinKey the terminal PIN key
+     * @return the clear PIN block, or null if the block is malformed
+     */
+    static ByteBuffer decrypt(ByteBuffer block, SecretKey pinKey) {
+        if (block == null || block.remaining() != 8) {
+            return null;
+        }
+        byte[] enciphered = new byte[8];
+        block.get(block.position(), enciphered);
+        try {
+            Cipher cipher = Cipher.getInstance("DESede/ECB/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, pinKey);
+            return ByteBuffer.wrap(cipher.doFinal(enciphered));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decipher PIN block", e);
+        }
+    }
+
+    /**
+     * Recovers the PIN from a clear format 0 PIN block.
+     *
+     * @param block the clear 8-byte PIN block, as returned by {@link #decrypt(ByteBuffer, SecretKey)}
+     * @param pan the account number (at least 13 digits)
+     * @return the PIN, or null if the block or PAN is malformed
+     */
+    static String decodeFormat0(ByteBuffer block, String pan) {
+        if (block == null || block.remaining() != 8 || pan == null || pan.length() < 13) {
+            return null;
+        }
+        // PAN field: 0000 + the 12 rightmost digits excluding the check digit
+        String panDigits = pan.substring(pan.length() - 13, pan.length() - 1);
+        byte[] pinField = new byte[8];
+        for (int i = 0; i < 8; i++) {
+            int panByte = i < 2 ? 0 : (digit(panDigits.charAt(2 * i - 4)) << 4) | digit(panDigits.charAt(2 * i - 3));
+            if (panByte < 0) {
+                return null;
+            }
+            pinField[i] = (byte) (block.get(block.position() + i) ^ panByte);
+        }
+
+        int control = (pinField[0] >> 4) & 0x0f;
+        int length = pinField[0] & 0x0f;
+        if (control != 0 || length < 4 || length > 12) {
+            return null;
+        }
+        StringBuilder pin = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            int nibble = (pinField[1 + i / 2] >> (i % 2 == 0 ? 4 : 0)) & 0x0f;
+            if (nibble > 9) {
+                return null;
+            }
+            pin.append((char) ('0' + nibble));
+        }
+        return pin.toString();
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+}
@@ -0,0 +1,164 @@
+package com.umesh.atm.journal;
+
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.TxnStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed-size binary layout of a local journal record.
+ * Every record is a full snapshot of the transaction after the change, so replay only needs the
+ * latest record per id. ISO 8583 fields are stored as space-padded ASCII at fixed offsets.
+ * <pre>
+ *   0  type (1)          1  status (1)        2  reserved (2)      4  crc32c of bytes 8..end (4)
+ *   8  id (8)           16  amount_minor (8) 24  local time ms (8) 32  completed ms or -1 (8)
+ *  40  mti (4)          44  processing (6)   50  stan (6)         56  rrn (12)
+ *  68  response (2)     70  currency (3)     73  terminal (16)    89  network (3)
+ *  92  card token (64) 156  original id or 0 (8)  164  padding (4)
+ * </pre>
+ * Segments start with a header: magic (4), format version (4), record size (4), reserved (4).
+ * Version 1 segments, written before the original id was added, have no header and 160-byte records
+ * ending in 4 bytes of padding at 156; they are still decoded so unreconciled records survive an upgrade.
+ */
+final class JournalRecordCodec {
+
+    static final int RECORD_SIZE = 168;
+    static final int HEADER_SIZE = 16;
+    static final int FORMAT_VERSION = 2;
+    static final int V1_RECORD_SIZE = 160;
+
+    // "TXNJ"; never a valid first byte of a headerless version 1 segment, which starts with a record type
+    private static final int MAGIC = 0x54584E4A;
+
+    static final byte TYPE_EMPTY = 0;
+    static final byte TYPE_CREATED = 1;
+    static final byte TYPE_STATUS_CHANGED = 2;
+
+    private static final int CRC_OFFSET = 4;
+    private static final int BODY_OFFSET = 8;
+    private static final TxnStatus[] STATUSES = TxnStatus.values();
+
+    private static final ThreadLocal<CRC32C> CRC = ThreadLocal.withInitial(CRC32C::new);
+
+    private JournalRecordCodec() {
+    }
+
+    /**
+     * Writes the segment header at the start of {@code buffer}.
+     */
+    static void encodeHeader(ByteBuffer buffer) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(8, RECORD_SIZE);
+    }
+
+    /**
+     * Returns the format version of a segment: 1 if it has no header.
+     *
+     * @throws IllegalStateException for a version this build cannot read
+     */
+    static int formatVersion(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            return 1;
+        }
+        int version = buffer.getInt(4);
+        if (version != FORMAT_VERSION || buffer.getInt(8) != RECORD_SIZE) {
+            throw new IllegalStateException("Unsupported journal segment format " + version);
+        }
+        return version;
+    }
+
+    /**
+     * Offset of the first record in a segment of the given format.
+     */
+    static int firstRecordOffset(int version) {
+        return version == 1 ? 0 : HEADER_SIZE;
+    }
+
+    /**
+     * Record size in a segment of the given format.
+     */
+    static int recordSize(int version) {
+        return version == 1 ? V1_RECORD_SIZE : RECORD_SIZE;
+    }
+
+    /**
+     * Encodes a record into {@code buffer} at {@code offset} without moving its position.
+     */
+    static void encode(ByteBuffer buffer, int offset, byte type, Transaction txn) {
+        ByteBuffer record = buffer.slice(offset, RECORD_SIZE);
+        record.put(0, type);
+        record.put(1, (byte) txn.getStatus().ordinal());
+        record.putLong(8, txn.getId());
+        record.putLong(16, txn.getAmountMinor());
+        record.putLong(24, txn.getLocalTxnDateTime().toEpochMilli());
+        record.putLong(32, txn.getCompletedAt() == null ? -1 : txn.getCompletedAt().toEpochMilli());
+        putAscii(record, 40, 4, txn.getMti());
+        putAscii(record, 44, 6, txn.getProcessingCode());
+        putAscii(record, 50, 6, txn.getStan());
+        putAscii(record, 56, 12, txn.getRrn());
+        putAscii(record, 68, 2, txn.getResponseCode());
+        putAscii(record, 70, 3, txn.getCurrency());
+        putAscii(record, 73, 16, txn.getTerminalId());
+        putAscii(record, 89, 3, txn.getNetworkId());
+        putAscii(record, 92, 64, txn.getCardToken());
+        record.putLong(156, txn.getOriginalTransactionId() == null ? 0 : txn.getOriginalTransactionId());
+        record.putInt(CRC_OFFSET, checksum(record));
+    }
+
+    /**
+     * Decodes the record at {@code offset} of a segment in the given format.
+     *
+     * @return the transaction snapshot, or null for an empty or torn record
+     */
+    static Transaction decode(ByteBuffer buffer, int offset, int version) {
+        ByteBuffer record = buffer.slice(offset, recordSize(version));
+        if (record.get(0) == TYPE_EMPTY || record.getInt(CRC_OFFSET) != checksum(record)) {
+            return null;
+        }
+
+        long completedAt = record.getLong(32);
+        long originalId = version == 1 ? 0 : record.getLong(156);
+        return Transaction.builder()
+                .id(record.getLong(8))
+                .status(STATUSES[record.get(1)])
+                .amountMinor(record.getLong(16))
+                .localTxnDateTime(Instant.ofEpochMilli(record.getLong(24)))
+                .completedAt(completedAt < 0 ? null : Instant.ofEpochMilli(completedAt))
+                .mti(getAscii(record, 40, 4))
+                .processingCode(getAscii(record, 44, 6))
+                .stan(getAscii(record, 50, 6))
+                .rrn(getAscii(record, 56, 12))
+                .responseCode(getAscii(record, 68, 2))
+                .currency(getAscii(record, 70, 3))
+                .terminalId(getAscii(record, 73, 16))
+                .networkId(getAscii(record, 89, 3))
+                .cardToken(getAscii(record, 92, 64))
+                .originalTransactionId(originalId == 0 ? null : originalId)
+                .build();
+    }
+
+    private static int checksum(ByteBuffer record) {
+        CRC32C crc = CRC.get();
+        crc.reset();
+        crc.update(record.slice(BODY_OFFSET, record.capacity() - BODY_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    private static void putAscii(ByteBuffer record, int offset, int width, String value) {
+        int length = value == null ? 0 : Math.min(value.length(), width);
+        for (int i = 0; i < width; i++) {
+            record.put(offset + i, i < length ? (byte) value.charAt(i) : (byte) ' ');
+        }
+    }
+
+    private static String getAscii(ByteBuffer record, int offset, int width) {
+        byte[] bytes = new byte[width];
+        record.get(offset, bytes);
+        String value = new String(bytes, StandardCharsets.US_ASCII).stripTrailing();
+        return value.isEmpty() ? null : value;
+    }
+}
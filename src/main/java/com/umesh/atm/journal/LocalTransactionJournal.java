@@ -0,0 +1,317 @@
+package com.umesh.atm.journal;
+
+import com.umesh.atm.entity.Transaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Local write-ahead journal of transaction changes, written before the database.
+ * Records are fixed-size and written into memory-mapped segment files; concurrent writers reserve
+ * slots lock-free and a single syncer thread forces the written range to disk once per group,
+ * completing every waiting writer with one fsync. A segment is deleted once every record in it
+ * has been committed to atm_transaction; whatever is left on disk after a crash is replayed by
+ * {@link TransactionJournalReconciler} at startup.
+ */
+@Component
+@Slf4j
+public class LocalTransactionJournal {
+
+    @Value("${atm.journal.local.enabled:true}")
+    private boolean enabled;
+
+    @Value("${atm.journal.local.directory:./data/journal}")
+    private String directory;
+
+    @Value("${atm.journal.local.segment-records:65536}")
+    private int segmentRecords;
+
+    private static final String SEGMENT_PREFIX = "txn-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private final BlockingQueue<SyncRequest> syncQueue = new LinkedBlockingQueue<>();
+    private final Map<Long, CompletableFuture<Void>> unsynced = new ConcurrentHashMap<>();
+
+    private Path journalDirectory;
+    private List<Path> recoveredSegments = List.of();
+    private long nextSegmentNumber;
+    private volatile Segment active;
+    private ExecutorService syncer;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            log.info("Local transaction journal disabled");
+            return;
+        }
+
+        journalDirectory = Path.of(directory);
+        Files.createDirectories(journalDirectory);
+
+        // Segments left by a previous run belong to the reconciler; new writes go to a fresh segment
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            recoveredSegments = files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        nextSegmentNumber = recoveredSegments.stream()
+                .mapToLong(LocalTransactionJournal::segmentNumber)
+                .max().orElse(0) + 1;
+        active = openSegment();
+
+        syncer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "txn-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.execute(this::syncLoop);
+        log.info("Local transaction journal started in {} ({} segments to recover)",
+                journalDirectory.toAbsolutePath(), recoveredSegments.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+    }
+
+    /**
+     * Appends a record for a transaction change.
+     *
+     * @param transaction full transaction state after the change
+     * @param created true for the initial PENDING record, false for a status change
+     * @param committed completes when the same change is committed to the database; the record
+     *                  is kept for replay until then
+     * @return future completed once the record is on disk
+     */
+    public CompletableFuture<Void> append(Transaction transaction, boolean created, CompletableFuture<?> committed) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        byte type = created ? JournalRecordCodec.TYPE_CREATED : JournalRecordCodec.TYPE_STATUS_CHANGED;
+        while (true) {
+            Segment segment = active;
+            int slot = segment.reserve();
+            if (slot < 0) {
+                rollOver(segment);
+                continue;
+            }
+
+            JournalRecordCodec.encode(segment.buffer, offsetOf(slot), type, transaction);
+
+            // Failed commits keep the record (and so the segment) for replay on the next start
+            committed.thenRun(() -> segment.release());
+
+            SyncRequest request = new SyncRequest(segment, slot, transaction.getId(), new CompletableFuture<>());
+            unsynced.put(transaction.getId(), request.future());
+            syncQueue.add(request);
+            return request.future();
+        }
+    }
+
+    /**
+     * Returns a future for the latest journaled change of a transaction.
+     *
+     * @param transactionId the transaction ID
+     * @return future completed once the change is on disk, or null if nothing is waiting for fsync
+     */
+    public CompletableFuture<Void> whenSynced(Long transactionId) {
+        return unsynced.get(transactionId);
+    }
+
+    /**
+     * Checks if changes are journaled locally before the database.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the segments found at startup, oldest first.
+     */
+    public List<Path> getRecoveredSegments() {
+        return recoveredSegments;
+    }
+
+    /**
+     * Reads every intact record of a segment in slot order.
+     *
+     * @param segmentFile the segment to read
+     * @return decoded transaction snapshots
+     */
+    public List<Transaction> readSegment(Path segmentFile) throws IOException {
+        List<Transaction> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            // Segments written by an older version keep their own layout
+            int version = JournalRecordCodec.formatVersion(buffer);
+            int first = JournalRecordCodec.firstRecordOffset(version);
+            int recordSize = JournalRecordCodec.recordSize(version);
+            int slots = (int) ((channel.size() - first) / recordSize);
+            for (int slot = 0; slot < slots; slot++) {
+                // Slots are reserved concurrently, so an empty or torn slot does not end the segment
+                Transaction record = JournalRecordCodec.decode(buffer, first + slot * recordSize, version);
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Deletes a segment recovered at startup after its records have been reconciled.
+     */
+    public void discardRecovered(Path segmentFile) throws IOException {
+        Files.deleteIfExists(segmentFile);
+        log.info("Discarded reconciled journal segment {}", segmentFile.getFileName());
+    }
+
+    private synchronized void rollOver(Segment full) {
+        if (active != full) {
+            return;
+        }
+        try {
+            active = openSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open new transaction journal segment", e);
+        }
+        full.seal();
+    }
+
+    private Segment openSegment() throws IOException {
+        Path file = journalDirectory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX));
+        long size = JournalRecordCodec.HEADER_SIZE + (long) segmentRecords * JournalRecordCodec.RECORD_SIZE;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            JournalRecordCodec.encodeHeader(buffer);
+            buffer.force(0, JournalRecordCodec.HEADER_SIZE);
+            // Persist the directory entry so the segment itself survives a crash
+            channel.force(true);
+            return new Segment(file, buffer, segmentRecords);
+        }
+    }
+
+    private void syncLoop() {
+        List<SyncRequest> group = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                group.add(syncQueue.take());
+                syncQueue.drainTo(group);
+                sync(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Failed to sync transaction journal", e);
+                group.forEach(request -> request.future().completeExceptionally(e));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void sync(List<SyncRequest> group) {
+        // A request is queued only after its record is written, so forcing [min, max] covers the group
+        Map<Segment, int[]> ranges = new IdentityHashMap<>();
+        for (SyncRequest request : group) {
+            ranges.merge(request.segment(), new int[]{request.slot(), request.slot()},
+                    (a, b) -> new int[]{Math.min(a[0], b[0]), Math.max(a[1], b[1])});
+        }
+        ranges.forEach((segment, range) -> segment.buffer.force(
+                offsetOf(range[0]), (range[1] - range[0] + 1) * JournalRecordCodec.RECORD_SIZE));
+
+        for (SyncRequest request : group) {
+            unsynced.remove(request.transactionId(), request.future());
+            request.future().complete(null);
+        }
+    }
+
+    private static int offsetOf(int slot) {
+        return JournalRecordCodec.HEADER_SIZE + slot * JournalRecordCodec.RECORD_SIZE;
+    }
+
+    private static long segmentNumber(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private record SyncRequest(Segment segment, int slot, Long transactionId, CompletableFuture<Void> future) {
+    }
+
+    /**
+     * One mapped segment file. Tracks records not yet committed to the database so the file
+     * can be deleted once it is sealed and fully committed.
+     */
+    private static final class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private final AtomicInteger nextSlot = new AtomicInteger();
+        // Counted before a slot is reserved, so a sealed segment cannot look idle while a write is in progress
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile boolean sealed;
+
+        Segment(Path file, MappedByteBuffer buffer, int capacity) {
+            this.file = file;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        int reserve() {
+            outstanding.incrementAndGet();
+            int slot = nextSlot.getAndIncrement();
+            if (slot >= capacity) {
+                release();
+                return -1;
+            }
+            return slot;
+        }
+
+        void release() {
+            if (outstanding.decrementAndGet() == 0 && sealed) {
+                delete();
+            }
+        }
+
+        void seal() {
+            sealed = true;
+            if (outstanding.get() == 0) {
+                delete();
+            }
+        }
+
+        private void delete() {
+            try {
+                if (Files.deleteIfExists(file)) {
+                    log.debug("Deleted committed journal segment {}", file.getFileName());
+                }
+            } catch (IOException e) {
+                log.error("Error deleting journal segment {}", file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.umesh.atm.journal;
+
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.TxnStatus;
+import com.umesh.atm.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Replays local journal segments left by a previous run against atm_transaction.
+ * Runs before the application accepts traffic: rows missing from the database are inserted and
+ * rows whose status lags the journal are updated. A segment is deleted only after all of its
+ * corrections are committed; a failed segment is kept for the next start.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionJournalReconciler {
+
+    @Value("${atm.journal.local.replay-chunk-size:500}")
+    private int chunkSize;
+
+    private final LocalTransactionJournal localJournal;
+    private final TransactionJournalWriter journalWriter;
+    private final TransactionRepository transactionRepository;
+
+    @PostConstruct
+    public void reconcile() {
+        for (Path segment : localJournal.getRecoveredSegments()) {
+            try {
+                reconcileSegment(segment);
+                localJournal.discardRecovered(segment);
+            } catch (Exception e) {
+                log.error("Error reconciling journal segment {}, keeping it for the next start", segment, e);
+            }
+        }
+    }
+
+    private void reconcileSegment(Path segment) throws Exception {
+        // Records are full snapshots, so the last one per id is the state to converge on
+        Map<Long, Transaction> latest = new LinkedHashMap<>();
+        for (Transaction record : localJournal.readSegment(segment)) {
+            latest.put(record.getId(), record);
+        }
+
+        List<Long> ids = new ArrayList<>(latest.keySet());
+        List<CompletableFuture<Transaction>> writes = new ArrayList<>();
+        int inserted = 0;
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            Map<Long, Transaction> stored = transactionRepository.findAllById(chunk).stream()
+                    .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+
+            for (Long id : chunk) {
+                Transaction journaled = latest.get(id);
+                Transaction current = stored.get(id);
+                if (current == null) {
+                    writes.add(journalWriter.appendInsert(journaled));
+                    inserted++;
+                } else if (isBehind(current, journaled)) {
+                    writes.add(journalWriter.appendStatusChange(journaled));
+                    updated++;
+                }
+            }
+        }
+
+        CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+        log.info("Reconciled journal segment {}: {} records, {} rows inserted, {} statuses updated",
+                segment.getFileName(), latest.size(), inserted, updated);
+    }
+
+    private boolean isBehind(Transaction current, Transaction journaled) {
+        if (current.getStatus() == journaled.getStatus()) {
+            return false;
+        }
+        if (current.getStatus() == TxnStatus.PENDING) {
+            return true;
+        }
+        return journaled.getCompletedAt() != null && current.getCompletedAt() != null
+                && journaled.getCompletedAt().isAfter(current.getCompletedAt());
+    }
+}
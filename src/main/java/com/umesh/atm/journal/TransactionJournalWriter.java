@@ -0,0 +1,333 @@
+package com.umesh.atm.journal;
+
+import com.umesh.atm.entity.Transaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Write-behind journal for transaction lifecycle changes.
+ * Callers append inserts and status changes to an in-memory queue and get a durability future back;
+ * a single writer thread drains the queue and persists each drained batch in one database transaction,
+ * using JDBC batching for both inserts and updates. A status change that reaches the writer together
+ * with its insert is folded into the insert, so a fast PENDING → APPROVED transaction costs one row write.
+ * Until a change is flushed it is served from memory by {@link #findUnflushed(Long)}.
+ * A failed batch is retried, then written entry by entry so one bad row only fails its own future.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionJournalWriter {
+
+    @Value("${atm.journal.batch-size:500}")
+    private int batchSize;
+
+    @Value("${atm.journal.max-delay-ms:5}")
+    private long maxDelayMs;
+
+    @Value("${atm.journal.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${atm.journal.shutdown-timeout-seconds:30}")
+    private long shutdownTimeoutSeconds;
+
+    @Value("${atm.journal.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${atm.journal.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    // REVERSED is final: a stale change flushed after a reversal (e.g. by BulkReversalJob) must not undo it
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE atm_transaction SET status = ?, response_code = ?, completed_at = ? WHERE id = ? AND status <> 'REVERSED'";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM atm_transaction WHERE id = ?";
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Latest state of every transaction with changes still in the queue
+    private final Map<Long, Transaction> unflushed = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<Transaction>> pendingFutures = new ConcurrentHashMap<>();
+
+    private BlockingQueue<JournalEntry> queue;
+    private ExecutorService writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "txn-journal-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        writer.execute(this::writeLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // The writer drains whatever is queued before exiting
+        running = false;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                log.error("Transaction journal did not drain within {}s, {} entries not persisted",
+                        shutdownTimeoutSeconds, queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a new transaction for insertion. The id must already be assigned.
+     *
+     * @param transaction the new transaction
+     * @return future completed with the transaction once it is committed
+     */
+    public CompletableFuture<Transaction> appendInsert(Transaction transaction) {
+        Transaction snapshot = copyOf(transaction);
+        return append(new JournalEntry(snapshot, true, new CompletableFuture<>()));
+    }
+
+    /**
+     * Queues a status change for an existing (possibly still unflushed) transaction.
+     *
+     * @param transaction the transaction with its new status, response code and completion time
+     * @return future completed with the transaction once the change is committed
+     */
+    public CompletableFuture<Transaction> appendStatusChange(Transaction transaction) {
+        Transaction snapshot = copyOf(transaction);
+        return append(new JournalEntry(snapshot, false, new CompletableFuture<>()));
+    }
+
+    /**
+     * Returns the latest queued state of a transaction that is not yet in the database.
+     *
+     * @param transactionId the transaction ID
+     * @return a copy of the unflushed state, or null if nothing is pending for the id
+     */
+    public Transaction findUnflushed(Long transactionId) {
+        Transaction pending = unflushed.get(transactionId);
+        return pending == null ? null : copyOf(pending);
+    }
+
+    /**
+     * Returns a future for the latest queued change of a transaction.
+     *
+     * @param transactionId the transaction ID
+     * @return future of the last pending write, or null if nothing is pending
+     */
+    public CompletableFuture<Transaction> whenPersisted(Long transactionId) {
+        return pendingFutures.get(transactionId);
+    }
+
+    private CompletableFuture<Transaction> append(JournalEntry entry) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Transaction journal is shut down"));
+        }
+
+        Long id = entry.transaction().getId();
+        unflushed.put(id, entry.transaction());
+        pendingFutures.put(id, entry.future());
+        try {
+            // Brief backpressure instead of failing the customer's transaction outright
+            if (!queue.offer(entry, maxDelayMs * 10, TimeUnit.MILLISECONDS)) {
+                discard(entry, new RejectedExecutionException("Transaction journal queue full"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discard(entry, e);
+        }
+        return entry.future();
+    }
+
+    private void writeLoop() {
+        List<JournalEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                JournalEntry first = queue.poll(maxDelayMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Shutdown is signalled via the running flag; keep draining until the queue is empty
+                log.debug("Transaction journal writer interrupted");
+            } catch (Exception e) {
+                log.error("Unexpected error in transaction journal writer", e);
+            } finally {
+                batch.clear();
+            }
+        }
+        log.info("Transaction journal writer stopped");
+    }
+
+    private void flush(List<JournalEntry> batch) {
+        long started = System.nanoTime();
+        Exception failure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                complete(batch, write(batch));
+                log.debug("Persisted {} journal entries in {} µs (attempt {})",
+                        batch.size(), TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started), attempt);
+                return;
+            } catch (Exception e) {
+                failure = e;
+                log.warn("Failed to persist transaction journal batch of {} entries (attempt {}/{})",
+                        batch.size(), attempt, maxAttempts, e);
+            }
+            if (attempt < maxAttempts && !backOff(attempt)) {
+                break;
+            }
+        }
+
+        if (batch.size() == 1) {
+            log.error("Giving up on transaction journal entry for {}", batch.get(0).transaction().getId(), failure);
+            discard(batch.get(0), failure);
+            return;
+        }
+        // Most likely one bad row; write the entries one by one so only the failing ones are dropped.
+        // Dropped changes stay in the local journal and are replayed on the next start.
+        log.error("Failed to persist transaction journal batch of {} entries, writing them one by one", batch.size(), failure);
+        for (JournalEntry entry : batch) {
+            List<JournalEntry> single = List.of(entry);
+            try {
+                complete(single, write(single));
+            } catch (Exception e) {
+                log.error("Giving up on transaction journal entry for {}", entry.transaction().getId(), e);
+                discard(entry, e);
+            }
+        }
+    }
+
+    /**
+     * Writes a batch in one database transaction.
+     *
+     * @return ids whose status update matched no row
+     */
+    private Set<Long> write(List<JournalEntry> batch) {
+        // Coalesce per id: status changes ride along with a pending insert, repeated updates keep the last one
+        Map<Long, Transaction> inserts = new LinkedHashMap<>();
+        Map<Long, Transaction> updates = new LinkedHashMap<>();
+        for (JournalEntry entry : batch) {
+            Transaction txn = entry.transaction();
+            if (entry.insert()) {
+                inserts.put(txn.getId(), txn);
+            } else if (inserts.containsKey(txn.getId())) {
+                inserts.put(txn.getId(), txn);
+            } else {
+                updates.put(txn.getId(), txn);
+            }
+        }
+
+        return transactionTemplate.execute(status -> {
+            for (Transaction txn : inserts.values()) {
+                entityManager.persist(txn);
+            }
+            entityManager.flush();
+            entityManager.clear();
+
+            if (updates.isEmpty()) {
+                return Set.<Long>of();
+            }
+            int[][] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, updates.values(), batchSize, (ps, txn) -> {
+                ps.setString(1, txn.getStatus().name());
+                ps.setString(2, txn.getResponseCode());
+                ps.setTimestamp(3, txn.getCompletedAt() == null ? null : Timestamp.from(txn.getCompletedAt()));
+                ps.setLong(4, txn.getId());
+            });
+
+            Set<Long> missing = new HashSet<>();
+            Iterator<Long> ids = updates.keySet().iterator();
+            for (int[] chunk : counts) {
+                for (int count : chunk) {
+                    Long id = ids.next();
+                    // No row updated: either already REVERSED (the change is stale, nothing to do) or not there at all
+                    if (count == 0 && jdbcTemplate.queryForObject(COUNT_SQL, Integer.class, id) == 0) {
+                        missing.add(id);
+                    }
+                }
+            }
+            return missing;
+        });
+    }
+
+    private void complete(List<JournalEntry> batch, Set<Long> missing) {
+        for (JournalEntry entry : batch) {
+            Long id = entry.transaction().getId();
+            if (!entry.insert() && missing.contains(id)) {
+                log.error("Transaction journal status change for {} found no transaction row", id);
+                discard(entry, new IllegalStateException("Transaction " + id + " not found for status update"));
+                continue;
+            }
+            // Only drop the in-memory state if no newer change was queued meanwhile
+            unflushed.remove(id, entry.transaction());
+            pendingFutures.remove(id, entry.future());
+            entry.future().complete(entry.transaction());
+        }
+    }
+
+    /**
+     * Waits before the next attempt.
+     *
+     * @return false if interrupted
+     */
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs * attempt);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void discard(JournalEntry entry, Throwable cause) {
+        Long id = entry.transaction().getId();
+        unflushed.remove(id, entry.transaction());
+        pendingFutures.remove(id, entry.future());
+        entry.future().completeExceptionally(cause);
+    }
+
+    /**
+     * Detached copy, so callers and the writer never share a mutable entity.
+     */
+    static Transaction copyOf(Transaction source) {
+        return Transaction.builder()
+                .id(source.getId())
+                .mti(source.getMti())
+                .processingCode(source.getProcessingCode())
+                .stan(source.getStan())
+                .rrn(source.getRrn())
+                .responseCode(source.getResponseCode())
+                .terminalId(source.getTerminalId())
+                .networkId(source.getNetworkId())
+                .cardToken(source.getCardToken())
+                .amountMinor(source.getAmountMinor())
+                .currency(source.getCurrency())
+                .localTxnDateTime(source.getLocalTxnDateTime())
+                .status(source.getStatus())
+                .completedAt(source.getCompletedAt())
+                .originalTransactionId(source.getOriginalTransactionId())
+                .build();
+    }
+
+    private record JournalEntry(Transaction transaction, boolean insert, CompletableFuture<Transaction> future) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.umesh.atm.limits;
+
+/**
+ * A card's approved transactions for one business day.
+ *
+ * @param transactionCount number of approved transactions
+ * @param withdrawnMinor total cash withdrawn, in currency minor units
+ */
+public record DailyCardUsage(int transactionCount, long withdrawnMinor) {
+
+    public static final DailyCardUsage NONE = new DailyCardUsage(0, 0);
+
+    DailyCardUsage plus(DailyCardUsage other) {
+        return new DailyCardUsage(Math.max(0, transactionCount + other.transactionCount),
+                Math.max(0, withdrawnMinor + other.withdrawnMinor));
+    }
+}
@@ -0,0 +1,199 @@
+package com.umesh.atm.limits;
+
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.TransactionOperation;
+import com.umesh.atm.enums.TxnStatus;
+import com.umesh.atm.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * In-memory per-card aggregates of approved transactions for the current business day.
+ * Updated incrementally on approval and reversal, so daily limit checks are map lookups instead of
+ * aggregate queries on atm_transaction. The day rolls over at the business-day boundary; at startup
+ * the current day is rebuilt with one streaming scan (after the local journal has been reconciled).
+ * Until that rebuild has succeeded usage is unknown, so {@link #getUsage(String)} throws and limit checks
+ * refuse; a failed rebuild is retried every {@code rebuild-retry-seconds}.
+ */
+@Component
+@DependsOn("transactionJournalReconciler")
+@RequiredArgsConstructor
+@Slf4j
+public class DailyCardUsageStore {
+
+    @Value("${atm.business-day.zone:UTC}")
+    private String businessDayZone;
+
+    @Value("${atm.limits.usage.rebuild-retry-seconds:30}")
+    private long rebuildRetrySeconds;
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ScheduledExecutorService retryExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    private ZoneId zone;
+    private volatile Day current;
+    private volatile boolean rebuilt;
+
+    @PostConstruct
+    public void start() {
+        zone = ZoneId.of(businessDayZone);
+        rebuild();
+    }
+
+    @PreDestroy
+    public void stop() {
+        retryExecutor.shutdownNow();
+    }
+
+    private void rebuild() {
+        Day day = dayOf(LocalDate.now(zone));
+        current = day;
+
+        long started = System.nanoTime();
+        try {
+            Long rows = transactionTemplate.execute(status -> {
+                long scanned = 0;
+                try (Stream<Object[]> usage = transactionRepository.streamUsageBetween(
+                        TxnStatus.APPROVED, Instant.ofEpochMilli(day.startMillis()), Instant.ofEpochMilli(day.endMillis()))) {
+                    for (Object[] row : (Iterable<Object[]>) usage::iterator) {
+                        day.add((String) row[0], 1, withdrawnMinor((String) row[1], (Long) row[2]));
+                        scanned++;
+                    }
+                }
+                return scanned;
+            });
+            rebuilt = true;
+            log.info("Daily card usage for {} rebuilt from {} transactions ({} cards) in {} ms",
+                    day.date(), rows, day.usage().size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        } catch (Exception e) {
+            log.error("Error rebuilding daily card usage for {}, limit checks refuse until it succeeds; retrying in {}s",
+                    day.date(), rebuildRetrySeconds, e);
+            retryExecutor.schedule(this::rebuild, rebuildRetrySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Returns today's usage for a card.
+     *
+     * @param cardToken the tokenized card identifier
+     * @return approved count and withdrawn amount, zero if the card has no transactions today
+     * @throws IllegalStateException if today's usage has not been rebuilt yet
+     */
+    public DailyCardUsage getUsage(String cardToken) {
+        if (!rebuilt) {
+            throw new IllegalStateException("Daily card usage not rebuilt yet");
+        }
+        DailyCardUsage usage = today().usage().get(cardToken);
+        return usage == null ? DailyCardUsage.NONE : usage;
+    }
+
+    /**
+     * Checks if an instant falls into the business day held in memory.
+     */
+    public boolean isToday(Instant instant) {
+        Day day = today();
+        long millis = instant.toEpochMilli();
+        return millis >= day.startMillis() && millis < day.endMillis();
+    }
+
+    /**
+     * Counts a card's approved transactions on the business day containing {@code instant}.
+     * Today is answered from memory; earlier days fall back to a database count.
+     *
+     * @param cardToken the tokenized card identifier
+     * @param instant any instant of the day to count
+     * @return number of approved transactions
+     */
+    public int getTransactionCount(String cardToken, Instant instant) {
+        if (isToday(instant)) {
+            return getUsage(cardToken).transactionCount();
+        }
+        LocalDate date = LocalDate.ofInstant(instant, zone);
+        return (int) transactionRepository.countByCardTokenAndStatusAndLocalTxnDateTimeGreaterThanEqualAndLocalTxnDateTimeLessThan(
+                cardToken, TxnStatus.APPROVED, date.atStartOfDay(zone).toInstant(), date.plusDays(1).atStartOfDay(zone).toInstant());
+    }
+
+    /**
+     * Counts a transaction that has just been approved.
+     */
+    public void recordApproved(Transaction transaction) {
+        apply(transaction, 1);
+    }
+
+    /**
+     * Takes back a previously approved transaction that has been reversed.
+     */
+    public void recordReversed(Transaction transaction) {
+        apply(transaction, -1);
+    }
+
+    private void apply(Transaction transaction, int sign) {
+        if (transaction.getCardToken() == null || !isToday(transaction.getLocalTxnDateTime())) {
+            // Yesterday's transactions do not count against today's limits
+            return;
+        }
+        today().add(transaction.getCardToken(), sign,
+                sign * withdrawnMinor(transaction.getProcessingCode(), transaction.getAmountMinor()));
+    }
+
+    private Day today() {
+        Day day = current;
+        if (System.currentTimeMillis() >= day.endMillis()) {
+            day = rollOver(day);
+        }
+        return day;
+    }
+
+    /**
+     * Starts an empty day. Only the first caller after the boundary builds it.
+     */
+    private synchronized Day rollOver(Day expired) {
+        if (current != expired) {
+            return current;
+        }
+        Day next = dayOf(LocalDate.now(zone));
+        current = next;
+        log.info("Daily card usage rolled over to business day {} ({} cards on {})",
+                next.date(), expired.usage().size(), expired.date());
+        return next;
+    }
+
+    private Day dayOf(LocalDate date) {
+        return new Day(date,
+                date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli(),
+                new ConcurrentHashMap<>());
+    }
+
+    private static long withdrawnMinor(String processingCode, Long amountMinor) {
+        // Only cash withdrawals count against the withdrawal limit
+        return TransactionOperation.fromProcessingCode(processingCode) == TransactionOperation.WITHDRAWAL
+                && amountMinor != null ? amountMinor : 0;
+    }
+
+    private record Day(LocalDate date, long startMillis, long endMillis, Map<String, DailyCardUsage> usage) {
+
+        void add(String cardToken, int count, long withdrawnMinor) {
+            usage.merge(cardToken, new DailyCardUsage(count, withdrawnMinor), DailyCardUsage::plus);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.umesh.atm.partition;
+
+import com.umesh.atm.history.TransactionHistoryEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cold storage for old transaction months as compressed columnar files on local disk.
+ * <p>
+ * A file is a sequence of row groups sorted by card token. Each group starts with its row count and
+ * min/max card token, followed by one deflated block per column: numbers as delta varints, strings
+ * dictionary-encoded. A card lookup skips every group whose token range excludes the card and only
+ * inflates the remaining columns of groups that contain it.
+ */
+@Component
+@Slf4j
+public class ColumnarTransactionArchive {
+
+    private static final int MAGIC = 0x41545843; // "ATXC"
+    private static final short VERSION = 1;
+    private static final String SUFFIX = ".atxc";
+
+    // Column order in every row group
+    private static final int ID = 0, TIME = 1, COMPLETED = 2, AMOUNT = 3;
+    private static final int MTI = 4, PROCESSING = 5, STAN = 6, RRN = 7, RESPONSE = 8;
+    private static final int TERMINAL = 9, NETWORK = 10, CARD = 11, CURRENCY = 12, STATUS = 13;
+    private static final int COLUMN_COUNT = 14;
+
+    private static final String EXPORT_SQL =
+            "SELECT id, local_txn_datetime, completed_at, amount_minor, mti, processing_code, stan, rrn, response_code, " +
+            "terminal_id, network_id, card_token, currency, status FROM %s " +
+            "WHERE local_txn_datetime >= ? AND local_txn_datetime < ? ORDER BY card_token, id";
+
+    @Value("${atm.partition.archive-directory:./data/archive}")
+    private String archiveDirectory;
+
+    @Value("${atm.partition.archive-row-group-size:65536}")
+    private int rowGroupSize;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public ColumnarTransactionArchive(DataSource dataSource) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(1000);
+    }
+
+    /**
+     * Checks if a month has been archived.
+     */
+    public boolean isArchived(YearMonth month) {
+        return Files.exists(fileFor(month));
+    }
+
+    /**
+     * Lists archived months, newest first.
+     */
+    public List<YearMonth> archivedMonths() throws IOException {
+        Path directory = Path.of(archiveDirectory);
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (var files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> MonthPartition.parse(name.substring(0, name.length() - SUFFIX.length())))
+                    .filter(Objects::nonNull)
+                    .map(MonthPartition::month)
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }
+    }
+
+    /**
+     * Writes one month from {@code table} into a columnar file. The file appears atomically, so a
+     * month is either fully archived or not at all. Must run inside a transaction for cursor-based
+     * streaming on drivers that need one.
+     *
+     * @param partition the month to archive
+     * @param table table to read from (the month table, or the partitioned parent)
+     * @param start inclusive start of the month
+     * @param end exclusive end of the month
+     * @return number of rows archived
+     */
+    public long archive(MonthPartition partition, String table, Instant start, Instant end) throws IOException {
+        Path target = fileFor(partition.month());
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        long rows;
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+
+            RowGroupWriter group = new RowGroupWriter(rowGroupSize);
+            long[] count = new long[1];
+            streamingJdbcTemplate.query(String.format(EXPORT_SQL, table), rs -> {
+                try {
+                    group.add(rs);
+                    count[0]++;
+                    if (group.size() == rowGroupSize) {
+                        group.writeTo(out);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, Timestamp.from(start), Timestamp.from(end));
+            if (group.size() > 0) {
+                group.writeTo(out);
+            }
+            out.writeInt(0); // end of file
+            out.flush();
+            file.getFD().sync();
+            rows = count[0];
+        }
+
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Archived {} transactions of {} to {} ({} KiB)",
+                rows, partition.month(), target.getFileName(), Files.size(target) / 1024);
+        return rows;
+    }
+
+    /**
+     * Reads a card's archived transactions of one month in a time window, newest first.
+     *
+     * @param month the archived month
+     * @param cardToken the tokenized card identifier
+     * @param from inclusive lower bound
+     * @param to exclusive upper bound
+     * @param sink receives the matching rows
+     */
+    public void scan(YearMonth month, String cardToken, Instant from, Instant to,
+                     Consumer<TransactionHistoryEntry> sink) throws IOException {
+        Path file = fileFor(month);
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        List<TransactionHistoryEntry> matches = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Not a transaction archive: " + file);
+            }
+
+            int rowCount;
+            while ((rowCount = in.readInt()) > 0) {
+                String minCard = in.readUTF();
+                String maxCard = in.readUTF();
+                byte[][] blocks = new byte[COLUMN_COUNT][];
+                boolean candidate = cardToken.compareTo(minCard) >= 0 && cardToken.compareTo(maxCard) <= 0;
+                for (int column = 0; column < COLUMN_COUNT; column++) {
+                    int length = in.readInt();
+                    if (candidate) {
+                        blocks[column] = in.readNBytes(length);
+                    } else {
+                        in.skipNBytes(length);
+                    }
+                }
+                if (candidate) {
+                    readGroup(blocks, rowCount, cardToken, from, to, matches);
+                }
+            }
+        }
+
+        matches.sort(Comparator.comparing(TransactionHistoryEntry::localTxnDateTime)
+                .thenComparingLong(TransactionHistoryEntry::id).reversed());
+        matches.forEach(sink);
+    }
+
+    private void readGroup(byte[][] blocks, int rowCount, String cardToken, Instant from, Instant to,
+                           List<TransactionHistoryEntry> matches) throws IOException {
+        // Decode the card column first; other columns only if the group actually holds the card
+        String[] cards = decodeStrings(blocks[CARD], rowCount);
+        int first = -1;
+        int last = -1;
+        for (int row = 0; row < rowCount; row++) {
+            if (cardToken.equals(cards[row])) {
+                if (first < 0) {
+                    first = row;
+                }
+                last = row;
+            }
+        }
+        if (first < 0) {
+            return;
+        }
+
+        long[] ids = decodeLongs(blocks[ID], rowCount);
+        long[] times = decodeLongs(blocks[TIME], rowCount);
+        long[] amounts = decodeLongs(blocks[AMOUNT], rowCount);
+        String[] processing = decodeStrings(blocks[PROCESSING], rowCount);
+        String[] rrns = decodeStrings(blocks[RRN], rowCount);
+        String[] stans = decodeStrings(blocks[STAN], rowCount);
+        String[] terminals = decodeStrings(blocks[TERMINAL], rowCount);
+        String[] currencies = decodeStrings(blocks[CURRENCY], rowCount);
+        String[] statuses = decodeStrings(blocks[STATUS], rowCount);
+        String[] responses = decodeStrings(blocks[RESPONSE], rowCount);
+
+        // Rows are sorted by card token, so the card's rows are (nearly, depending on collation) contiguous
+        for (int row = first; row <= last; row++) {
+            if (!cardToken.equals(cards[row])) {
+                continue;
+            }
+            Instant time = fromMicros(times[row]);
+            if (time.isBefore(from) || !time.isBefore(to)) {
+                continue;
+            }
+            matches.add(new TransactionHistoryEntry(ids[row], time, processing[row], rrns[row], stans[row],
+                    terminals[row], amounts[row], currencies[row], statuses[row], responses[row]));
+        }
+    }
+
+    private Path fileFor(YearMonth month) {
+        return Path.of(archiveDirectory, MonthPartition.of(month).table() + SUFFIX);
+    }
+
+    private static long toMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+
+    private static Instant fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1_000L);
+    }
+
+    // --- encoding ---
+
+    /**
+     * Buffers one row group column by column.
+     */
+    private static final class RowGroupWriter {
+        private final long[][] longs = new long[COLUMN_COUNT][];
+        private final String[][] strings = new String[COLUMN_COUNT][];
+        private int size;
+
+        RowGroupWriter(int capacity) {
+            for (int column : new int[]{ID, TIME, COMPLETED, AMOUNT}) {
+                longs[column] = new long[capacity];
+            }
+            for (int column = MTI; column < COLUMN_COUNT; column++) {
+                strings[column] = new String[capacity];
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(ResultSet rs) throws SQLException {
+            longs[ID][size] = rs.getLong(1);
+            longs[TIME][size] = toMicros(rs.getTimestamp(2).toInstant());
+            Timestamp completed = rs.getTimestamp(3);
+            longs[COMPLETED][size] = completed == null ? Long.MIN_VALUE : toMicros(completed.toInstant());
+            longs[AMOUNT][size] = rs.getLong(4);
+            for (int column = MTI; column < COLUMN_COUNT; column++) {
+                strings[column][size] = rs.getString(column + 1);
+            }
+            size++;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            // Token range computed here rather than taken from the SQL order, which follows the database collation
+            String minCard = null;
+            String maxCard = null;
+            for (int i = 0; i < size; i++) {
+                String card = Objects.requireNonNullElse(strings[CARD][i], "");
+                minCard = minCard == null || card.compareTo(minCard) < 0 ? card : minCard;
+                maxCard = maxCard == null || card.compareTo(maxCard) > 0 ? card : maxCard;
+            }
+            out.writeInt(size);
+            out.writeUTF(minCard);
+            out.writeUTF(maxCard);
+            for (int column = 0; column < COLUMN_COUNT; column++) {
+                byte[] block = column <= AMOUNT ? encodeLongs(longs[column], size) : encodeStrings(strings[column], size);
+                out.writeInt(block.length);
+                out.write(block);
+            }
+            size = 0;
+        }
+    }
+
+    private static byte[] encodeLongs(long[] values, int size) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                writeVarLong(out, zigZag(values[i] - previous));
+                previous = values[i];
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static long[] decodeLongs(byte[] block, int size) throws IOException {
+        long[] values = new long[size];
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(block)))) {
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                previous += unZigZag(readVarLong(in));
+                values[i] = previous;
+            }
+        }
+        return values;
+    }
+
+    private static byte[] encodeStrings(String[] values, int size) throws IOException {
+        // Dictionary index 0 is reserved for null
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] codes = new int[size];
+        for (int i = 0; i < size; i++) {
+            codes[i] = values[i] == null ? 0 : dictionary.computeIfAbsent(values[i], v -> dictionary.size() + 1);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            writeVarLong(out, dictionary.size());
+            for (String value : dictionary.keySet()) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(out, utf8.length);
+                out.write(utf8);
+            }
+            for (int code : codes) {
+                writeVarLong(out, code);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String[] decodeStrings(byte[] block, int size) throws IOException {
+        String[] values = new String[size];
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(block)))) {
+            int dictionarySize = (int) readVarLong(in);
+            String[] dictionary = new String[dictionarySize + 1];
+            for (int i = 1; i <= dictionarySize; i++) {
+                dictionary[i] = new String(in.readNBytes((int) readVarLong(in)), StandardCharsets.UTF_8);
+            }
+            for (int i = 0; i < size; i++) {
+                values[i] = dictionary[(int) readVarLong(in)];
+            }
+        }
+        return values;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,48 @@
+package com.umesh.atm.partition;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One calendar month of atm_transaction, stored in its own table (atm_transaction_pYYYYMM).
+ *
+ * @param month the month covered
+ * @param table physical table name
+ */
+public record MonthPartition(YearMonth month, String table) {
+
+    static final String TABLE_PREFIX = "atm_transaction_p";
+
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern TABLE_PATTERN = Pattern.compile("atm_transaction_p(\\d{6})");
+
+    static MonthPartition of(YearMonth month) {
+        return new MonthPartition(month, TABLE_PREFIX + month.format(SUFFIX_FORMAT));
+    }
+
+    /**
+     * Parses a physical table name (any case).
+     *
+     * @return the partition, or null if the name is not a month partition
+     */
+    static MonthPartition parse(String tableName) {
+        Matcher matcher = TABLE_PATTERN.matcher(tableName.toLowerCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            return null;
+        }
+        return of(YearMonth.parse(matcher.group(1), SUFFIX_FORMAT));
+    }
+
+    Instant start(ZoneId zone) {
+        return month.atDay(1).atStartOfDay(zone).toInstant();
+    }
+
+    Instant end(ZoneId zone) {
+        return month.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant();
+    }
+}
@@ -0,0 +1,27 @@
+package com.umesh.atm.partition;
+
+import java.time.Instant;
+import java.time.YearMonth;
+
+/**
+ * Where transactions of a time range are read from: a table (hot table or month table) or an archived month.
+ * Sources returned together cover disjoint ranges.
+ *
+ * @param table table to query, or null for an archived month
+ * @param archivedMonth the month to read from the columnar archive, or null for a table
+ * @param start inclusive start of the range held by this source
+ * @param end exclusive end of the range held by this source
+ */
+public record PartitionSource(String table, YearMonth archivedMonth, Instant start, Instant end) {
+
+    public boolean isArchived() {
+        return archivedMonth != null;
+    }
+
+    /**
+     * Clips a requested range to this source.
+     */
+    public boolean overlaps(Instant from, Instant to) {
+        return from.isBefore(end) && to.isAfter(start);
+    }
+}
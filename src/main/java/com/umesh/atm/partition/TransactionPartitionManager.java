@@ -0,0 +1,398 @@
+package com.umesh.atm.partition;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps atm_transaction time-partitioned by month and routes reads to the right storage tier.
+ * <ul>
+ *   <li>PostgreSQL with a partitioned atm_transaction (see db/postgresql/atm_transaction_partitioned.sql):
+ *       monthly partitions are created ahead of time and old ones are archived, detached and dropped.</li>
+ *   <li>Other databases: atm_transaction holds the hot months only; older months are rolled into
+ *       atm_transaction_pYYYYMM tables, which are archived and dropped once they turn cold.</li>
+ * </ul>
+ * Archived months live in {@link ColumnarTransactionArchive}. Index maintenance and scans on the hot
+ * table therefore scale with recent volume instead of total history.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionPartitionManager {
+
+    @Value("${atm.partition.enabled:true}")
+    private boolean enabled;
+
+    @Value("${atm.partition.hot-months:3}")
+    private int hotMonths;
+
+    @Value("${atm.partition.archive-after-months:12}")
+    private int archiveAfterMonths;
+
+    @Value("${atm.partition.premake-months:2}")
+    private int premakeMonths;
+
+    @Value("${atm.partition.move-chunk-size:1000}")
+    private int moveChunkSize;
+
+    @Value("${atm.partition.maintenance-interval-hours:6}")
+    private long maintenanceIntervalHours;
+
+    @Value("${atm.business-day.zone:UTC}")
+    private String businessDayZone;
+
+    private static final String HOT_TABLE = "atm_transaction";
+    // Held for the whole maintenance pass, so only one node moves or archives months at a time
+    private static final long MAINTENANCE_LOCK_KEY = 0x41544D5F50415254L;
+    private static final String MAINTENANCE_LOCK_NAME = "atm_transaction_partition_maintenance";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ColumnarTransactionArchive archive;
+
+    private final ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    private ZoneId zone;
+    private volatile boolean nativePartitioning;
+    // Routing state, replaced atomically as months move between tiers
+    private volatile Catalog catalog = new Catalog(Instant.EPOCH, List.of(), List.of());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        zone = ZoneId.of(businessDayZone);
+        if (!enabled) {
+            log.info("Transaction partitioning disabled");
+            return;
+        }
+        try {
+            nativePartitioning = detectNativePartitioning();
+            refreshCatalog();
+            log.info("Transaction partitioning started in {} mode ({} month tables, {} archived months)",
+                    nativePartitioning ? "native" : "emulated", catalog.monthTables().size(), catalog.archived().size());
+        } catch (Exception e) {
+            log.error("Error initializing transaction partitioning", e);
+        }
+        maintenanceExecutor.scheduleWithFixedDelay(this::maintain, 1, maintenanceIntervalHours * 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        maintenanceExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the sources holding transactions in [from, to), newest first.
+     *
+     * @param from inclusive lower bound
+     * @param to exclusive upper bound
+     * @return disjoint sources ordered by descending time range
+     */
+    public List<PartitionSource> sourcesNewestFirst(Instant from, Instant to) {
+        Catalog current = catalog;
+        List<PartitionSource> sources = new ArrayList<>();
+        sources.add(new PartitionSource(HOT_TABLE, null, current.hotStart(), Instant.MAX));
+        for (MonthPartition partition : current.monthTables()) {
+            sources.add(new PartitionSource(partition.table(), null, partition.start(zone), partition.end(zone)));
+        }
+        for (YearMonth month : current.archived()) {
+            MonthPartition partition = MonthPartition.of(month);
+            sources.add(new PartitionSource(null, month, partition.start(zone), partition.end(zone)));
+        }
+        return sources.stream()
+                .filter(source -> source.overlaps(from, to))
+                .sorted(Comparator.comparing(PartitionSource::start).reversed())
+                .toList();
+    }
+
+    /**
+     * Runs one maintenance pass: create upcoming partitions, roll months out of the hot table and
+     * archive cold months.
+     */
+    public void maintain() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                String database = connection.getMetaData().getDatabaseProductName();
+                if (!tryLock(connection, database)) {
+                    log.info("Transaction partition maintenance is running on another node, skipping this pass");
+                    return null;
+                }
+                try {
+                    YearMonth current = YearMonth.now(zone);
+                    if (nativePartitioning) {
+                        createUpcomingPartitions(current);
+                    } else {
+                        rollColdMonths(current.minusMonths(hotMonths - 1L));
+                    }
+                    archiveMonths(current.minusMonths(archiveAfterMonths - 1L));
+                } finally {
+                    unlock(connection, database);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Error during transaction partition maintenance", e);
+        }
+    }
+
+    /**
+     * Takes the session-level advisory lock on the given connection, without waiting.
+     * Databases without advisory locks (e.g. H2 in development) are assumed to serve a single node.
+     */
+    private static boolean tryLock(Connection connection, String database) throws SQLException {
+        if ("PostgreSQL".equalsIgnoreCase(database)) {
+            return queryBoolean(connection, "SELECT pg_try_advisory_lock(?)", MAINTENANCE_LOCK_KEY);
+        }
+        if ("MySQL".equalsIgnoreCase(database) || "MariaDB".equalsIgnoreCase(database)) {
+            return queryBoolean(connection, "SELECT GET_LOCK(?, 0) = 1", MAINTENANCE_LOCK_NAME);
+        }
+        return true;
+    }
+
+    private static void unlock(Connection connection, String database) throws SQLException {
+        if ("PostgreSQL".equalsIgnoreCase(database)) {
+            queryBoolean(connection, "SELECT pg_advisory_unlock(?)", MAINTENANCE_LOCK_KEY);
+        } else if ("MySQL".equalsIgnoreCase(database) || "MariaDB".equalsIgnoreCase(database)) {
+            queryBoolean(connection, "SELECT RELEASE_LOCK(?) = 1", MAINTENANCE_LOCK_NAME);
+        }
+    }
+
+    private static boolean queryBoolean(Connection connection, String sql, Object parameter) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setObject(1, parameter);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void createUpcomingPartitions(YearMonth current) {
+        for (int i = 0; i <= premakeMonths; i++) {
+            MonthPartition partition = MonthPartition.of(current.plusMonths(i));
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                    partition.table(), HOT_TABLE, partition.start(zone), partition.end(zone)));
+        }
+        refreshCatalog();
+    }
+
+    /**
+     * Moves every month before {@code hotFrom} out of the hot table (emulated mode).
+     */
+    private void rollColdMonths(YearMonth hotFrom) {
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(local_txn_datetime) FROM " + HOT_TABLE, Timestamp.class);
+        if (oldest == null) {
+            return;
+        }
+        // Read from the live table every pass, so columns added to the entity (or BaseEntity) are moved too
+        String columns = hotTableColumns();
+
+        for (YearMonth month = YearMonth.from(oldest.toInstant().atZone(zone)); month.isBefore(hotFrom); month = month.plusMonths(1)) {
+            if (archive.isArchived(month)) {
+                log.warn("Transactions of archived month {} found in the hot table, leaving them in place", month);
+                continue;
+            }
+            rollMonth(MonthPartition.of(month), columns);
+        }
+    }
+
+    private void rollMonth(MonthPartition partition, String columns) {
+        Timestamp start = Timestamp.from(partition.start(zone));
+        Timestamp end = Timestamp.from(partition.end(zone));
+
+        if (!listMonthTables().contains(partition)) {
+            jdbcTemplate.execute(String.format("CREATE TABLE %s AS SELECT %s FROM %s WHERE 1 = 0",
+                    partition.table(), columns, HOT_TABLE));
+            jdbcTemplate.execute(String.format("ALTER TABLE %s ADD PRIMARY KEY (id)", partition.table()));
+            jdbcTemplate.execute(String.format("CREATE INDEX idx_%s_card_time ON %s (card_token, local_txn_datetime, id)",
+                    partition.table(), partition.table()));
+        }
+
+        // Copy is idempotent, so a pass interrupted before the moves finished can simply be repeated
+        Integer copied = transactionTemplate.execute(status -> jdbcTemplate.update(String.format(
+                "INSERT INTO %1$s (%3$s) SELECT %3$s FROM %2$s t WHERE t.local_txn_datetime >= ? AND t.local_txn_datetime < ? " +
+                "AND NOT EXISTS (SELECT 1 FROM %1$s p WHERE p.id = t.id)", partition.table(), HOT_TABLE, columns), start, end));
+
+        // Route the month to its own table before deleting from the hot table, so reads never see a partial month
+        refreshCatalog();
+
+        // Rows inserted or updated in the hot table since the copy must not be lost: each chunk is locked, its
+        // current version copied over the earlier one and only then deleted, all in one transaction
+        int moved = 0;
+        long lastId = Long.MIN_VALUE;
+        List<Long> ids;
+        do {
+            ids = jdbcTemplate.queryForList(String.format(
+                    "SELECT id FROM %s WHERE local_txn_datetime >= ? AND local_txn_datetime < ? AND id > ? ORDER BY id LIMIT ?",
+                    HOT_TABLE), Long.class, start, end, lastId, moveChunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Long> chunk = ids;
+            String in = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            Object[] args = chunk.toArray();
+            moved += transactionTemplate.execute(status -> {
+                List<Long> locked = jdbcTemplate.queryForList(
+                        "SELECT id FROM " + HOT_TABLE + " WHERE id IN (" + in + ") FOR UPDATE", Long.class, args);
+                if (locked.isEmpty()) {
+                    return 0;
+                }
+                jdbcTemplate.update("DELETE FROM " + partition.table() + " WHERE id IN (" + in + ")", args);
+                jdbcTemplate.update(String.format("INSERT INTO %s (%s) SELECT %s FROM %s WHERE id IN (%s)",
+                        partition.table(), columns, columns, HOT_TABLE, in), args);
+                return jdbcTemplate.update("DELETE FROM " + HOT_TABLE + " WHERE id IN (" + in + ")", args);
+            });
+            lastId = chunk.get(chunk.size() - 1);
+        } while (ids.size() == moveChunkSize);
+
+        log.info("Rolled {} transactions of {} into {} ({} moved out of the hot table)",
+                copied, partition.month(), partition.table(), moved);
+    }
+
+    /**
+     * Archives and drops month tables/partitions before {@code archiveBefore}.
+     */
+    private void archiveMonths(YearMonth archiveBefore) {
+        for (MonthPartition partition : listMonthTables()) {
+            if (!partition.month().isBefore(archiveBefore)) {
+                continue;
+            }
+
+            if (!archive.isArchived(partition.month())) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try {
+                        archive.archive(partition, partition.table(), partition.start(zone), partition.end(zone));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            // Reads switch to the archive file before the table goes away
+            refreshCatalog();
+
+            if (nativePartitioning) {
+                jdbcTemplate.execute(String.format("ALTER TABLE %s DETACH PARTITION %s", HOT_TABLE, partition.table()));
+            }
+            jdbcTemplate.execute("DROP TABLE " + partition.table());
+            refreshCatalog();
+            log.info("Dropped archived transaction table {}", partition.table());
+        }
+    }
+
+    private synchronized void refreshCatalog() {
+        List<YearMonth> archived;
+        try {
+            archived = archive.archivedMonths();
+        } catch (Exception e) {
+            log.error("Error listing archived transaction months", e);
+            archived = catalog.archived();
+        }
+        Set<YearMonth> archivedSet = new HashSet<>(archived);
+
+        List<MonthPartition> monthTables = listMonthTables().stream()
+                .filter(partition -> !archivedSet.contains(partition.month()))
+                .toList();
+
+        Instant hotStart;
+        if (nativePartitioning) {
+            // The partitioned parent serves every month that has not been archived; partition pruning does the routing
+            hotStart = archived.isEmpty() ? Instant.EPOCH : MonthPartition.of(archived.get(0)).end(zone);
+            monthTables = List.of();
+        } else {
+            // Everything up to the newest rolled or archived month has left the hot table
+            hotStart = Stream.concat(monthTables.stream().map(MonthPartition::month), archived.stream())
+                    .max(Comparator.naturalOrder())
+                    .map(month -> MonthPartition.of(month).end(zone))
+                    .orElse(Instant.EPOCH);
+        }
+        catalog = new Catalog(hotStart, monthTables, archived);
+    }
+
+    private List<MonthPartition> listMonthTables() {
+        List<MonthPartition> partitions = new ArrayList<>();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, "%", new String[]{"TABLE", "PARTITIONED TABLE"})) {
+                while (tables.next()) {
+                    MonthPartition partition = MonthPartition.parse(tables.getString("TABLE_NAME"));
+                    if (partition != null) {
+                        partitions.add(partition);
+                    }
+                }
+            }
+            return null;
+        });
+        partitions.sort(Comparator.comparing(MonthPartition::month).reversed());
+        return partitions;
+    }
+
+    /**
+     * Lists every column of the hot table in ordinal order, as a comma-separated select list.
+     *
+     * @throws IllegalStateException if the table is not found
+     */
+    private String hotTableColumns() {
+        List<String> columns = new ArrayList<>();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // Unquoted names are stored upper case by some databases (e.g. H2) and lower case by others
+            String table = metaData.storesUpperCaseIdentifiers() ? HOT_TABLE.toUpperCase(Locale.ROOT) : HOT_TABLE;
+            try (ResultSet rs = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, "%")) {
+                while (rs.next()) {
+                    columns.add(rs.getString("COLUMN_NAME"));
+                }
+            }
+            return null;
+        });
+        if (columns.isEmpty()) {
+            throw new IllegalStateException("No columns found for " + HOT_TABLE);
+        }
+        return String.join(", ", columns);
+    }
+
+    private boolean detectNativePartitioning() {
+        Boolean partitioned = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!"PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                return false;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT 1 FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid WHERE c.relname = ?")) {
+                statement.setString(1, HOT_TABLE);
+                try (ResultSet rs = statement.executeQuery()) {
+                    return rs.next();
+                }
+            }
+        });
+        if (!Boolean.TRUE.equals(partitioned)) {
+            log.info("atm_transaction is not natively partitioned, emulating monthly partitions with rolling tables");
+        }
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    private record Catalog(Instant hotStart, List<MonthPartition> monthTables, List<YearMonth> archived) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.umesh.atm.repository;
+
+import com.umesh.atm.entity.AtmCashInventory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for per-denomination note counts in each ATM.
+ */
+@Repository
+public interface AtmCashInventoryRepository extends JpaRepository<AtmCashInventory, Long> {
+
+    List<AtmCashInventory> findByMachineId(Long machineId);
+
+    /**
+     * Note counts of every enabled cassette in the fleet, in one query.
+     */
+    @Query("SELECT i.machine.atmCode AS atmCode, i.denomination AS denomination, i.noteCount AS noteCount " +
+            "FROM AtmCashInventory i WHERE i.enabled = true")
+    List<CassetteLevel> findEnabledCassetteLevels();
+
+    /**
+     * Total notes currently loaded in an ATM, across all denominations.
+     */
+    @Query("SELECT COALESCE(SUM(i.noteCount), 0) FROM AtmCashInventory i WHERE i.machine.id = :machineId")
+    long countNotes(@Param("machineId") Long machineId);
+
+    /**
+     * Every ATM with its branch, city and enabled cassettes (one row per cassette, or a single row with
+     * null denomination for an ATM without any), ordered by machine.
+     */
+    @Query("SELECT m.id AS machineId, m.atmCode AS atmCode, m.ifscCode AS ifscCode, l.address.city AS city, " +
+            "i.denomination AS denomination, i.noteCount AS noteCount " +
+            "FROM AtmMachine m LEFT JOIN m.location l " +
+            "LEFT JOIN AtmCashInventory i ON i.machine = m AND i.enabled = true " +
+            "ORDER BY m.id")
+    List<FleetCassette> findFleetCassettes();
+
+    /**
+     * Adds (or, with a negative delta, removes) notes of one denomination in a single statement.
+     *
+     * @return 1 if updated, 0 if the denomination is not loaded or would go negative
+     */
+    @Modifying
+    @Query("UPDATE AtmCashInventory i SET i.noteCount = i.noteCount + :delta " +
+            "WHERE i.machine.id = :machineId AND i.denomination = :denomination AND i.noteCount + :delta >= 0")
+    int addNotes(@Param("machineId") Long machineId, @Param("denomination") Integer denomination,
+                 @Param("delta") long delta);
+
+    interface CassetteLevel {
+        String getAtmCode();
+
+        Integer getDenomination();
+
+        Long getNoteCount();
+    }
+
+    interface FleetCassette {
+        Long getMachineId();
+
+        String getAtmCode();
+
+        String getIfscCode();
+
+        String getCity();
+
+        Integer getDenomination();
+
+        Long getNoteCount();
+    }
+}
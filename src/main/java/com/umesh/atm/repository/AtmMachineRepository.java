@@ -0,0 +1,65 @@
+package com.umesh.atm.repository;
+
+import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.enums.AtmStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for ATM machines.
+ */
+@Repository
+public interface AtmMachineRepository extends JpaRepository<AtmMachine, Long> {
+
+    /**
+     * Finds an ATM by its code, which terminals send as the card acceptor terminal id (DE 41).
+     */
+    Optional<AtmMachine> findByAtmCode(String atmCode);
+
+    /**
+     * Every ATM whose location has coordinates, with the machine's and the location's status and capabilities.
+     */
+    @Query("SELECT m.id AS machineId, m.atmCode AS atmCode, l.address.city AS city, l.address.pinCode AS pinCode, " +
+            "l.latitude AS latitude, l.longitude AS longitude, m.status AS machineStatus, l.status AS locationStatus, " +
+            "m.supportsWithdrawal AS machineWithdrawal, l.supportsWithdrawal AS locationWithdrawal, " +
+            "m.supportsDeposit AS machineDeposit, l.supportsDeposit AS locationDeposit, " +
+            "m.supportsCardless AS machineCardless, l.supportsCardless AS locationCardless " +
+            "FROM AtmMachine m JOIN m.location l " +
+            "WHERE l.latitude IS NOT NULL AND l.longitude IS NOT NULL")
+    List<GeoPoint> findGeoPoints();
+
+    interface GeoPoint {
+        Long getMachineId();
+
+        String getAtmCode();
+
+        String getCity();
+
+        String getPinCode();
+
+        BigDecimal getLatitude();
+
+        BigDecimal getLongitude();
+
+        AtmStatus getMachineStatus();
+
+        AtmStatus getLocationStatus();
+
+        boolean isMachineWithdrawal();
+
+        boolean isLocationWithdrawal();
+
+        boolean isMachineDeposit();
+
+        boolean isLocationDeposit();
+
+        boolean isMachineCardless();
+
+        boolean isLocationCardless();
+    }
+}
@@ -0,0 +1,64 @@
+package com.umesh.atm.repository;
+
+import com.umesh.atm.entity.Card;
+import com.umesh.atm.enums.CardStatus;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+/**
+ * Repository for card lookups.
+ * Cards are always addressed by their vault token, never by PAN.
+ */
+@Repository
+public interface CardRepository extends JpaRepository<Card, Long> {
+
+    /**
+     * Finds a card by its token (backed by the uk_token unique index).
+     */
+    Optional<Card> findByToken(String token);
+
+    /**
+     * Streams all card tokens (used to build the known-token filter at startup).
+     * Must be consumed inside a read-only transaction and closed by the caller.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT c.token FROM Card c")
+    Stream<String> streamAllTokens();
+
+    /**
+     * Highest card id issued so far, or null for an empty table.
+     */
+    @Query("SELECT MAX(c.id) FROM Card c")
+    Long findMaxId();
+
+    /**
+     * Cards issued after the given id, in id order (used to keep the known-token filter current).
+     */
+    @Query("SELECT c.id AS id, c.token AS token FROM Card c WHERE c.id > :afterId ORDER BY c.id")
+    List<IssuedToken> findTokensIssuedAfter(@Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Updates card status without loading the entity.
+     */
+    @Modifying
+    @Query("UPDATE Card c SET c.status = :status WHERE c.token = :token")
+    int updateStatusByToken(@Param("token") String token, @Param("status") CardStatus status);
+
+    interface IssuedToken {
+        Long getId();
+
+        String getToken();
+    }
+}
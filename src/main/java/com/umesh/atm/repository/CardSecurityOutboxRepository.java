@@ -0,0 +1,55 @@
+package com.umesh.atm.repository;
+
+import com.umesh.atm.entity.CardSecurityOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository for the card security outbox.
+ * Provides polling and delivery-state updates for the event dispatcher.
+ */
+@Repository
+public interface CardSecurityOutboxRepository extends JpaRepository<CardSecurityOutboxEvent, Long> {
+
+    /**
+     * Finds pending events in commit order, including ones still in retry backoff
+     * (the dispatcher needs those to hold back later events for the same card).
+     */
+    @Query("SELECT e FROM CardSecurityOutboxEvent e WHERE e.status = 'PENDING' ORDER BY e.id ASC")
+    List<CardSecurityOutboxEvent> findPendingEvents(Pageable pageable);
+
+    /**
+     * Marks an event as delivered.
+     */
+    @Modifying
+    @Query("UPDATE CardSecurityOutboxEvent e SET e.status = 'PROCESSED', e.processedAt = :processedAt, e.attempts = e.attempts + 1 WHERE e.id = :id")
+    int markProcessed(@Param("id") Long id, @Param("processedAt") Instant processedAt);
+
+    /**
+     * Records a failed delivery attempt and schedules the next one.
+     */
+    @Modifying
+    @Query("UPDATE CardSecurityOutboxEvent e SET e.attempts = e.attempts + 1, e.nextAttemptAt = :nextAttemptAt, e.lastError = :error WHERE e.id = :id")
+    int markRetry(@Param("id") Long id, @Param("nextAttemptAt") Instant nextAttemptAt, @Param("error") String error);
+
+    /**
+     * Gives up on an event after retries are exhausted.
+     */
+    @Modifying
+    @Query("UPDATE CardSecurityOutboxEvent e SET e.status = 'FAILED', e.attempts = e.attempts + 1, e.lastError = :error WHERE e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("error") String error);
+
+    /**
+     * Purges delivered events older than the retention cutoff.
+     */
+    @Modifying
+    @Query("DELETE FROM CardSecurityOutboxEvent e WHERE e.status = 'PROCESSED' AND e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,34 @@
+package com.umesh.atm.repository;
+
+import com.umesh.atm.entity.ReversalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for per-terminal progress of bulk reversal jobs.
+ */
+@Repository
+public interface ReversalCheckpointRepository extends JpaRepository<ReversalCheckpoint, Long> {
+
+    List<ReversalCheckpoint> findByJobId(String jobId);
+
+    /**
+     * Advances a terminal's checkpoint after a chunk has been reversed.
+     */
+    @Modifying
+    @Query("UPDATE ReversalCheckpoint c SET c.lastTransactionId = :lastId, c.reversedCount = c.reversedCount + :reversed " +
+            "WHERE c.id = :id")
+    int advance(@Param("id") Long id, @Param("lastId") Long lastTransactionId, @Param("reversed") int reversed);
+
+    /**
+     * Marks a terminal as fully processed.
+     */
+    @Modifying
+    @Query("UPDATE ReversalCheckpoint c SET c.completed = true WHERE c.id = :id")
+    int markCompleted(@Param("id") Long id);
+}
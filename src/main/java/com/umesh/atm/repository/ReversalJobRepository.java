@@ -0,0 +1,21 @@
+package com.umesh.atm.repository;
+
+import com.umesh.atm.entity.ReversalJob;
+import com.umesh.atm.enums.ReversalJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for bulk reversal jobs.
+ */
+@Repository
+public interface ReversalJobRepository extends JpaRepository<ReversalJob, String> {
+
+    /**
+     * Finds jobs in any of the given states (used to resume running and failed jobs at startup).
+     */
+    List<ReversalJob> findByStatusIn(Collection<ReversalJobStatus> statuses);
+}
@@ -0,0 +1,33 @@
+package com.umesh.atm.repository;
+
+import com.umesh.atm.entity.SequenceBlock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository for identifier block reservation.
+ */
+@Repository
+public interface SequenceBlockRepository extends JpaRepository<SequenceBlock, String> {
+
+    /**
+     * Loads a sequence row with a pessimistic write lock, serializing block reservations across nodes.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SequenceBlock s WHERE s.name = :name")
+    Optional<SequenceBlock> findForUpdate(@Param("name") String name);
+
+    /**
+     * Removes sequences whose names sort before the cutoff (used to drop past days' STAN rows).
+     */
+    @Modifying
+    @Query("DELETE FROM SequenceBlock s WHERE s.name LIKE CONCAT(:prefix, '%') AND s.name < :cutoff")
+    int deleteByPrefixBefore(@Param("prefix") String prefix, @Param("cutoff") String cutoff);
+}
@@ -0,0 +1,53 @@
+package com.umesh.atm.repository;
+
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.TxnStatus;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+/**
+ * Repository for ATM transactions.
+ * Writes go through TransactionJournalWriter in batches; this is used for reads.
+ */
+@Repository
+public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+
+    /**
+     * Streams card token, processing code and amount of transactions in a time window
+     * (used to rebuild the daily usage aggregates at startup, backed by idx_txn_time).
+     * Must be consumed inside a read-only transaction and closed by the caller.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT t.cardToken, t.processingCode, t.amountMinor FROM Transaction t " +
+            "WHERE t.status = :status AND t.localTxnDateTime >= :from AND t.localTxnDateTime < :to")
+    Stream<Object[]> streamUsageBetween(@Param("status") TxnStatus status,
+                                        @Param("from") Instant from, @Param("to") Instant to);
+
+    /**
+     * Finds the latest transaction with an RRN (backed by idx_txn_rrn).
+     */
+    Optional<Transaction> findFirstByRrnOrderByIdDesc(String rrn);
+
+    /**
+     * Finds a card's most recent transactions (backed by idx_txn_card_time).
+     */
+    List<Transaction> findByCardTokenOrderByLocalTxnDateTimeDescIdDesc(String cardToken, Limit limit);
+
+    /**
+     * Counts a card's transactions with the given status in a time window.
+     */
+    long countByCardTokenAndStatusAndLocalTxnDateTimeGreaterThanEqualAndLocalTxnDateTimeLessThan(
+            String cardToken, TxnStatus status, Instant from, Instant to);
+}
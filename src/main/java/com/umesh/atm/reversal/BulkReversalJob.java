@@ -0,0 +1,369 @@
+package com.umesh.atm.reversal;
+
+import com.umesh.atm.corebanking.AccountSnapshotCache;
+import com.umesh.atm.entity.ReversalCheckpoint;
+import com.umesh.atm.entity.ReversalJob;
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.ReversalJobStatus;
+import com.umesh.atm.enums.TxnStatus;
+import com.umesh.atm.idgen.TransactionIdentifierGenerator;
+import com.umesh.atm.index.RecentRrnIndex;
+import com.umesh.atm.journal.TransactionJournalWriter;
+import com.umesh.atm.limits.DailyCardUsageStore;
+import com.umesh.atm.partition.PartitionSource;
+import com.umesh.atm.partition.TransactionPartitionManager;
+import com.umesh.atm.repository.ReversalCheckpointRepository;
+import com.umesh.atm.repository.ReversalJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Reverses every transaction in a status set and time window, e.g. all PENDING/TIMEOUT transactions
+ * left behind by a switch or dispenser outage.
+ * <p>
+ * Terminals are processed concurrently (atm.reversal.parallelism) and each terminal serially in id order.
+ * A chunk is locked, its originals are moved to REVERSED, their reversal records are inserted and the
+ * terminal's {@link ReversalCheckpoint} is advanced, all in one database transaction, so a job interrupted
+ * by a crash resumes where it stopped without reversing anything twice.
+ * <p>
+ * Writes go straight to the database rather than through the transaction journal. A chunk stops at the
+ * first transaction with changes still queued in the journal, and the terminal waits for that change to
+ * be flushed before continuing, so the checkpoint never moves past a transaction that was not reversed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BulkReversalJob {
+
+    @Value("${atm.reversal.parallelism:8}")
+    private int parallelism;
+
+    @Value("${atm.reversal.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${atm.reversal.unflushed-wait-seconds:30}")
+    private long unflushedWaitSeconds;
+
+    private static final String HOT_TABLE = "atm_transaction";
+
+    private static final String TERMINALS_SQL =
+            "SELECT DISTINCT terminal_id FROM atm_transaction " +
+            "WHERE status IN (%s) AND local_txn_datetime >= ? AND local_txn_datetime < ?";
+
+    private static final String CHUNK_SQL =
+            "SELECT id, mti, processing_code, stan, rrn, terminal_id, network_id, card_token, amount_minor, " +
+            "currency, local_txn_datetime, status, response_code FROM atm_transaction " +
+            "WHERE terminal_id = ? AND id > ? AND status IN (%s) AND local_txn_datetime >= ? AND local_txn_datetime < ? " +
+            "ORDER BY id LIMIT ? FOR UPDATE";
+
+    private static final String REVERSE_SQL =
+            "UPDATE atm_transaction SET status = ?, completed_at = ? WHERE id = ?";
+
+    private static final RowMapper<Transaction> ROW_MAPPER = (rs, rowNum) -> Transaction.builder()
+            .id(rs.getLong(1))
+            .mti(rs.getString(2))
+            .processingCode(rs.getString(3))
+            .stan(rs.getString(4))
+            .rrn(rs.getString(5))
+            .terminalId(rs.getString(6))
+            .networkId(rs.getString(7))
+            .cardToken(rs.getString(8))
+            .amountMinor(rs.getLong(9))
+            .currency(rs.getString(10))
+            .localTxnDateTime(rs.getTimestamp(11).toInstant())
+            .status(TxnStatus.valueOf(rs.getString(12)))
+            .responseCode(rs.getString(13))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ReversalJobRepository jobRepository;
+    private final ReversalCheckpointRepository checkpointRepository;
+    private final TransactionIdentifierGenerator identifierGenerator;
+    private final TransactionJournalWriter journalWriter;
+    private final DailyCardUsageStore dailyUsageStore;
+    private final AccountSnapshotCache accountCache;
+    private final RecentRrnIndex rrnIndex;
+    private final TransactionPartitionManager partitionManager;
+
+    private ExecutorService workers;
+
+    @PostConstruct
+    public void init() {
+        workers = Executors.newFixedThreadPool(Math.max(1, parallelism));
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Interrupted chunks roll back; their checkpoints are picked up on the next start
+        workers.shutdownNow();
+    }
+
+    /**
+     * Resumes jobs that were running when the application stopped or that failed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        try {
+            for (ReversalJob job : jobRepository.findByStatusIn(List.of(ReversalJobStatus.RUNNING, ReversalJobStatus.FAILED))) {
+                log.info("Resuming {} bulk reversal job {}", job.getStatus(), job.getId());
+                if (job.getStatus() == ReversalJobStatus.FAILED) {
+                    job.setStatus(ReversalJobStatus.RUNNING);
+                    job.setFinishedAt(null);
+                    job.setLastError(null);
+                    jobRepository.save(job);
+                }
+                run(job);
+            }
+        } catch (Exception e) {
+            log.error("Error resuming bulk reversal jobs", e);
+        }
+    }
+
+    /**
+     * Starts a bulk reversal in the background.
+     *
+     * @param statuses statuses to reverse, e.g. PENDING and TIMEOUT
+     * @param from inclusive start of the transaction time window
+     * @param to exclusive end of the transaction time window
+     * @param reason the reason for reversal
+     * @return the job id
+     * @throws IllegalArgumentException if the statuses or window are invalid
+     */
+    public String start(Set<TxnStatus> statuses, Instant from, Instant to, String reason) {
+        if (statuses == null || statuses.isEmpty() || statuses.contains(TxnStatus.REVERSED)) {
+            throw new IllegalArgumentException("Statuses must be non-empty and must not include REVERSED");
+        }
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Invalid time window");
+        }
+        // Only the hot table is reversed; older months have been rolled out or archived
+        for (PartitionSource source : partitionManager.sourcesNewestFirst(from, to)) {
+            if (!HOT_TABLE.equals(source.table())) {
+                throw new IllegalArgumentException("Time window reaches beyond the hot transaction table");
+            }
+        }
+
+        ReversalJob job = ReversalJob.builder()
+                .id(UUID.randomUUID().toString())
+                .statuses(statuses.stream().map(Enum::name).sorted().collect(Collectors.joining(",")))
+                .windowFrom(from)
+                .windowTo(to)
+                .reason(reason)
+                .startedAt(Instant.now())
+                .build();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jobRepository.save(job);
+            List<String> terminals = jdbcTemplate.queryForList(
+                    String.format(TERMINALS_SQL, placeholders(statuses.size())), String.class,
+                    queryArgs(job, Timestamp.from(from), Timestamp.from(to)));
+            checkpointRepository.saveAll(terminals.stream()
+                    .map(terminalId -> ReversalCheckpoint.builder().jobId(job.getId()).terminalId(terminalId).build())
+                    .toList());
+            log.info("Bulk reversal job {} started for {} terminals: statuses={}, window=[{}, {}), reason={}",
+                    job.getId(), terminals.size(), job.getStatuses(), from, to, reason);
+        });
+
+        run(job);
+        return job.getId();
+    }
+
+    /**
+     * Returns a job's progress.
+     *
+     * @param jobId the job id
+     * @return the job, or null if not found
+     */
+    public ReversalJob getJob(String jobId) {
+        return jobRepository.findById(jobId).orElse(null);
+    }
+
+    /**
+     * Returns the number of transactions a job has reversed so far.
+     */
+    public long getReversedCount(String jobId) {
+        return checkpointRepository.findByJobId(jobId).stream()
+                .mapToLong(ReversalCheckpoint::getReversedCount)
+                .sum();
+    }
+
+    private void run(ReversalJob job) {
+        List<CompletableFuture<Void>> terminals = checkpointRepository.findByJobId(job.getId()).stream()
+                .filter(checkpoint -> !checkpoint.getCompleted())
+                .map(checkpoint -> CompletableFuture.runAsync(() -> reverseTerminal(job, checkpoint), workers))
+                .toList();
+
+        CompletableFuture.allOf(terminals.toArray(CompletableFuture[]::new)).whenComplete((ignored, error) -> {
+            try {
+                job.setStatus(error == null ? ReversalJobStatus.COMPLETED : ReversalJobStatus.FAILED);
+                job.setFinishedAt(Instant.now());
+                if (error != null) {
+                    String message = String.valueOf(error.getCause() != null ? error.getCause() : error);
+                    job.setLastError(message.length() > 255 ? message.substring(0, 255) : message);
+                }
+                jobRepository.save(job);
+                log.info("Bulk reversal job {} {}: {} transactions reversed",
+                        job.getId(), job.getStatus(), getReversedCount(job.getId()));
+            } catch (Exception e) {
+                log.error("Error recording the outcome of bulk reversal job {}", job.getId(), e);
+            }
+        });
+    }
+
+    private void reverseTerminal(ReversalJob job, ReversalCheckpoint checkpoint) {
+        long lastId = checkpoint.getLastTransactionId();
+        while (true) {
+            // An interrupted terminal fails the job, which is resumed from its checkpoint on the next start
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Bulk reversal of terminal " + checkpoint.getTerminalId() + " interrupted");
+            }
+            Chunk chunk = reverseChunk(job, checkpoint, lastId);
+            if (chunk == null) {
+                break;
+            }
+            lastId = chunk.lastId();
+            afterCommit(chunk);
+            if (chunk.blockedOn() != null) {
+                awaitFlush(job, chunk.blockedOn());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> checkpointRepository.markCompleted(checkpoint.getId()));
+        log.debug("Bulk reversal job {} finished terminal {}", job.getId(), checkpoint.getTerminalId());
+    }
+
+    /**
+     * Reverses the next chunk of a terminal after {@code lastId}.
+     *
+     * @return the chunk, or null when the terminal has nothing left
+     */
+    private Chunk reverseChunk(ReversalJob job, ReversalCheckpoint checkpoint, long lastId) {
+        return transactionTemplate.execute(status -> {
+            Object[] args = chunkArgs(job, checkpoint.getTerminalId(), lastId);
+            String sql = String.format(CHUNK_SQL, placeholders(job.getStatuses().split(",").length));
+            List<Transaction> candidates = jdbcTemplate.query(sql, ROW_MAPPER, args);
+            if (candidates.isEmpty()) {
+                return null;
+            }
+
+            Instant now = Instant.now();
+            List<Transaction> originals = new ArrayList<>(candidates.size());
+            Long blockedOn = null;
+            for (Transaction candidate : candidates) {
+                if (journalWriter.findUnflushed(candidate.getId()) != null) {
+                    // Its queued change would race the reversal; stop here and retry once it is flushed
+                    blockedOn = candidate.getId();
+                    break;
+                }
+                originals.add(candidate);
+            }
+
+            if (!originals.isEmpty()) {
+                jdbcTemplate.batchUpdate(REVERSE_SQL, originals, originals.size(), (ps, original) -> {
+                    ps.setString(1, TxnStatus.REVERSED.name());
+                    ps.setTimestamp(2, Timestamp.from(now));
+                    ps.setLong(3, original.getId());
+                });
+            }
+            List<Transaction> reversals = new ArrayList<>(originals.size());
+            for (Transaction original : originals) {
+                Transaction reversal = ReversalRecords.reversalOf(original, identifierGenerator, now);
+                entityManager.persist(reversal);
+                reversals.add(reversal);
+            }
+            entityManager.flush();
+            entityManager.clear();
+
+            long chunkLastId = originals.isEmpty() ? lastId : originals.get(originals.size() - 1).getId();
+            checkpointRepository.advance(checkpoint.getId(), chunkLastId, originals.size());
+            return new Chunk(chunkLastId, originals, reversals, blockedOn);
+        });
+    }
+
+    /**
+     * Waits for a transaction's queued journal change to reach the database.
+     *
+     * @throws IllegalStateException if it is still queued after {@code unflushed-wait-seconds}
+     */
+    private void awaitFlush(ReversalJob job, Long transactionId) {
+        CompletableFuture<Transaction> pending = journalWriter.whenPersisted(transactionId);
+        if (pending == null) {
+            return;
+        }
+        log.debug("Bulk reversal job {} waiting for transaction {} to be flushed", job.getId(), transactionId);
+        try {
+            pending.get(unflushedWaitSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // The write failed and will be retried; the next chunk checks again
+            log.debug("Journal write of transaction {} failed: {}", transactionId, e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Transaction " + transactionId + " still has unflushed journal changes", e);
+        }
+    }
+
+    private void afterCommit(Chunk chunk) {
+        for (Transaction original : chunk.originals()) {
+            if (original.getStatus() == TxnStatus.APPROVED) {
+                dailyUsageStore.recordReversed(original);
+                accountCache.recordReversed(original);
+            }
+        }
+        for (Transaction reversal : chunk.reversals()) {
+            rrnIndex.put(reversal.getRrn(), reversal.getId());
+        }
+    }
+
+    private Object[] chunkArgs(ReversalJob job, String terminalId, long lastId) {
+        List<Object> args = new ArrayList<>();
+        args.add(terminalId);
+        args.add(lastId);
+        args.addAll(Arrays.asList(job.getStatuses().split(",")));
+        args.add(Timestamp.from(job.getWindowFrom()));
+        args.add(Timestamp.from(job.getWindowTo()));
+        args.add(chunkSize);
+        return args.toArray();
+    }
+
+    private static Object[] queryArgs(ReversalJob job, Timestamp from, Timestamp to) {
+        List<Object> args = new ArrayList<>(Arrays.asList(job.getStatuses().split(",")));
+        args.add(from);
+        args.add(to);
+        return args.toArray();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * @param blockedOn the transaction the chunk stopped at because of unflushed changes, or null
+     */
+    private record Chunk(long lastId, List<Transaction> originals, List<Transaction> reversals, Long blockedOn) {
+    }
+}
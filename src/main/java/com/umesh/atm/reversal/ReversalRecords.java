@@ -0,0 +1,43 @@
+package com.umesh.atm.reversal;
+
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.TxnStatus;
+import com.umesh.atm.idgen.TransactionIdentifierGenerator;
+
+import java.time.Instant;
+
+/**
+ * Builds the reversal record (MTI 0420) written for a reversed transaction.
+ */
+public final class ReversalRecords {
+
+    public static final String REVERSAL_ADVICE_MTI = "0420";
+
+    private ReversalRecords() {
+    }
+
+    /**
+     * Creates the reversal of {@code original} with its own id, STAN and RRN.
+     * The record is stored as REVERSED so it never counts towards limits or as an approval.
+     */
+    public static Transaction reversalOf(Transaction original, TransactionIdentifierGenerator identifierGenerator,
+                                         Instant now) {
+        return Transaction.builder()
+                .id(identifierGenerator.nextTransactionId())
+                .mti(REVERSAL_ADVICE_MTI)
+                .processingCode(original.getProcessingCode())
+                .stan(identifierGenerator.nextStan())
+                .rrn(identifierGenerator.nextRrn())
+                .terminalId(original.getTerminalId())
+                .networkId(original.getNetworkId())
+                .cardToken(original.getCardToken())
+                .amountMinor(original.getAmountMinor())
+                .currency(original.getCurrency())
+                .localTxnDateTime(now)
+                .completedAt(now)
+                .responseCode(original.getResponseCode())
+                .status(TxnStatus.REVERSED)
+                .originalTransactionId(original.getId())
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.umesh.atm.security;
+
+import com.umesh.atm.entity.Card;
+import com.umesh.atm.enums.CardStatus;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/**
+ * Point-in-time security view of a card, loaded once per authentication.
+ * Combines card status and expiry with the failed-attempt counter so the
+ * authentication handlers can share a single lookup.
+ */
+@Getter
+@Builder
+public class CardSecurityState {
+
+    private final String cardToken;
+    private final Card card;
+    private final CardStatus cardStatus;
+    private final YearMonth expiry;
+    private final int failedAttempts;
+    private final int maxFailedAttempts;
+    private final Instant lockoutUntil;
+    private final Instant loadedAt;
+
+    /**
+     * Checks if a card exists for the token.
+     */
+    public boolean isCardFound() {
+        return card != null;
+    }
+
+    /**
+     * Checks if the card status allows transactions.
+     */
+    public boolean isActive() {
+        return cardStatus == CardStatus.ACTIVE;
+    }
+
+    /**
+     * Checks if the card is past the last day of its expiry month.
+     */
+    public boolean isExpired() {
+        return expiry != null && YearMonth.from(loadedAt.atZone(ZoneOffset.UTC)).isAfter(expiry);
+    }
+
+    /**
+     * Checks if a time-based lockout was still running when the state was loaded.
+     */
+    public boolean isLockedOut() {
+        return lockoutUntil != null && loadedAt.isBefore(lockoutUntil);
+    }
+
+    /**
+     * Gets attempts left before the card is blocked.
+     */
+    public int getRemainingAttempts() {
+        return Math.max(0, maxFailedAttempts - failedAttempts);
+    }
+}
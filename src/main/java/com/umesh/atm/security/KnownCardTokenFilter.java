@@ -0,0 +1,232 @@
+package com.umesh.atm.security;
+
+import com.umesh.atm.repository.CardRepository;
+import com.umesh.atm.repository.CardRepository.IssuedToken;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of every card token known to the system.
+ * Built from the card table at startup and rebuilt every {@code rebuild-minutes}. Cards are issued outside
+ * this service, so the card table is tailed every {@code refresh-seconds} and new tokens are added
+ * incrementally. A negative answer is definitive, so unknown tokens can be rejected without a database
+ * round trip. Until the first build completes every token is reported as possibly known.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KnownCardTokenFilter {
+
+    @Value("${atm.security.card-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${atm.security.card-filter.expected-cards:10000000}")
+    private long expectedCards;
+
+    @Value("${atm.security.card-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${atm.security.card-filter.rebuild-minutes:60}")
+    private long rebuildMinutes;
+
+    @Value("${atm.security.card-filter.refresh-seconds:5}")
+    private long refreshSeconds;
+
+    @Value("${atm.security.card-filter.refresh-batch:1000}")
+    private int refreshBatch;
+
+    private final CardRepository cardRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    private volatile Bits current;
+    private volatile Bits building;
+
+    // Tail position in the card table, touched only on the rebuild thread. Each refresh rescans from the
+    // previous refresh's high-water mark, so ids that commit out of order within one interval are not lost.
+    private long trailingId;
+    private long leadingId;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Known card token filter disabled");
+            return;
+        }
+        rebuildExecutor.scheduleWithFixedDelay(this::rebuild, 0, rebuildMinutes, TimeUnit.MINUTES);
+        rebuildExecutor.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Checks if a token may exist. False means the card is definitely unknown.
+     *
+     * @param cardToken the tokenized card identifier
+     * @return false only if the token is certainly not a known card
+     */
+    public boolean mightContain(String cardToken) {
+        Bits bits = current;
+        return bits == null || bits.mightContain(cardToken);
+    }
+
+    /**
+     * Registers a newly issued card token.
+     *
+     * @param cardToken the tokenized card identifier
+     */
+    public void add(String cardToken) {
+        // Write to the filter being built as well, so a concurrent rebuild cannot lose the token
+        Bits next = building;
+        if (next != null) {
+            next.put(cardToken);
+        }
+        Bits bits = current;
+        if (bits != null) {
+            bits.put(cardToken);
+        }
+    }
+
+    /**
+     * Checks if the filter has been built and is answering lookups.
+     */
+    public boolean isReady() {
+        return current != null;
+    }
+
+    private void rebuild() {
+        long started = System.nanoTime();
+        try {
+            Bits next = new Bits(expectedCards, falsePositiveRate);
+            building = next;
+
+            // Read before streaming: anything issued during the scan is picked up by the next refresh
+            Long maxId = cardRepository.findMaxId();
+            Long count = transactionTemplate.execute(status -> {
+                long loaded = 0;
+                try (Stream<String> tokens = cardRepository.streamAllTokens()) {
+                    for (String token : (Iterable<String>) tokens::iterator) {
+                        next.put(token);
+                        loaded++;
+                    }
+                }
+                return loaded;
+            });
+
+            current = next;
+            trailingId = leadingId = maxId != null ? maxId : 0;
+            log.info("Known card token filter built with {} tokens ({} KiB) in {} ms",
+                    count, next.sizeInBytes() / 1024, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        } catch (Exception e) {
+            log.error("Error building known card token filter", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    private void refresh() {
+        if (current == null) {
+            return;
+        }
+        try {
+            long scannedTo = trailingId;
+            List<IssuedToken> issued;
+            do {
+                issued = cardRepository.findTokensIssuedAfter(scannedTo, Limit.of(refreshBatch));
+                for (IssuedToken token : issued) {
+                    add(token.getToken());
+                    scannedTo = token.getId();
+                }
+            } while (issued.size() == refreshBatch);
+
+            trailingId = leadingId;
+            leadingId = Math.max(leadingId, scannedTo);
+
+        } catch (Exception e) {
+            log.error("Error refreshing known card token filter", e);
+        }
+    }
+
+    /**
+     * Lock-free bit array with double hashing.
+     */
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        Bits(long expectedInsertions, double fpp) {
+            long n = Math.max(1, expectedInsertions);
+            long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6);
+            this.words = new AtomicLongArray(words);
+            this.bitCount = (long) words << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        }
+
+        void put(String token) {
+            long h1 = hash(token, 0x9E3779B97F4A7C15L);
+            long h2 = hash(token, 0xC2B2AE3D27D4EB4FL) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word = words.get(index);
+                while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                    word = words.get(index);
+                }
+            }
+        }
+
+        boolean mightContain(String token) {
+            long h1 = hash(token, 0x9E3779B97F4A7C15L);
+            long h2 = hash(token, 0xC2B2AE3D27D4EB4FL) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long sizeInBytes() {
+            return (long) words.length() * Long.BYTES;
+        }
+
+        private static long hash(String token, long seed) {
+            long h = seed;
+            for (byte b : token.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b;
+                h *= 0x100000001B3L;
+            }
+            // Final avalanche (murmur3 fmix64)
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.umesh.atm.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers card lookups that are known to fail without touching the database.
+ * Unknown tokens are rejected by the known-token Bloom filter; tokens that were looked up and found
+ * missing or inactive are remembered for a short TTL. Card-testing attacks hit these paths almost exclusively.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NegativeCardCache {
+
+    @Value("${atm.security.negative-cache.not-found-ttl-seconds:300}")
+    private long notFoundTtlSeconds;
+
+    @Value("${atm.security.negative-cache.inactive-ttl-seconds:300}")
+    private long inactiveTtlSeconds;
+
+    @Value("${atm.security.negative-cache.max-entries:100000}")
+    private int maxEntries;
+
+    private static final Rejection NOT_FOUND = new Rejection("Card not found", "CARD_NOT_FOUND");
+    private static final Rejection INACTIVE = new Rejection("Card is blocked or inactive", "CARD_INACTIVE");
+
+    private final KnownCardTokenFilter knownCardTokenFilter;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Looks up a cached negative result for the card.
+     *
+     * @param cardToken the tokenized card identifier
+     * @return the rejection to return, or null if the database must be consulted
+     */
+    public Rejection lookup(String cardToken) {
+        if (cardToken == null) {
+            return null;
+        }
+
+        if (!knownCardTokenFilter.mightContain(cardToken)) {
+            return NOT_FOUND;
+        }
+
+        Entry entry = entries.get(cardToken);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis() < System.currentTimeMillis()) {
+            entries.remove(cardToken, entry);
+            return null;
+        }
+        return entry.rejection();
+    }
+
+    /**
+     * Remembers that no card exists for the token.
+     */
+    public void recordNotFound(String cardToken) {
+        put(cardToken, NOT_FOUND, notFoundTtlSeconds);
+    }
+
+    /**
+     * Remembers that the card is blocked or inactive.
+     */
+    public void recordInactive(String cardToken) {
+        put(cardToken, INACTIVE, inactiveTtlSeconds);
+    }
+
+    /**
+     * Drops any cached negative result, e.g. after the card is reactivated.
+     */
+    public void invalidate(String cardToken) {
+        entries.remove(cardToken);
+    }
+
+    private void put(String cardToken, Rejection rejection, long ttlSeconds) {
+        if (cardToken == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(entry -> entry.expiresAtMillis() < now);
+            if (entries.size() >= maxEntries) {
+                // Stay bounded under attack; uncached tokens simply fall through to the database
+                log.debug("Negative card cache full, not caching card: {}", cardToken);
+                return;
+            }
+        }
+        entries.put(cardToken, new Entry(rejection, now + ttlSeconds * 1000));
+    }
+
+    /**
+     * Failure to answer with, matching the card handlers' error codes.
+     */
+    public record Rejection(String message, String errorCode) {
+    }
+
+    private record Entry(Rejection rejection, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.umesh.atm.security.event;
+
+import com.umesh.atm.entity.CardSecurityOutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes card security events to the audit trail.
+ */
+@Component
+@Slf4j(topic = "AUDIT")
+public class CardSecurityAuditListener implements CardSecurityEventListener {
+
+    @Override
+    public void onCardSecurityEvent(CardSecurityOutboxEvent event) {
+        log.info("CARD_SECURITY_EVENT id={} type={} card={} status={} reason={} occurredAt={}",
+                event.getId(), event.getEventType(), event.getCardToken(),
+                event.getCardStatus(), event.getReason(), event.getOccurredAt());
+    }
+}
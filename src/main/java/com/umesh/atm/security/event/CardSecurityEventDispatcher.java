@@ -0,0 +1,188 @@
+package com.umesh.atm.security.event;
+
+import com.umesh.atm.entity.CardSecurityOutboxEvent;
+import com.umesh.atm.repository.CardSecurityOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Asynchronous consumer of the card security outbox.
+ * Events are partitioned by card token onto single-threaded lanes, so events for one card
+ * are applied in commit order while different cards proceed in parallel. Failed deliveries
+ * are retried with exponential backoff and hold back later events for the same card.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CardSecurityEventDispatcher {
+
+    @Value("${atm.security.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${atm.security.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${atm.security.outbox.lanes:4}")
+    private int laneCount;
+
+    @Value("${atm.security.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${atm.security.outbox.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${atm.security.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    private final CardSecurityOutboxRepository outboxRepository;
+    private final List<CardSecurityEventListener> listeners;
+    private final TransactionTemplate transactionTemplate;
+
+    // Single poller thread; also owns the in-flight bookkeeping
+    private final ScheduledExecutorService pollExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicBoolean pollRequested = new AtomicBoolean();
+    private final Set<String> inFlightCards = new HashSet<>();
+    private final Queue<String> completedCards = new ConcurrentLinkedQueue<>();
+    private ExecutorService[] lanes;
+
+    @PostConstruct
+    public void start() {
+        lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor();
+        }
+        
+        // The first poll also picks up anything left pending by a crash
+        pollExecutor.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        pollExecutor.scheduleWithFixedDelay(this::purgeProcessed, 1, 1, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pollExecutor.shutdownNow();
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * Requests an immediate poll (coalesced if one is already queued).
+     */
+    public void wakeUp() {
+        if (pollRequested.compareAndSet(false, true)) {
+            pollExecutor.execute(this::poll);
+        }
+    }
+
+    private void poll() {
+        pollRequested.set(false);
+        
+        try {
+            // Release cards whose lane work finished before this fetch, so we see their committed state
+            String done;
+            while ((done = completedCards.poll()) != null) {
+                inFlightCards.remove(done);
+            }
+            
+            Instant now = Instant.now();
+            List<CardSecurityOutboxEvent> pending = outboxRepository.findPendingEvents(PageRequest.of(0, batchSize));
+            
+            Map<String, List<CardSecurityOutboxEvent>> eventsByCard = new LinkedHashMap<>();
+            Set<String> heldBack = new HashSet<>();
+            for (CardSecurityOutboxEvent event : pending) {
+                String cardToken = event.getCardToken();
+                if (inFlightCards.contains(cardToken) || heldBack.contains(cardToken)) {
+                    continue;
+                }
+                // An event in backoff blocks everything after it for the same card
+                if (event.getNextAttemptAt().isAfter(now)) {
+                    heldBack.add(cardToken);
+                    continue;
+                }
+                eventsByCard.computeIfAbsent(cardToken, k -> new ArrayList<>()).add(event);
+            }
+            
+            eventsByCard.forEach((cardToken, events) -> {
+                inFlightCards.add(cardToken);
+                laneFor(cardToken).execute(() -> {
+                    try {
+                        deliver(events);
+                    } finally {
+                        completedCards.add(cardToken);
+                    }
+                });
+            });
+            
+        } catch (Exception e) {
+            log.error("Error polling card security outbox", e);
+        }
+    }
+
+    /**
+     * Delivers a card's events in order, stopping at the first one that needs a retry.
+     */
+    private void deliver(List<CardSecurityOutboxEvent> events) {
+        for (CardSecurityOutboxEvent event : events) {
+            try {
+                for (CardSecurityEventListener listener : listeners) {
+                    listener.onCardSecurityEvent(event);
+                }
+                transactionTemplate.executeWithoutResult(status ->
+                        outboxRepository.markProcessed(event.getId(), Instant.now()));
+                
+            } catch (Exception e) {
+                int attempts = event.getAttempts() + 1;
+                String error = abbreviate(e.toString());
+                
+                if (attempts >= maxAttempts) {
+                    log.error("Giving up on card security event {} for card {} after {} attempts",
+                            event.getId(), event.getCardToken(), attempts, e);
+                    transactionTemplate.executeWithoutResult(status ->
+                            outboxRepository.markFailed(event.getId(), error));
+                    continue;
+                }
+                
+                long backoffMs = Math.min(MAX_BACKOFF_MS, retryBackoffMs << Math.min(attempts - 1, 20));
+                log.warn("Card security event {} for card {} failed (attempt {}), retrying in {} ms",
+                        event.getId(), event.getCardToken(), attempts, backoffMs, e);
+                transactionTemplate.executeWithoutResult(status ->
+                        outboxRepository.markRetry(event.getId(), Instant.now().plusMillis(backoffMs), error));
+                return;
+            }
+        }
+    }
+
+    private void purgeProcessed() {
+        try {
+            Instant cutoff = Instant.now().minus(retentionHours, ChronoUnit.HOURS);
+            Integer purged = transactionTemplate.execute(status -> outboxRepository.deleteProcessedBefore(cutoff));
+            if (purged != null && purged > 0) {
+                log.info("Purged {} processed card security events", purged);
+            }
+        } catch (Exception e) {
+            log.error("Error purging card security outbox", e);
+        }
+    }
+
+    private ExecutorService laneFor(String cardToken) {
+        return lanes[Math.floorMod(cardToken.hashCode(), lanes.length)];
+    }
+
+    private static String abbreviate(String message) {
+        return message.length() <= 255 ? message : message.substring(0, 255);
+    }
+}
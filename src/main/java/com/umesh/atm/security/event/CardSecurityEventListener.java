@@ -0,0 +1,19 @@
+package com.umesh.atm.security.event;
+
+import com.umesh.atm.entity.CardSecurityOutboxEvent;
+
+/**
+ * Downstream consumer of card security events.
+ * Called off the request thread by CardSecurityEventDispatcher, in order per card.
+ * Implementations must be idempotent: an event is redelivered if any listener fails.
+ */
+public interface CardSecurityEventListener {
+
+    /**
+     * Applies the effects of a card security event.
+     * 
+     * @param event the committed outbox event
+     * @throws RuntimeException to request a retry
+     */
+    void onCardSecurityEvent(CardSecurityOutboxEvent event);
+}
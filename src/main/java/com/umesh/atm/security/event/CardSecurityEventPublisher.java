@@ -0,0 +1,64 @@
+package com.umesh.atm.security.event;
+
+import com.umesh.atm.entity.CardSecurityOutboxEvent;
+import com.umesh.atm.enums.CardSecurityEventType;
+import com.umesh.atm.enums.CardStatus;
+import com.umesh.atm.repository.CardSecurityOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+
+/**
+ * Records card security events in the outbox as part of the caller's transaction.
+ * The caller is acknowledged as soon as that transaction commits; delivery happens asynchronously.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CardSecurityEventPublisher {
+
+    private final CardSecurityOutboxRepository outboxRepository;
+    private final CardSecurityEventDispatcher dispatcher;
+
+    /**
+     * Appends an event to the outbox. Must run inside the transaction that changes the card status.
+     * 
+     * @param cardToken the tokenized card identifier
+     * @param eventType the kind of security event
+     * @param cardStatus the card status after the change
+     * @param reason short human-readable reason
+     * @return the persisted outbox event
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public CardSecurityOutboxEvent publish(String cardToken, CardSecurityEventType eventType,
+                                           CardStatus cardStatus, String reason) {
+        Instant now = Instant.now();
+        
+        CardSecurityOutboxEvent event = CardSecurityOutboxEvent.builder()
+                .cardToken(cardToken)
+                .eventType(eventType)
+                .cardStatus(cardStatus)
+                .reason(reason)
+                .occurredAt(now)
+                .nextAttemptAt(now)
+                .build();
+        outboxRepository.save(event);
+        
+        // Deliver right after commit instead of waiting for the next poll
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatcher.wakeUp();
+            }
+        });
+        
+        log.debug("Recorded card security event {} for card: {}", eventType, cardToken);
+        return event;
+    }
+}
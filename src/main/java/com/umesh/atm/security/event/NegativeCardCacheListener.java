@@ -0,0 +1,26 @@
+package com.umesh.atm.security.event;
+
+import com.umesh.atm.entity.CardSecurityOutboxEvent;
+import com.umesh.atm.enums.CardStatus;
+import com.umesh.atm.security.NegativeCardCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the negative card cache in line with card status changes.
+ */
+@Component
+@RequiredArgsConstructor
+public class NegativeCardCacheListener implements CardSecurityEventListener {
+
+    private final NegativeCardCache negativeCardCache;
+
+    @Override
+    public void onCardSecurityEvent(CardSecurityOutboxEvent event) {
+        if (event.getCardStatus() == CardStatus.ACTIVE) {
+            negativeCardCache.invalidate(event.getCardToken());
+        } else {
+            negativeCardCache.recordInactive(event.getCardToken());
+        }
+    }
+}
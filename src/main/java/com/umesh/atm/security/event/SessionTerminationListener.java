@@ -0,0 +1,29 @@
+package com.umesh.atm.security.event;
+
+import com.umesh.atm.entity.CardSecurityOutboxEvent;
+import com.umesh.atm.enums.CardStatus;
+import com.umesh.atm.service.AtmSessionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Terminates all open sessions of a card once it is no longer active.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SessionTerminationListener implements CardSecurityEventListener {
+
+    private final AtmSessionService sessionService;
+
+    @Override
+    public void onCardSecurityEvent(CardSecurityOutboxEvent event) {
+        if (event.getCardStatus() == CardStatus.ACTIVE) {
+            return;
+        }
+        
+        int terminated = sessionService.terminateAllSessionsForCard(event.getCardToken());
+        log.debug("Terminated {} sessions for card {} after {}", terminated, event.getCardToken(), event.getEventType());
+    }
+}
@@ -1,5 +1,7 @@
 package com.umesh.atm.service;
 
+import com.umesh.atm.security.CardSecurityState;
+
 /**
  * Service interface for authentication operations in ATM system.
  * Handles PIN verification and authentication security.
@@ -54,6 +56,23 @@ public interface AuthenticationService {
      */
     boolean shouldBlockCard(String cardToken);
     
+    /**
+     * Checks if card should be blocked based on an already loaded security state.
+     * Pure function: performs no lookups of its own.
+     * 
+     * @param state the card security state
+     * @return true if card should be blocked
+     */
+    boolean shouldBlockCard(CardSecurityState state);
+    
+    /**
+     * Loads card status, expiry and failed attempt tracking in a single lookup.
+     * 
+     * @param cardToken the tokenized card identifier
+     * @return card security state (card is null if the token is unknown)
+     */
+    CardSecurityState getCardSecurityState(String cardToken);
+    
     /**
      * Gets maximum allowed failed attempts before blocking card.
      * 
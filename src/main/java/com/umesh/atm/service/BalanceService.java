@@ -1,18 +1,39 @@
 package com.umesh.atm.service;
 
+import com.umesh.atm.corebanking.AccountSnapshot;
+
 import java.math.BigDecimal;
+import java.util.Map;
 
 /**
  * Service interface for balance inquiry operations in ATM system.
  * Handles account balance retrieval and validation.
+ * Methods that need core banking throw {@link com.umesh.atm.corebanking.CoreBankingException} when it fails.
  */
 public interface BalanceService {
     
+    /**
+     * Retrieves balances and account information in a single core banking call.
+     * 
+     * @param cardToken the tokenized card identifier
+     * @return account snapshot
+     */
+    AccountSnapshot getAccountSnapshot(String cardToken);
+    
+    /**
+     * Retrieves all accounts linked to the card, fetched in parallel under one deadline.
+     * 
+     * @param cardToken the tokenized card identifier
+     * @return account id to snapshot, primary account first; an account that could not be fetched
+     *         maps to null. Null if the linked accounts could not be listed
+     */
+    Map<String, AccountSnapshot> getLinkedAccountSnapshots(String cardToken);
+    
     /**
      * Retrieves current account balance for the card.
      * 
      * @param cardToken the tokenized card identifier
-     * @return current account balance, null if unable to retrieve
+     * @return current account balance
      */
     BigDecimal getCurrentBalance(String cardToken);
     
@@ -34,7 +55,7 @@ public interface BalanceService {
     boolean hasSufficientBalance(String cardToken, BigDecimal amount);
     
     /**
-     * Gets daily withdrawal limit for the card.
+     * Gets daily withdrawal limit for the card (atm.limits.default-daily-withdrawal).
      * 
      * @param cardToken the tokenized card identifier
      * @return daily withdrawal limit
@@ -21,7 +21,7 @@ public interface CardService {
      * Retrieves card information by token.
      * 
      * @param cardToken the tokenized card identifier
-     * @return Card entity if found, null otherwise
+     * @return Card entity if found, null if no card has the token; lookup errors are thrown
      */
     Card getCardByToken(String cardToken);
     
@@ -22,12 +22,23 @@ public interface CashService {
     boolean withdrawCash(AtmMachine atmMachine, String cardToken, BigDecimal amount);
     
     /**
-     * Processes cash deposit request.
+     * Processes cash withdrawal request, like {@link #withdrawCash}, and returns the notes dispensed.
+     * 
+     * @param atmMachine the ATM machine processing the request
+     * @param cardToken the tokenized card identifier
+     * @param amount the amount to withdraw
+     * @return map of denomination to count dispensed, null if withdrawal failed
+     */
+    Map<Integer, Integer> dispenseCash(AtmMachine atmMachine, String cardToken, BigDecimal amount);
+    
+    /**
+     * Checks a deposit's confirmed total before it is committed.
+     * The counted notes themselves are validated and committed by DepositPipeline.
      * 
      * @param atmMachine the ATM machine processing the request
      * @param cardToken the tokenized card identifier
      * @param amount the amount to deposit
-     * @return true if deposit was successful
+     * @return true if the ATM can accept the deposit
      */
     boolean depositCash(AtmMachine atmMachine, String cardToken, BigDecimal amount);
     
@@ -7,6 +7,8 @@ import com.umesh.atm.enums.TxnStatus;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
 
 /**
  * Service interface for transaction management in ATM system.
@@ -16,6 +18,7 @@ public interface TransactionService {
     
     /**
      * Creates a new transaction record.
+     * Returns once the PENDING record is durable (see {@link #whenDurable(Long)}).
      * 
      * @param atmMachine the ATM machine processing the transaction
      * @param cardToken the tokenized card identifier
@@ -25,8 +28,24 @@ public interface TransactionService {
      */
     Transaction createTransaction(AtmMachine atmMachine, String cardToken, String processingCode, BigDecimal amount);
     
+    /**
+     * Records an approved transaction together with other database work, in one database transaction.
+     * Bypasses the write-behind journal, so the record and the work commit or roll back together
+     * (e.g. a deposit and its inventory update).
+     * 
+     * @param atmMachine the ATM machine processing the transaction
+     * @param cardToken the tokenized card identifier
+     * @param processingCode the transaction type code
+     * @param amount the transaction amount
+     * @param work runs inside the same database transaction; returning false rolls both back
+     * @return the committed transaction, or null if the work returned false
+     */
+    Transaction createApprovedTransaction(AtmMachine atmMachine, String cardToken, String processingCode,
+                                          BigDecimal amount, BooleanSupplier work);
+    
     /**
      * Updates transaction status and response details.
+     * Returns once the change is durable (see {@link #whenDurable(Long)}).
      * 
      * @param transactionId the transaction ID
      * @param status the new transaction status
@@ -45,6 +64,26 @@ public interface TransactionService {
      */
     boolean logTransactionCompletion(Long transactionId, boolean success, String responseCode);
     
+    /**
+     * Returns a future that completes once all changes made so far to the transaction are durable.
+     * Transaction writes are journaled asynchronously; callers that must not proceed before the
+     * row is committed (e.g. before dispensing cash) wait on this future.
+     * 
+     * @param transactionId the transaction ID
+     * @return future completed with the persisted transaction, or exceptionally if the write failed
+     */
+    CompletableFuture<Transaction> whenPersisted(Long transactionId);
+    
+    /**
+     * Returns a future that completes once the latest change to the transaction is on local disk.
+     * This is the acknowledgment to wait for before dispensing; the database commit follows and is
+     * recovered from the local journal after a crash.
+     * 
+     * @param transactionId the transaction ID
+     * @return future completed when the change is durable locally
+     */
+    CompletableFuture<Void> whenDurable(Long transactionId);
+    
     /**
      * Retrieves transaction history for a card.
      * 
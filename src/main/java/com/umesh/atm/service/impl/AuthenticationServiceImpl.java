@@ -1,19 +1,39 @@
 package com.umesh.atm.service.impl;
 
+import com.umesh.atm.entity.Card;
+import com.umesh.atm.security.CardSecurityState;
 import com.umesh.atm.service.AuthenticationService;
+import com.umesh.atm.service.CardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Implementation of AuthenticationService for PIN authentication and security.
  * Handles PIN verification, failed attempt tracking, and security policies.
  */
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class AuthenticationServiceImpl implements AuthenticationService {
 
     @Value("${atm.security.max-failed-attempts:3}")
     private int maxFailedAttempts;
 
+    @Value("${atm.security.lockout-seconds:1800}")
+    private long lockoutSeconds;
+
+    private final CardService cardService;
+
+    // In-memory failed attempt tracking (in production, use Redis or database)
+    private final Map<String, FailedAttempts> failedAttemptStorage = new ConcurrentHashMap<>();
+
     @Override
     public boolean authenticatePin(String cardToken, String pin) {
         // TODO: Implement PIN authentication
@@ -35,40 +55,84 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
     @Override
     public int getFailedAttempts(String cardToken) {
-        // TODO: Implement failed attempts retrieval
-        // - Query cache or database for current failed attempt count
-        // - Return count for the card token
-        throw new UnsupportedOperationException("Failed attempts retrieval not yet implemented");
+        FailedAttempts attempts = currentAttempts(cardToken, Instant.now());
+        return attempts != null ? attempts.count() : 0;
     }
 
     @Override
     public int incrementFailedAttempts(String cardToken) {
-        // TODO: Implement failed attempts increment
-        // - Increment counter in cache/database
-        // - Set expiry for counter (reset after time period)
-        // - Return updated count
-        throw new UnsupportedOperationException("Failed attempts increment not yet implemented");
+        Instant now = Instant.now();
+        FailedAttempts updated = failedAttemptStorage.compute(cardToken, (token, existing) -> {
+            int count = (existing != null && !existing.isExpired(now, lockoutSeconds)) ? existing.count() + 1 : 1;
+            // Lock the card out once the threshold is reached
+            Instant lockoutUntil = count >= maxFailedAttempts ? now.plusSeconds(lockoutSeconds) : null;
+            return new FailedAttempts(count, now, lockoutUntil);
+        });
+
+        log.debug("Failed attempts for card {}: {} / {}", cardToken, updated.count(), maxFailedAttempts);
+        return updated.count();
     }
 
     @Override
     public void resetFailedAttempts(String cardToken) {
-        // TODO: Implement failed attempts reset
-        // - Clear failed attempt counter for card
-        // - Remove from cache/database
-        throw new UnsupportedOperationException("Failed attempts reset not yet implemented");
+        failedAttemptStorage.remove(cardToken);
     }
 
     @Override
     public boolean shouldBlockCard(String cardToken) {
-        // TODO: Implement card blocking decision logic
-        // - Check if failed attempts exceed maximum threshold
-        // - Consider time-based lockout policies
-        // - Return true if card should be blocked
-        throw new UnsupportedOperationException("Card blocking decision not yet implemented");
+        return shouldBlockCard(getCardSecurityState(cardToken));
+    }
+
+    @Override
+    public boolean shouldBlockCard(CardSecurityState state) {
+        return state.getFailedAttempts() >= state.getMaxFailedAttempts() || state.isLockedOut();
+    }
+
+    @Override
+    public CardSecurityState getCardSecurityState(String cardToken) {
+        Instant now = Instant.now();
+        Card card = cardService.getCardByToken(cardToken);
+        FailedAttempts attempts = currentAttempts(cardToken, now);
+
+        return CardSecurityState.builder()
+                .cardToken(cardToken)
+                .card(card)
+                .cardStatus(card != null ? card.getStatus() : null)
+                .expiry(card != null && card.getExpiryYear() != null && card.getExpiryMonth() != null
+                        ? YearMonth.of(card.getExpiryYear(), card.getExpiryMonth()) : null)
+                .failedAttempts(attempts != null ? attempts.count() : 0)
+                .maxFailedAttempts(maxFailedAttempts)
+                .lockoutUntil(attempts != null ? attempts.lockoutUntil() : null)
+                .loadedAt(now)
+                .build();
     }
 
     @Override
     public int getMaxFailedAttempts() {
         return maxFailedAttempts;
     }
+
+    /**
+     * Gets the live attempt record for a card, dropping it once the lockout window has passed.
+     */
+    private FailedAttempts currentAttempts(String cardToken, Instant now) {
+        FailedAttempts attempts = failedAttemptStorage.get(cardToken);
+        if (attempts != null && attempts.isExpired(now, lockoutSeconds)) {
+            failedAttemptStorage.remove(cardToken, attempts);
+            return null;
+        }
+        return attempts;
+    }
+
+    /**
+     * Failed attempt counter with the lockout it triggered, if any.
+     */
+    private record FailedAttempts(int count, Instant lastAttemptAt, Instant lockoutUntil) {
+
+        boolean isExpired(Instant now, long windowSeconds) {
+            // Counters reset once the lockout has elapsed, or after a quiet window without lockout
+            Instant resetAt = lockoutUntil != null ? lockoutUntil : lastAttemptAt.plusSeconds(windowSeconds);
+            return now.isAfter(resetAt);
+        }
+    }
 }
@@ -1,90 +1,152 @@
 package com.umesh.atm.service.impl;
 
+import com.umesh.atm.corebanking.AccountSnapshot;
+import com.umesh.atm.corebanking.AccountSnapshotCache;
+import com.umesh.atm.corebanking.CoreBankingClient;
+import com.umesh.atm.corebanking.CoreBankingException;
+import com.umesh.atm.limits.DailyCardUsageStore;
 import com.umesh.atm.service.BalanceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Implementation of BalanceService for account balance operations.
  * Handles balance inquiry, limits validation, and account information.
  */
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class BalanceServiceImpl implements BalanceService {
 
     @Value("${atm.limits.default-daily-withdrawal:50000}")
     private BigDecimal defaultDailyWithdrawalLimit;
 
+    @Value("${atm.core-banking.deadline-ms:800}")
+    private long coreBankingDeadlineMs;
+
+    private static final long DEADLINE_GRACE_MS = 100;
+
+    private final CoreBankingClient coreBankingClient;
+    private final AccountSnapshotCache accountCache;
+    private final DailyCardUsageStore dailyUsageStore;
+
+    @Override
+    public AccountSnapshot getAccountSnapshot(String cardToken) {
+        // Balance inquiry and the withdrawal checks after it share one core banking call
+        return accountCache.get(cardToken, this::fetchAccount);
+    }
+
+    private AccountSnapshot fetchAccount(String cardToken) {
+        Duration deadline = Duration.ofMillis(coreBankingDeadlineMs);
+        try {
+            // The client fails the future once the deadline passes; the extra wait only guards a misbehaving client
+            return coreBankingClient.fetchAccount(cardToken, deadline)
+                    .get(coreBankingDeadlineMs + DEADLINE_GRACE_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CoreBankingException("Interrupted waiting for core banking", e);
+        } catch (ExecutionException | TimeoutException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("Error fetching account from core banking for card: {}", cardToken, cause);
+            throw cause instanceof CoreBankingException coreBankingException
+                    ? coreBankingException
+                    : new CoreBankingException("Core banking call failed", cause);
+        }
+    }
+
+    @Override
+    public Map<String, AccountSnapshot> getLinkedAccountSnapshots(String cardToken) {
+        long deadlineAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(coreBankingDeadlineMs);
+        try {
+            List<String> accountIds = coreBankingClient.listAccounts(cardToken, remaining(deadlineAt))
+                    .get(coreBankingDeadlineMs + DEADLINE_GRACE_MS, TimeUnit.MILLISECONDS);
+
+            // All accounts in flight at once, sharing what is left of the deadline
+            Map<String, CompletableFuture<AccountSnapshot>> pending = new LinkedHashMap<>();
+            for (String accountId : accountIds) {
+                if (deadlineAt - System.nanoTime() <= 0) {
+                    log.warn("Core banking deadline passed before fetching account {}", accountId);
+                    pending.put(accountId, CompletableFuture.completedFuture(null));
+                    continue;
+                }
+                pending.put(accountId, coreBankingClient.fetchAccount(cardToken, accountId, remaining(deadlineAt))
+                        .exceptionally(e -> {
+                            log.warn("Error fetching account {} from core banking: {}", accountId, e.getMessage());
+                            return null;
+                        }));
+            }
+            CompletableFuture.allOf(pending.values().toArray(CompletableFuture[]::new))
+                    .get(Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineAt - System.nanoTime())) + DEADLINE_GRACE_MS,
+                            TimeUnit.MILLISECONDS);
+
+            Map<String, AccountSnapshot> accounts = new LinkedHashMap<>();
+            pending.forEach((accountId, snapshot) -> accounts.put(accountId, snapshot.join()));
+            return accounts;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Error listing accounts from core banking for card: {}", cardToken, e.getCause() != null ? e.getCause() : e);
+            return null;
+        }
+    }
+
     @Override
     public BigDecimal getCurrentBalance(String cardToken) {
-        // TODO: Implement current balance retrieval
-        // - Query core banking system for account balance
-        // - Handle network timeouts and errors
-        // - Return current ledger balance
-        throw new UnsupportedOperationException("Current balance retrieval not yet implemented");
+        return getAccountSnapshot(cardToken).ledgerBalance();
     }
 
     @Override
     public BigDecimal getAvailableBalance(String cardToken) {
-        // TODO: Implement available balance calculation
-        // - Get current balance from core banking
-        // - Subtract pending transactions and holds
-        // - Consider overdraft limits if applicable
-        // - Return spendable balance
-        throw new UnsupportedOperationException("Available balance calculation not yet implemented");
+        return getAccountSnapshot(cardToken).availableBalance();
     }
 
     @Override
     public boolean hasSufficientBalance(String cardToken, BigDecimal amount) {
-        // TODO: Implement sufficient balance check
-        // - Get available balance for account
-        // - Compare with requested transaction amount
-        // - Consider minimum balance requirements
-        throw new UnsupportedOperationException("Sufficient balance check not yet implemented");
+        return amount != null && amount.compareTo(getAvailableBalance(cardToken)) <= 0;
     }
 
     @Override
     public BigDecimal getDailyWithdrawalLimit(String cardToken) {
-        // TODO: Implement daily withdrawal limit retrieval
-        // - Query account/card specific limits
-        // - Apply default limits if not configured
-        // - Consider account type and customer segment
-        throw new UnsupportedOperationException("Daily withdrawal limit retrieval not yet implemented");
+        // Cards and core banking snapshots carry no limit of their own, so every card gets the configured one
+        return defaultDailyWithdrawalLimit;
     }
 
     @Override
     public BigDecimal getRemainingDailyLimit(String cardToken) {
-        // TODO: Implement remaining daily limit calculation
-        // - Get daily withdrawal limit for card
-        // - Calculate total withdrawals for current day
-        // - Return remaining limit
-        throw new UnsupportedOperationException("Remaining daily limit calculation not yet implemented");
+        BigDecimal withdrawn = BigDecimal.valueOf(dailyUsageStore.getUsage(cardToken).withdrawnMinor(), 2);
+        BigDecimal remaining = getDailyWithdrawalLimit(cardToken).subtract(withdrawn);
+        return remaining.signum() > 0 ? remaining : BigDecimal.ZERO;
     }
 
     @Override
     public boolean isWithinDailyLimit(String cardToken, BigDecimal amount) {
-        // TODO: Implement daily limit validation
-        // - Get remaining daily withdrawal limit
-        // - Compare with requested transaction amount
-        // - Return true if within limits
-        throw new UnsupportedOperationException("Daily limit validation not yet implemented");
+        return amount != null && amount.compareTo(getRemainingDailyLimit(cardToken)) <= 0;
     }
 
     @Override
     public String getAccountType(String cardToken) {
-        // TODO: Implement account type retrieval
-        // - Query account information for card
-        // - Return account type (SAVINGS, CURRENT, CREDIT, etc.)
-        throw new UnsupportedOperationException("Account type retrieval not yet implemented");
+        return getAccountSnapshot(cardToken).accountType();
     }
 
     @Override
     public boolean isBalanceInquiryAllowed(String cardToken) {
-        // TODO: Implement balance inquiry permission check
-        // - Check account status and permissions
-        // - Validate card privileges
-        // - Consider regulatory restrictions
-        throw new UnsupportedOperationException("Balance inquiry permission check not yet implemented");
+        return getAccountSnapshot(cardToken).inquiryAllowed();
+    }
+
+    private static Duration remaining(long deadlineAt) {
+        return Duration.ofNanos(Math.max(0, deadlineAt - System.nanoTime()));
     }
 }
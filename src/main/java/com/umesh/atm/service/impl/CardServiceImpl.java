@@ -1,17 +1,31 @@
 package com.umesh.atm.service.impl;
 
 import com.umesh.atm.entity.Card;
+import com.umesh.atm.enums.CardSecurityEventType;
 import com.umesh.atm.enums.CardStatus;
+import com.umesh.atm.repository.CardRepository;
+import com.umesh.atm.security.event.CardSecurityEventPublisher;
 import com.umesh.atm.service.CardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 
 /**
  * Implementation of CardService for card-related operations.
  * Provides card validation, status management, and security checks.
  */
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class CardServiceImpl implements CardService {
 
+    private final CardRepository cardRepository;
+    private final CardSecurityEventPublisher securityEventPublisher;
+
     @Override
     public boolean validateCard(String cardToken) {
         // TODO: Implement card validation logic
@@ -23,44 +37,63 @@ public class CardServiceImpl implements CardService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Card getCardByToken(String cardToken) {
-        // TODO: Implement card retrieval by token
-        // - Query database for card with matching token
-        // - Return card entity or null if not found
-        throw new UnsupportedOperationException("Card retrieval by token not yet implemented");
+        if (cardToken == null || cardToken.isBlank()) {
+            return null;
+        }
+        
+        // Lookup errors propagate: callers cache a null result as "card not found"
+        return cardRepository.findByToken(cardToken).orElse(null);
     }
 
     @Override
     public boolean isCardExpired(Card card) {
-        // TODO: Implement card expiry check
-        // - Compare card expiry month/year with current date
-        // - Handle edge cases for month boundaries
-        throw new UnsupportedOperationException("Card expiry check not yet implemented");
+        if (card.getExpiryYear() == null || card.getExpiryMonth() == null) {
+            return false;
+        }
+        
+        // Cards remain valid through the last day of the expiry month
+        YearMonth expiry = YearMonth.of(card.getExpiryYear(), card.getExpiryMonth());
+        return YearMonth.now(ZoneOffset.UTC).isAfter(expiry);
     }
 
     @Override
     public boolean isCardActive(Card card) {
-        // TODO: Implement card active status check
-        // - Check if card status is ACTIVE
-        // - Ensure card is not blocked or inactive
-        throw new UnsupportedOperationException("Card active status check not yet implemented");
+        return card.getStatus() == CardStatus.ACTIVE;
     }
 
     @Override
+    @Transactional
     public boolean blockCard(String cardToken) {
-        // TODO: Implement card blocking functionality
-        // - Update card status to BLOCKED in database
-        // - Log security event
-        // - Notify relevant systems
-        throw new UnsupportedOperationException("Card blocking not yet implemented");
+        // Only the status change and its outbox record run on the caller's thread;
+        // session termination, cache invalidation and audit are delivered asynchronously
+        int updated = cardRepository.updateStatusByToken(cardToken, CardStatus.BLOCKED);
+        if (updated == 0) {
+            log.warn("Cannot block unknown card: {}", cardToken);
+            return false;
+        }
+        
+        securityEventPublisher.publish(cardToken, CardSecurityEventType.CARD_BLOCKED,
+                CardStatus.BLOCKED, "Security block");
+        
+        log.warn("Card blocked: {}", cardToken);
+        return true;
     }
 
     @Override
+    @Transactional
     public boolean updateCardStatus(String cardToken, CardStatus status) {
-        // TODO: Implement card status update
-        // - Find card by token
-        // - Update status in database
-        // - Handle transaction rollback on failure
-        throw new UnsupportedOperationException("Card status update not yet implemented");
+        int updated = cardRepository.updateStatusByToken(cardToken, status);
+        if (updated == 0) {
+            log.warn("Cannot update status of unknown card: {}", cardToken);
+            return false;
+        }
+        
+        securityEventPublisher.publish(cardToken, CardSecurityEventType.CARD_STATUS_CHANGED,
+                status, "Status changed to " + status);
+        
+        log.info("Card {} status updated to {}", cardToken, status);
+        return true;
     }
 }
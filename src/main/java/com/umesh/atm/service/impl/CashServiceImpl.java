@@ -1,11 +1,23 @@
 package com.umesh.atm.service.impl;
 
+import com.umesh.atm.entity.AtmCashInventory;
+import com.umesh.atm.dispense.DispensePlanner;
 import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.fleet.FleetInventoryIndex;
+import com.umesh.atm.forecast.CashForecastEngine;
+import com.umesh.atm.repository.AtmCashInventoryRepository;
 import com.umesh.atm.service.CashService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -13,8 +25,16 @@ import java.util.Map;
  * Handles denomination distribution, inventory tracking, and cash validation.
  */
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class CashServiceImpl implements CashService {
 
+    private final AtmCashInventoryRepository cashInventoryRepository;
+    private final DispensePlanner dispensePlanner;
+    private final CashForecastEngine cashForecastEngine;
+    private final FleetInventoryIndex fleetInventoryIndex;
+    private final TransactionTemplate transactionTemplate;
+
     @Value("${atm.cash.min-withdrawal-amount:100}")
     private BigDecimal minWithdrawalAmount;
 
@@ -24,90 +44,124 @@ public class CashServiceImpl implements CashService {
     @Value("${atm.cash.withdrawal-multiple:100}")
     private BigDecimal withdrawalMultiple;
 
+    @Value("${atm.cash.max-deposit-amount:200000}")
+    private BigDecimal maxDepositAmount;
+
     @Override
     public boolean withdrawCash(AtmMachine atmMachine, String cardToken, BigDecimal amount) {
-        // TODO: Implement cash withdrawal
-        // - Validate withdrawal amount and limits
-        // - Check ATM cash availability
-        // - Calculate denomination distribution
-        // - Update cash inventory
-        // - Log transaction
-        throw new UnsupportedOperationException("Cash withdrawal not yet implemented");
+        return dispenseCash(atmMachine, cardToken, amount) != null;
+    }
+
+    @Override
+    public Map<Integer, Integer> dispenseCash(AtmMachine atmMachine, String cardToken, BigDecimal amount) {
+        if (!isValidWithdrawalAmount(amount)) {
+            log.warn("Withdrawal rejected, invalid amount {} for card: {}", amount, cardToken);
+            return null;
+        }
+        Map<Integer, Integer> distribution = calculateDenominationDistribution(atmMachine, amount);
+        if (distribution == null) {
+            log.warn("Withdrawal rejected, cannot dispense {} at ATM {}", amount, atmMachine.getAtmCode());
+            return null;
+        }
+
+        Map<Integer, Integer> changes = new LinkedHashMap<>();
+        distribution.forEach((denomination, notes) -> changes.put(denomination, -notes));
+        return updateCashInventory(atmMachine, changes) ? distribution : null;
     }
 
     @Override
     public boolean depositCash(AtmMachine atmMachine, String cardToken, BigDecimal amount) {
-        // TODO: Implement cash deposit
-        // - Validate deposit amount
-        // - Check if ATM supports deposits
-        // - Update cash inventory
-        // - Handle cash counting and validation
-        // - Log transaction
-        throw new UnsupportedOperationException("Cash deposit not yet implemented");
+        // Notes are counted and committed to inventory by DepositPipeline; this is the final check on the total
+        if (!atmMachine.isSupportsDeposit()) {
+            log.warn("Deposit rejected, ATM {} does not accept deposits", atmMachine.getAtmCode());
+            return false;
+        }
+        if (!isValidDepositAmount(amount)) {
+            log.warn("Deposit rejected, invalid amount {} for card: {}", amount, cardToken);
+            return false;
+        }
+        return true;
     }
 
     @Override
     public boolean hasSufficientCash(AtmMachine atmMachine, BigDecimal amount) {
-        // TODO: Implement cash availability check
-        // - Query cash inventory for ATM
-        // - Calculate total available cash
-        // - Check if amount can be dispensed with available denominations
-        throw new UnsupportedOperationException("Cash availability check not yet implemented");
+        return getTotalAvailableCash(atmMachine).compareTo(amount) >= 0;
     }
 
     @Override
     public Map<Integer, Long> getAvailableDenominations(AtmMachine atmMachine) {
-        // TODO: Implement available denominations retrieval
-        // - Query AtmCashInventory for the machine
-        // - Return map of denomination to available count
-        // - Filter out disabled denominations
-        throw new UnsupportedOperationException("Available denominations retrieval not yet implemented");
+        Map<Integer, Long> available = new LinkedHashMap<>();
+        cashInventoryRepository.findByMachineId(atmMachine.getId()).stream()
+                .filter(AtmCashInventory::isEnabled)
+                .sorted(Comparator.comparing(AtmCashInventory::getDenomination).reversed())
+                .forEach(inventory -> available.put(inventory.getDenomination(), inventory.getNoteCount()));
+        return available;
     }
 
     @Override
     public Map<Integer, Integer> calculateDenominationDistribution(AtmMachine atmMachine, BigDecimal amount) {
-        // TODO: Implement denomination distribution calculation
-        // - Use greedy algorithm to distribute amount across denominations
-        // - Prefer higher denominations first
-        // - Ensure exact amount can be dispensed
-        // - Return null if distribution not possible
-        throw new UnsupportedOperationException("Denomination distribution calculation not yet implemented");
+        return dispensePlanner.plan(atmMachine, amount);
     }
 
     @Override
     public boolean updateCashInventory(AtmMachine atmMachine, Map<Integer, Integer> denominationChanges) {
-        // TODO: Implement cash inventory update
-        // - Update AtmCashInventory records
-        // - Handle positive changes (deposits) and negative changes (withdrawals)
-        // - Ensure atomic transaction
-        // - Log inventory changes
-        throw new UnsupportedOperationException("Cash inventory update not yet implemented");
+        try {
+            Boolean updated = transactionTemplate.execute(status -> {
+                for (Map.Entry<Integer, Integer> change : denominationChanges.entrySet()) {
+                    if (change.getValue() == 0) {
+                        continue;
+                    }
+                    if (cashInventoryRepository.addNotes(atmMachine.getId(), change.getKey(), change.getValue()) == 0) {
+                        log.warn("Cannot apply {} notes of {} at ATM {}", change.getValue(), change.getKey(),
+                                atmMachine.getAtmCode());
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                }
+                // Caches follow the commit, which is the caller's when it runs inside a wider transaction
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        dispensePlanner.onInventoryChanged(atmMachine, denominationChanges);
+                        cashForecastEngine.recordInventoryChange(atmMachine, denominationChanges);
+                        fleetInventoryIndex.onInventoryChanged(atmMachine, denominationChanges);
+                    }
+                });
+                return true;
+            });
+            if (Boolean.TRUE.equals(updated)) {
+                log.info("Cash inventory updated at ATM {}: {}", atmMachine.getAtmCode(), denominationChanges);
+                return true;
+            }
+            // The cassettes differ from what the planner holds (e.g. one was disabled or emptied elsewhere)
+            dispensePlanner.invalidate(atmMachine);
+            return false;
+        } catch (Exception e) {
+            log.error("Error updating cash inventory at ATM {}", atmMachine.getAtmCode(), e);
+            dispensePlanner.invalidate(atmMachine);
+            return false;
+        }
     }
 
     @Override
     public boolean isValidWithdrawalAmount(BigDecimal amount) {
-        // TODO: Implement withdrawal amount validation
-        // - Check minimum and maximum limits
-        // - Ensure amount is multiple of withdrawal denomination
-        // - Validate against business rules
-        throw new UnsupportedOperationException("Withdrawal amount validation not yet implemented");
+        return amount != null
+                && amount.compareTo(minWithdrawalAmount) >= 0
+                && amount.compareTo(maxWithdrawalAmount) <= 0
+                && amount.remainder(withdrawalMultiple).signum() == 0;
     }
 
     @Override
     public boolean isValidDepositAmount(BigDecimal amount) {
-        // TODO: Implement deposit amount validation
-        // - Check minimum and maximum deposit limits
-        // - Validate against business rules
-        // - Ensure positive amount
-        throw new UnsupportedOperationException("Deposit amount validation not yet implemented");
+        // Deposits are whole notes, up to the per-deposit limit
+        return amount != null
+                && amount.signum() > 0
+                && amount.compareTo(maxDepositAmount) <= 0
+                && amount.stripTrailingZeros().scale() <= 0;
     }
 
     @Override
     public BigDecimal getTotalAvailableCash(AtmMachine atmMachine) {
-        // TODO: Implement total cash calculation
-        // - Query all denominations for ATM
-        // - Calculate total value (denomination * count)
-        // - Return total available cash amount
-        throw new UnsupportedOperationException("Total available cash calculation not yet implemented");
+        return dispensePlanner.totalCash(atmMachine);
     }
 }
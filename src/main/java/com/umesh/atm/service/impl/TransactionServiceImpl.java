@@ -1,99 +1,236 @@
 package com.umesh.atm.service.impl;
 
+import com.umesh.atm.corebanking.AccountSnapshotCache;
 import com.umesh.atm.entity.AtmMachine;
 import com.umesh.atm.entity.Transaction;
 import com.umesh.atm.enums.TxnStatus;
+import com.umesh.atm.idgen.TransactionIdentifierGenerator;
+import com.umesh.atm.index.RecentRrnIndex;
+import com.umesh.atm.journal.LocalTransactionJournal;
+import com.umesh.atm.journal.TransactionJournalWriter;
+import com.umesh.atm.limits.DailyCardUsageStore;
+import com.umesh.atm.repository.TransactionRepository;
+import com.umesh.atm.reversal.ReversalRecords;
 import com.umesh.atm.service.TransactionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
 
 /**
  * Implementation of TransactionService for transaction management and logging.
  * Handles transaction lifecycle, history, and audit trail.
  */
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class TransactionServiceImpl implements TransactionService {
 
     @Value("${atm.limits.daily-transaction-count:50}")
     private int maxDailyTransactions;
 
+    @Value("${atm.currency:INR}")
+    private String currency;
+
+    @Value("${atm.journal.durable-timeout-ms:2000}")
+    private long durableTimeoutMs;
+
+    private static final String FINANCIAL_REQUEST_MTI = "0200";
+
+    private final TransactionIdentifierGenerator identifierGenerator;
+    private final TransactionJournalWriter journalWriter;
+    private final LocalTransactionJournal localJournal;
+    private final DailyCardUsageStore dailyUsageStore;
+    private final AccountSnapshotCache accountCache;
+    private final RecentRrnIndex rrnIndex;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+
     @Override
     public Transaction createTransaction(AtmMachine atmMachine, String cardToken, String processingCode, BigDecimal amount) {
-        // TODO: Implement transaction creation
-        // - Generate unique RRN and STAN
-        // - Set transaction details (amount, currency, datetime)
-        // - Set terminal and ATM information
-        // - Save transaction with PENDING status
-        // - Return created transaction entity
-        throw new UnsupportedOperationException("Transaction creation not yet implemented");
+        Transaction transaction = newTransaction(atmMachine, cardToken, processingCode, amount);
+
+        CompletableFuture<?> durable = journal(transaction, true);
+        rrnIndex.put(transaction.getRrn(), transaction.getId());
+        awaitDurable(transaction.getId(), durable);
+        log.debug("Created transaction {} (RRN {}) for terminal {}",
+                transaction.getId(), transaction.getRrn(), transaction.getTerminalId());
+        return transaction;
+    }
+
+    @Override
+    public Transaction createApprovedTransaction(AtmMachine atmMachine, String cardToken, String processingCode,
+                                                 BigDecimal amount, BooleanSupplier work) {
+        Transaction transaction = newTransaction(atmMachine, cardToken, processingCode, amount);
+        transaction.setStatus(TxnStatus.APPROVED);
+        transaction.setResponseCode("00");
+        transaction.setCompletedAt(Instant.now());
+
+        Boolean committed = transactionTemplate.execute(status -> {
+            transactionRepository.save(transaction);
+            if (!work.getAsBoolean()) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        });
+        if (!Boolean.TRUE.equals(committed)) {
+            return null;
+        }
+
+        rrnIndex.put(transaction.getRrn(), transaction.getId());
+        dailyUsageStore.recordApproved(transaction);
+        accountCache.recordApproved(transaction);
+        log.debug("Recorded approved transaction {} (RRN {}) for terminal {}",
+                transaction.getId(), transaction.getRrn(), transaction.getTerminalId());
+        return transaction;
+    }
+
+    private Transaction newTransaction(AtmMachine atmMachine, String cardToken, String processingCode, BigDecimal amount) {
+        return Transaction.builder()
+                .id(identifierGenerator.nextTransactionId())
+                .mti(FINANCIAL_REQUEST_MTI)
+                .processingCode(processingCode)
+                .stan(identifierGenerator.nextStan())
+                .rrn(identifierGenerator.nextRrn())
+                .terminalId(atmMachine.getAtmCode())
+                .cardToken(cardToken)
+                .amountMinor(amount.movePointRight(2).longValueExact())
+                .currency(currency)
+                .localTxnDateTime(Instant.now())
+                .status(TxnStatus.PENDING)
+                .build();
     }
 
     @Override
     public Transaction updateTransactionStatus(Long transactionId, TxnStatus status, String responseCode) {
-        // TODO: Implement transaction status update
-        // - Find transaction by ID
-        // - Update status and response code
-        // - Set completion timestamp
-        // - Save updated transaction
-        throw new UnsupportedOperationException("Transaction status update not yet implemented");
+        Transaction transaction = getTransactionById(transactionId);
+        if (transaction == null) {
+            log.warn("Cannot update status of unknown transaction: {}", transactionId);
+            return null;
+        }
+
+        TxnStatus previous = transaction.getStatus();
+        transaction.setStatus(status);
+        transaction.setResponseCode(responseCode);
+        transaction.setCompletedAt(Instant.now());
+
+        CompletableFuture<?> durable = journal(transaction, false);
+
+        // Keep the daily limit aggregates and cached balances in step with approvals and reversals
+        if (status == TxnStatus.APPROVED && previous != TxnStatus.APPROVED) {
+            dailyUsageStore.recordApproved(transaction);
+            accountCache.recordApproved(transaction);
+        } else if (previous == TxnStatus.APPROVED && status != TxnStatus.APPROVED) {
+            dailyUsageStore.recordReversed(transaction);
+            accountCache.recordReversed(transaction);
+        }
+        awaitDurable(transactionId, durable);
+        return transaction;
     }
 
     @Override
     public boolean logTransactionCompletion(Long transactionId, boolean success, String responseCode) {
-        // TODO: Implement transaction completion logging
-        // - Update transaction with final status
-        // - Log to audit trail
-        // - Trigger notifications if required
-        // - Handle cleanup tasks
-        throw new UnsupportedOperationException("Transaction completion logging not yet implemented");
+        try {
+            Transaction transaction = updateTransactionStatus(
+                    transactionId, success ? TxnStatus.APPROVED : TxnStatus.DECLINED, responseCode);
+            if (transaction == null) {
+                return false;
+            }
+
+            log.info("Transaction {} completed: status={}, responseCode={}, RRN={}",
+                    transactionId, transaction.getStatus(), responseCode, transaction.getRrn());
+            return true;
+
+        } catch (Exception e) {
+            log.error("Error logging completion of transaction: {}", transactionId, e);
+            return false;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Transaction> whenPersisted(Long transactionId) {
+        CompletableFuture<Transaction> pending = journalWriter.whenPersisted(transactionId);
+        if (pending != null) {
+            return pending;
+        }
+        // Nothing queued: either already committed, or the write was given up on
+        return transactionRepository.findById(transactionId)
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> CompletableFuture.failedFuture(
+                        new IllegalStateException("Transaction " + transactionId + " is not persisted")));
+    }
+
+    @Override
+    public CompletableFuture<Void> whenDurable(Long transactionId) {
+        CompletableFuture<Void> pending = localJournal.whenSynced(transactionId);
+        if (pending != null) {
+            return pending;
+        }
+        if (localJournal.isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // Without the local journal the database is the only durable copy
+        return whenPersisted(transactionId).thenApply(transaction -> null);
     }
 
     @Override
     public List<Transaction> getTransactionHistory(String cardToken, int limit) {
-        // TODO: Implement transaction history retrieval
-        // - Query transactions for card token
-        // - Order by transaction datetime (descending)
-        // - Limit results to specified count
-        // - Filter sensitive information if needed
-        throw new UnsupportedOperationException("Transaction history retrieval not yet implemented");
+        // Index-backed top-N; clients that page further use TransactionHistoryReader cursors
+        return transactionRepository.findByCardTokenOrderByLocalTxnDateTimeDescIdDesc(
+                cardToken, Limit.of(Math.max(1, limit)));
     }
 
     @Override
     public Transaction getTransactionById(Long transactionId) {
-        // TODO: Implement transaction retrieval by ID
-        // - Query database for transaction with given ID
-        // - Return transaction entity or null
-        throw new UnsupportedOperationException("Transaction retrieval by ID not yet implemented");
+        if (transactionId == null) {
+            return null;
+        }
+
+        // Changes still in the journal queue are newer than the database row
+        Transaction unflushed = journalWriter.findUnflushed(transactionId);
+        if (unflushed != null) {
+            return unflushed;
+        }
+        return transactionRepository.findById(transactionId).orElse(null);
     }
 
     @Override
     public Transaction getTransactionByRrn(String rrn) {
-        // TODO: Implement transaction retrieval by RRN
-        // - Query database for transaction with given RRN
-        // - Return transaction entity or null
-        throw new UnsupportedOperationException("Transaction retrieval by RRN not yet implemented");
+        if (rrn == null) {
+            return null;
+        }
+
+        // Recent RRNs resolve to a primary-key (or still unflushed) lookup; older ones use idx_txn_rrn
+        Long transactionId = rrnIndex.get(rrn);
+        if (transactionId != null) {
+            Transaction transaction = getTransactionById(transactionId);
+            if (transaction != null) {
+                return transaction;
+            }
+        }
+        return transactionRepository.findFirstByRrnOrderByIdDesc(rrn).orElse(null);
     }
 
     @Override
     public String generateRrn() {
-        // TODO: Implement RRN generation
-        // - Generate unique 12-digit retrieval reference number
-        // - Ensure uniqueness across system
-        // - Follow industry standards for RRN format
-        throw new UnsupportedOperationException("RRN generation not yet implemented");
+        return identifierGenerator.nextRrn();
     }
 
     @Override
     public String generateStan() {
-        // TODO: Implement STAN generation
-        // - Generate unique 6-digit system trace audit number
-        // - Ensure uniqueness for current date
-        // - Handle rollover at daily boundaries
-        throw new UnsupportedOperationException("STAN generation not yet implemented");
+        return identifierGenerator.nextStan();
     }
 
     @Override
@@ -107,30 +244,72 @@ public class TransactionServiceImpl implements TransactionService {
 
     @Override
     public int getDailyTransactionCount(String cardToken, Instant date) {
-        // TODO: Implement daily transaction count
-        // - Query transactions for card on specified date
-        // - Count successful transactions only
-        // - Use current date if date parameter is null
-        throw new UnsupportedOperationException("Daily transaction count not yet implemented");
+        return dailyUsageStore.getTransactionCount(cardToken, date == null ? Instant.now() : date);
     }
 
     @Override
     public boolean isDailyTransactionLimitExceeded(String cardToken) {
-        // TODO: Implement daily transaction limit check
-        // - Get current daily transaction count
-        // - Compare with maximum allowed transactions
-        // - Return true if limit exceeded
-        throw new UnsupportedOperationException("Daily transaction limit check not yet implemented");
+        return dailyUsageStore.getUsage(cardToken).transactionCount() >= maxDailyTransactions;
     }
 
     @Override
     public Transaction reverseTransaction(Long originalTransactionId, String reason) {
-        // TODO: Implement transaction reversal
-        // - Find original transaction
-        // - Create reversal transaction with opposite amount
-        // - Link reversal to original transaction
-        // - Update original transaction status
-        // - Process reversal through payment network
-        throw new UnsupportedOperationException("Transaction reversal not yet implemented");
+        Transaction original = getTransactionById(originalTransactionId);
+        if (original == null) {
+            log.warn("Cannot reverse unknown transaction: {}", originalTransactionId);
+            return null;
+        }
+        if (original.getStatus() == TxnStatus.REVERSED) {
+            log.warn("Transaction {} is already reversed", originalTransactionId);
+            return null;
+        }
+
+        // Many transactions at once (e.g. after an outage) go through BulkReversalJob instead
+        Transaction reversal = ReversalRecords.reversalOf(original, identifierGenerator, Instant.now());
+        CompletableFuture<?> durable = journal(reversal, true);
+        rrnIndex.put(reversal.getRrn(), reversal.getId());
+        awaitDurable(reversal.getId(), durable);
+
+        updateTransactionStatus(originalTransactionId, TxnStatus.REVERSED, original.getResponseCode());
+        log.info("Reversed transaction {} with {} (RRN {}): {}",
+                originalTransactionId, reversal.getId(), reversal.getRrn(), reason);
+        return reversal;
+    }
+
+    /**
+     * Writes a change ahead to the local journal, then queues it for the database.
+     *
+     * @return future completed once the change is durable: on local disk, or committed to the
+     *         database when the local journal is disabled
+     */
+    private CompletableFuture<?> journal(Transaction transaction, boolean created) {
+        CompletableFuture<Transaction> committed = new CompletableFuture<>();
+        CompletableFuture<Void> synced = localJournal.append(transaction, created, committed);
+
+        CompletableFuture<Transaction> persisted = created
+                ? journalWriter.appendInsert(transaction)
+                : journalWriter.appendStatusChange(transaction);
+        persisted.whenComplete((saved, error) -> {
+            if (error == null) {
+                committed.complete(saved);
+            } else {
+                committed.completeExceptionally(error);
+            }
+        });
+        return localJournal.isEnabled() ? synced : persisted;
+    }
+
+    /**
+     * Blocks until a change is durable, so no response (and no cash) goes out ahead of it.
+     */
+    private void awaitDurable(Long transactionId, CompletableFuture<?> durable) {
+        try {
+            durable.get(durableTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for transaction " + transactionId + " to be journaled", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Transaction " + transactionId + " could not be journaled", e);
+        }
     }
 }
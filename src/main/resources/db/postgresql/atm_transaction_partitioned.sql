@@ -0,0 +1,34 @@
+-- Natively partitioned atm_transaction for PostgreSQL.
+-- Create this before the application first starts (instead of letting Hibernate create a plain table);
+-- TransactionPartitionManager detects it and manages the monthly partitions from then on.
+-- The partition key must be part of the primary key.
+
+CREATE TABLE atm_transaction (
+    id                  BIGINT                   NOT NULL,
+    mti                 VARCHAR(4)               NOT NULL,
+    processing_code     VARCHAR(6)               NOT NULL,
+    stan                VARCHAR(6)               NOT NULL,
+    rrn                 VARCHAR(12)              NOT NULL,
+    response_code       VARCHAR(2),
+    terminal_id         VARCHAR(16)              NOT NULL,
+    network_id          VARCHAR(3),
+    card_token          VARCHAR(64)              NOT NULL,
+    amount_minor        BIGINT                   NOT NULL,
+    currency            VARCHAR(3)               NOT NULL,
+    local_txn_datetime  TIMESTAMP WITH TIME ZONE NOT NULL,
+    status              VARCHAR(20)              NOT NULL,
+    completed_at        TIMESTAMP WITH TIME ZONE,
+    original_transaction_id BIGINT,
+    created_at          TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at          TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    version             INTEGER                  DEFAULT 0,
+    PRIMARY KEY (id, local_txn_datetime)
+) PARTITION BY RANGE (local_txn_datetime);
+
+CREATE INDEX idx_txn_rrn ON atm_transaction (rrn);
+CREATE INDEX idx_txn_terminal ON atm_transaction (terminal_id, id);
+CREATE INDEX idx_txn_time ON atm_transaction (local_txn_datetime);
+CREATE INDEX idx_txn_card_time ON atm_transaction (card_token, local_txn_datetime DESC, id DESC);
+
+-- Catch-all for rows outside the managed months (e.g. replayed journal entries for archived months)
+CREATE TABLE atm_transaction_default PARTITION OF atm_transaction DEFAULT;
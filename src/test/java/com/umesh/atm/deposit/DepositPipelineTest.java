@@ -0,0 +1,244 @@
+package com.umesh.atm.deposit;
+
+import com.umesh.atm.chain.HandlerResult;
+import com.umesh.atm.chain.transaction.TransactionProcessingChain;
+import com.umesh.atm.chain.transaction.TransactionRequest;
+import com.umesh.atm.entity.AtmCashInventory;
+import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.repository.AtmCashInventoryRepository;
+import com.umesh.atm.service.CashService;
+import com.umesh.atm.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DepositPipelineTest {
+
+    private static final String CARD = "TOKEN-1";
+    private static final String SESSION = "session-1";
+
+    // Denominations in minor units
+    private static final int RS_500 = 50000;
+    private static final int RS_200 = 20000;
+    private static final int RS_100 = 10000;
+
+    @Mock
+    private TransactionProcessingChain transactionProcessingChain;
+
+    @Mock
+    private AtmCashInventoryRepository cashInventoryRepository;
+
+    @Mock
+    private CashService cashService;
+
+    @Mock
+    private TransactionService transactionService;
+
+    private DepositPipeline pipeline;
+    private AtmMachine atm;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new DepositPipeline(transactionProcessingChain, cashInventoryRepository, cashService,
+                transactionService);
+        ReflectionTestUtils.setField(pipeline, "maxNotes", 10);
+        ReflectionTestUtils.setField(pipeline, "maxDepositAmount", new BigDecimal("20000"));
+        atm = AtmMachine.builder().id(1L).atmCode("ATM1").supportsDeposit(true).cashCapacity(30).build();
+    }
+
+    @Test
+    void trimsBatchToNoteLimit() {
+        String depositId = open();
+
+        DepositBatchResult result = pipeline.acceptBatch(depositId, SESSION, Map.of(500, 12));
+
+        assertThat(result.acceptedNotes()).containsExactly(Map.entry(500, 10));
+        assertThat(result.rejectedNotes()).containsExactly(Map.entry(500, 2));
+        assertThat(result.rejectionReason()).isEqualTo(DepositBatchResult.DEPOSIT_NOTE_LIMIT);
+        assertThat(result.runningTotal()).isEqualByComparingTo("5000");
+        assertThat(result.noteCount()).isEqualTo(10);
+    }
+
+    @Test
+    void trimsBatchToFreeCassetteSpace() {
+        // 15 notes loaded, so 5 slots left
+        atm.setCashCapacity(20);
+        String depositId = open();
+
+        DepositBatchResult result = pipeline.acceptBatch(depositId, SESSION, Map.of(100, 8));
+
+        assertThat(result.acceptedNotes()).containsExactly(Map.entry(100, 5));
+        assertThat(result.rejectedNotes()).containsExactly(Map.entry(100, 3));
+        assertThat(result.rejectionReason()).isEqualTo(DepositBatchResult.CASSETTE_FULL);
+    }
+
+    @Test
+    void trimsBatchToAmountLimitAcrossBatches() {
+        ReflectionTestUtils.setField(pipeline, "maxDepositAmount", new BigDecimal("2000"));
+        String depositId = open();
+
+        assertThat(pipeline.acceptBatch(depositId, SESSION, Map.of(100, 3)).rejectionReason()).isNull();
+        DepositBatchResult result = pipeline.acceptBatch(depositId, SESSION, Map.of(500, 4));
+
+        assertThat(result.acceptedNotes()).containsExactly(Map.entry(500, 3));
+        assertThat(result.rejectedNotes()).containsExactly(Map.entry(500, 1));
+        assertThat(result.rejectionReason()).isEqualTo(DepositBatchResult.DEPOSIT_AMOUNT_LIMIT);
+        assertThat(result.runningTotal()).isEqualByComparingTo("1800");
+    }
+
+    @Test
+    void rejectsDenominationTheAtmDoesNotStock() {
+        String depositId = open();
+
+        DepositBatchResult result = pipeline.acceptBatch(depositId, SESSION, Map.of(200, 3, 500, 1));
+
+        assertThat(result.acceptedNotes()).containsExactly(Map.entry(500, 1));
+        assertThat(result.rejectedNotes()).containsExactly(Map.entry(200, 3));
+        assertThat(result.rejectionReason()).isEqualTo(DepositBatchResult.DENOMINATION_NOT_ACCEPTED);
+    }
+
+    @Test
+    void ignoresCallsFromAnotherSession() {
+        String depositId = open();
+
+        assertThat(pipeline.acceptBatch(depositId, "session-2", Map.of(500, 1))).isNull();
+        assertThat(pipeline.confirm(depositId, "session-2").getErrorCode()).isEqualTo("DEPOSIT_NOT_FOUND");
+        assertThat(pipeline.cancel(depositId, "session-2")).isFalse();
+    }
+
+    @Test
+    void confirmCommitsTheDepositOnce() {
+        String depositId = open();
+        pipeline.acceptBatch(depositId, SESSION, Map.of(500, 2, 100, 1));
+        when(cashService.depositCash(atm, CARD, new BigDecimal("1100.00"))).thenReturn(true);
+        when(cashService.updateCashInventory(atm, Map.of(RS_500, 2, RS_100, 1))).thenReturn(true);
+        commitWith(() -> {
+        });
+
+        HandlerResult result = pipeline.confirm(depositId, SESSION);
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getData()).isEqualTo(new DepositReceipt(7L, "501512000007", new BigDecimal("1100.00"), 3));
+        // A repeated confirm is not a second credit, and the committed notes cannot be returned
+        assertThat(pipeline.confirm(depositId, SESSION).getErrorCode()).isEqualTo("DEPOSIT_NOT_FOUND");
+        assertThat(pipeline.cancel(depositId, SESSION)).isFalse();
+    }
+
+    @Test
+    void closesDepositWhileConfirming() {
+        String depositId = open();
+        pipeline.acceptBatch(depositId, SESSION, Map.of(500, 2));
+        when(cashService.depositCash(atm, CARD, new BigDecimal("1000.00"))).thenReturn(true);
+        when(cashService.updateCashInventory(atm, Map.of(RS_500, 2))).thenReturn(true);
+        AtomicReference<DepositBatchResult> lateBatch = new AtomicReference<>();
+        AtomicReference<Boolean> lateCancel = new AtomicReference<>();
+        commitWith(() -> {
+            lateBatch.set(pipeline.acceptBatch(depositId, SESSION, Map.of(500, 1)));
+            lateCancel.set(pipeline.cancel(depositId, SESSION));
+        });
+
+        HandlerResult result = pipeline.confirm(depositId, SESSION);
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(((DepositReceipt) result.getData()).amount()).isEqualByComparingTo("1000");
+        assertThat(lateBatch.get().acceptedNotes()).isEmpty();
+        assertThat(lateBatch.get().rejectedNotes()).containsExactly(Map.entry(500, 1));
+        assertThat(lateBatch.get().rejectionReason()).isEqualTo(DepositBatchResult.DEPOSIT_CLOSED);
+        assertThat(lateCancel.get()).isFalse();
+    }
+
+    @Test
+    void failedCommitLeavesDepositOpen() {
+        String depositId = open();
+        pipeline.acceptBatch(depositId, SESSION, Map.of(500, 2));
+        when(cashService.depositCash(atm, CARD, new BigDecimal("1000.00"))).thenReturn(true);
+        when(transactionService.createApprovedTransaction(eq(atm), eq(CARD), eq(DepositPipeline.DEPOSIT_PROCESSING_CODE),
+                eq(new BigDecimal("1000.00")), any())).thenReturn(null);
+
+        assertThat(pipeline.confirm(depositId, SESSION).getErrorCode()).isEqualTo("DEPOSIT_ERROR");
+
+        assertThat(pipeline.acceptBatch(depositId, SESSION, Map.of(100, 1)).rejectionReason()).isNull();
+        assertThat(pipeline.cancel(depositId, SESSION)).isTrue();
+        assertThat(pipeline.acceptBatch(depositId, SESSION, Map.of(100, 1))).isNull();
+    }
+
+    @Test
+    void rejectedTotalLeavesDepositCancellable() {
+        String depositId = open();
+        pipeline.acceptBatch(depositId, SESSION, Map.of(500, 2));
+        when(cashService.depositCash(atm, CARD, new BigDecimal("1000.00"))).thenReturn(false);
+
+        assertThat(pipeline.confirm(depositId, SESSION).getErrorCode()).isEqualTo("DEPOSIT_NOT_ACCEPTED");
+
+        verify(transactionService, never()).createApprovedTransaction(any(), any(), any(), any(), any());
+        assertThat(pipeline.cancel(depositId, SESSION)).isTrue();
+    }
+
+    @Test
+    void emptyDepositIsNotConfirmed() {
+        String depositId = open();
+
+        assertThat(pipeline.confirm(depositId, SESSION).getErrorCode()).isEqualTo("DEPOSIT_EMPTY");
+        assertThat(pipeline.cancel(depositId, SESSION)).isTrue();
+    }
+
+    @Test
+    void idleDepositIsCancelled() {
+        String depositId = open();
+        ReflectionTestUtils.setField(pipeline, "idleTimeoutSeconds", -1L);
+
+        ReflectionTestUtils.invokeMethod(pipeline, "expireIdle");
+
+        assertThat(pipeline.acceptBatch(depositId, SESSION, Map.of(500, 1))).isNull();
+    }
+
+    private String open() {
+        when(transactionProcessingChain.processTransaction(any())).thenReturn(HandlerResult.success());
+        when(cashInventoryRepository.findByMachineId(1L)).thenReturn(List.of(
+                cassette(RS_500, 10, true), cassette(RS_200, 0, false), cassette(RS_100, 5, true)));
+        TransactionRequest request = TransactionRequest.builder()
+                .sessionId(SESSION).cardToken(CARD).atmMachine(atm)
+                .processingCode(DepositPipeline.DEPOSIT_PROCESSING_CODE).build();
+
+        HandlerResult result = pipeline.open(request);
+        assertThat(result.isSuccess()).isTrue();
+        return (String) result.getData();
+    }
+
+    /**
+     * Commits through the work callback, as the real service does inside its database transaction,
+     * running {@code during} first.
+     */
+    private void commitWith(Runnable during) {
+        when(transactionService.createApprovedTransaction(eq(atm), eq(CARD), eq(DepositPipeline.DEPOSIT_PROCESSING_CODE),
+                any(BigDecimal.class), any())).thenAnswer(invocation -> {
+            during.run();
+            BooleanSupplier work = invocation.getArgument(4);
+            return work.getAsBoolean()
+                    ? Transaction.builder().id(7L).rrn("501512000007").build()
+                    : null;
+        });
+    }
+
+    private AtmCashInventory cassette(int denomination, long notes, boolean enabled) {
+        return AtmCashInventory.builder().machine(atm).denomination(denomination).noteCount(notes).enabled(enabled).build();
+    }
+}
@@ -0,0 +1,218 @@
+package com.umesh.atm.dispense;
+
+import com.umesh.atm.entity.AtmCashInventory;
+import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.repository.AtmCashInventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DispensePlannerTest {
+
+    // Denominations in minor units
+    private static final int RS_500 = 50000;
+    private static final int RS_200 = 20000;
+    private static final int RS_100 = 10000;
+    private static final int RS_50 = 5000;
+
+    private static final AtmMachine ATM = AtmMachine.builder().id(1L).atmCode("ATM00001").build();
+
+    @Mock
+    private AtmCashInventoryRepository cashInventoryRepository;
+
+    private DispensePlanner planner;
+
+    @AfterEach
+    void tearDown() {
+        if (planner != null) {
+            planner.stop();
+        }
+    }
+
+    @Test
+    void minNotesUsesFewestNotes() {
+        load(DispenseObjective.MIN_NOTES, cassette(RS_500, 100), cassette(RS_200, 100), cassette(RS_100, 100));
+
+        Map<Integer, Integer> plan = planner.plan(ATM, new BigDecimal("2800"));
+
+        assertThat(plan).containsExactly(Map.entry(RS_500, 5), Map.entry(RS_200, 1), Map.entry(RS_100, 1));
+    }
+
+    @Test
+    void plansAroundEmptyCassette() {
+        load(DispenseObjective.MIN_NOTES, cassette(RS_500, 0), cassette(RS_200, 100), cassette(RS_100, 100));
+
+        assertThat(planner.plan(ATM, new BigDecimal("2800"))).containsExactly(Map.entry(RS_200, 14));
+    }
+
+    @Test
+    void equalizeDepletionSparesTheEmptiestCassette() {
+        load(DispenseObjective.EQUALIZE_DEPLETION, cassette(RS_500, 10), cassette(RS_200, 200), cassette(RS_100, 200));
+
+        Map<Integer, Integer> plan = planner.plan(ATM, new BigDecimal("1000"));
+
+        assertThat(plan).containsExactly(Map.entry(RS_200, 4), Map.entry(RS_100, 2));
+    }
+
+    @Test
+    void returnsNullWhenAmountCannotBeMade() {
+        load(DispenseObjective.MIN_NOTES, cassette(RS_500, 100), cassette(RS_200, 1000));
+
+        assertThat(planner.plan(ATM, new BigDecimal("300"))).isNull();
+        // Only 39 x 500 + 2 x 200 makes it, one note over the 40-note cap
+        assertThat(planner.plan(ATM, new BigDecimal("19900"))).isNull();
+        assertThat(planner.plan(ATM, new BigDecimal("20000"))).containsExactly(Map.entry(RS_500, 40));
+    }
+
+    @Test
+    void plansUncommonAmountOnTheSpot() {
+        load(DispenseObjective.MIN_NOTES, cassette(RS_500, 100), cassette(RS_200, 100), cassette(RS_100, 100),
+                cassette(RS_50, 100));
+
+        // Not a withdrawal multiple, so not in the precomputed table
+        assertThat(planner.plan(ATM, new BigDecimal("2850"))).containsExactly(
+                Map.entry(RS_500, 5), Map.entry(RS_200, 1), Map.entry(RS_100, 1), Map.entry(RS_50, 1));
+    }
+
+    @Test
+    void ignoresDisabledCassettes() {
+        AtmCashInventory disabled = cassette(RS_50, 100);
+        disabled.setEnabled(false);
+        load(DispenseObjective.MIN_NOTES, cassette(RS_500, 100), disabled);
+
+        assertThat(planner.plan(ATM, new BigDecimal("550"))).isNull();
+        assertThat(planner.totalCash(ATM)).isEqualByComparingTo("50000");
+    }
+
+    @Test
+    void neverPlansMoreNotesThanLoaded() {
+        load(DispenseObjective.MIN_NOTES, cassette(RS_500, 64));
+        assertThat(planner.plan(ATM, new BigDecimal("2000"))).containsExactly(Map.entry(RS_500, 4));
+
+        // The precomputed plan for 2000 no longer fits the live counts
+        planner.onInventoryChanged(ATM, Map.of(RS_500, -62));
+
+        assertThat(planner.plan(ATM, new BigDecimal("2000"))).isNull();
+        assertThat(planner.plan(ATM, new BigDecimal("1000"))).containsExactly(Map.entry(RS_500, 2));
+        assertThat(planner.totalCash(ATM)).isEqualByComparingTo("1000");
+    }
+
+    @Test
+    void reloadsAfterInvalidateOrUnknownDenomination() {
+        load(DispenseObjective.MIN_NOTES, cassette(RS_500, 100));
+        planner.plan(ATM, new BigDecimal("500"));
+        planner.plan(ATM, new BigDecimal("500"));
+        verify(cashInventoryRepository, times(1)).findByMachineId(1L);
+
+        planner.invalidate(ATM);
+        planner.plan(ATM, new BigDecimal("500"));
+        verify(cashInventoryRepository, times(2)).findByMachineId(1L);
+
+        planner.onInventoryChanged(ATM, Map.of(RS_200, 50));
+        planner.plan(ATM, new BigDecimal("500"));
+        verify(cashInventoryRepository, times(3)).findByMachineId(1L);
+    }
+
+    @Test
+    void reloadsExpiredCassettes() {
+        load(DispenseObjective.MIN_NOTES, 0, cassette(RS_500, 100));
+
+        planner.plan(ATM, new BigDecimal("500"));
+        planner.plan(ATM, new BigDecimal("500"));
+
+        verify(cashInventoryRepository, times(2)).findByMachineId(1L);
+    }
+
+    @Test
+    void keepsTableWhenReloadedCountsStayInBand() {
+        load(DispenseObjective.MIN_NOTES, cassette(RS_500, 100));
+        planner.plan(ATM, new BigDecimal("500"));
+        PlanTable table = cached().table;
+
+        when(cashInventoryRepository.findByMachineId(1L)).thenReturn(List.of(cassette(RS_500, 110)));
+        expireCache();
+        planner.plan(ATM, new BigDecimal("500"));
+
+        verify(cashInventoryRepository, times(2)).findByMachineId(1L);
+        assertThat(cached().counts()).containsExactly(110);
+        assertThat(cached().table).isSameAs(table);
+    }
+
+    @Test
+    void searchesWhileTableIsRebuiltAfterReload() throws Exception {
+        load(DispenseObjective.MIN_NOTES, cassette(RS_500, 100), cassette(RS_100, 100));
+        planner.plan(ATM, new BigDecimal("500"));
+
+        // Hold the rebuild thread so the reloaded entry is seen without a table
+        ExecutorService rebuilder = (ExecutorService) ReflectionTestUtils.getField(planner, "rebuilder");
+        CountDownLatch release = new CountDownLatch(1);
+        rebuilder.execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        when(cashInventoryRepository.findByMachineId(1L)).thenReturn(List.of(cassette(RS_500, 3), cassette(RS_100, 100)));
+        expireCache();
+        assertThat(planner.plan(ATM, new BigDecimal("2000"))).containsExactly(Map.entry(RS_500, 3), Map.entry(RS_100, 5));
+        ReflectionTestUtils.setField(planner, "cacheTtlNanos", TimeUnit.MINUTES.toNanos(5));
+        assertThat(cached().table).isNull();
+
+        release.countDown();
+        rebuilder.submit(() -> {
+        }).get(5, TimeUnit.SECONDS);
+        assertThat(cached().table.bands()).containsExactly(2, 7);
+        assertThat(planner.plan(ATM, new BigDecimal("2000"))).containsExactly(Map.entry(RS_500, 3), Map.entry(RS_100, 5));
+    }
+
+    private void load(DispenseObjective objective, AtmCashInventory... cassettes) {
+        load(objective, 300, cassettes);
+    }
+
+    private void load(DispenseObjective objective, long cacheTtlSeconds, AtmCashInventory... cassettes) {
+        when(cashInventoryRepository.findByMachineId(1L)).thenReturn(List.of(cassettes));
+
+        planner = new DispensePlanner(cashInventoryRepository);
+        ReflectionTestUtils.setField(planner, "objective", objective);
+        ReflectionTestUtils.setField(planner, "maxNotes", 40);
+        ReflectionTestUtils.setField(planner, "cacheTtlSeconds", cacheTtlSeconds);
+        ReflectionTestUtils.setField(planner, "minWithdrawalAmount", new BigDecimal("100"));
+        ReflectionTestUtils.setField(planner, "maxWithdrawalAmount", new BigDecimal("20000"));
+        ReflectionTestUtils.setField(planner, "withdrawalMultiple", new BigDecimal("100"));
+        planner.start();
+    }
+
+    /**
+     * Makes the cached cassettes expire on the next use.
+     */
+    private void expireCache() {
+        ReflectionTestUtils.setField(planner, "cacheTtlNanos", 0L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private MachineCassettes cached() {
+        return ((Map<Long, MachineCassettes>) ReflectionTestUtils.getField(planner, "machines")).get(1L);
+    }
+
+    private static AtmCashInventory cassette(int denomination, long notes) {
+        return AtmCashInventory.builder().machine(ATM).denomination(denomination).noteCount(notes).enabled(true).build();
+    }
+}
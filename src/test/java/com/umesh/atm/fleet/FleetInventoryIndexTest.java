@@ -0,0 +1,121 @@
+package com.umesh.atm.fleet;
+
+import com.umesh.atm.repository.AtmCashInventoryRepository;
+import com.umesh.atm.repository.AtmCashInventoryRepository.FleetCassette;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FleetInventoryIndexTest {
+
+    // Denominations in minor units
+    private static final int RS_500 = 50000;
+    private static final int RS_200 = 20000;
+    private static final int RS_100 = 10000;
+
+    @Mock
+    private AtmCashInventoryRepository cashInventoryRepository;
+
+    private FleetInventoryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FleetInventoryIndex(cashInventoryRepository);
+        ReflectionTestUtils.setField(index, "maxNotes", 10);
+        index.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.stop();
+    }
+
+    @Test
+    void canDispenseFromLoadedNotes() {
+        load(new Cassette(1L, "ATM1", "Mumbai", RS_500, 10L),
+                new Cassette(1L, "ATM1", "Mumbai", RS_200, 0L),
+                new Cassette(1L, "ATM1", "Mumbai", RS_100, 3L));
+
+        assertThat(index.canDispense(1L, 230000)).isTrue();
+        assertThat(index.canDispense(1L, 80000)).isTrue();
+        // Four 100s would be needed, only three are loaded
+        assertThat(index.canDispense(1L, 40000)).isFalse();
+        assertThat(index.canDispense(1L, 215000)).isFalse();
+    }
+
+    @Test
+    void backtracksWhenLargestNotesDoNotFit() {
+        load(new Cassette(1L, "ATM1", "Mumbai", RS_500, 10L),
+                new Cassette(1L, "ATM1", "Mumbai", RS_200, 10L));
+
+        // 500 + 100 is not possible, 3 x 200 is
+        assertThat(index.canDispense(1L, 60000)).isTrue();
+        assertThat(index.canDispense(1L, 160000)).isTrue();
+        assertThat(index.canDispense(1L, 10000)).isFalse();
+    }
+
+    @Test
+    void respectsNoteCap() {
+        load(new Cassette(1L, "ATM1", "Mumbai", RS_500, 100L));
+
+        assertThat(index.canDispense(1L, 500000)).isTrue();
+        assertThat(index.canDispense(1L, 550000)).isFalse();
+    }
+
+    @Test
+    void rejectsUnknownMachineAndNonPositiveAmount() {
+        load(new Cassette(1L, "ATM1", "Mumbai", RS_500, 10L));
+
+        assertThat(index.canDispense(2L, 50000)).isFalse();
+        assertThat(index.canDispense(1L, 0)).isFalse();
+    }
+
+    private void load(Cassette... cassettes) {
+        when(cashInventoryRepository.findFleetCassettes()).thenReturn(List.of(cassettes));
+        ReflectionTestUtils.invokeMethod(index, "reload");
+    }
+
+    private record Cassette(Long machineId, String atmCode, String city, Integer denomination, Long noteCount)
+            implements FleetCassette {
+
+        @Override
+        public Long getMachineId() {
+            return machineId;
+        }
+
+        @Override
+        public String getAtmCode() {
+            return atmCode;
+        }
+
+        @Override
+        public String getIfscCode() {
+            return "HDFC000" + machineId;
+        }
+
+        @Override
+        public String getCity() {
+            return city;
+        }
+
+        @Override
+        public Integer getDenomination() {
+            return denomination;
+        }
+
+        @Override
+        public Long getNoteCount() {
+            return noteCount;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.umesh.atm.fleet;
+
+import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.repository.AtmCashInventoryRepository;
+import com.umesh.atm.repository.AtmCashInventoryRepository.FleetCassette;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FleetInventoryRollupTest {
+
+    // Denominations in minor units
+    private static final int RS_500 = 50000;
+    private static final int RS_100 = 10000;
+
+    @Mock
+    private AtmCashInventoryRepository cashInventoryRepository;
+
+    private FleetInventoryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FleetInventoryIndex(cashInventoryRepository);
+        index.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.stop();
+    }
+
+    @Test
+    void rollsUpByCityAndFleet() {
+        load(new Cassette(1L, "ATM1", "Mumbai", RS_500, 10L),
+                new Cassette(2L, "ATM2", "Mumbai", RS_500, 5L),
+                new Cassette(3L, "ATM3", "Pune", RS_100, 20L));
+
+        assertThat(index.rollup(FleetGrouping.CITY))
+                .extracting(InventoryRollup::key, InventoryRollup::machines)
+                .containsExactly(tuple("Mumbai", 2), tuple("Pune", 1));
+        assertThat(index.fleetTotal().cash()).isEqualByComparingTo("9500");
+    }
+
+    @Test
+    void rollsUpByBranchAndMachine() {
+        load(new Cassette(1L, "ATM1", "Mumbai", RS_500, 10L),
+                new Cassette(1L, "ATM1", "Mumbai", RS_100, 4L),
+                new Cassette(2L, "ATM2", "Mumbai", RS_500, 5L));
+
+        assertThat(index.rollup(FleetGrouping.BRANCH))
+                .extracting(InventoryRollup::key, InventoryRollup::machines)
+                .containsExactly(tuple("HDFC0001", 1), tuple("HDFC0002", 1));
+        assertThat(index.rollup(FleetGrouping.MACHINE))
+                .extracting(InventoryRollup::key)
+                .containsExactly("ATM1", "ATM2");
+        assertThat(index.machine("ATM1").cash()).isEqualByComparingTo("5400");
+        assertThat(index.machine("ATM9")).isNull();
+    }
+
+    @Test
+    void tracksCommittedInventoryChanges() {
+        load(new Cassette(1L, "ATM1", "Mumbai", RS_500, 10L),
+                new Cassette(1L, "ATM1", "Mumbai", RS_100, 3L));
+
+        index.onInventoryChanged(AtmMachine.builder().id(1L).build(), Map.of(RS_500, -8));
+
+        assertThat(index.machine("ATM1").notes()).containsEntry(RS_500, 2L).containsEntry(RS_100, 3L);
+        assertThat(index.fleetTotal().cash()).isEqualByComparingTo("1300");
+    }
+
+    private void load(Cassette... cassettes) {
+        when(cashInventoryRepository.findFleetCassettes()).thenReturn(List.of(cassettes));
+        ReflectionTestUtils.invokeMethod(index, "reload");
+    }
+
+    private record Cassette(Long machineId, String atmCode, String city, Integer denomination, Long noteCount)
+            implements FleetCassette {
+
+        @Override
+        public Long getMachineId() {
+            return machineId;
+        }
+
+        @Override
+        public String getAtmCode() {
+            return atmCode;
+        }
+
+        @Override
+        public String getIfscCode() {
+            return "HDFC000" + machineId;
+        }
+
+        @Override
+        public String getCity() {
+            return city;
+        }
+
+        @Override
+        public Integer getDenomination() {
+            return denomination;
+        }
+
+        @Override
+        public Long getNoteCount() {
+            return noteCount;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.umesh.atm.geo;
+
+import com.umesh.atm.enums.AtmStatus;
+import com.umesh.atm.fleet.FleetInventoryIndex;
+import com.umesh.atm.repository.AtmMachineRepository;
+import com.umesh.atm.repository.AtmMachineRepository.GeoPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AtmLocatorTest {
+
+    // Mumbai
+    private static final double LATITUDE = 19.0760;
+    private static final double LONGITUDE = 72.8777;
+    private static final double KM_PER_DEGREE_LONGITUDE = GeoGrid.KM_PER_DEGREE * Math.cos(Math.toRadians(LATITUDE));
+
+    private static final AtmFilter ANY = new AtmFilter(false, null, null, null, null);
+
+    @Mock
+    private AtmMachineRepository atmMachineRepository;
+
+    @Mock
+    private FleetInventoryIndex fleetInventoryIndex;
+
+    private AtmLocator locator;
+
+    @BeforeEach
+    void setUp() {
+        locator = new AtmLocator(atmMachineRepository, fleetInventoryIndex);
+        ReflectionTestUtils.setField(locator, "cellDegrees", 0.05);
+        locator.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        locator.stop();
+    }
+
+    @Test
+    void findsNothingBeforeFirstLoad() {
+        assertThat(locator.nearest(LATITUDE, LONGITUDE, 5, 10, ANY)).isEmpty();
+    }
+
+    @Test
+    void returnsNearestFirst() {
+        load(atm(1, 1, 0), atm(2, 0, 3), atm(3, -0.5, 0), atm(4, 20, 0));
+
+        List<NearbyAtm> atms = locator.nearest(LATITUDE, LONGITUDE, 3, 10, ANY);
+
+        assertThat(atms).extracting(NearbyAtm::atmCode).containsExactly("ATM3", "ATM1", "ATM2");
+        assertThat(atms.get(0).distanceKm()).isCloseTo(0.5, within(0.01));
+        assertThat(atms.get(2).distanceKm()).isCloseTo(3, within(0.01));
+    }
+
+    @Test
+    void searchesOutwardUpToRadius() {
+        // Several cells away from the search point
+        load(atm(1, 0, 30));
+
+        assertThat(locator.nearest(LATITUDE, LONGITUDE, 5, 50, ANY)).extracting(NearbyAtm::atmCode).containsExactly("ATM1");
+        assertThat(locator.nearest(LATITUDE, LONGITUDE, 5, 25, ANY)).isEmpty();
+    }
+
+    @Test
+    void matchesBruteForceSearch() {
+        Random random = new Random(42);
+        List<GeoPoint> points = new ArrayList<>();
+        for (int id = 1; id <= 2000; id++) {
+            points.add(new Point(id, LATITUDE + random.nextDouble(-0.5, 0.5), LONGITUDE + random.nextDouble(-0.5, 0.5),
+                    true, true, false));
+        }
+        load(points.toArray(GeoPoint[]::new));
+
+        for (int query = 0; query < 20; query++) {
+            double latitude = LATITUDE + random.nextDouble(-0.6, 0.6);
+            double longitude = LONGITUDE + random.nextDouble(-0.6, 0.6);
+            int limit = 1 + random.nextInt(10);
+            double radiusKm = 1 + random.nextDouble(40);
+
+            List<String> expected = points.stream()
+                    .filter(point -> distanceKm(latitude, longitude, point) <= radiusKm)
+                    .sorted(Comparator.comparingDouble(point -> distanceKm(latitude, longitude, point)))
+                    .limit(limit)
+                    .map(GeoPoint::getAtmCode)
+                    .toList();
+
+            assertThat(locator.nearest(latitude, longitude, limit, radiusKm, ANY))
+                    .extracting(NearbyAtm::atmCode)
+                    .as("limit %d within %.1f km of %.4f,%.4f", limit, radiusKm, latitude, longitude)
+                    .containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void filtersByStatusAndCapabilities() {
+        load(new Point(1, LATITUDE, LONGITUDE, false, true, true),
+                new Point(2, LATITUDE + 0.01, LONGITUDE, true, true, false),
+                new Point(3, LATITUDE + 0.02, LONGITUDE, true, true, true));
+
+        assertThat(locator.nearest(LATITUDE, LONGITUDE, 5, 10, new AtmFilter(true, null, null, null, null)))
+                .extracting(NearbyAtm::atmCode).containsExactly("ATM2", "ATM3");
+        assertThat(locator.nearest(LATITUDE, LONGITUDE, 5, 10, new AtmFilter(false, null, true, null, null)))
+                .extracting(NearbyAtm::atmCode).containsExactly("ATM1", "ATM3");
+        assertThat(locator.nearest(LATITUDE, LONGITUDE, 5, 10, new AtmFilter(true, null, false, null, null)))
+                .extracting(NearbyAtm::atmCode).containsExactly("ATM2");
+    }
+
+    @Test
+    void checksCashOnlyForWithdrawalCandidates() {
+        load(new Point(1, LATITUDE, LONGITUDE, true, false, false),
+                new Point(2, LATITUDE + 0.01, LONGITUDE, true, true, false),
+                new Point(3, LATITUDE + 0.02, LONGITUDE, true, true, false));
+        when(fleetInventoryIndex.canDispense(2L, 200000L)).thenReturn(false);
+        when(fleetInventoryIndex.canDispense(3L, 200000L)).thenReturn(true);
+
+        List<NearbyAtm> atms = locator.nearest(LATITUDE, LONGITUDE, 5, 10, new AtmFilter(true, null, null, null, 200000L));
+
+        assertThat(atms).extracting(NearbyAtm::atmCode).containsExactly("ATM3");
+        verify(fleetInventoryIndex, never()).canDispense(eq(1L), anyLong());
+    }
+
+    private void load(GeoPoint... points) {
+        when(atmMachineRepository.findGeoPoints()).thenReturn(List.of(points));
+        ReflectionTestUtils.invokeMethod(locator, "reload");
+    }
+
+    /**
+     * An active ATM offset from the search point by the given km north and east.
+     */
+    private static GeoPoint atm(long id, double northKm, double eastKm) {
+        return new Point(id, LATITUDE + northKm / GeoGrid.KM_PER_DEGREE, LONGITUDE + eastKm / KM_PER_DEGREE_LONGITUDE,
+                true, true, false);
+    }
+
+    private static double distanceKm(double latitude, double longitude, GeoPoint point) {
+        double lat2 = point.getLatitude().doubleValue();
+        double lon2 = point.getLongitude().doubleValue();
+        double dLat = Math.toRadians(lat2 - latitude);
+        double dLon = Math.toRadians(lon2 - longitude);
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLon / 2), 2);
+        return 2 * 6371.0088 * Math.asin(Math.sqrt(a));
+    }
+
+    private record Point(long id, double latitude, double longitude, boolean active, boolean withdrawal,
+                         boolean deposit) implements GeoPoint {
+
+        @Override
+        public Long getMachineId() {
+            return id;
+        }
+
+        @Override
+        public String getAtmCode() {
+            return "ATM" + id;
+        }
+
+        @Override
+        public String getCity() {
+            return "Mumbai";
+        }
+
+        @Override
+        public String getPinCode() {
+            return "400001";
+        }
+
+        @Override
+        public BigDecimal getLatitude() {
+            return BigDecimal.valueOf(latitude);
+        }
+
+        @Override
+        public BigDecimal getLongitude() {
+            return BigDecimal.valueOf(longitude);
+        }
+
+        @Override
+        public AtmStatus getMachineStatus() {
+            return active ? AtmStatus.ACTIVE : AtmStatus.INACTIVE;
+        }
+
+        @Override
+        public AtmStatus getLocationStatus() {
+            return AtmStatus.ACTIVE;
+        }
+
+        @Override
+        public boolean isMachineWithdrawal() {
+            return withdrawal;
+        }
+
+        @Override
+        public boolean isLocationWithdrawal() {
+            return true;
+        }
+
+        @Override
+        public boolean isMachineDeposit() {
+            return deposit;
+        }
+
+        @Override
+        public boolean isLocationDeposit() {
+            return true;
+        }
+
+        @Override
+        public boolean isMachineCardless() {
+            return false;
+        }
+
+        @Override
+        public boolean isLocationCardless() {
+            return true;
+        }
+    }
+}
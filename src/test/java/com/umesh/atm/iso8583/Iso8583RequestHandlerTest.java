@@ -0,0 +1,255 @@
+package com.umesh.atm.iso8583;
+
+import com.umesh.atm.chain.HandlerResult;
+import com.umesh.atm.chain.transaction.TransactionProcessingChain;
+import com.umesh.atm.entity.AtmMachine;
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.TxnStatus;
+import com.umesh.atm.repository.AtmMachineRepository;
+import com.umesh.atm.service.AtmSessionService;
+import com.umesh.atm.service.CashService;
+import com.umesh.atm.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.umesh.atm.iso8583.IsoMessageParserTest.encode;
+import static com.umesh.atm.iso8583.IsoMessageParserTest.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class Iso8583RequestHandlerTest {
+
+    private static final String CARD = "4111111111111111";
+    private static final String TERMINAL = "ATM00001";
+    private static final String OTHER_TERMINAL = "ATM00002";
+
+    @Mock
+    private TransactionProcessingChain transactionProcessingChain;
+
+    @Mock
+    private AtmSessionService sessionService;
+
+    @Mock
+    private CashService cashService;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private AtmMachineRepository atmMachineRepository;
+
+    private Iso8583RequestHandler handler;
+    private AtmMachine atmMachine;
+
+    @BeforeEach
+    void setUp() {
+        handler = new Iso8583RequestHandler(transactionProcessingChain, sessionService, cashService,
+                transactionService, atmMachineRepository);
+        ReflectionTestUtils.setField(handler, "pinKeyHex", PinBlocksTest.PIN_KEY);
+        handler.start();
+        atmMachine = AtmMachine.builder().id(1L).atmCode(TERMINAL).ifscCode("HDFC0000001").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        handler.stop();
+    }
+
+    @Test
+    void answersEchoTest() {
+        IsoMessage response = answer(new IsoMessageBuilder("0800").set(11, "1").set(70, "301"));
+
+        assertThat(response.mti()).isEqualTo("0810");
+        assertThat(response.getString(39)).isEqualTo("00");
+        assertThat(response.getNumber(70)).isEqualTo(301);
+    }
+
+    @Test
+    void declinesFinancialRequestWithoutPinBlock() {
+        when(atmMachineRepository.findByAtmCode(TERMINAL)).thenReturn(Optional.of(atmMachine));
+
+        IsoMessage response = answer(withdrawal("000001"));
+
+        assertThat(response.getString(39)).isEqualTo("55");
+        verifyNoInteractions(transactionProcessingChain, cashService);
+    }
+
+    @Test
+    void declinesUnknownTerminal() {
+        when(atmMachineRepository.findByAtmCode(TERMINAL)).thenReturn(Optional.empty());
+
+        assertThat(answer(withdrawal("000001")).getString(39)).isEqualTo("58");
+    }
+
+    @Test
+    void reversalRestoresDispensedNotesOnce() {
+        Transaction original = withdrawn(TxnStatus.APPROVED);
+        Map<Integer, Integer> notes = Map.of(50000, 4);
+        when(atmMachineRepository.findByAtmCode(TERMINAL)).thenReturn(Optional.of(atmMachine));
+        when(sessionService.createSession(atmMachine, CARD)).thenReturn("session-1");
+        when(transactionProcessingChain.processPinVerifiedTransaction(any())).thenReturn(HandlerResult.success());
+        when(transactionService.createTransaction(eq(atmMachine), eq(CARD), eq("010000"), any(BigDecimal.class)))
+                .thenReturn(original);
+        when(cashService.dispenseCash(atmMachine, CARD, new BigDecimal("2000.00"))).thenReturn(notes);
+
+        IsoMessage approved = answer(withPinBlock(withdrawal("000001"), "1234"));
+        assertThat(approved.getString(39)).isEqualTo("00");
+        assertThat(approved.getString(37)).isEqualTo("501512000010");
+        verify(transactionProcessingChain).processPinVerifiedTransaction(argThat(request ->
+                "1234".equals(request.getPin()) && "session-1".equals(request.getSessionId())));
+
+        when(transactionService.getTransactionByRrn("501512000010")).thenReturn(original);
+        when(transactionService.reverseTransaction(eq(10L), anyString()))
+                .thenReturn(Transaction.builder().id(11L).build())
+                .thenReturn(null);
+
+        assertThat(answer(reversal("000002", "501512000010")).getString(39)).isEqualTo("00");
+        // A repeated advice is acknowledged without touching inventory again
+        assertThat(answer(reversal("000003", "501512000010")).getString(39)).isEqualTo("00");
+
+        verify(cashService).updateCashInventory(atmMachine, notes);
+    }
+
+    @Test
+    void withdrawalIsAnsweredWithTheStoredRrn() {
+        when(atmMachineRepository.findByAtmCode(TERMINAL)).thenReturn(Optional.of(atmMachine));
+        when(sessionService.createSession(atmMachine, CARD)).thenReturn("session-1");
+        when(transactionProcessingChain.processPinVerifiedTransaction(any())).thenReturn(HandlerResult.success());
+        when(transactionService.createTransaction(eq(atmMachine), eq(CARD), eq("010000"), any(BigDecimal.class)))
+                .thenReturn(withdrawn(TxnStatus.APPROVED));
+        when(cashService.dispenseCash(atmMachine, CARD, new BigDecimal("2000.00"))).thenReturn(Map.of(50000, 4));
+
+        // The terminal's own RRN is not what the transaction is stored under
+        IsoMessage response = answer(withPinBlock(withdrawal("000001").set(37, "TERMINALRRN1"), "1234"));
+
+        assertThat(response.getString(39)).isEqualTo("00");
+        assertThat(response.getString(37)).isEqualTo("501512000010");
+    }
+
+    @Test
+    void reversalEchoesTheOriginalRrn() {
+        assertThat(answer(reversal("000002", "999999999999")).getString(37)).isEqualTo("999999999999");
+    }
+
+    @Test
+    void reversalOfDeclinedWithdrawalLeavesInventoryAlone() {
+        Transaction declined = withdrawn(TxnStatus.DECLINED);
+        when(transactionService.getTransactionByRrn("501512000010")).thenReturn(declined);
+        when(transactionService.reverseTransaction(eq(10L), anyString())).thenReturn(Transaction.builder().id(11L).build());
+
+        assertThat(answer(reversal("000002", "501512000010")).getString(39)).isEqualTo("00");
+        verify(cashService, never()).updateCashInventory(any(), any());
+    }
+
+    @Test
+    void reversalFromAnotherTerminalIsRejected() {
+        when(transactionService.getTransactionByRrn("501512000010")).thenReturn(withdrawn(TxnStatus.APPROVED));
+
+        IsoMessage response = answer(reversal("000002", "501512000010").set(41, OTHER_TERMINAL));
+
+        assertThat(response.getString(39)).isEqualTo("25");
+        verify(transactionService, never()).reverseTransaction(any(), any());
+        verify(cashService, never()).updateCashInventory(any(), any());
+    }
+
+    @Test
+    void reversalForAnotherCardOrAmountIsRejected() {
+        when(transactionService.getTransactionByRrn("501512000010")).thenReturn(withdrawn(TxnStatus.APPROVED));
+
+        assertThat(answer(reversal("000002", "501512000010").set(2, "4000000000000002")).getString(39))
+                .isEqualTo("25");
+        assertThat(answer(reversal("000003", "501512000010").set(4, "100000")).getString(39)).isEqualTo("25");
+        assertThat(answer(new IsoMessageBuilder("0400").set(2, CARD).set(11, "000004").set(37, "501512000010")
+                .set(41, TERMINAL)).getString(39)).isEqualTo("25");
+        verify(transactionService, never()).reverseTransaction(any(), any());
+    }
+
+    @Test
+    void reversalOfUnknownRrnIsRejected() {
+        assertThat(answer(reversal("000002", "999999999999")).getString(39)).isEqualTo("25");
+        verify(transactionService, never()).reverseTransaction(any(), any());
+    }
+
+    private IsoMessage answer(IsoMessageBuilder request) {
+        return parse(handler.handle(IsoMessageParser.parse(encode(request))));
+    }
+
+    private IsoMessage answer(IsoMessage request) {
+        return parse(handler.handle(request));
+    }
+
+    private static IsoMessageBuilder withdrawal(String stan) {
+        return new IsoMessageBuilder("0200")
+                .set(2, CARD).set(3, "010000").set(4, "200000").set(11, stan).set(41, TERMINAL).set(49, "356");
+    }
+
+    private static IsoMessageBuilder reversal(String stan, String rrn) {
+        return new IsoMessageBuilder("0400")
+                .set(2, CARD).set(4, "200000").set(11, stan).set(37, rrn).set(41, TERMINAL);
+    }
+
+    /**
+     * The ₹2000 withdrawal that {@link #withdrawal(String)} requests, as stored.
+     */
+    private static Transaction withdrawn(TxnStatus status) {
+        return Transaction.builder().id(10L).rrn("501512000010").processingCode("010000").terminalId(TERMINAL)
+                .cardToken(CARD).amountMinor(200000L).status(status).build();
+    }
+
+    @Test
+    void pinBlockIsDecipheredUnderTheTerminalPinKey() {
+        when(atmMachineRepository.findByAtmCode(TERMINAL)).thenReturn(Optional.of(atmMachine));
+        when(sessionService.createSession(atmMachine, CARD)).thenReturn("session-1");
+        when(transactionProcessingChain.processPinVerifiedTransaction(any()))
+                .thenReturn(HandlerResult.failure("Incorrect PIN", "PIN_INCORRECT"));
+
+        // A clear block, as a terminal without the key would send it
+        IsoMessage request = IsoMessageParser.parse(encode(withdrawal("000001").set(52, "        ")));
+        request.frame().put(request.offset(52), PinBlocksTest.format0("1234", CARD));
+
+        assertThat(answer(request).getString(39)).isEqualTo("55");
+        verify(transactionProcessingChain).processPinVerifiedTransaction(argThat(txn -> !"1234".equals(txn.getPin())));
+    }
+
+    @Test
+    void reportsWhetherPinKeyIsConfigured() {
+        assertThat(handler.isPinKeyConfigured()).isTrue();
+
+        Iso8583RequestHandler unkeyed = new Iso8583RequestHandler(transactionProcessingChain, sessionService,
+                cashService, transactionService, atmMachineRepository);
+        unkeyed.start();
+        try {
+            assertThat(unkeyed.isPinKeyConfigured()).isFalse();
+        } finally {
+            unkeyed.stop();
+        }
+    }
+
+    /**
+     * Encodes the request with a placeholder DE 52, then writes the PIN block, enciphered under the
+     * terminal PIN key, over it.
+     */
+    private static IsoMessage withPinBlock(IsoMessageBuilder request, String pin) {
+        IsoMessage message = IsoMessageParser.parse(encode(request.set(52, "        ")));
+        message.frame().put(message.offset(52),
+                PinBlocksTest.encrypt(PinBlocksTest.format0(pin, CARD), PinBlocks.tripleDesKey(PinBlocksTest.PIN_KEY)));
+        return message;
+    }
+}
@@ -0,0 +1,193 @@
+package com.umesh.atm.iso8583;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.umesh.atm.iso8583.IsoMessageParserTest.encode;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the listener on an ephemeral port against a stub handler that answers every request with 00,
+ * optionally holding a request (by STAN) until the test releases it.
+ */
+class Iso8583ServerTest {
+
+    private static final String TERMINAL = "ATM00001";
+
+    private final Iso8583RequestHandler requestHandler = mock(Iso8583RequestHandler.class);
+    private final List<String> handled = new CopyOnWriteArrayList<>();
+    private final Map<String, CountDownLatch> held = new ConcurrentHashMap<>();
+
+    private Iso8583Server server;
+    private Socket socket;
+    private DataInputStream in;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(requestHandler.isPinKeyConfigured()).thenReturn(true);
+        when(requestHandler.handle(any())).thenAnswer(invocation -> {
+            IsoMessage request = invocation.getArgument(0);
+            String stan = request.getString(11);
+            handled.add(request.mti() + ':' + stan);
+            CountDownLatch gate = held.get(stan);
+            if (gate != null) {
+                gate.await(5, TimeUnit.SECONDS);
+            }
+            return IsoMessageBuilder.responseTo(request, 11, 41).set(39, "00");
+        });
+
+        server = new Iso8583Server(requestHandler);
+        ReflectionTestUtils.setField(server, "enabled", true);
+        ReflectionTestUtils.setField(server, "port", 0);
+        ReflectionTestUtils.setField(server, "workerThreads", 4);
+        ReflectionTestUtils.setField(server, "maxFrameBytes", 4096);
+        ReflectionTestUtils.setField(server, "bufferPoolSize", 16);
+        ReflectionTestUtils.setField(server, "maxInFlight", 64);
+        ReflectionTestUtils.setField(server, "responseCacheSeconds", 300L);
+        server.start();
+
+        ServerSocketChannel channel = (ServerSocketChannel) ReflectionTestUtils.getField(server, "serverChannel");
+        socket = new Socket("localhost", ((InetSocketAddress) channel.getLocalAddress()).getPort());
+        socket.setSoTimeout(5000);
+        in = new DataInputStream(socket.getInputStream());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        held.values().forEach(CountDownLatch::countDown);
+        socket.close();
+        server.stop();
+    }
+
+    @Test
+    void answersEveryFrameOfOneWrite() throws IOException {
+        send(echoTest("000001"), echoTest("000002"), echoTest("000003"));
+
+        assertThat(List.of(receive().getString(11), receive().getString(11), receive().getString(11)))
+                .containsExactlyInAnyOrder("000001", "000002", "000003");
+    }
+
+    @Test
+    void answersPipelinedRequestsAsTheyComplete() throws IOException {
+        CountDownLatch slow = hold("000001");
+        send(withdrawal("000001"), withdrawal("000002"));
+
+        assertThat(receive().getString(11)).isEqualTo("000002");
+        slow.countDown();
+        assertThat(receive().getString(11)).isEqualTo("000001");
+    }
+
+    @Test
+    void runsReversalAfterItsOriginal() throws IOException {
+        CountDownLatch original = hold("000001");
+        IsoMessageBuilder reversal = new IsoMessageBuilder("0400").set(11, "000002").set(41, TERMINAL)
+                .set(90, "0200000001" + "0".repeat(32));
+        send(withdrawal("000001"), reversal, echoTest("000003"));
+
+        // Unrelated requests from the terminal are not held up
+        assertThat(receive().getString(11)).isEqualTo("000003");
+        assertThat(handled).doesNotContain("0400:000002");
+
+        original.countDown();
+        assertThat(receive().mti()).isEqualTo("0210");
+        assertThat(receive().mti()).isEqualTo("0410");
+    }
+
+    @Test
+    void answersRetransmissionFromStoredResponse() throws IOException {
+        send(withdrawal("000001"));
+        byte[] first = receiveFrame();
+
+        send(new IsoMessageBuilder("0201").set(2, "4111111111111111").set(3, "010000").set(4, "200000")
+                .set(11, "000001").set(41, TERMINAL));
+        byte[] repeated = receiveFrame();
+
+        assertThat(repeated).isEqualTo(first);
+        verify(requestHandler, times(1)).handle(any());
+    }
+
+    @Test
+    void dropsMalformedFrameAndKeepsConnection() throws IOException {
+        socket.getOutputStream().write(new byte[]{0, 3, '0', '8', '0'});
+        send(echoTest("000004"));
+
+        assertThat(receive().getString(11)).isEqualTo("000004");
+    }
+
+    @Test
+    void closesConnectionOnOversizedFrame() throws IOException {
+        socket.getOutputStream().write(new byte[]{(byte) 0xff, (byte) 0xff, 0, 0});
+
+        assertThatThrownBy(this::receiveFrame).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void refusesToStartWithoutPinKey() {
+        Iso8583RequestHandler unkeyed = mock(Iso8583RequestHandler.class);
+        Iso8583Server unkeyedServer = new Iso8583Server(unkeyed);
+        ReflectionTestUtils.setField(unkeyedServer, "enabled", true);
+        ReflectionTestUtils.setField(unkeyedServer, "port", 0);
+
+        assertThatThrownBy(unkeyedServer::start).isInstanceOf(IllegalStateException.class);
+        assertThat(ReflectionTestUtils.getField(unkeyedServer, "serverChannel")).isNull();
+    }
+
+    private CountDownLatch hold(String stan) {
+        CountDownLatch gate = new CountDownLatch(1);
+        held.put(stan, gate);
+        return gate;
+    }
+
+    private void send(IsoMessageBuilder... messages) throws IOException {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        for (IsoMessageBuilder message : messages) {
+            ByteBuffer frame = encode(message);
+            frames.write(frame.remaining() >> 8);
+            frames.write(frame.remaining());
+            frames.write(frame.array(), 0, frame.remaining());
+        }
+        socket.getOutputStream().write(frames.toByteArray());
+        socket.getOutputStream().flush();
+    }
+
+    private byte[] receiveFrame() throws IOException {
+        byte[] frame = new byte[in.readUnsignedShort()];
+        in.readFully(frame);
+        return frame;
+    }
+
+    private IsoMessage receive() throws IOException {
+        return IsoMessageParser.parse(ByteBuffer.wrap(receiveFrame()));
+    }
+
+    private static IsoMessageBuilder echoTest(String stan) {
+        return new IsoMessageBuilder("0800").set(11, stan).set(41, TERMINAL).set(70, "301");
+    }
+
+    private static IsoMessageBuilder withdrawal(String stan) {
+        return new IsoMessageBuilder("0200")
+                .set(2, "4111111111111111").set(3, "010000").set(4, "200000").set(11, stan).set(41, TERMINAL);
+    }
+}
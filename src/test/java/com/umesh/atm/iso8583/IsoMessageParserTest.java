@@ -0,0 +1,116 @@
+package com.umesh.atm.iso8583;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IsoMessageParserTest {
+
+    @Test
+    void parsesWhatTheBuilderEncodes() {
+        IsoMessage message = parse(new IsoMessageBuilder("0200")
+                .set(2, "4111111111111111")
+                .set(3, "10000")
+                .set(4, "150000")
+                .set(11, "42")
+                .set(41, "ATM1")
+                .set(54, "0001356C000000150000"));
+
+        assertThat(message.mti()).isEqualTo("0200");
+        assertThat(message.getString(2)).isEqualTo("4111111111111111");
+        assertThat(message.getString(3)).isEqualTo("010000");
+        assertThat(message.getNumber(4)).isEqualTo(150000);
+        assertThat(message.getString(11)).isEqualTo("000042");
+        assertThat(message.getString(41)).isEqualTo("ATM1");
+        assertThat(message.getString(54)).isEqualTo("0001356C000000150000");
+        assertThat(message.has(39)).isFalse();
+        assertThat(message.getString(39)).isNull();
+        assertThat(message.getNumber(39)).isEqualTo(-1);
+    }
+
+    @Test
+    void readsSecondaryBitmapFields() {
+        IsoMessage message = parse(new IsoMessageBuilder("0800").set(11, "1").set(70, "301"));
+
+        // Bit 1 set, plus the secondary bitmap before the fields
+        assertThat(message.frame().getLong(4)).isNegative();
+        assertThat(message.getNumber(70)).isEqualTo(301);
+        assertThat(message.getString(11)).isEqualTo("000001");
+    }
+
+    @Test
+    void echoesRequestFieldsIntoResponse() {
+        IsoMessage request = parse(new IsoMessageBuilder("0200")
+                .set(2, "4111111111111111").set(11, "000042").set(41, "ATM00001"));
+
+        IsoMessage response = parse(IsoMessageBuilder.responseTo(request, 2, 11, 37, 41).set(39, "00"));
+
+        assertThat(response.mti()).isEqualTo("0210");
+        assertThat(response.getString(2)).isEqualTo("4111111111111111");
+        assertThat(response.getString(11)).isEqualTo("000042");
+        assertThat(response.getString(41)).isEqualTo("ATM00001");
+        assertThat(response.has(37)).isFalse();
+        assertThat(response.getString(39)).isEqualTo("00");
+    }
+
+    @Test
+    void rejectsTruncatedFrame() {
+        ByteBuffer frame = encode(new IsoMessageBuilder("0200").set(11, "1").set(41, "ATM00001"));
+        frame.limit(frame.limit() - 3);
+
+        assertThatThrownBy(() -> IsoMessageParser.parse(frame)).isInstanceOf(IsoFormatException.class);
+        assertThatThrownBy(() -> IsoMessageParser.parse(ByteBuffer.wrap("0200".getBytes())))
+                .isInstanceOf(IsoFormatException.class);
+    }
+
+    @Test
+    void rejectsTrailingBytes() {
+        ByteBuffer frame = encode(new IsoMessageBuilder("0800").set(11, "1"));
+        frame.limit(frame.limit() + 1);
+
+        assertThatThrownBy(() -> IsoMessageParser.parse(frame))
+                .isInstanceOf(IsoFormatException.class)
+                .hasMessageContaining("trailing");
+    }
+
+    @Test
+    void rejectsUnsupportedField() {
+        ByteBuffer frame = encode(new IsoMessageBuilder("0800").set(11, "1"));
+        // Field 5 has no definition
+        frame.putLong(4, frame.getLong(4) | Long.MIN_VALUE >>> 4);
+
+        assertThatThrownBy(() -> IsoMessageParser.parse(frame))
+                .isInstanceOf(IsoFormatException.class)
+                .hasMessageContaining("field 5");
+    }
+
+    @Test
+    void rejectsMalformedLengthPrefix() {
+        ByteBuffer frame = encode(new IsoMessageBuilder("0200").set(2, "4111111111111111"));
+        frame.put(12, (byte) 'x');
+
+        assertThatThrownBy(() -> IsoMessageParser.parse(frame)).isInstanceOf(IsoFormatException.class);
+    }
+
+    @Test
+    void rejectsValuesLongerThanTheirField() {
+        IsoMessageBuilder builder = new IsoMessageBuilder("0210");
+
+        assertThatThrownBy(() -> builder.set(39, "000")).isInstanceOf(IsoFormatException.class);
+        assertThatThrownBy(() -> builder.set(5, "1")).isInstanceOf(IsoFormatException.class);
+        assertThatThrownBy(() -> new IsoMessageBuilder("02")).isInstanceOf(IsoFormatException.class);
+    }
+
+    static ByteBuffer encode(IsoMessageBuilder builder) {
+        ByteBuffer frame = ByteBuffer.allocate(4096);
+        builder.encode(frame);
+        return frame.flip();
+    }
+
+    static IsoMessage parse(IsoMessageBuilder builder) {
+        return IsoMessageParser.parse(encode(builder));
+    }
+}
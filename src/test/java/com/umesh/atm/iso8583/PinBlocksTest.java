@@ -0,0 +1,106 @@
+package com.umesh.atm.iso8583;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PinBlocksTest {
+
+    private static final String PAN = "4111111111111111";
+
+    static final String PIN_KEY = "0123456789ABCDEFFEDCBA9876543210";
+
+    @Test
+    void decodesFormat0Block() {
+        assertThat(PinBlocks.decodeFormat0(ByteBuffer.wrap(format0("1234", PAN)), PAN)).isEqualTo("1234");
+        assertThat(PinBlocks.decodeFormat0(ByteBuffer.wrap(format0("987654", PAN)), PAN)).isEqualTo("987654");
+    }
+
+    @Test
+    void rejectsBlockForAnotherPan() {
+        byte[] block = format0("1234", "5500000000000004");
+
+        assertThat(PinBlocks.decodeFormat0(ByteBuffer.wrap(block), PAN)).isNotEqualTo("1234");
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        byte[] block = format0("1234", PAN);
+        byte[] wrongFormat = block.clone();
+        wrongFormat[0] ^= 0x10;
+
+        assertThat(PinBlocks.decodeFormat0(ByteBuffer.wrap(wrongFormat), PAN)).isNull();
+        assertThat(PinBlocks.decodeFormat0(ByteBuffer.wrap(block, 0, 7), PAN)).isNull();
+        assertThat(PinBlocks.decodeFormat0(ByteBuffer.wrap(block), "411111111111")).isNull();
+        assertThat(PinBlocks.decodeFormat0(null, PAN)).isNull();
+    }
+
+    @Test
+    void decryptsBlockUnderPinKey() {
+        SecretKey key = PinBlocks.tripleDesKey(PIN_KEY);
+        byte[] enciphered = encrypt(format0("1234", PAN), key);
+
+        assertThat(enciphered).isNotEqualTo(format0("1234", PAN));
+        assertThat(PinBlocks.decodeFormat0(PinBlocks.decrypt(ByteBuffer.wrap(enciphered), key), PAN)).isEqualTo("1234");
+    }
+
+    @Test
+    void blockUnderAnotherKeyDoesNotDecode() {
+        byte[] enciphered = encrypt(format0("1234", PAN), PinBlocks.tripleDesKey("FEDCBA98765432100123456789ABCDEF"));
+
+        String pin = PinBlocks.decodeFormat0(PinBlocks.decrypt(ByteBuffer.wrap(enciphered),
+                PinBlocks.tripleDesKey(PIN_KEY)), PAN);
+        assertThat(pin).isNotEqualTo("1234");
+    }
+
+    @Test
+    void expandsDoubleLengthKeyToK1K2K1() {
+        SecretKey doubleLength = PinBlocks.tripleDesKey(PIN_KEY);
+        SecretKey tripleLength = PinBlocks.tripleDesKey(PIN_KEY + PIN_KEY.substring(0, 16));
+
+        assertThat(doubleLength.getEncoded()).isEqualTo(tripleLength.getEncoded());
+    }
+
+    @Test
+    void rejectsKeyOfWrongLength() {
+        assertThatThrownBy(() -> PinBlocks.tripleDesKey("0123456789ABCDEF01"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PinBlocks.tripleDesKey("not hex"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(PinBlocks.decrypt(ByteBuffer.wrap(new byte[7]), PinBlocks.tripleDesKey(PIN_KEY))).isNull();
+    }
+
+    /**
+     * Enciphers a clear PIN block the way a terminal does before sending it.
+     */
+    static byte[] encrypt(byte[] block, SecretKey key) {
+        try {
+            Cipher cipher = Cipher.getInstance("DESede/ECB/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key);
+            return cipher.doFinal(block);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Builds a clear ISO 9564 format 0 PIN block.
+     */
+    static byte[] format0(String pin, String pan) {
+        String pinField = String.format("0%X%s", pin.length(), pin) + "F".repeat(14 - pin.length());
+        String panField = "0000" + pan.substring(pan.length() - 13, pan.length() - 1);
+        byte[] block = new byte[8];
+        for (int i = 0; i < 8; i++) {
+            int pinByte = Integer.parseInt(pinField.substring(2 * i, 2 * i + 2), 16);
+            int panByte = Integer.parseInt(panField.substring(2 * i, 2 * i + 2), 16);
+            block[i] = (byte) (pinByte ^ panByte);
+        }
+        return block;
+    }
+}
@@ -0,0 +1,129 @@
+package com.umesh.atm.journal;
+
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.TxnStatus;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JournalRecordCodecTest {
+
+    private static final int VERSION = JournalRecordCodec.FORMAT_VERSION;
+
+    @Test
+    void roundTripsEveryField() {
+        ByteBuffer buffer = segment(1);
+        Transaction reversal = transaction(42L, TxnStatus.REVERSED);
+        reversal.setMti("0420");
+        reversal.setNetworkId("NFS");
+        reversal.setOriginalTransactionId(41L);
+
+        JournalRecordCodec.encode(buffer, JournalRecordCodec.HEADER_SIZE, JournalRecordCodec.TYPE_CREATED, reversal);
+        Transaction decoded = JournalRecordCodec.decode(buffer, JournalRecordCodec.HEADER_SIZE, VERSION);
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(reversal);
+    }
+
+    @Test
+    void keepsMissingOptionalFieldsNull() {
+        ByteBuffer buffer = segment(1);
+        Transaction pending = transaction(1L, TxnStatus.PENDING);
+
+        JournalRecordCodec.encode(buffer, JournalRecordCodec.HEADER_SIZE, JournalRecordCodec.TYPE_CREATED, pending);
+        Transaction decoded = JournalRecordCodec.decode(buffer, JournalRecordCodec.HEADER_SIZE, VERSION);
+
+        assertThat(decoded.getCompletedAt()).isNull();
+        assertThat(decoded.getResponseCode()).isNull();
+        assertThat(decoded.getNetworkId()).isNull();
+        assertThat(decoded.getOriginalTransactionId()).isNull();
+    }
+
+    @Test
+    void skipsEmptyAndTornRecords() {
+        ByteBuffer buffer = segment(2);
+        int first = JournalRecordCodec.HEADER_SIZE;
+        JournalRecordCodec.encode(buffer, first, JournalRecordCodec.TYPE_CREATED, transaction(1L, TxnStatus.PENDING));
+        // Half-written record: the body no longer matches its checksum
+        buffer.put(first + 60, (byte) 'X');
+
+        assertThat(JournalRecordCodec.decode(buffer, first, VERSION)).isNull();
+        assertThat(JournalRecordCodec.decode(buffer, first + JournalRecordCodec.RECORD_SIZE, VERSION)).isNull();
+    }
+
+    @Test
+    void readsOwnHeader() {
+        ByteBuffer buffer = segment(1);
+
+        assertThat(JournalRecordCodec.formatVersion(buffer)).isEqualTo(VERSION);
+        assertThat(JournalRecordCodec.firstRecordOffset(VERSION)).isEqualTo(JournalRecordCodec.HEADER_SIZE);
+    }
+
+    @Test
+    void rejectsUnknownFormatVersion() {
+        ByteBuffer buffer = segment(1);
+        buffer.putInt(4, VERSION + 1);
+
+        assertThatThrownBy(() -> JournalRecordCodec.formatVersion(buffer)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void decodesHeaderlessVersion1Segments() {
+        Transaction approved = transaction(7L, TxnStatus.APPROVED);
+        ByteBuffer buffer = version1Segment(approved, transaction(8L, TxnStatus.PENDING));
+
+        int version = JournalRecordCodec.formatVersion(buffer);
+
+        assertThat(version).isEqualTo(1);
+        assertThat(JournalRecordCodec.firstRecordOffset(version)).isZero();
+        assertThat(JournalRecordCodec.decode(buffer, 0, version)).usingRecursiveComparison().isEqualTo(approved);
+        assertThat(JournalRecordCodec.decode(buffer, JournalRecordCodec.V1_RECORD_SIZE, version).getId()).isEqualTo(8L);
+    }
+
+    /**
+     * Lays records out as a version 1 segment: no header, 160-byte records, checksum over bytes 8..160.
+     */
+    static ByteBuffer version1Segment(Transaction... records) {
+        ByteBuffer buffer = ByteBuffer.allocate(records.length * JournalRecordCodec.V1_RECORD_SIZE);
+        ByteBuffer scratch = ByteBuffer.allocate(JournalRecordCodec.RECORD_SIZE);
+        CRC32C crc = new CRC32C();
+        for (int i = 0; i < records.length; i++) {
+            JournalRecordCodec.encode(scratch, 0, JournalRecordCodec.TYPE_CREATED, records[i]);
+            ByteBuffer record = buffer.slice(i * JournalRecordCodec.V1_RECORD_SIZE, JournalRecordCodec.V1_RECORD_SIZE);
+            record.put(0, scratch, 0, JournalRecordCodec.V1_RECORD_SIZE);
+            record.putLong(156, 0);
+            crc.reset();
+            crc.update(record.slice(8, JournalRecordCodec.V1_RECORD_SIZE - 8));
+            record.putInt(4, (int) crc.getValue());
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer segment(int records) {
+        ByteBuffer buffer = ByteBuffer.allocate(JournalRecordCodec.HEADER_SIZE + records * JournalRecordCodec.RECORD_SIZE);
+        JournalRecordCodec.encodeHeader(buffer);
+        return buffer;
+    }
+
+    static Transaction transaction(long id, TxnStatus status) {
+        return Transaction.builder()
+                .id(id)
+                .mti("0200")
+                .processingCode("010000")
+                .stan("000001")
+                .rrn("501512000001")
+                .terminalId("ATM001")
+                .cardToken("tok_4f2a9c")
+                .amountMinor(250_000L)
+                .currency("INR")
+                .localTxnDateTime(Instant.parse("2025-01-15T10:00:00Z"))
+                .status(status)
+                .responseCode(status == TxnStatus.PENDING ? null : "00")
+                .completedAt(status == TxnStatus.PENDING ? null : Instant.parse("2025-01-15T10:00:01Z"))
+                .build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.umesh.atm.journal;
+
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.TxnStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.umesh.atm.journal.JournalRecordCodecTest.transaction;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalTransactionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<LocalTransactionJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        journals.forEach(LocalTransactionJournal::stop);
+    }
+
+    @Test
+    void recoversUncommittedRecordsAfterRestart() throws Exception {
+        LocalTransactionJournal journal = start(16);
+        CompletableFuture<Transaction> neverCommitted = new CompletableFuture<>();
+        journal.append(transaction(1L, TxnStatus.PENDING), true, neverCommitted).get(5, TimeUnit.SECONDS);
+        journal.append(transaction(1L, TxnStatus.APPROVED), false, neverCommitted).get(5, TimeUnit.SECONDS);
+        journal.append(transaction(2L, TxnStatus.PENDING), true, neverCommitted).get(5, TimeUnit.SECONDS);
+        journal.stop();
+
+        LocalTransactionJournal restarted = start(16);
+
+        assertThat(restarted.getRecoveredSegments()).hasSize(1);
+        List<Transaction> records = restarted.readSegment(restarted.getRecoveredSegments().get(0));
+        assertThat(records).extracting(Transaction::getId).containsExactly(1L, 1L, 2L);
+        assertThat(records).extracting(Transaction::getStatus)
+                .containsExactly(TxnStatus.PENDING, TxnStatus.APPROVED, TxnStatus.PENDING);
+        assertThat(records.get(1)).usingRecursiveComparison().isEqualTo(transaction(1L, TxnStatus.APPROVED));
+    }
+
+    @Test
+    void deletesFullSegmentOnceEveryRecordIsCommitted() throws Exception {
+        LocalTransactionJournal journal = start(2);
+        CompletableFuture<Transaction> first = new CompletableFuture<>();
+        CompletableFuture<Transaction> second = new CompletableFuture<>();
+        journal.append(transaction(1L, TxnStatus.PENDING), true, first).get(5, TimeUnit.SECONDS);
+        journal.append(transaction(2L, TxnStatus.PENDING), true, second).get(5, TimeUnit.SECONDS);
+        // Third record rolls over to a new segment
+        journal.append(transaction(3L, TxnStatus.PENDING), true, new CompletableFuture<>()).get(5, TimeUnit.SECONDS);
+        assertThat(segments()).hasSize(2);
+
+        first.complete(null);
+        assertThat(segments()).hasSize(2);
+
+        second.complete(null);
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void keepsSegmentWithFailedCommit() throws Exception {
+        LocalTransactionJournal journal = start(1);
+        CompletableFuture<Transaction> failed = new CompletableFuture<>();
+        journal.append(transaction(1L, TxnStatus.PENDING), true, failed).get(5, TimeUnit.SECONDS);
+        journal.append(transaction(2L, TxnStatus.PENDING), true, CompletableFuture.completedFuture(null))
+                .get(5, TimeUnit.SECONDS);
+
+        failed.completeExceptionally(new IllegalStateException("database down"));
+
+        assertThat(segments()).hasSize(2);
+    }
+
+    @Test
+    void recoversSegmentWrittenByVersion1() throws Exception {
+        ByteBuffer records = JournalRecordCodecTest.version1Segment(
+                transaction(1L, TxnStatus.PENDING), transaction(1L, TxnStatus.APPROVED));
+        Files.write(directory.resolve("txn-000000000001.wal"), records.array());
+
+        LocalTransactionJournal journal = start(16);
+
+        assertThat(journal.getRecoveredSegments()).hasSize(1);
+        assertThat(journal.readSegment(journal.getRecoveredSegments().get(0)))
+                .extracting(Transaction::getStatus)
+                .containsExactly(TxnStatus.PENDING, TxnStatus.APPROVED);
+    }
+
+    @Test
+    void startsWithNothingToRecover() throws Exception {
+        LocalTransactionJournal journal = start(16);
+
+        assertThat(journal.getRecoveredSegments()).isEmpty();
+        assertThat(journal.whenSynced(1L)).isNull();
+    }
+
+    private LocalTransactionJournal start(int segmentRecords) throws Exception {
+        LocalTransactionJournal journal = new LocalTransactionJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "directory", directory.toString());
+        ReflectionTestUtils.setField(journal, "segmentRecords", segmentRecords);
+        journal.start();
+        journals.add(journal);
+        return journal;
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.umesh.atm.journal;
+
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.TxnStatus;
+import com.umesh.atm.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.umesh.atm.journal.JournalRecordCodecTest.transaction;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionJournalReconcilerTest {
+
+    private static final Path SEGMENT = Path.of("txn-000000000001.wal");
+
+    @Mock
+    private LocalTransactionJournal localJournal;
+
+    @Mock
+    private TransactionJournalWriter journalWriter;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private TransactionJournalReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        reconciler = new TransactionJournalReconciler(localJournal, journalWriter, transactionRepository);
+        ReflectionTestUtils.setField(reconciler, "chunkSize", 2);
+        when(localJournal.getRecoveredSegments()).thenReturn(List.of(SEGMENT));
+    }
+
+    @Test
+    void convergesDatabaseOnLatestRecordPerTransaction() throws Exception {
+        when(localJournal.readSegment(SEGMENT)).thenReturn(List.of(
+                transaction(1L, TxnStatus.PENDING),
+                transaction(2L, TxnStatus.PENDING),
+                transaction(1L, TxnStatus.APPROVED),
+                transaction(2L, TxnStatus.APPROVED),
+                transaction(3L, TxnStatus.APPROVED)));
+        when(transactionRepository.findAllById(any())).thenReturn(
+                List.of(transaction(2L, TxnStatus.PENDING)),
+                List.of(transaction(3L, TxnStatus.APPROVED)));
+        when(journalWriter.appendInsert(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(journalWriter.appendStatusChange(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        reconciler.reconcile();
+
+        // Missing row inserted in its final state, lagging row updated, current row left alone
+        verify(journalWriter).appendInsert(argThat(txn -> txn.getId() == 1L && txn.getStatus() == TxnStatus.APPROVED));
+        verify(journalWriter).appendStatusChange(argThat(txn -> txn.getId() == 2L && txn.getStatus() == TxnStatus.APPROVED));
+        verify(journalWriter, never()).appendStatusChange(argThat(txn -> txn.getId() == 3L));
+        verify(localJournal).discardRecovered(SEGMENT);
+    }
+
+    @Test
+    void keepsSegmentWhenReplayFails() throws Exception {
+        when(localJournal.readSegment(SEGMENT)).thenReturn(List.of(transaction(1L, TxnStatus.APPROVED)));
+        when(transactionRepository.findAllById(any())).thenReturn(List.<Transaction>of());
+        when(journalWriter.appendInsert(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("database down")));
+
+        reconciler.reconcile();
+
+        verify(localJournal, never()).discardRecovered(SEGMENT);
+    }
+}
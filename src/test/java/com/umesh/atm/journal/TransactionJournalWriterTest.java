@@ -0,0 +1,175 @@
+package com.umesh.atm.journal;
+
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.TxnStatus;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the writer loop on the test thread: entries are queued first, then drained in one pass,
+ * so what ends up in a batch is deterministic.
+ */
+@ExtendWith(MockitoExtension.class)
+class TransactionJournalWriterTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionJournalWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new TransactionJournalWriter(entityManager, jdbcTemplate, transactionTemplate);
+        ReflectionTestUtils.setField(writer, "batchSize", 500);
+        ReflectionTestUtils.setField(writer, "maxDelayMs", 5L);
+        ReflectionTestUtils.setField(writer, "maxAttempts", 3);
+        ReflectionTestUtils.setField(writer, "retryBackoffMs", 0L);
+        ReflectionTestUtils.setField(writer, "queue", new ArrayBlockingQueue<>(100));
+        ReflectionTestUtils.setField(writer, "running", true);
+
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(new SimpleTransactionStatus()));
+    }
+
+    @Test
+    void foldsStatusChangeIntoQueuedInsert() {
+        CompletableFuture<Transaction> inserted = writer.appendInsert(transaction(1L, TxnStatus.PENDING));
+        CompletableFuture<Transaction> approved = writer.appendStatusChange(transaction(1L, TxnStatus.APPROVED));
+        assertThat(writer.findUnflushed(1L).getStatus()).isEqualTo(TxnStatus.APPROVED);
+
+        drain();
+
+        ArgumentCaptor<Transaction> persisted = ArgumentCaptor.forClass(Transaction.class);
+        verify(entityManager).persist(persisted.capture());
+        assertThat(persisted.getValue().getStatus()).isEqualTo(TxnStatus.APPROVED);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertThat(inserted).isCompleted();
+        assertThat(approved.join().getStatus()).isEqualTo(TxnStatus.APPROVED);
+        assertThat(writer.findUnflushed(1L)).isNull();
+        assertThat(writer.whenPersisted(1L)).isNull();
+    }
+
+    @Test
+    void failsStatusChangeForMissingRow() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{0}});
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(7L))).thenReturn(0);
+
+        CompletableFuture<Transaction> future = writer.appendStatusChange(transaction(7L, TxnStatus.APPROVED));
+        drain();
+
+        assertThat(future).failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void treatsStatusChangeToReversedRowAsStale() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{0}});
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(7L))).thenReturn(1);
+
+        CompletableFuture<Transaction> future = writer.appendStatusChange(transaction(7L, TxnStatus.APPROVED));
+        drain();
+
+        assertThat(future).isCompleted();
+    }
+
+    @Test
+    void retriesFailedBatch() {
+        doThrow(new IllegalStateException("connection reset"))
+                .doNothing()
+                .when(entityManager).persist(any(Transaction.class));
+
+        CompletableFuture<Transaction> future = writer.appendInsert(transaction(1L, TxnStatus.PENDING));
+        drain();
+
+        verify(entityManager, times(2)).persist(any(Transaction.class));
+        assertThat(future).isCompleted();
+    }
+
+    @Test
+    void failsOnlyTheBadEntryOfABatch() {
+        doThrow(new IllegalStateException("constraint violation"))
+                .when(entityManager).persist(argThat((Transaction txn) -> txn.getId() == 2L));
+
+        CompletableFuture<Transaction> first = writer.appendInsert(transaction(1L, TxnStatus.PENDING));
+        CompletableFuture<Transaction> bad = writer.appendInsert(transaction(2L, TxnStatus.PENDING));
+        CompletableFuture<Transaction> third = writer.appendInsert(transaction(3L, TxnStatus.PENDING));
+        drain();
+
+        assertThat(first).isCompleted();
+        assertThat(bad).isCompletedExceptionally();
+        assertThat(third).isCompleted();
+        assertThat(writer.findUnflushed(2L)).isNull();
+    }
+
+    @Test
+    void rejectsAppendsAfterShutdown() {
+        ReflectionTestUtils.setField(writer, "running", false);
+
+        assertThat(writer.appendInsert(transaction(1L, TxnStatus.PENDING))).isCompletedExceptionally();
+    }
+
+    private void drain() {
+        // The loop exits once the queue is empty and the writer is no longer running
+        ReflectionTestUtils.setField(writer, "running", false);
+        ReflectionTestUtils.invokeMethod(writer, "writeLoop");
+    }
+
+    private static Transaction transaction(long id, TxnStatus status) {
+        return Transaction.builder()
+                .id(id)
+                .mti("0200")
+                .processingCode("010000")
+                .stan("000001")
+                .rrn("000000000001")
+                .terminalId("ATM001")
+                .cardToken("tok_test")
+                .amountMinor(100_000L)
+                .currency("INR")
+                .localTxnDateTime(Instant.parse("2025-01-15T10:00:00Z"))
+                .status(status)
+                .responseCode(status == TxnStatus.APPROVED ? "00" : null)
+                .completedAt(status == TxnStatus.PENDING ? null : Instant.parse("2025-01-15T10:00:01Z"))
+                .build();
+    }
+}
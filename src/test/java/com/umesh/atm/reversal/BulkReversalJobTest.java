@@ -0,0 +1,372 @@
+package com.umesh.atm.reversal;
+
+import com.umesh.atm.corebanking.AccountSnapshotCache;
+import com.umesh.atm.entity.ReversalCheckpoint;
+import com.umesh.atm.entity.ReversalJob;
+import com.umesh.atm.entity.Transaction;
+import com.umesh.atm.enums.ReversalJobStatus;
+import com.umesh.atm.enums.TxnStatus;
+import com.umesh.atm.idgen.TransactionIdentifierGenerator;
+import com.umesh.atm.index.RecentRrnIndex;
+import com.umesh.atm.journal.TransactionJournalWriter;
+import com.umesh.atm.limits.DailyCardUsageStore;
+import com.umesh.atm.partition.TransactionPartitionManager;
+import com.umesh.atm.repository.ReversalCheckpointRepository;
+import com.umesh.atm.repository.ReversalJobRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the job against an in-memory stand-in for atm_transaction and the checkpoint table: the chunk
+ * query, the REVERSE_SQL batch and the checkpoint updates read and write {@link #rows} and the checkpoint.
+ */
+@ExtendWith(MockitoExtension.class)
+class BulkReversalJobTest {
+
+    private static final String TERMINAL = "ATM00001";
+    private static final Instant FROM = Instant.parse("2026-10-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2026-10-02T00:00:00Z");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ReversalJobRepository jobRepository;
+
+    @Mock
+    private ReversalCheckpointRepository checkpointRepository;
+
+    @Mock
+    private TransactionIdentifierGenerator identifierGenerator;
+
+    @Mock
+    private TransactionJournalWriter journalWriter;
+
+    @Mock
+    private DailyCardUsageStore dailyUsageStore;
+
+    @Mock
+    private AccountSnapshotCache accountCache;
+
+    @Mock
+    private RecentRrnIndex rrnIndex;
+
+    @Mock
+    private TransactionPartitionManager partitionManager;
+
+    private final Map<Long, Transaction> rows = new TreeMap<>();
+    private final List<Transaction> persisted = new ArrayList<>();
+
+    private BulkReversalJob bulkReversalJob;
+    private ReversalJob job;
+    private ReversalCheckpoint checkpoint;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        bulkReversalJob = new BulkReversalJob(jdbcTemplate, transactionTemplate, entityManager, jobRepository,
+                checkpointRepository, identifierGenerator, journalWriter, dailyUsageStore, accountCache, rrnIndex,
+                partitionManager);
+        ReflectionTestUtils.setField(bulkReversalJob, "parallelism", 1);
+        ReflectionTestUtils.setField(bulkReversalJob, "chunkSize", 2);
+        ReflectionTestUtils.setField(bulkReversalJob, "unflushedWaitSeconds", 1L);
+
+        job = ReversalJob.builder().id("job-1").statuses("PENDING,TIMEOUT").windowFrom(FROM).windowTo(TO)
+                .reason("SWITCH_OUTAGE").startedAt(FROM).build();
+        checkpoint = ReversalCheckpoint.builder().id(1L).jobId("job-1").terminalId(TERMINAL).build();
+
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(new SimpleTransactionStatus()));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(new SimpleTransactionStatus());
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        // CHUNK_SQL: terminal, id > lastId, status IN (...), window, ORDER BY id LIMIT
+        lenient().when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] args = (Object[]) invocation.getRawArguments()[2];
+            long lastId = (Long) args[1];
+            List<Object> statuses = Arrays.asList(args).subList(2, args.length - 3);
+            int limit = (Integer) args[args.length - 1];
+            return rows.values().stream()
+                    .filter(row -> row.getTerminalId().equals(args[0]) && row.getId() > lastId
+                            && statuses.contains(row.getStatus().name()))
+                    .limit(limit)
+                    .map(BulkReversalJobTest::copy)
+                    .toList();
+        });
+        // REVERSE_SQL
+        lenient().when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            for (Transaction original : invocation.<Collection<Transaction>>getArgument(1)) {
+                rows.get(original.getId()).setStatus(TxnStatus.REVERSED);
+            }
+            return new int[][]{};
+        });
+        lenient().doAnswer(invocation -> persisted.add(invocation.getArgument(0)))
+                .when(entityManager).persist(any(Transaction.class));
+        lenient().when(checkpointRepository.advance(anyLong(), anyLong(), anyInt())).thenAnswer(invocation -> {
+            checkpoint.setLastTransactionId(invocation.getArgument(1));
+            checkpoint.setReversedCount(checkpoint.getReversedCount() + invocation.<Integer>getArgument(2));
+            return 1;
+        });
+        lenient().when(checkpointRepository.markCompleted(anyLong())).thenAnswer(invocation -> {
+            checkpoint.setCompleted(true);
+            return 1;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ReflectionTestUtils.getField(bulkReversalJob, "workers") != null) {
+            bulkReversalJob.stop();
+        }
+        // Never leak an interrupt into the next test
+        Thread.interrupted();
+    }
+
+    @Test
+    void reversesMatchingTransactionsChunkByChunk() {
+        row(1L, TxnStatus.PENDING);
+        row(2L, TxnStatus.TIMEOUT);
+        row(3L, TxnStatus.APPROVED);
+        row(4L, TxnStatus.PENDING);
+        row(5L, TxnStatus.PENDING);
+        rows.put(6L, Transaction.builder().id(6L).terminalId("ATM00002").status(TxnStatus.PENDING).build());
+
+        reverseTerminal(checkpoint);
+
+        assertThat(originalsOf(persisted)).containsExactly(1L, 2L, 4L, 5L);
+        assertThat(rows.get(3L).getStatus()).isEqualTo(TxnStatus.APPROVED);
+        assertThat(rows.get(6L).getStatus()).isEqualTo(TxnStatus.PENDING);
+        assertThat(checkpoint.getLastTransactionId()).isEqualTo(5L);
+        assertThat(checkpoint.getReversedCount()).isEqualTo(4);
+        assertThat(checkpoint.getCompleted()).isTrue();
+        // Two full chunks, then the empty one that ends the terminal
+        verify(checkpointRepository, times(2)).advance(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    void stopsChunkAtUnflushedJournalEntry() {
+        row(1L, TxnStatus.PENDING);
+        row(2L, TxnStatus.PENDING);
+        // Lenient, as the chunk scan asks the journal about every candidate
+        lenient().when(journalWriter.findUnflushed(2L)).thenReturn(rows.get(2L));
+
+        Object chunk = ReflectionTestUtils.invokeMethod(bulkReversalJob, "reverseChunk", job, checkpoint, 0L);
+
+        assertThat((Long) ReflectionTestUtils.invokeMethod(chunk, "blockedOn")).isEqualTo(2L);
+        assertThat((Long) ReflectionTestUtils.invokeMethod(chunk, "lastId")).isEqualTo(1L);
+        assertThat(originalsOf(persisted)).containsExactly(1L);
+        assertThat(rows.get(2L).getStatus()).isEqualTo(TxnStatus.PENDING);
+        // The checkpoint never moves past the transaction that was not reversed
+        assertThat(checkpoint.getLastTransactionId()).isEqualTo(1L);
+    }
+
+    @Test
+    void continuesOnceBlockingEntryIsFlushed() {
+        row(1L, TxnStatus.PENDING);
+        row(2L, TxnStatus.PENDING);
+        row(3L, TxnStatus.TIMEOUT);
+        Transaction queued = copy(rows.get(2L));
+        lenient().when(journalWriter.findUnflushed(2L)).thenReturn(queued, (Transaction) null);
+        when(journalWriter.whenPersisted(2L)).thenReturn(CompletableFuture.completedFuture(queued));
+
+        reverseTerminal(checkpoint);
+
+        assertThat(originalsOf(persisted)).containsExactly(1L, 2L, 3L);
+        assertThat(checkpoint.getLastTransactionId()).isEqualTo(3L);
+        assertThat(checkpoint.getCompleted()).isTrue();
+    }
+
+    @Test
+    void failsTerminalWhenEntryStaysUnflushed() {
+        row(1L, TxnStatus.PENDING);
+        row(2L, TxnStatus.PENDING);
+        ReflectionTestUtils.setField(bulkReversalJob, "unflushedWaitSeconds", 0L);
+        lenient().when(journalWriter.findUnflushed(2L)).thenReturn(rows.get(2L));
+        when(journalWriter.whenPersisted(2L)).thenReturn(new CompletableFuture<>());
+
+        assertThatThrownBy(() -> reverseTerminal(checkpoint)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(checkpoint.getLastTransactionId()).isEqualTo(1L);
+        assertThat(checkpoint.getCompleted()).isFalse();
+    }
+
+    @Test
+    void resumesFromCheckpoint() {
+        // A previous run reversed 1 and 2 and advanced the checkpoint with them before stopping
+        row(1L, TxnStatus.REVERSED);
+        row(2L, TxnStatus.REVERSED);
+        row(3L, TxnStatus.PENDING);
+        row(4L, TxnStatus.TIMEOUT);
+        checkpoint.setLastTransactionId(2L);
+        checkpoint.setReversedCount(2);
+
+        reverseTerminal(checkpoint);
+
+        assertThat(originalsOf(persisted)).containsExactly(3L, 4L);
+        assertThat(checkpoint.getReversedCount()).isEqualTo(4);
+        assertThat(queriedAfter()).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void neverReversesTheSameTransactionTwice() {
+        row(1L, TxnStatus.REVERSED);
+        row(2L, TxnStatus.PENDING);
+
+        reverseTerminal(checkpoint);
+        // Running the terminal again from scratch finds nothing left in the job's statuses
+        reverseTerminal(ReversalCheckpoint.builder().id(1L).jobId("job-1").terminalId(TERMINAL).build());
+
+        assertThat(originalsOf(persisted)).containsExactly(2L);
+        assertThatThrownBy(() -> bulkReversalJob.start(Set.of(TxnStatus.PENDING, TxnStatus.REVERSED), FROM, TO, "RETRY"))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(jobRepository, never()).save(any());
+    }
+
+    @Test
+    void failsWhenInterrupted() {
+        row(1L, TxnStatus.PENDING);
+
+        Thread.currentThread().interrupt();
+
+        assertThatThrownBy(() -> reverseTerminal(checkpoint)).isInstanceOf(CancellationException.class);
+        assertThat(persisted).isEmpty();
+        assertThat(checkpoint.getCompleted()).isFalse();
+    }
+
+    @Test
+    void failsWhenInterruptedWaitingForFlush() {
+        row(1L, TxnStatus.PENDING);
+        row(2L, TxnStatus.PENDING);
+        lenient().when(journalWriter.findUnflushed(2L)).thenAnswer(invocation -> {
+            Thread.currentThread().interrupt();
+            return rows.get(2L);
+        });
+        when(journalWriter.whenPersisted(2L)).thenReturn(new CompletableFuture<>());
+
+        assertThatThrownBy(() -> reverseTerminal(checkpoint)).isInstanceOf(CancellationException.class);
+
+        assertThat(originalsOf(persisted)).containsExactly(1L);
+        assertThat(checkpoint.getLastTransactionId()).isEqualTo(1L);
+        assertThat(checkpoint.getCompleted()).isFalse();
+    }
+
+    @Test
+    void resumesFailedJobAndCompletesIt() {
+        row(1L, TxnStatus.REVERSED);
+        row(2L, TxnStatus.PENDING);
+        row(3L, TxnStatus.PENDING);
+        checkpoint.setLastTransactionId(1L);
+        checkpoint.setReversedCount(1);
+        job.setStatus(ReversalJobStatus.FAILED);
+        job.setLastError("java.lang.IllegalStateException: still unflushed");
+        when(jobRepository.findByStatusIn(any())).thenReturn(List.of(job));
+        when(checkpointRepository.findByJobId("job-1")).thenReturn(List.of(checkpoint));
+        bulkReversalJob.init();
+
+        bulkReversalJob.resumeUnfinishedJobs();
+
+        // Once when resumed, once with the outcome
+        verify(jobRepository, timeout(5000).times(2)).save(job);
+        assertThat(job.getStatus()).isEqualTo(ReversalJobStatus.COMPLETED);
+        assertThat(job.getLastError()).isNull();
+        assertThat(originalsOf(persisted)).containsExactly(2L, 3L);
+        assertThat(bulkReversalJob.getReversedCount("job-1")).isEqualTo(3);
+    }
+
+    @Test
+    void marksJobFailedWhenTerminalFails() {
+        row(1L, TxnStatus.PENDING);
+        ReflectionTestUtils.setField(bulkReversalJob, "unflushedWaitSeconds", 0L);
+        when(journalWriter.findUnflushed(1L)).thenReturn(rows.get(1L));
+        when(journalWriter.whenPersisted(1L)).thenReturn(new CompletableFuture<>());
+        when(checkpointRepository.findByJobId("job-1")).thenReturn(List.of(checkpoint));
+        bulkReversalJob.init();
+
+        ReflectionTestUtils.invokeMethod(bulkReversalJob, "run", job);
+
+        verify(jobRepository, timeout(5000)).save(job);
+        assertThat(job.getStatus()).isEqualTo(ReversalJobStatus.FAILED);
+        assertThat(job.getLastError()).contains("unflushed");
+        assertThat(checkpoint.getCompleted()).isFalse();
+    }
+
+    private void reverseTerminal(ReversalCheckpoint terminal) {
+        ReflectionTestUtils.invokeMethod(bulkReversalJob, "reverseTerminal", job, terminal);
+    }
+
+    private void row(Long id, TxnStatus status) {
+        rows.put(id, Transaction.builder().id(id).terminalId(TERMINAL).cardToken("TOKEN-1").amountMinor(50000L)
+                .currency("INR").processingCode("010000").status(status).build());
+    }
+
+    /**
+     * The lastId each chunk query started after, in order.
+     */
+    private List<Long> queriedAfter() {
+        List<Long> lastIds = new ArrayList<>();
+        mockingDetails(jdbcTemplate).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("query"))
+                .forEach(invocation -> lastIds.add((Long) ((Object[]) invocation.getRawArguments()[2])[1]));
+        return lastIds;
+    }
+
+    private static List<Long> originalsOf(List<Transaction> reversals) {
+        return reversals.stream().map(Transaction::getOriginalTransactionId).toList();
+    }
+
+    private static Transaction copy(Transaction row) {
+        return Transaction.builder().id(row.getId()).terminalId(row.getTerminalId()).cardToken(row.getCardToken())
+                .amountMinor(row.getAmountMinor()).currency(row.getCurrency()).processingCode(row.getProcessingCode())
+                .status(row.getStatus()).build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.umesh.atm.security;
+
+import com.umesh.atm.repository.CardRepository;
+import com.umesh.atm.repository.CardRepository.IssuedToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KnownCardTokenFilterTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private KnownCardTokenFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new KnownCardTokenFilter(cardRepository, transactionTemplate);
+        ReflectionTestUtils.setField(filter, "expectedCards", 1000L);
+        ReflectionTestUtils.setField(filter, "falsePositiveRate", 0.0001);
+        ReflectionTestUtils.setField(filter, "refreshBatch", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        filter.stop();
+    }
+
+    @Test
+    void reportsEveryTokenAsPossiblyKnownUntilBuilt() {
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.mightContain("TOKEN-UNKNOWN")).isTrue();
+    }
+
+    @Test
+    void rejectsTokensMissingFromTheBuild() {
+        build(2L, "TOKEN-1", "TOKEN-2");
+
+        assertThat(filter.isReady()).isTrue();
+        assertThat(filter.mightContain("TOKEN-1")).isTrue();
+        assertThat(filter.mightContain("TOKEN-2")).isTrue();
+        assertThat(filter.mightContain("TOKEN-UNKNOWN")).isFalse();
+    }
+
+    @Test
+    void addsCardsIssuedAfterTheBuildOnRefresh() {
+        build(2L, "TOKEN-1", "TOKEN-2");
+        when(cardRepository.findTokensIssuedAfter(2L, Limit.of(2)))
+                .thenReturn(List.of(new Issued(3L, "TOKEN-3"), new Issued(4L, "TOKEN-4")));
+        when(cardRepository.findTokensIssuedAfter(4L, Limit.of(2)))
+                .thenReturn(List.of(new Issued(5L, "TOKEN-5")));
+
+        ReflectionTestUtils.invokeMethod(filter, "refresh");
+
+        assertThat(filter.mightContain("TOKEN-3")).isTrue();
+        assertThat(filter.mightContain("TOKEN-4")).isTrue();
+        assertThat(filter.mightContain("TOKEN-5")).isTrue();
+        assertThat(filter.mightContain("TOKEN-6")).isFalse();
+    }
+
+    @Test
+    void rescansThePreviousIntervalForLateCommits() {
+        build(2L, "TOKEN-1", "TOKEN-2");
+        when(cardRepository.findTokensIssuedAfter(2L, Limit.of(2)))
+                .thenReturn(List.of(new Issued(4L, "TOKEN-4")))
+                // Id 3 was allocated first but committed after the first refresh
+                .thenReturn(List.of(new Issued(3L, "TOKEN-3"), new Issued(4L, "TOKEN-4")));
+        when(cardRepository.findTokensIssuedAfter(4L, Limit.of(2))).thenReturn(List.of());
+
+        ReflectionTestUtils.invokeMethod(filter, "refresh");
+        assertThat(filter.mightContain("TOKEN-3")).isFalse();
+
+        ReflectionTestUtils.invokeMethod(filter, "refresh");
+        assertThat(filter.mightContain("TOKEN-3")).isTrue();
+
+        // Both ids are behind the tail now: the next refresh starts after 4 (once as a continuation above)
+        ReflectionTestUtils.invokeMethod(filter, "refresh");
+        verify(cardRepository, times(2)).findTokensIssuedAfter(eq(4L), any(Limit.class));
+    }
+
+    @Test
+    void skipsRefreshUntilBuilt() {
+        ReflectionTestUtils.invokeMethod(filter, "refresh");
+
+        verify(cardRepository, never()).findTokensIssuedAfter(anyLong(), any(Limit.class));
+    }
+
+    private void build(Long maxId, String... tokens) {
+        when(cardRepository.findMaxId()).thenReturn(maxId);
+        when(cardRepository.streamAllTokens()).thenReturn(Stream.of(tokens));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        ReflectionTestUtils.invokeMethod(filter, "rebuild");
+    }
+
+    private record Issued(Long id, String token) implements IssuedToken {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getToken() {
+            return token;
+        }
+    }
+}